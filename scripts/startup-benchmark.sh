@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Mide el tiempo hasta que /api/simulation/health responde con el jar normal, con AOT y con AOT + CDS.
+# Requiere haber ejecutado antes: gradle bootJar cdsArchive
+#
+# Uso: scripts/startup-benchmark.sh [repeticiones] [puerto]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${2:-18080}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CDS_DIR="$ROOT/build/cds"
+JAR="$(ls "$CDS_DIR"/*.jar 2>/dev/null | head -n 1 || true)"
+
+if [[ -z "$JAR" || ! -f "$CDS_DIR/application.jsa" ]]; then
+    echo "No se encuentra build/cds: ejecuta antes 'gradle bootJar cdsArchive'" >&2
+    exit 1
+fi
+
+now_ms() { date +%s%3N; }
+
+# Arranca la aplicación con las opciones dadas y devuelve los milisegundos hasta la primera respuesta
+measure() {
+    local start pid elapsed
+    start=$(now_ms)
+    (cd "$CDS_DIR" && exec java "$@" -Dserver.port="$PORT" -jar "$(basename "$JAR")") >/dev/null 2>&1 &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/api/simulation/health" >/dev/null 2>&1; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "La aplicación terminó antes de responder" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+run_config() {
+    local name="$1"
+    shift
+    local total=0 best=0 t
+    for ((i = 1; i <= RUNS; i++)); do
+        t=$(measure "$@")
+        total=$((total + t))
+        if ((best == 0 || t < best)); then best=$t; fi
+    done
+    printf "%-12s media %6d ms   mejor %6d ms\n" "$name" $((total / RUNS)) "$best"
+}
+
+echo "Arranques por configuración: $RUNS (jar: $(basename "$JAR"))"
+run_config "jar"
+run_config "aot" -Dspring.aot.enabled=true
+run_config "aot+cds" -Dspring.aot.enabled=true -XX:SharedArchiveFile=application.jsa -Xlog:cds=off
@@ -0,0 +1,63 @@
+package com.example.icu_sim;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.service.IcuSimulationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ejecución de entrenamiento para el archivo AppCDS (tarea Gradle cdsArchive): con
+ * {@code icu-sim.training-run=true} arranca la aplicación, ejecuta simulaciones cortas representativas con
+ * los motores más usados, serializa los resultados como lo haría el controlador y termina, de modo que las
+ * clases que se cargan en una ejecución real quedan en el archivo.
+ *
+ * La propiedad se lee en tiempo de ejecución (no con @ConditionalOnProperty) porque con AOT las condiciones
+ * se evalúan al compilar.
+ */
+@Component
+public class CdsTrainingRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CdsTrainingRunner.class);
+
+    @Value("${icu-sim.training-run:false}")
+    private boolean trainingRun;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws JsonProcessingException {
+        if (!trainingRun) {
+            return;
+        }
+        logger.info("Ejecución de entrenamiento CDS.");
+        for (IcuSimulationRequest.SchedulingMode mode : IcuSimulationRequest.SchedulingMode.values()) {
+            IcuSimulationRequest request = new IcuSimulationRequest();
+            request.setMaxSteps(480);
+            request.setSeed(1);
+            request.setSchedulingMode(mode);
+            SimulationResult result = new IcuSimulationService().runSimulation(request);
+            objectMapper.writeValueAsString(result);
+        }
+        IcuSimulationRequest compact = new IcuSimulationRequest();
+        compact.setMaxSteps(480);
+        compact.setSeed(1);
+        compact.setAgentStorage(IcuSimulationRequest.AgentStorage.COMPACT);
+        objectMapper.writeValueAsString(new IcuSimulationService().runSimulation(compact));
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
@@ -0,0 +1,384 @@
+package com.example.icu_sim.cli;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.data.FloorPlan;
+import com.example.icu_sim.service.IcuSimulationService;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ejecución por lotes desde la línea de comandos, sin Spring ni servidor HTTP.
+ *
+ * Lee solicitudes de ficheros JSON (un objeto IcuSimulationRequest o un array) o CSV (cabecera con los
+ * nombres de las propiedades y una solicitud por fila; las celdas vacías dejan el valor por defecto y una columna
+ * que no es una propiedad se rechaza), las ejecuta en paralelo con el mismo motor que /api/simulation/run y
+ * escribe en el directorio de salida:
+ *
+ * - summary.csv: una fila por ejecución con métricas finales, medias y máximas, en el orden de entrada.
+ * - run-N.csv (con --series): serie por paso de % de pacientes y trabajadores infectados y KNN total.
+ *
+ * Las ejecuciones no guardan snapshots del grid. Uso:
+ *
+ *   BatchCli [--out DIR] [--threads N] [--series] [--plans DIR] FICHERO...
+ *
+ * Los floorPlanPath en fichero se resuelven bajo --plans (por defecto, el directorio actual), con las mismas
+ * reglas que en el servidor: nombres relativos sin '..'.
+ *
+ * Desde Gradle: gradle runBatch --args="--out resultados barrido.csv". Termina con código 1 si alguna
+ * ejecución falla y con 2 si los argumentos no son válidos.
+ */
+public class BatchCli {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCli.class);
+
+    private static final String SUMMARY_HEADER = "run,source,seed,status,elapsedMs,steps,totalPatients,totalWorkers,"
+            + "finalPctPatientsInfected,meanPctPatientsInfected,maxPctPatientsInfected,"
+            + "finalPctWorkersInfected,meanPctWorkersInfected,maxPctWorkersInfected,finalTotalKnn,strainCount,stopReason";
+
+    // Los nombres de propiedad no distinguen mayúsculas: "nPatients" y "npatients" son la misma
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
+            .build();
+
+    private Path outputDir = Path.of("batch-results");
+    private Path plansDirectory = Path.of("");
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean writeSeries = false;
+    private final List<Path> inputs = new ArrayList<>();
+
+    private static final class Run {
+        private final int index;
+        private final String source;
+        private final IcuSimulationRequest request;
+
+        private Run(int index, String source, IcuSimulationRequest request) {
+            this.index = index;
+            this.source = source;
+            this.request = request;
+        }
+    }
+
+    public static void main(String[] args) {
+        BatchCli cli = new BatchCli();
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uso: BatchCli [--out DIR] [--threads N] [--series] [--plans DIR] FICHERO...");
+            System.exit(2);
+        }
+        try {
+            int failures = cli.run();
+            System.exit(failures > 0 ? 1 : 0);
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage() + ": " + e.getCause().getMessage());
+            System.exit(2);
+        }
+    }
+
+    void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> outputDir = Path.of(value(args, ++i, "--out"));
+                case "--threads" -> {
+                    try {
+                        threads = Integer.parseInt(value(args, ++i, "--threads"));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("--threads debe ser un entero");
+                    }
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads debe ser al menos 1");
+                    }
+                }
+                case "--series" -> writeSeries = true;
+                case "--plans" -> plansDirectory = Path.of(value(args, ++i, "--plans"));
+                default -> {
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+                    }
+                    inputs.add(Path.of(args[i]));
+                }
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("No se ha indicado ningún fichero de solicitudes");
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + option);
+        }
+        return args[i];
+    }
+
+    /**
+     * Ejecuta todas las solicitudes y devuelve el número de ejecuciones fallidas.
+     */
+    int run() {
+        FloorPlan.setPlansDirectory(plansDirectory);
+        List<Run> runs = new ArrayList<>();
+        try {
+            for (Path input : inputs) {
+                for (IcuSimulationRequest request : readRequests(input)) {
+                    runs.add(new Run(runs.size(), input.getFileName().toString(), request));
+                }
+            }
+            Files.createDirectories(outputDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pueden leer las solicitudes o crear " + outputDir, e);
+        }
+        logger.info("Lote de {} ejecuciones con {} hilos; resultados en {}", runs.size(), threads, outputDir);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<String>> futures = new ArrayList<>();
+        for (Run run : runs) {
+            futures.add(executor.submit(() -> execute(run)));
+        }
+
+        int failures = 0;
+        try (BufferedWriter summary = Files.newBufferedWriter(outputDir.resolve("summary.csv"), StandardCharsets.UTF_8)) {
+            summary.write(SUMMARY_HEADER);
+            summary.newLine();
+            // Se escriben en el orden de entrada para que el fichero no dependa de la planificación
+            for (int i = 0; i < runs.size(); i++) {
+                String row;
+                try {
+                    row = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    logger.error("Error en la ejecución {}", i, e.getCause());
+                    row = failedRow(runs.get(i), e.getCause());
+                }
+                summary.write(row);
+                summary.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se puede escribir summary.csv", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lote interrumpido", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Lote terminado: {} ejecuciones, {} fallidas", runs.size(), failures);
+        return failures;
+    }
+
+    private String execute(Run run) throws IOException {
+        IcuSimulationRequest request = new IcuSimulationRequest(run.request);
+        request.setSaveLogs(false);
+        request.setSaveGridSnapshots(false);
+
+        long start = System.nanoTime();
+        SimulationResult result = new IcuSimulationService().runSimulation(request);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        if (writeSeries) {
+            writeSeries(run.index, result);
+        }
+
+        List<Double> patients = result.getPctPatientsInfected();
+        List<Double> workers = result.getPctWorkersInfected();
+        List<Long> knn = result.getTotalKnnQuantity();
+        return String.join(",",
+                Integer.toString(run.index),
+                csv(run.source),
+                Long.toString(request.getSeed()),
+                "ok",
+                Long.toString(elapsedMs),
+                Integer.toString(patients.size()),
+                Integer.toString(result.getTotalPatients()),
+                Integer.toString(result.getTotalWorkers()),
+                number(last(patients)), number(mean(patients)), number(max(patients)),
+                number(last(workers)), number(mean(workers)), number(max(workers)),
+                knn.isEmpty() ? "" : Long.toString(knn.get(knn.size() - 1)),
+                Integer.toString(result.getStrainCount()),
+                result.getStopReason().toString());
+    }
+
+    private static String failedRow(Run run, Throwable error) {
+        StringBuilder row = new StringBuilder()
+                .append(run.index).append(',')
+                .append(csv(run.source)).append(',')
+                .append(run.request.getSeed()).append(',')
+                .append(csv("error: " + error));
+        // Columnas de métricas vacías
+        for (int i = 4; i < SUMMARY_HEADER.split(",").length; i++) {
+            row.append(',');
+        }
+        return row.toString();
+    }
+
+    private void writeSeries(int index, SimulationResult result) throws IOException {
+        List<Double> patients = result.getPctPatientsInfected();
+        List<Double> workers = result.getPctWorkersInfected();
+        List<Long> knn = result.getTotalKnnQuantity();
+        try (BufferedWriter out = Files.newBufferedWriter(outputDir.resolve("run-" + index + ".csv"), StandardCharsets.UTF_8)) {
+            out.write("step,pctPatientsInfected,pctWorkersInfected,totalKnn");
+            out.newLine();
+            for (int step = 0; step < patients.size(); step++) {
+                out.write((step + 1) + "," + number(patients.get(step)) + ","
+                        + (step < workers.size() ? number(workers.get(step)) : "") + ","
+                        + (step < knn.size() ? knn.get(step) : ""));
+                out.newLine();
+            }
+        }
+    }
+
+    // ---- Lectura de solicitudes ----
+
+    List<IcuSimulationRequest> readRequests(Path file) throws IOException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return readCsv(file);
+        }
+        JsonNode root = mapper.readTree(file.toFile());
+        List<IcuSimulationRequest> requests = new ArrayList<>();
+        if (root.isArray()) {
+            for (JsonNode node : root) {
+                requests.add(mapper.treeToValue(node, IcuSimulationRequest.class));
+            }
+        } else {
+            requests.add(mapper.treeToValue(root, IcuSimulationRequest.class));
+        }
+        return requests;
+    }
+
+    private List<IcuSimulationRequest> readCsv(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<IcuSimulationRequest> requests = new ArrayList<>();
+        List<String> header = null;
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n);
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            List<String> fields = splitCsvLine(line);
+            if (header == null) {
+                header = fields.stream().map(String::trim).toList();
+                // IcuSimulationRequest ignora las propiedades desconocidas: una columna mal escrita dejaría el
+                // valor por defecto en todas las filas sin avisar
+                Set<String> known = propertyNames();
+                for (String column : header) {
+                    if (!known.contains(column.toLowerCase(Locale.ROOT))) {
+                        throw new IOException(file + ":" + (n + 1) + ": columna desconocida '" + column + "'");
+                    }
+                }
+                continue;
+            }
+            if (fields.size() > header.size()) {
+                throw new IOException(file + ":" + (n + 1) + ": más columnas que en la cabecera");
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                String v = fields.get(i).trim();
+                if (!v.isEmpty()) {
+                    values.put(header.get(i), v);
+                }
+            }
+            try {
+                requests.add(mapper.convertValue(values, IcuSimulationRequest.class));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ":" + (n + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Propiedades de IcuSimulationRequest que se pueden asignar, en minúsculas.
+     */
+    private Set<String> propertyNames() {
+        BeanDescription description = mapper.getDeserializationConfig()
+                .introspect(mapper.constructType(IcuSimulationRequest.class));
+        Set<String> names = new HashSet<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (property.couldDeserialize()) {
+                names.add(property.getName().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Separa una línea CSV por comas; admite campos entre comillas dobles con "" como comilla escapada.
+     */
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    // ---- Formato ----
+
+    private static String csv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : Double.toString(value);
+    }
+
+    private static double last(List<Double> series) {
+        return series.isEmpty() ? Double.NaN : series.get(series.size() - 1);
+    }
+
+    private static double mean(List<Double> series) {
+        return series.stream().mapToDouble(Double::doubleValue).average().orElse(Double.NaN);
+    }
+
+    private static double max(List<Double> series) {
+        return series.stream().mapToDouble(Double::doubleValue).max().orElse(Double.NaN);
+    }
+}
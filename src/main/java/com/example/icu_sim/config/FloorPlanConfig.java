@@ -0,0 +1,33 @@
+package com.example.icu_sim.config;
+
+import com.example.icu_sim.model.data.FloorPlan;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Directorio de los planos en fichero que pueden pedir las solicitudes (floorPlanPath). Vacío: solo los
+ * recursos classpath:floorplans/...
+ */
+@Configuration
+public class FloorPlanConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(FloorPlanConfig.class);
+
+    @Value("${icu-sim.floorplans.directory:}")
+    private String directory;
+
+    @PostConstruct
+    void init() {
+        if (directory == null || directory.isBlank()) {
+            FloorPlan.setPlansDirectory(null);
+            return;
+        }
+        FloorPlan.setPlansDirectory(Path.of(directory.trim()));
+        logger.info("Planos en fichero desde {}", FloorPlan.getPlansDirectory());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.icu_sim.config;
+
+import com.example.icu_sim.controller.SimulationFeedHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Endpoint WebSocket del feed en vivo de simulaciones. Sin icu-sim.live.allowed-origins solo se aceptan
+ * conexiones del mismo origen.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private SimulationFeedHandler simulationFeedHandler;
+
+    @Value("${icu-sim.live.allowed-origins:}")
+    private String[] allowedOrigins;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(simulationFeedHandler, "/ws/simulation").setAllowedOrigins(allowedOrigins);
+    }
+}
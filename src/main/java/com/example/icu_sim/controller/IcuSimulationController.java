@@ -1,13 +1,49 @@
 package com.example.icu_sim.controller;
 
+import com.example.icu_sim.model.AdaptiveBatchRequest;
+import com.example.icu_sim.model.AdaptiveBatchResult;
+import com.example.icu_sim.model.BatchRequest;
+import com.example.icu_sim.model.BatchResult;
+import com.example.icu_sim.model.CalibrationRequest;
+import com.example.icu_sim.model.CalibrationResult;
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.HospitalSimulationResult;
 import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.ParameterRange;
+import com.example.icu_sim.model.ReplicateStatistics;
+import com.example.icu_sim.model.ResourceEstimate;
+import com.example.icu_sim.model.ScenarioRequest;
+import com.example.icu_sim.model.ScenarioResult;
+import com.example.icu_sim.model.SensitivityRequest;
+import com.example.icu_sim.model.SensitivityResult;
+import com.example.icu_sim.model.ShardRequest;
 import com.example.icu_sim.model.SimulationResult;
-import com.example.icu_sim.service.IcuSimulationService;
+import com.example.icu_sim.model.TransmissionReport;
+import com.example.icu_sim.service.AdaptiveReplicateService;
+import com.example.icu_sim.service.AdmissionRejectedException;
+import com.example.icu_sim.service.AdmissionService;
+import com.example.icu_sim.service.BatchCoordinatorService;
+import com.example.icu_sim.service.CalibrationService;
+import com.example.icu_sim.service.FlightRecordingService;
+import com.example.icu_sim.service.HospitalSimulationService;
+import com.example.icu_sim.service.ReplicateRunner;
+import com.example.icu_sim.service.RequestParameters;
+import com.example.icu_sim.service.ScenarioService;
+import com.example.icu_sim.service.SensitivityAnalysisService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/simulation")
 public class IcuSimulationController {
@@ -15,12 +51,174 @@ public class IcuSimulationController {
     private static final Logger logger = LoggerFactory.getLogger(IcuSimulationController.class);
 
     @Autowired
-    private IcuSimulationService simulationService;
+    private AdmissionService admissionService;
+
+    @Autowired
+    private HospitalSimulationService hospitalSimulationService;
+
+    @Autowired
+    private BatchCoordinatorService batchCoordinatorService;
+
+    @Autowired
+    private ReplicateRunner replicateRunner;
+
+    @Autowired
+    private AdaptiveReplicateService adaptiveReplicateService;
+
+    @Autowired
+    private SensitivityAnalysisService sensitivityAnalysisService;
+
+    @Autowired
+    private CalibrationService calibrationService;
+
+    @Autowired
+    private ScenarioService scenarioService;
+
+    @Autowired
+    private FlightRecordingService flightRecordingService;
 
     @PostMapping("/run")
-    public SimulationResult runSimulation(@RequestBody IcuSimulationRequest request) {
+    public SimulationResult runSimulation(@RequestBody IcuSimulationRequest request,
+                                          @RequestParam(defaultValue = "false") boolean record) {
         logger.info("Received simulation request: {}", request.toString());
-        return simulationService.runSimulation(request);
+        List<String> notes = new ArrayList<>();
+        IcuSimulationRequest admitted = admissionService.admit(request, notes);
+        String recordingId = record ? flightRecordingService.start() : null;
+        SimulationResult result;
+        try {
+            result = admissionService.newEngine().runSimulation(admitted);
+        } catch (RuntimeException e) {
+            if (recordingId != null) {
+                logger.warn("Simulation failed; JFR recording {} is still available", recordingId);
+            }
+            throw e;
+        } finally {
+            if (recordingId != null) {
+                flightRecordingService.stop(recordingId);
+            }
+        }
+        result.getAdmissionNotes().addAll(notes);
+        result.setRecordingId(recordingId);
+        return result;
+    }
+
+    @GetMapping("/recordings")
+    public ResponseEntity<List<String>> listRecordings() {
+        if (!flightRecordingService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(flightRecordingService.getRecordingIds());
+    }
+
+    @GetMapping("/recordings/{id}")
+    public ResponseEntity<Resource> downloadRecording(@PathVariable String id) {
+        Path path = flightRecordingService.isEnabled() ? flightRecordingService.getRecording(id) : null;
+        if (path == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + id + ".jfr\"")
+                .body(new FileSystemResource(path));
+    }
+
+    @PostMapping("/estimate")
+    public ResourceEstimate estimate(@RequestBody IcuSimulationRequest request) {
+        return admissionService.estimate(request);
+    }
+
+    @PostMapping("/hospital")
+    public HospitalSimulationResult runHospitalSimulation(@RequestBody HospitalSimulationRequest request) {
+        logger.info("Received hospital simulation request: {}", request.toString());
+        admissionService.checkHospital(request);
+        return hospitalSimulationService.runSimulation(request);
+    }
+
+    @PostMapping("/batch")
+    public BatchResult runBatch(@RequestBody BatchRequest request) {
+        logger.info("Received batch request: {}", request.toString());
+        batchCoordinatorService.checkReplicates("replicates", request.getReplicates());
+        admissionService.checkBatchCpu(admissionService.admitReplicate(request.getRequest()), request.getReplicates());
+        return batchCoordinatorService.runBatch(request);
+    }
+
+    @PostMapping("/batch/adaptive")
+    public AdaptiveBatchResult runAdaptiveBatch(@RequestBody AdaptiveBatchRequest request) {
+        logger.info("Received adaptive batch request: {}", request.toString());
+        batchCoordinatorService.checkReplicates("maxReplicates", request.getMaxReplicates());
+        admissionService.checkBatchCpu(admissionService.admitReplicate(request.getRequest()), request.getMaxReplicates());
+        return adaptiveReplicateService.run(request);
+    }
+
+    @PostMapping("/sensitivity")
+    public SensitivityResult runSensitivityAnalysis(@RequestBody SensitivityRequest request) {
+        logger.info("Received sensitivity request: {}", request.toString());
+        sensitivityAnalysisService.validate(request);
+        double cpu = admissionService.admitReplicate(upperCorner(request.getRequest(), request.getParameters()));
+        long runs = (long) request.getBaseSamples() * (request.getParameters().size() + 2) * request.getReplicatesPerPoint();
+        admissionService.checkBatchCpu(cpu, runs);
+        return sensitivityAnalysisService.run(request);
+    }
+
+    @PostMapping("/calibrate")
+    public CalibrationResult runCalibration(@RequestBody CalibrationRequest request) {
+        logger.info("Received calibration request: {}", request.toString());
+        calibrationService.validate(request);
+        IcuSimulationRequest corner = upperCorner(request.getRequest(), request.getPriors());
+        corner.setMaxSteps(request.getObserved().size() * Math.max(1, request.getObservationInterval()));
+        admissionService.checkBatchCpu(admissionService.admitReplicate(corner), request.getMaxSimulations());
+        return calibrationService.run(request);
+    }
+
+    @PostMapping("/scenarios")
+    public ScenarioResult runScenarios(@RequestBody ScenarioRequest request) {
+        logger.info("Received scenario comparison request: {}", request.toString());
+        // Cada brazo (y la base) ejecuta replicates réplicas
+        double cpu = admissionService.admitReplicate(request.getRequest());
+        for (ScenarioRequest.Arm arm : request.getArms()) {
+            IcuSimulationRequest armRequest = new IcuSimulationRequest(request.getRequest());
+            if (arm.getInterventions() != null) {
+                armRequest.getInterventions().addAll(arm.getInterventions());
+            }
+            cpu += admissionService.admitReplicate(armRequest);
+        }
+        admissionService.checkBatchCpu(cpu, request.getReplicates());
+        return scenarioService.run(request);
+    }
+
+    @PostMapping("/shard")
+    public ReplicateStatistics runShard(@RequestBody ShardRequest request) {
+        if (request.getSeeds() == null) {
+            throw new AdmissionRejectedException("El fragmento no tiene semillas");
+        }
+        logger.info("Received shard with {} seeds", request.getSeeds().size());
+        batchCoordinatorService.checkReplicates("seeds", request.getSeeds().size());
+        ReplicateRunner.checkSeeds(request.getSeeds());
+        admissionService.checkBatchCpu(admissionService.admitReplicate(request.getRequest()), request.getSeeds().size());
+        return replicateRunner.runReplicates(request.getRequest(), request.getSeeds());
+    }
+
+    @PostMapping("/transmissions")
+    public TransmissionReport runTransmissionAnalysis(@RequestBody IcuSimulationRequest request,
+                                                      @RequestParam(defaultValue = "10") int top,
+                                                      @RequestParam(defaultValue = "500") int maxTreeNodes) {
+        logger.info("Received transmission analysis request: {}", request.toString());
+        IcuSimulationRequest admitted = new IcuSimulationRequest(request);
+        admitted.setSaveGridSnapshots(false);
+        return admissionService.newEngine().runTransmissionAnalysis(admissionService.admit(admitted, new ArrayList<>()), top, maxTreeNodes);
+    }
+
+    /**
+     * Copia con cada parámetro en el extremo superior de su rango, la más cara si los parámetros son tamaños.
+     */
+    private static IcuSimulationRequest upperCorner(IcuSimulationRequest template, List<ParameterRange> ranges) {
+        IcuSimulationRequest corner = new IcuSimulationRequest(template);
+        for (ParameterRange range : ranges) {
+            if (RequestParameters.isKnown(range.getName())) {
+                RequestParameters.set(corner, range.getName(), Math.max(range.getMin(), range.getMax()));
+            }
+        }
+        return corner;
     }
 
     @GetMapping("/health")
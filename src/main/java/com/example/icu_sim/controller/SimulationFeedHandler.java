@@ -0,0 +1,262 @@
+package com.example.icu_sim.controller;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.service.AdmissionService;
+import com.example.icu_sim.service.GridFrameEncoder;
+import com.example.icu_sim.service.IcuSimulationService;
+import com.example.icu_sim.service.ResourceEstimator;
+import com.example.icu_sim.service.SimulationCancelledException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed en vivo de una simulación por WebSocket (/ws/simulation?fps=10).
+ *
+ * El cliente envía un IcuSimulationRequest en JSON como mensaje de texto. La simulación se admite igual que en
+ * /run y se ejecuta en un hilo propio; como mucho {@code fps} veces por segundo (fps=0: cada paso) se codifica
+ * un frame binario con GridFrameEncoder. Los frames pasan al hilo de envío por una cola de un solo hueco: si el
+ * cliente no ha recibido aún el anterior, se descarta y queda el más reciente, así que un cliente lento nunca
+ * frena la simulación. Al terminar se envía un mensaje de texto {"type":"end",...} (o {"type":"error",...}) y se
+ * cierra la sesión. Si el cliente se desconecta, la simulación se cancela.
+ *
+ * Como mucho icu-sim.live.max-sessions sesiones a la vez (las demás se cierran con SERVICE_OVERLOAD), con dos
+ * hilos cada una de un pool fijo. Los mensajes de error pueden coincidir con el hilo de envío, así que la sesión
+ * se envuelve en un ConcurrentWebSocketSessionDecorator.
+ */
+@Component
+public class SimulationFeedHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulationFeedHandler.class);
+
+    private static final int DEFAULT_FPS = 10;
+    private static final int MAX_FPS = 60;
+    // ConcurrentWebSocketSessionDecorator: tiempo máximo de un envío y bytes en espera antes de cerrar la sesión
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_LIMIT_BYTES = 64 * 1024 * 1024;
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${icu-sim.live.max-sessions:8}")
+    private int maxSessions;
+
+    private ExecutorService executor;
+    private Semaphore sessions;
+    private final Map<String, LiveRun> runs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        sessions = new Semaphore(Math.max(1, maxSessions));
+        // Hilo de la simulación y hilo de envío de cada sesión
+        executor = Executors.newFixedThreadPool(2 * Math.max(1, maxSessions));
+    }
+
+    /**
+     * Ejecución asociada a una sesión: motor, cola de un hueco con el último frame y contadores.
+     */
+    private static final class LiveRun {
+        private final WebSocketSession session;
+        private final long frameIntervalNanos;
+        private final BlockingQueue<WebSocketMessage<?>> pending = new ArrayBlockingQueue<>(1);
+        private final AtomicLong sentFrames = new AtomicLong();
+        private final AtomicLong droppedFrames = new AtomicLong();
+        private volatile IcuSimulationService engine;
+        private volatile boolean finished;
+        private long nextFrameNanos;
+
+        private LiveRun(WebSocketSession session, int fps) {
+            this.session = session;
+            this.frameIntervalNanos = fps > 0 ? 1_000_000_000L / fps : 0;
+            this.nextFrameNanos = System.nanoTime();
+        }
+
+        /**
+         * Deja el frame en la cola sin bloquear; si había otro sin enviar, lo descarta.
+         */
+        private void offer(WebSocketMessage<?> frame) {
+            while (!pending.offer(frame)) {
+                if (pending.poll() != null) {
+                    droppedFrames.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        if (!sessions.tryAcquire()) {
+            logger.info("Feed en vivo {} rechazado: ya hay {} sesiones", session.getId(), maxSessions);
+            sendError(session, "Demasiadas sesiones del feed en vivo (máximo " + maxSessions + ")");
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        WebSocketSession concurrent = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT_BYTES);
+        runs.put(session.getId(), new LiveRun(concurrent, requestedFps(session)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        LiveRun run = runs.get(session.getId());
+        if (run == null) {
+            return;
+        }
+        if (run.engine != null) {
+            sendError(run.session, "La sesión ya tiene una simulación en curso");
+            return;
+        }
+        IcuSimulationRequest admitted;
+        List<String> notes = new ArrayList<>();
+        try {
+            IcuSimulationRequest request = objectMapper.readValue(message.getPayload(), IcuSimulationRequest.class);
+            // El feed sustituye a los snapshots del grid
+            request.setSaveGridSnapshots(false);
+            admitted = admissionService.admit(request, notes);
+            if (ResourceEstimator.cellCount(admitted) > GridFrameEncoder.MAX_CELLS) {
+                throw new IllegalArgumentException("El feed en vivo admite grids de como mucho "
+                        + GridFrameEncoder.MAX_CELLS + " celdas");
+            }
+        } catch (IOException | RuntimeException e) {
+            sendError(run.session, e.getMessage());
+            run.session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        IcuSimulationService engine = admissionService.newEngine();
+        engine.setStepListener((step, e) -> {
+            long now = System.nanoTime();
+            if (now - run.nextFrameNanos >= 0) {
+                run.nextFrameNanos = now + run.frameIntervalNanos;
+                run.offer(new BinaryMessage(GridFrameEncoder.encode(step, e)));
+            }
+        });
+        run.engine = engine;
+        logger.info("Feed en vivo {}: {}", session.getId(), admitted);
+        executor.submit(() -> send(run));
+        executor.submit(() -> simulate(run, admitted, notes));
+    }
+
+    private void simulate(LiveRun run, IcuSimulationRequest request, List<String> notes) {
+        Map<String, Object> end = new LinkedHashMap<>();
+        try {
+            SimulationResult result = run.engine.runSimulation(request);
+            end.put("type", "end");
+            end.put("stopReason", result.getStopReason());
+            end.put("stopStep", result.getStopStep());
+            end.put("admissionNotes", notes);
+        } catch (SimulationCancelledException e) {
+            end.put("type", "cancelled");
+            end.put("message", e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Error en el feed en vivo {}", run.session.getId(), e);
+            end.put("type", "error");
+            end.put("message", e.getMessage());
+        }
+        // El hilo de envío manda los frames pendientes y después este mensaje
+        run.finished = true;
+        end.put("droppedFrames", run.droppedFrames.get());
+        try {
+            if (!run.pending.offer(new TextMessage(objectMapper.writeValueAsString(end)), 5, TimeUnit.SECONDS)) {
+                logger.info("Feed en vivo {}: el cliente no recogió el mensaje final", run.session.getId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("No se pudo serializar el fin del feed {}", run.session.getId(), e);
+        }
+    }
+
+    private void send(LiveRun run) {
+        try {
+            while (run.session.isOpen()) {
+                WebSocketMessage<?> message = run.pending.poll(200, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    continue;
+                }
+                run.session.sendMessage(message);
+                if (message instanceof TextMessage && run.finished) {
+                    run.session.close(CloseStatus.NORMAL);
+                    return;
+                }
+                run.sentFrames.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.info("Feed en vivo {} cerrado por el cliente: {}", run.session.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        LiveRun run = runs.remove(session.getId());
+        if (run != null) {
+            sessions.release();
+        }
+        if (run != null && run.engine != null) {
+            run.engine.cancel();
+            logger.info("Feed en vivo {} terminado: {} frames enviados, {} descartados",
+                    session.getId(), run.sentFrames.get(), run.droppedFrames.get());
+        }
+    }
+
+    private void sendError(WebSocketSession session, String message) throws IOException {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("type", "error");
+        error.put("message", message);
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
+    }
+
+    private static int requestedFps(WebSocketSession session) {
+        if (session.getUri() == null) {
+            return DEFAULT_FPS;
+        }
+        String fps = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("fps");
+        try {
+            return fps == null ? DEFAULT_FPS : Math.max(0, Math.min(MAX_FPS, Integer.parseInt(fps)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_FPS;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runs.values().forEach(run -> {
+            if (run.engine != null) {
+                run.engine.cancel();
+            }
+        });
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.icu_sim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Primer paso de la ejecución con algún paciente infectado.
+ */
+@Name("com.example.icu_sim.FirstPatientInfection")
+@Label("Primera infección de paciente")
+@Category({"ICU Simulation"})
+@Description("Primer paso de la ejecución con algún paciente infectado")
+@StackTrace(false)
+public class FirstPatientInfectionEvent extends Event {
+
+    private static final FirstPatientInfectionEvent PROBE = new FirstPatientInfectionEvent();
+
+    @Label("Paso")
+    public int step;
+
+    @Label("Paciente")
+    @Description("Id del primer paciente infectado de la lista (vacío con AgentStorage.COMPACT)")
+    public String patientId;
+
+    @Label("Cepa")
+    @Description("Cepa del KNN de ese paciente (-1 con AgentStorage.COMPACT)")
+    public int strainId;
+
+    @Label("Pacientes infectados")
+    public int infectedPatients;
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.icu_sim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodo con todas las camas de UCI ocupadas: empieza en el paso en que se llenan y termina cuando queda una
+ * libre o acaba la ejecución.
+ */
+@Name("com.example.icu_sim.IcuSaturation")
+@Label("UCI saturada")
+@Category({"ICU Simulation"})
+@Description("Periodo con todas las camas de UCI ocupadas")
+@StackTrace(false)
+public class IcuSaturationEvent extends Event {
+
+    private static final IcuSaturationEvent PROBE = new IcuSaturationEvent();
+
+    @Label("Paso inicial")
+    public int startStep;
+
+    @Label("Paso final")
+    public int endStep;
+
+    @Label("Camas")
+    public int totalBeds;
+
+    @Label("Cola máxima")
+    @Description("Pacientes esperando cama (solo con bedAllocationMode MANAGED)")
+    public int maxQueueLength;
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.icu_sim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Paso con muchas más mutaciones de KNN de las esperadas: más de la media más tres desviaciones típicas de una
+ * Poisson con media (celdas con KNN x probabilidad de mutación por celda).
+ */
+@Name("com.example.icu_sim.KnnMutationBurst")
+@Label("Ráfaga de mutaciones de KNN")
+@Category({"ICU Simulation"})
+@Description("Paso con más mutaciones de KNN de las esperadas por la tasa de mutación")
+@StackTrace(false)
+public class KnnMutationBurstEvent extends Event {
+
+    private static final KnnMutationBurstEvent PROBE = new KnnMutationBurstEvent();
+
+    @Label("Paso")
+    public int step;
+
+    @Label("Mutaciones")
+    public int mutations;
+
+    @Label("Mutaciones esperadas")
+    public double expected;
+
+    @Label("Cepas")
+    @Description("Cepas distintas en la tabla tras el paso")
+    public int strains;
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.icu_sim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Una ejecución de IcuSimulationService, de principio a fin, con los parámetros principales de la solicitud.
+ */
+@Name("com.example.icu_sim.SimulationRun")
+@Label("Ejecución de simulación")
+@Category({"ICU Simulation"})
+@Description("Ejecución completa de runSimulation con los parámetros de la solicitud y el motivo de parada")
+@StackTrace(false)
+public class SimulationRunEvent extends Event {
+
+    private static final SimulationRunEvent PROBE = new SimulationRunEvent();
+
+    @Label("Semilla")
+    public long seed;
+
+    @Label("Pacientes")
+    public int patients;
+
+    @Label("Trabajadores")
+    public int workers;
+
+    @Label("Celdas")
+    public int cells;
+
+    @Label("Pasos máximos")
+    public int maxSteps;
+
+    @Label("Motor")
+    public String engineMode;
+
+    @Label("Almacenamiento de agentes")
+    public String agentStorage;
+
+    @Label("Planificación")
+    public String schedulingMode;
+
+    @Label("Actualización de KNN")
+    public String bacteriaUpdateMode;
+
+    @Label("Último paso")
+    public int stopStep;
+
+    @Label("Motivo de parada")
+    @Description("StopReason del resultado, o la excepción si la ejecución no terminó")
+    public String stopReason;
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.icu_sim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Un paso del motor de agentes con el tiempo de cada fase, para relacionar las muestras de CPU con el tiempo
+ * simulado.
+ */
+@Name("com.example.icu_sim.SimulationStep")
+@Label("Paso de simulación")
+@Category({"ICU Simulation"})
+@Description("Paso del motor de agentes con el tiempo de cada fase y la prevalencia al terminar")
+@StackTrace(false)
+public class SimulationStepEvent extends Event {
+
+    private static final SimulationStepEvent PROBE = new SimulationStepEvent();
+
+    @Label("Paso")
+    public int step;
+
+    @Label("Llegadas")
+    @Timespan(Timespan.NANOSECONDS)
+    public long arrivals;
+
+    @Label("KNN")
+    @Description("Crecimiento, muerte, movimiento y mutación de KNN en las celdas")
+    @Timespan(Timespan.NANOSECONDS)
+    public long bacteria;
+
+    @Label("Agentes")
+    @Description("Movimiento y step() de trabajadores y pacientes")
+    @Timespan(Timespan.NANOSECONDS)
+    public long agents;
+
+    @Label("Camas de UCI")
+    @Timespan(Timespan.NANOSECONDS)
+    public long beds;
+
+    @Label("Tratamientos")
+    @Timespan(Timespan.NANOSECONDS)
+    public long treatments;
+
+    @Label("Métricas y snapshots")
+    @Timespan(Timespan.NANOSECONDS)
+    public long metrics;
+
+    @Label("% pacientes infectados")
+    public double pctPatientsInfected;
+
+    @Label("% trabajadores infectados")
+    public double pctWorkersInfected;
+
+    // Inicio de la fase en curso; transient para que no se grabe
+    private transient long mark;
+
+    public static boolean enabled() {
+        return PROBE.isEnabled();
+    }
+
+    public void start(int step) {
+        this.step = step;
+        begin();
+        mark = System.nanoTime();
+    }
+
+    /**
+     * Nanosegundos desde la fase anterior (o desde start), y empieza la siguiente.
+     */
+    public long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - mark;
+        mark = now;
+        return elapsed;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lote de réplicas con número adaptativo: se lanzan rondas de réplicas hasta que los intervalos de confianza de
+ * las métricas elegidas son lo bastante estrechos (ver AdaptiveReplicateService).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AdaptiveBatchRequest {
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private long baseSeed = 1; // Réplica i => semilla baseSeed + i, como en BatchRequest
+    // Métricas de ReplicateStatistics (finalPctPatientsInfected, meanPctWorkersInfected, ...)
+    private List<String> metrics = new ArrayList<>(List.of("finalPctPatientsInfected"));
+    private double confidenceLevel = 0.95;
+    private double targetHalfWidth = 0.5; // Semiamplitud absoluta del IC (en las unidades de la métrica)
+    private double targetRelativeHalfWidth = 0.0; // Alternativa relativa a |media|: basta con cumplir una (0 = no)
+    private int minReplicates = 10;
+    private int maxReplicates = 1000;
+    private int roundSize = 10; // Réplicas por ronda; el resultado depende de él, no del número de hilos
+    private int shardSize = 10; // Réplicas por fragmento enviado a un worker
+
+    public AdaptiveBatchRequest() {}
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public long getBaseSeed() { return baseSeed; }
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    public List<String> getMetrics() { return metrics; }
+    public void setMetrics(List<String> metrics) { this.metrics = metrics; }
+
+    public double getConfidenceLevel() { return confidenceLevel; }
+    public void setConfidenceLevel(double confidenceLevel) { this.confidenceLevel = confidenceLevel; }
+
+    public double getTargetHalfWidth() { return targetHalfWidth; }
+    public void setTargetHalfWidth(double targetHalfWidth) { this.targetHalfWidth = targetHalfWidth; }
+
+    public double getTargetRelativeHalfWidth() { return targetRelativeHalfWidth; }
+    public void setTargetRelativeHalfWidth(double targetRelativeHalfWidth) { this.targetRelativeHalfWidth = targetRelativeHalfWidth; }
+
+    public int getMinReplicates() { return minReplicates; }
+    public void setMinReplicates(int minReplicates) { this.minReplicates = minReplicates; }
+
+    public int getMaxReplicates() { return maxReplicates; }
+    public void setMaxReplicates(int maxReplicates) { this.maxReplicates = maxReplicates; }
+
+    public int getRoundSize() { return roundSize; }
+    public void setRoundSize(int roundSize) { this.roundSize = roundSize; }
+
+    public int getShardSize() { return shardSize; }
+    public void setShardSize(int shardSize) { this.shardSize = shardSize; }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBatchRequest{" +
+                "request=" + request +
+                ", baseSeed=" + baseSeed +
+                ", metrics=" + metrics +
+                ", confidenceLevel=" + confidenceLevel +
+                ", targetHalfWidth=" + targetHalfWidth +
+                ", targetRelativeHalfWidth=" + targetRelativeHalfWidth +
+                ", minReplicates=" + minReplicates +
+                ", maxReplicates=" + maxReplicates +
+                ", roundSize=" + roundSize +
+                ", shardSize=" + shardSize +
+                '}';
+    }
+}
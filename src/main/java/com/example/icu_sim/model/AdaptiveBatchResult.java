@@ -0,0 +1,66 @@
+package com.example.icu_sim.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class AdaptiveBatchResult {
+
+    /**
+     * Estimación de una métrica: media e intervalo de confianza.
+     */
+    public static class MetricEstimate {
+        private double mean;
+        private double halfWidth;
+        private double lower;
+        private double upper;
+        private double std;
+        private boolean converged; // La semiamplitud cumple el objetivo
+
+        public MetricEstimate() {}
+
+        public double getMean() { return mean; }
+        public void setMean(double mean) { this.mean = mean; }
+
+        public double getHalfWidth() { return halfWidth; }
+        public void setHalfWidth(double halfWidth) { this.halfWidth = halfWidth; }
+
+        public double getLower() { return lower; }
+        public void setLower(double lower) { this.lower = lower; }
+
+        public double getUpper() { return upper; }
+        public void setUpper(double upper) { this.upper = upper; }
+
+        public double getStd() { return std; }
+        public void setStd(double std) { this.std = std; }
+
+        public boolean isConverged() { return converged; }
+        public void setConverged(boolean converged) { this.converged = converged; }
+    }
+
+    private int replicates;
+    private int rounds;
+    private boolean converged; // false si se llegó a maxReplicates sin cumplir el objetivo
+    private double confidenceLevel;
+    private Map<String, MetricEstimate> estimates = new LinkedHashMap<>();
+    private ReplicateStatistics statistics = new ReplicateStatistics();
+
+    public AdaptiveBatchResult() {}
+
+    public int getReplicates() { return replicates; }
+    public void setReplicates(int replicates) { this.replicates = replicates; }
+
+    public int getRounds() { return rounds; }
+    public void setRounds(int rounds) { this.rounds = rounds; }
+
+    public boolean isConverged() { return converged; }
+    public void setConverged(boolean converged) { this.converged = converged; }
+
+    public double getConfidenceLevel() { return confidenceLevel; }
+    public void setConfidenceLevel(double confidenceLevel) { this.confidenceLevel = confidenceLevel; }
+
+    public Map<String, MetricEstimate> getEstimates() { return estimates; }
+    public void setEstimates(Map<String, MetricEstimate> estimates) { this.estimates = estimates; }
+
+    public ReplicateStatistics getStatistics() { return statistics; }
+    public void setStatistics(ReplicateStatistics statistics) { this.statistics = statistics; }
+}
@@ -0,0 +1,35 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchRequest {
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private int replicates = 100;
+    private long baseSeed = 1; // Réplica i => semilla baseSeed + i
+    private int shardSize = 10; // Réplicas por fragmento enviado a un worker
+
+    public BatchRequest() {}
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public int getReplicates() { return replicates; }
+    public void setReplicates(int replicates) { this.replicates = replicates; }
+
+    public long getBaseSeed() { return baseSeed; }
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    public int getShardSize() { return shardSize; }
+    public void setShardSize(int shardSize) { this.shardSize = shardSize; }
+
+    @Override
+    public String toString() {
+        return "BatchRequest{" +
+                "request=" + request +
+                ", replicates=" + replicates +
+                ", baseSeed=" + baseSeed +
+                ", shardSize=" + shardSize +
+                '}';
+    }
+}
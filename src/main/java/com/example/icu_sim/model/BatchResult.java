@@ -0,0 +1,28 @@
+package com.example.icu_sim.model;
+
+public class BatchResult {
+    private ReplicateStatistics statistics;
+    private int shards;
+    private int remoteShards; // Ejecutados en workers
+    private int localShards;  // Ejecutados en el coordinador (sin workers o tras agotar reintentos)
+    private int retries;
+
+    public BatchResult() {
+        this.statistics = new ReplicateStatistics();
+    }
+
+    public ReplicateStatistics getStatistics() { return statistics; }
+    public void setStatistics(ReplicateStatistics statistics) { this.statistics = statistics; }
+
+    public int getShards() { return shards; }
+    public void setShards(int shards) { this.shards = shards; }
+
+    public int getRemoteShards() { return remoteShards; }
+    public void setRemoteShards(int remoteShards) { this.remoteShards = remoteShards; }
+
+    public int getLocalShards() { return localShards; }
+    public void setLocalShards(int localShards) { this.localShards = localShards; }
+
+    public int getRetries() { return retries; }
+    public void setRetries(int retries) { this.retries = retries; }
+}
@@ -0,0 +1,83 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calibración por ABC-SMC de parámetros de la solicitud frente a una serie observada en la sala (ver
+ * CalibrationService).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CalibrationRequest {
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private List<ParameterRange> priors = new ArrayList<>(); // Priors uniformes en [min, max]
+    // Valor observado por periodo: nuevas infecciones de pacientes en cada periodo de observationInterval pasos
+    private List<Double> observed = new ArrayList<>();
+    private int observationInterval = 720; // 30 días * 24 pasos/día
+    private int populationSize = 200;
+    private int generations = 5;
+    private double toleranceQuantile = 0.5; // Tolerancia de cada generación: cuantil de las distancias de la anterior
+    private double targetTolerance = 0.0; // Se para al alcanzarla (0 = se hacen todas las generaciones)
+    private int maxSimulations = 50000;
+    private boolean earlyRejection = true; // Abortar una simulación en cuanto su distancia parcial supera la tolerancia
+    private long samplingSeed = 1; // Semilla de las propuestas
+    private long baseSeed = 1; // Simulación i => semilla baseSeed + i
+
+    public CalibrationRequest() {}
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public List<ParameterRange> getPriors() { return priors; }
+    public void setPriors(List<ParameterRange> priors) { this.priors = priors; }
+
+    public List<Double> getObserved() { return observed; }
+    public void setObserved(List<Double> observed) { this.observed = observed; }
+
+    public int getObservationInterval() { return observationInterval; }
+    public void setObservationInterval(int observationInterval) { this.observationInterval = observationInterval; }
+
+    public int getPopulationSize() { return populationSize; }
+    public void setPopulationSize(int populationSize) { this.populationSize = populationSize; }
+
+    public int getGenerations() { return generations; }
+    public void setGenerations(int generations) { this.generations = generations; }
+
+    public double getToleranceQuantile() { return toleranceQuantile; }
+    public void setToleranceQuantile(double toleranceQuantile) { this.toleranceQuantile = toleranceQuantile; }
+
+    public double getTargetTolerance() { return targetTolerance; }
+    public void setTargetTolerance(double targetTolerance) { this.targetTolerance = targetTolerance; }
+
+    public int getMaxSimulations() { return maxSimulations; }
+    public void setMaxSimulations(int maxSimulations) { this.maxSimulations = maxSimulations; }
+
+    public boolean isEarlyRejection() { return earlyRejection; }
+    public void setEarlyRejection(boolean earlyRejection) { this.earlyRejection = earlyRejection; }
+
+    public long getSamplingSeed() { return samplingSeed; }
+    public void setSamplingSeed(long samplingSeed) { this.samplingSeed = samplingSeed; }
+
+    public long getBaseSeed() { return baseSeed; }
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    @Override
+    public String toString() {
+        return "CalibrationRequest{" +
+                "request=" + request +
+                ", priors=" + priors +
+                ", observed=" + observed +
+                ", observationInterval=" + observationInterval +
+                ", populationSize=" + populationSize +
+                ", generations=" + generations +
+                ", toleranceQuantile=" + toleranceQuantile +
+                ", targetTolerance=" + targetTolerance +
+                ", maxSimulations=" + maxSimulations +
+                ", earlyRejection=" + earlyRejection +
+                ", samplingSeed=" + samplingSeed +
+                ", baseSeed=" + baseSeed +
+                '}';
+    }
+}
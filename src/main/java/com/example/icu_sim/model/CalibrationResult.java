@@ -0,0 +1,96 @@
+package com.example.icu_sim.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CalibrationResult {
+
+    /**
+     * Partícula de la población final: valores de los parámetros, peso normalizado y distancia.
+     */
+    public static class Particle {
+        private Map<String, Double> parameters = new LinkedHashMap<>();
+        private double weight;
+        private double distance;
+
+        public Particle() {}
+
+        public Map<String, Double> getParameters() { return parameters; }
+        public void setParameters(Map<String, Double> parameters) { this.parameters = parameters; }
+
+        public double getWeight() { return weight; }
+        public void setWeight(double weight) { this.weight = weight; }
+
+        public double getDistance() { return distance; }
+        public void setDistance(double distance) { this.distance = distance; }
+    }
+
+    /**
+     * Resumen de una generación de ABC-SMC.
+     */
+    public static class Generation {
+        private double tolerance;
+        private int simulations;
+        private int earlyRejected; // Abortadas antes del final por superar la tolerancia
+        private double acceptanceRate;
+        private Map<String, Double> posteriorMean = new LinkedHashMap<>();
+        private Map<String, Double> posteriorStd = new LinkedHashMap<>();
+
+        public Generation() {}
+
+        public double getTolerance() { return tolerance; }
+        public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+        public int getSimulations() { return simulations; }
+        public void setSimulations(int simulations) { this.simulations = simulations; }
+
+        public int getEarlyRejected() { return earlyRejected; }
+        public void setEarlyRejected(int earlyRejected) { this.earlyRejected = earlyRejected; }
+
+        public double getAcceptanceRate() { return acceptanceRate; }
+        public void setAcceptanceRate(double acceptanceRate) { this.acceptanceRate = acceptanceRate; }
+
+        public Map<String, Double> getPosteriorMean() { return posteriorMean; }
+        public void setPosteriorMean(Map<String, Double> posteriorMean) { this.posteriorMean = posteriorMean; }
+
+        public Map<String, Double> getPosteriorStd() { return posteriorStd; }
+        public void setPosteriorStd(Map<String, Double> posteriorStd) { this.posteriorStd = posteriorStd; }
+    }
+
+    private List<Generation> generations = new ArrayList<>();
+    private List<Particle> particles = new ArrayList<>(); // Última población completa
+    private double tolerance; // Tolerancia de la última población completa
+    private boolean budgetExhausted; // maxSimulations agotado antes de completar una generación
+    private int simulations;
+    private int earlyRejected;
+    private long simulatedSteps; // Pasos realmente simulados
+    private long fullSteps; // Pasos que se habrían simulado sin rechazo anticipado
+
+    public CalibrationResult() {}
+
+    public List<Generation> getGenerations() { return generations; }
+    public void setGenerations(List<Generation> generations) { this.generations = generations; }
+
+    public List<Particle> getParticles() { return particles; }
+    public void setParticles(List<Particle> particles) { this.particles = particles; }
+
+    public double getTolerance() { return tolerance; }
+    public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+    public boolean isBudgetExhausted() { return budgetExhausted; }
+    public void setBudgetExhausted(boolean budgetExhausted) { this.budgetExhausted = budgetExhausted; }
+
+    public int getSimulations() { return simulations; }
+    public void setSimulations(int simulations) { this.simulations = simulations; }
+
+    public int getEarlyRejected() { return earlyRejected; }
+    public void setEarlyRejected(int earlyRejected) { this.earlyRejected = earlyRejected; }
+
+    public long getSimulatedSteps() { return simulatedSteps; }
+    public void setSimulatedSteps(long simulatedSteps) { this.simulatedSteps = simulatedSteps; }
+
+    public long getFullSteps() { return fullSteps; }
+    public void setFullSteps(long fullSteps) { this.fullSteps = fullSteps; }
+}
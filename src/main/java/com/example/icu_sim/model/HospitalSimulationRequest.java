@@ -0,0 +1,48 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class HospitalSimulationRequest {
+
+    // Parámetros comunes a todas las salas (probabilidades, maxSteps, semilla...).
+    // nWorkers es el tamaño del pool compartido de trabajadores; nPatients y el grid se toman de cada sala.
+    private IcuSimulationRequest parameters = new IcuSimulationRequest();
+    private List<WardConfig> wards = new ArrayList<>();
+
+    private double transferRate = 0.002; // Probabilidad por paciente y paso de trasladarse a otra sala
+    private double workerRotationProb = 0.01; // Probabilidad por trabajador y paso de cambiar de sala
+    private int threads = 0; // 0 => un hilo por sala, limitado al número de procesadores
+
+    public HospitalSimulationRequest() {}
+
+    // Getters & Setters
+    public IcuSimulationRequest getParameters() { return parameters; }
+    public void setParameters(IcuSimulationRequest parameters) { this.parameters = parameters; }
+
+    public List<WardConfig> getWards() { return wards; }
+    public void setWards(List<WardConfig> wards) { this.wards = wards; }
+
+    public double getTransferRate() { return transferRate; }
+    public void setTransferRate(double transferRate) { this.transferRate = transferRate; }
+
+    public double getWorkerRotationProb() { return workerRotationProb; }
+    public void setWorkerRotationProb(double workerRotationProb) { this.workerRotationProb = workerRotationProb; }
+
+    public int getThreads() { return threads; }
+    public void setThreads(int threads) { this.threads = threads; }
+
+    @Override
+    public String toString() {
+        return "HospitalSimulationRequest{" +
+                "parameters=" + parameters +
+                ", wards=" + wards +
+                ", transferRate=" + transferRate +
+                ", workerRotationProb=" + workerRotationProb +
+                ", threads=" + threads +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.icu_sim.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class HospitalSimulationResult {
+    private int totalWorkers;
+    private int totalPatients;
+    private int patientTransfers;
+    private int workerRotations;
+    private List<Double> pctPatientsInfected; // Todo el hospital
+    private List<Double> pctWorkersInfected;
+    private Map<String, SimulationResult> wards; // Resultado de cada sala por nombre
+    private SimulationResult.StopReason stopReason = SimulationResult.StopReason.MAX_STEPS;
+    private int stopStep; // Último paso simulado
+
+    public HospitalSimulationResult() {
+        this.pctPatientsInfected = new ArrayList<>();
+        this.pctWorkersInfected = new ArrayList<>();
+        this.wards = new LinkedHashMap<>();
+    }
+
+    public int getTotalWorkers() {
+        return totalWorkers;
+    }
+
+    public void setTotalWorkers(int totalWorkers) {
+        this.totalWorkers = totalWorkers;
+    }
+
+    public int getTotalPatients() {
+        return totalPatients;
+    }
+
+    public void setTotalPatients(int totalPatients) {
+        this.totalPatients = totalPatients;
+    }
+
+    public int getPatientTransfers() {
+        return patientTransfers;
+    }
+
+    public void setPatientTransfers(int patientTransfers) {
+        this.patientTransfers = patientTransfers;
+    }
+
+    public int getWorkerRotations() {
+        return workerRotations;
+    }
+
+    public void setWorkerRotations(int workerRotations) {
+        this.workerRotations = workerRotations;
+    }
+
+    public List<Double> getPctPatientsInfected() {
+        return pctPatientsInfected;
+    }
+
+    public void setPctPatientsInfected(List<Double> pctPatientsInfected) {
+        this.pctPatientsInfected = pctPatientsInfected;
+    }
+
+    public List<Double> getPctWorkersInfected() {
+        return pctWorkersInfected;
+    }
+
+    public void setPctWorkersInfected(List<Double> pctWorkersInfected) {
+        this.pctWorkersInfected = pctWorkersInfected;
+    }
+
+    public Map<String, SimulationResult> getWards() {
+        return wards;
+    }
+
+    public void setWards(Map<String, SimulationResult> wards) {
+        this.wards = wards;
+    }
+
+    public SimulationResult.StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(SimulationResult.StopReason stopReason) {
+        this.stopReason = stopReason;
+    }
+
+    public int getStopStep() {
+        return stopStep;
+    }
+
+    public void setStopStep(int stopStep) {
+        this.stopStep = stopStep;
+    }
+}
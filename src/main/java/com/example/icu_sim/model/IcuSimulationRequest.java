@@ -1,20 +1,64 @@
 package com.example.icu_sim.model;
 
+import com.example.icu_sim.model.data.FloorPlan;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class IcuSimulationRequest {
 
+    public enum EngineMode {
+        AGENT,         // agentes individuales en el grid
+        COMPARTMENTAL, // modelo compartimental de campo medio (escala hospital completo)
+        HYBRID         // compartimental hasta que la prevalencia cruza el umbral, luego agentes
+    }
+
+    public enum AgentStorage {
+        OBJECTS, // un objeto Patient/HealthcareWorker por agente
+        COMPACT  // arrays primitivos paralelos con ids enteros (poblaciones grandes)
+    }
+
+    public enum SchedulingMode {
+        POLLING, // step() de todos los agentes en cada paso
+        EVENT,   // cola de eventos: solo se procesan los agentes que hacen algo en el paso
+        PARALLEL // intenciones de los agentes en paralelo y confirmación determinista
+    }
+
+    public enum BedAllocationMode {
+        CELL,   // el infectado ocupa cama solo si está en una celda de UCI con cama libre
+        MANAGED // IcuBedManager: cola de triage y cama libre más cercana
+    }
+
+    public enum BacteriaUpdateMode {
+        EXACT,   // un sorteo de Bernoulli por celda y paso
+        TAU_LEAP // avanza el campo de KNN varios pasos de golpe con sorteos binomiales (aproximado)
+    }
+
+    public enum RandomStreams {
+        SHARED,    // un generador para el grid, las llegadas y los tratamientos (resultados históricos)
+        PER_ENTITY // un generador por celda, otro para las llegadas y el de cada paciente para sus tratamientos
+    }
+
     // Parámetros principales
     private int nPatients = 50;
     private int nWorkers = 10;
     private int maxSteps = 26280; // 365 días * 24 pasos/día (8 horas * 3 pasos/hora)
     private int gridWidth = 10;
     private int gridHeight = 10;
+    private FloorPlan floorPlan; // Plano en línea; si no hay plano, rectángulo gridWidth x gridHeight
+    private String floorPlanPath; // Plano (.txt ASCII o .json) bajo icu-sim.floorplans.directory o recurso "classpath:floorplans/..."
+
+    // Contaminación inicial del entorno
+    private int initialInfectedCells = 8;
+    private int initialCellKnn = 200;
 
     // Parámetros de probabilidades
     private double arrivalRate = 0.01; // Probabilidad de llegada de un nuevo paciente por paso
     private double mutationRate = 0.01;
+    private double strainDriftStd = 0.0; // Deriva de virulencia y reproducción en cada mutación (0 = sin deriva)
+    private boolean strainAwareTreatment = false; // Tratar según la cepa adquirida (por defecto, siempre el A)
 
     private double hygieneFactorMean = 0.6; // Aumentado de 0.5 a 0.6
     private double hygieneFactorStd = 0.1;
@@ -39,9 +83,81 @@ public class IcuSimulationRequest {
 
     private long seed = 0;       // 0 => random distinto cada vez
     private boolean saveLogs = false; // Para guardar logs en archivo .txt
+    private boolean saveGridSnapshots = true; // gridState y bacteriaCounts por paso (caro en memoria)
+    private int snapshotInterval = 1; // Guardar snapshots cada N pasos (1 = todos)
+
+    // Parada anticipada (ver StopConditions); por defecto se llega siempre a maxSteps
+    private boolean stopOnExtinction = false; // Sin KNN en el grid ni agentes infectados o colonizados
+    private double stopPrevalenceThreshold = 0.0; // % de pacientes infectados que detiene la ejecución (0 = no)
+    private int steadyStateWindow = 0; // Pasos de la ventana de estado estacionario (0 = no)
+    private double steadyStateTolerance = 0.5; // Variación máxima del % de infectados en la ventana
+    private int steadyStateWarmup = 720; // Pasos iniciales (30 días) que no cuentan para el estado estacionario
+    private double maxWallClockSeconds = 0.0; // Tiempo de pared tras el que se devuelve el resultado parcial (0 = no)
+    private boolean recordTransmissions = false; // Registro de transmisiones (solo con AgentStorage.OBJECTS)
+    // Pasos sin reservar memoria: sin logs, snapshots ni registro de transmisiones y series reservadas de antemano
+    private boolean lowAllocation = false;
+
+    private EngineMode engineMode = EngineMode.AGENT;
+    private double hybridSwitchThreshold = 0.05; // Fracción de pacientes colonizados o infectados
+    private AgentStorage agentStorage = AgentStorage.OBJECTS;
+    private SchedulingMode schedulingMode = SchedulingMode.POLLING; // Solo con AgentStorage.OBJECTS
+    private BacteriaUpdateMode bacteriaUpdateMode = BacteriaUpdateMode.EXACT;
+    private int tauLeapSteps = 24; // Pasos que avanza cada salto en modo TAU_LEAP (1 día)
+    private BedAllocationMode bedAllocationMode = BedAllocationMode.CELL; // Solo con AgentStorage.OBJECTS
+    private RandomStreams randomStreams = RandomStreams.SHARED; // Solo con AgentStorage.OBJECTS
+    private List<Intervention> interventions = new ArrayList<>(); // Cambios de parámetros en pasos dados
 
     public IcuSimulationRequest() {}
 
+    public IcuSimulationRequest(IcuSimulationRequest other) {
+        this.nPatients = other.nPatients;
+        this.nWorkers = other.nWorkers;
+        this.maxSteps = other.maxSteps;
+        this.gridWidth = other.gridWidth;
+        this.gridHeight = other.gridHeight;
+        this.floorPlan = other.floorPlan;
+        this.floorPlanPath = other.floorPlanPath;
+        this.initialInfectedCells = other.initialInfectedCells;
+        this.initialCellKnn = other.initialCellKnn;
+        this.arrivalRate = other.arrivalRate;
+        this.mutationRate = other.mutationRate;
+        this.strainDriftStd = other.strainDriftStd;
+        this.strainAwareTreatment = other.strainAwareTreatment;
+        this.hygieneFactorMean = other.hygieneFactorMean;
+        this.hygieneFactorStd = other.hygieneFactorStd;
+        this.ppeFactor = other.ppeFactor;
+        this.workerMovementProb = other.workerMovementProb;
+        this.patientMovementProb = other.patientMovementProb;
+        this.colonizationChance = other.colonizationChance;
+        this.infectionFromColonizedChance = other.infectionFromColonizedChance;
+        this.stepsPerDay = other.stepsPerDay;
+        this.workingHoursPerDay = other.workingHoursPerDay;
+        this.minutesPerStep = other.minutesPerStep;
+        this.workerBaseInfectionChance = other.workerBaseInfectionChance;
+        this.icuPatientInfectionFactor = other.icuPatientInfectionFactor;
+        this.seed = other.seed;
+        this.saveLogs = other.saveLogs;
+        this.saveGridSnapshots = other.saveGridSnapshots;
+        this.snapshotInterval = other.snapshotInterval;
+        this.stopOnExtinction = other.stopOnExtinction;
+        this.stopPrevalenceThreshold = other.stopPrevalenceThreshold;
+        this.steadyStateWindow = other.steadyStateWindow;
+        this.steadyStateTolerance = other.steadyStateTolerance;
+        this.steadyStateWarmup = other.steadyStateWarmup;
+        this.maxWallClockSeconds = other.maxWallClockSeconds;
+        this.recordTransmissions = other.recordTransmissions;
+        this.lowAllocation = other.lowAllocation;
+        this.engineMode = other.engineMode;
+        this.hybridSwitchThreshold = other.hybridSwitchThreshold;
+        this.agentStorage = other.agentStorage;
+        this.schedulingMode = other.schedulingMode;
+        this.bacteriaUpdateMode = other.bacteriaUpdateMode;
+        this.tauLeapSteps = other.tauLeapSteps;
+        this.bedAllocationMode = other.bedAllocationMode;
+        this.randomStreams = other.randomStreams;
+        this.interventions = new ArrayList<>(other.interventions);
+    }
+
     // Getters & Setters
     public int getNPatients() { return nPatients; }
     public void setNPatients(int nPatients) { this.nPatients = nPatients; }
@@ -58,12 +174,30 @@ public class IcuSimulationRequest {
     public int getGridHeight() { return gridHeight; }
     public void setGridHeight(int gridHeight) { this.gridHeight = gridHeight; }
 
+    public FloorPlan getFloorPlan() { return floorPlan; }
+    public void setFloorPlan(FloorPlan floorPlan) { this.floorPlan = floorPlan; }
+
+    public String getFloorPlanPath() { return floorPlanPath; }
+    public void setFloorPlanPath(String floorPlanPath) { this.floorPlanPath = floorPlanPath; }
+
+    public int getInitialInfectedCells() { return initialInfectedCells; }
+    public void setInitialInfectedCells(int initialInfectedCells) { this.initialInfectedCells = initialInfectedCells; }
+
+    public int getInitialCellKnn() { return initialCellKnn; }
+    public void setInitialCellKnn(int initialCellKnn) { this.initialCellKnn = initialCellKnn; }
+
     public double getArrivalRate() { return arrivalRate; }
     public void setArrivalRate(double arrivalRate) { this.arrivalRate = arrivalRate; }
 
     public double getMutationRate() { return mutationRate; }
     public void setMutationRate(double mutationRate) { this.mutationRate = mutationRate; }
 
+    public double getStrainDriftStd() { return strainDriftStd; }
+    public void setStrainDriftStd(double strainDriftStd) { this.strainDriftStd = strainDriftStd; }
+
+    public boolean isStrainAwareTreatment() { return strainAwareTreatment; }
+    public void setStrainAwareTreatment(boolean strainAwareTreatment) { this.strainAwareTreatment = strainAwareTreatment; }
+
     public double getHygieneFactorMean() { return hygieneFactorMean; }
     public void setHygieneFactorMean(double hygieneFactorMean) { this.hygieneFactorMean = hygieneFactorMean; }
 
@@ -116,6 +250,63 @@ public class IcuSimulationRequest {
     public boolean isSaveLogs() { return saveLogs; }
     public void setSaveLogs(boolean saveLogs) { this.saveLogs = saveLogs; }
 
+    public boolean isSaveGridSnapshots() { return saveGridSnapshots; }
+    public void setSaveGridSnapshots(boolean saveGridSnapshots) { this.saveGridSnapshots = saveGridSnapshots; }
+
+    public int getSnapshotInterval() { return snapshotInterval; }
+    public void setSnapshotInterval(int snapshotInterval) { this.snapshotInterval = snapshotInterval; }
+
+    public boolean isStopOnExtinction() { return stopOnExtinction; }
+    public void setStopOnExtinction(boolean stopOnExtinction) { this.stopOnExtinction = stopOnExtinction; }
+
+    public double getStopPrevalenceThreshold() { return stopPrevalenceThreshold; }
+    public void setStopPrevalenceThreshold(double stopPrevalenceThreshold) { this.stopPrevalenceThreshold = stopPrevalenceThreshold; }
+
+    public int getSteadyStateWindow() { return steadyStateWindow; }
+    public void setSteadyStateWindow(int steadyStateWindow) { this.steadyStateWindow = steadyStateWindow; }
+
+    public double getSteadyStateTolerance() { return steadyStateTolerance; }
+    public void setSteadyStateTolerance(double steadyStateTolerance) { this.steadyStateTolerance = steadyStateTolerance; }
+
+    public int getSteadyStateWarmup() { return steadyStateWarmup; }
+    public void setSteadyStateWarmup(int steadyStateWarmup) { this.steadyStateWarmup = steadyStateWarmup; }
+
+    public double getMaxWallClockSeconds() { return maxWallClockSeconds; }
+    public void setMaxWallClockSeconds(double maxWallClockSeconds) { this.maxWallClockSeconds = maxWallClockSeconds; }
+
+    public boolean isRecordTransmissions() { return recordTransmissions; }
+    public void setRecordTransmissions(boolean recordTransmissions) { this.recordTransmissions = recordTransmissions; }
+
+    public boolean isLowAllocation() { return lowAllocation; }
+    public void setLowAllocation(boolean lowAllocation) { this.lowAllocation = lowAllocation; }
+
+    public EngineMode getEngineMode() { return engineMode; }
+    public void setEngineMode(EngineMode engineMode) { this.engineMode = engineMode; }
+
+    public double getHybridSwitchThreshold() { return hybridSwitchThreshold; }
+    public void setHybridSwitchThreshold(double hybridSwitchThreshold) { this.hybridSwitchThreshold = hybridSwitchThreshold; }
+
+    public AgentStorage getAgentStorage() { return agentStorage; }
+    public void setAgentStorage(AgentStorage agentStorage) { this.agentStorage = agentStorage; }
+
+    public SchedulingMode getSchedulingMode() { return schedulingMode; }
+    public void setSchedulingMode(SchedulingMode schedulingMode) { this.schedulingMode = schedulingMode; }
+
+    public BacteriaUpdateMode getBacteriaUpdateMode() { return bacteriaUpdateMode; }
+    public void setBacteriaUpdateMode(BacteriaUpdateMode bacteriaUpdateMode) { this.bacteriaUpdateMode = bacteriaUpdateMode; }
+
+    public int getTauLeapSteps() { return tauLeapSteps; }
+    public void setTauLeapSteps(int tauLeapSteps) { this.tauLeapSteps = tauLeapSteps; }
+
+    public BedAllocationMode getBedAllocationMode() { return bedAllocationMode; }
+    public void setBedAllocationMode(BedAllocationMode bedAllocationMode) { this.bedAllocationMode = bedAllocationMode; }
+
+    public RandomStreams getRandomStreams() { return randomStreams; }
+    public void setRandomStreams(RandomStreams randomStreams) { this.randomStreams = randomStreams; }
+
+    public List<Intervention> getInterventions() { return interventions; }
+    public void setInterventions(List<Intervention> interventions) { this.interventions = interventions; }
+
     @Override
     public String toString() {
         return "IcuSimulationRequest{" +
@@ -124,8 +315,14 @@ public class IcuSimulationRequest {
                 ", maxSteps=" + maxSteps +
                 ", gridWidth=" + gridWidth +
                 ", gridHeight=" + gridHeight +
+                ", floorPlan=" + floorPlan +
+                ", floorPlanPath=" + floorPlanPath +
+                ", initialInfectedCells=" + initialInfectedCells +
+                ", initialCellKnn=" + initialCellKnn +
                 ", arrivalRate=" + arrivalRate +
                 ", mutationRate=" + mutationRate +
+                ", strainDriftStd=" + strainDriftStd +
+                ", strainAwareTreatment=" + strainAwareTreatment +
                 ", hygieneFactorMean=" + hygieneFactorMean +
                 ", hygieneFactorStd=" + hygieneFactorStd +
                 ", ppeFactor=" + ppeFactor +
@@ -140,6 +337,25 @@ public class IcuSimulationRequest {
                 ", icuPatientInfectionFactor=" + icuPatientInfectionFactor +
                 ", seed=" + seed +
                 ", saveLogs=" + saveLogs +
+                ", saveGridSnapshots=" + saveGridSnapshots +
+                ", snapshotInterval=" + snapshotInterval +
+                ", stopOnExtinction=" + stopOnExtinction +
+                ", stopPrevalenceThreshold=" + stopPrevalenceThreshold +
+                ", steadyStateWindow=" + steadyStateWindow +
+                ", steadyStateTolerance=" + steadyStateTolerance +
+                ", steadyStateWarmup=" + steadyStateWarmup +
+                ", maxWallClockSeconds=" + maxWallClockSeconds +
+                ", recordTransmissions=" + recordTransmissions +
+                ", lowAllocation=" + lowAllocation +
+                ", engineMode=" + engineMode +
+                ", hybridSwitchThreshold=" + hybridSwitchThreshold +
+                ", agentStorage=" + agentStorage +
+                ", schedulingMode=" + schedulingMode +
+                ", bacteriaUpdateMode=" + bacteriaUpdateMode +
+                ", tauLeapSteps=" + tauLeapSteps +
+                ", bedAllocationMode=" + bedAllocationMode +
+                ", randomStreams=" + randomStreams +
+                ", interventions=" + interventions +
                 '}';
     }
 }
@@ -0,0 +1,36 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Cambio de un parámetro de la solicitud al comienzo de un paso de la simulación (p. ej. ppeFactor=0.8 desde el
+ * día 90, paso 90 * 24 + 1). El nombre es el de RequestParameters; se aplica también a los agentes ya creados.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Intervention {
+    private int step;
+    private String parameter;
+    private double value;
+
+    public Intervention() {}
+
+    public Intervention(int step, String parameter, double value) {
+        this.step = step;
+        this.parameter = parameter;
+        this.value = value;
+    }
+
+    public int getStep() { return step; }
+    public void setStep(int step) { this.step = step; }
+
+    public String getParameter() { return parameter; }
+    public void setParameter(String parameter) { this.parameter = parameter; }
+
+    public double getValue() { return value; }
+    public void setValue(double value) { this.value = value; }
+
+    @Override
+    public String toString() {
+        return parameter + "=" + value + "@" + step;
+    }
+}
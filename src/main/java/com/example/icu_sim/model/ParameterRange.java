@@ -0,0 +1,40 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Rango de un parámetro de IcuSimulationRequest (nombre como en RequestParameters). En el análisis de
+ * sensibilidad y en la calibración se muestrea uniformemente en [min, max].
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ParameterRange {
+    private String name;
+    private double min;
+    private double max;
+
+    public ParameterRange() {}
+
+    public ParameterRange(String name, double min, double max) {
+        this.name = name;
+        this.min = min;
+        this.max = max;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public double getMin() { return min; }
+    public void setMin(double min) { this.min = min; }
+
+    public double getMax() { return max; }
+    public void setMax(double max) { this.max = max; }
+
+    public boolean contains(double value) {
+        return value >= min && value <= max;
+    }
+
+    @Override
+    public String toString() {
+        return name + "=[" + min + ", " + max + "]";
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.icu_sim.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estadísticas agregadas de un conjunto de réplicas de una misma IcuSimulationRequest.
+ */
+public class ReplicateStatistics {
+
+    // Métricas que calcula add()
+    public static final List<String> METRIC_NAMES = List.of(
+            "finalPctPatientsInfected", "meanPctPatientsInfected", "maxPctPatientsInfected",
+            "finalPctWorkersInfected", "meanPctWorkersInfected", "maxPctWorkersInfected",
+            "finalTotalPatients");
+
+    private int replicates;
+    private Map<String, MetricSummary> metrics;
+
+    public ReplicateStatistics() {
+        this.metrics = new LinkedHashMap<>();
+    }
+
+    public void add(SimulationResult result) {
+        addValues(metricValues(result));
+    }
+
+    /**
+     * Añade una réplica ya reducida a sus métricas (ver metricValues).
+     */
+    public void addValues(Map<String, Double> values) {
+        replicates++;
+        values.forEach((name, value) -> metric(name).add(value));
+    }
+
+    public void merge(ReplicateStatistics other) {
+        replicates += other.replicates;
+        for (Map.Entry<String, MetricSummary> e : other.metrics.entrySet()) {
+            metric(e.getKey()).merge(e.getValue());
+        }
+    }
+
+    /**
+     * Valores de las métricas de una ejecución, en el orden de METRIC_NAMES (sin las de series vacías).
+     */
+    public static Map<String, Double> metricValues(SimulationResult result) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        addSeries(values, "PctPatientsInfected", result.getPctPatientsInfected());
+        addSeries(values, "PctWorkersInfected", result.getPctWorkersInfected());
+        values.put("finalTotalPatients", (double) result.getTotalPatients());
+        return values;
+    }
+
+    private static void addSeries(Map<String, Double> values, String name, List<Double> series) {
+        if (series.isEmpty()) {
+            return;
+        }
+        double sum = 0.0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : series) {
+            sum += v;
+            max = Math.max(max, v);
+        }
+        values.put("final" + name, series.get(series.size() - 1));
+        values.put("mean" + name, sum / series.size());
+        values.put("max" + name, max);
+    }
+
+    private MetricSummary metric(String name) {
+        return metrics.computeIfAbsent(name, k -> new MetricSummary());
+    }
+
+    public int getReplicates() {
+        return replicates;
+    }
+
+    public void setReplicates(int replicates) {
+        this.replicates = replicates;
+    }
+
+    public Map<String, MetricSummary> getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Map<String, MetricSummary> metrics) {
+        this.metrics = metrics;
+    }
+}
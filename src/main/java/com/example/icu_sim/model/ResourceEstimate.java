@@ -0,0 +1,45 @@
+package com.example.icu_sim.model;
+
+/**
+ * Estimación de recursos de una ejecución antes de aceptarla (ver AdmissionService).
+ */
+public class ResourceEstimate {
+    private long cells;
+    private int steps;
+    private long peakAgents; // Agentes iniciales más las llegadas esperadas
+    private long snapshots;  // Snapshots del grid que se guardarán
+    private long memoryBytes;
+    private double cpuSeconds;
+
+    public ResourceEstimate() {}
+
+    public long getCells() { return cells; }
+    public void setCells(long cells) { this.cells = cells; }
+
+    public int getSteps() { return steps; }
+    public void setSteps(int steps) { this.steps = steps; }
+
+    public long getPeakAgents() { return peakAgents; }
+    public void setPeakAgents(long peakAgents) { this.peakAgents = peakAgents; }
+
+    public long getSnapshots() { return snapshots; }
+    public void setSnapshots(long snapshots) { this.snapshots = snapshots; }
+
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+
+    public double getCpuSeconds() { return cpuSeconds; }
+    public void setCpuSeconds(double cpuSeconds) { this.cpuSeconds = cpuSeconds; }
+
+    @Override
+    public String toString() {
+        return "ResourceEstimate{" +
+                "cells=" + cells +
+                ", steps=" + steps +
+                ", peakAgents=" + peakAgents +
+                ", snapshots=" + snapshots +
+                ", memoryBytes=" + memoryBytes +
+                ", cpuSeconds=" + cpuSeconds +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Comparación de escenarios: la solicitud base (brazo de referencia) frente a uno o más brazos que añaden
+ * intervenciones, con las mismas semillas y flujos aleatorios por entidad (ver ScenarioService).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ScenarioRequest {
+
+    /**
+     * Brazo de intervención: intervenciones que se añaden a las de la solicitud base.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Arm {
+        private String name;
+        private List<Intervention> interventions = new ArrayList<>();
+
+        public Arm() {}
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public List<Intervention> getInterventions() { return interventions; }
+        public void setInterventions(List<Intervention> interventions) { this.interventions = interventions; }
+
+        @Override
+        public String toString() {
+            return name + interventions;
+        }
+    }
+
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private List<Arm> arms = new ArrayList<>();
+    // Métricas de ReplicateStatistics (finalPctPatientsInfected, meanPctWorkersInfected, ...)
+    private List<String> metrics = new ArrayList<>(List.of("finalPctPatientsInfected"));
+    private int replicates = 50;
+    private long baseSeed = 1; // Réplica i => semilla baseSeed + i en todos los brazos
+    private boolean commonRandomNumbers = true; // false: semillas independientes por brazo y flujo compartido
+    private double confidenceLevel = 0.95;
+
+    public ScenarioRequest() {}
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public List<Arm> getArms() { return arms; }
+    public void setArms(List<Arm> arms) { this.arms = arms; }
+
+    public List<String> getMetrics() { return metrics; }
+    public void setMetrics(List<String> metrics) { this.metrics = metrics; }
+
+    public int getReplicates() { return replicates; }
+    public void setReplicates(int replicates) { this.replicates = replicates; }
+
+    public long getBaseSeed() { return baseSeed; }
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    public boolean isCommonRandomNumbers() { return commonRandomNumbers; }
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) { this.commonRandomNumbers = commonRandomNumbers; }
+
+    public double getConfidenceLevel() { return confidenceLevel; }
+    public void setConfidenceLevel(double confidenceLevel) { this.confidenceLevel = confidenceLevel; }
+
+    @Override
+    public String toString() {
+        return "ScenarioRequest{" +
+                "request=" + request +
+                ", arms=" + arms +
+                ", metrics=" + metrics +
+                ", replicates=" + replicates +
+                ", baseSeed=" + baseSeed +
+                ", commonRandomNumbers=" + commonRandomNumbers +
+                ", confidenceLevel=" + confidenceLevel +
+                '}';
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.icu_sim.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ScenarioResult {
+
+    /**
+     * Diferencia pareada brazo - base de una métrica, con su intervalo de confianza.
+     */
+    public static class PairedDifference {
+        private double mean;
+        private double std;
+        private double halfWidth;
+        private double lower;
+        private double upper;
+        // (Var(base) + Var(brazo)) / Var(diferencia): réplicas independientes necesarias por cada réplica
+        // pareada para la misma precisión
+        private double varianceReduction;
+
+        public PairedDifference() {}
+
+        public double getMean() { return mean; }
+        public void setMean(double mean) { this.mean = mean; }
+
+        public double getStd() { return std; }
+        public void setStd(double std) { this.std = std; }
+
+        public double getHalfWidth() { return halfWidth; }
+        public void setHalfWidth(double halfWidth) { this.halfWidth = halfWidth; }
+
+        public double getLower() { return lower; }
+        public void setLower(double lower) { this.lower = lower; }
+
+        public double getUpper() { return upper; }
+        public void setUpper(double upper) { this.upper = upper; }
+
+        public double getVarianceReduction() { return varianceReduction; }
+        public void setVarianceReduction(double varianceReduction) { this.varianceReduction = varianceReduction; }
+    }
+
+    public static class ArmResult {
+        private String name;
+        private Map<String, MetricSummary> metrics = new LinkedHashMap<>();
+        private Map<String, PairedDifference> differences = new LinkedHashMap<>();
+
+        public ArmResult() {}
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Map<String, MetricSummary> getMetrics() { return metrics; }
+        public void setMetrics(Map<String, MetricSummary> metrics) { this.metrics = metrics; }
+
+        public Map<String, PairedDifference> getDifferences() { return differences; }
+        public void setDifferences(Map<String, PairedDifference> differences) { this.differences = differences; }
+    }
+
+    private int replicates;
+    private boolean commonRandomNumbers;
+    private double confidenceLevel;
+    private Map<String, MetricSummary> baseline = new LinkedHashMap<>();
+    private List<ArmResult> arms = new ArrayList<>();
+
+    public ScenarioResult() {}
+
+    public int getReplicates() { return replicates; }
+    public void setReplicates(int replicates) { this.replicates = replicates; }
+
+    public boolean isCommonRandomNumbers() { return commonRandomNumbers; }
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) { this.commonRandomNumbers = commonRandomNumbers; }
+
+    public double getConfidenceLevel() { return confidenceLevel; }
+    public void setConfidenceLevel(double confidenceLevel) { this.confidenceLevel = confidenceLevel; }
+
+    public Map<String, MetricSummary> getBaseline() { return baseline; }
+    public void setBaseline(Map<String, MetricSummary> baseline) { this.baseline = baseline; }
+
+    public List<ArmResult> getArms() { return arms; }
+    public void setArms(List<ArmResult> arms) { this.arms = arms; }
+}
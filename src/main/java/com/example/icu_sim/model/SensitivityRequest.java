@@ -0,0 +1,69 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Análisis de sensibilidad global: índices de Sobol de primer orden y totales de las métricas elegidas respecto a
+ * los parámetros indicados, cada uno muestreado uniformemente en su rango (ver SensitivityAnalysisService).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SensitivityRequest {
+
+    public enum Sampling {
+        LATIN_HYPERCUBE, // Matrices A y B de un hipercubo latino de 2k dimensiones
+        RANDOM           // Monte Carlo simple
+    }
+
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private List<ParameterRange> parameters = new ArrayList<>();
+    // Métricas de ReplicateStatistics (finalPctPatientsInfected, meanPctWorkersInfected, ...)
+    private List<String> metrics = new ArrayList<>(List.of("finalPctPatientsInfected"));
+    private Sampling sampling = Sampling.LATIN_HYPERCUBE;
+    private int baseSamples = 64; // N: se ejecutan N * (k + 2) puntos
+    private int replicatesPerPoint = 1; // Réplicas promediadas en cada punto
+    private long samplingSeed = 1; // Semilla del diseño de muestreo
+    private long baseSeed = 1; // Fila j => semillas baseSeed + j * replicatesPerPoint + r
+
+    public SensitivityRequest() {}
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public List<ParameterRange> getParameters() { return parameters; }
+    public void setParameters(List<ParameterRange> parameters) { this.parameters = parameters; }
+
+    public List<String> getMetrics() { return metrics; }
+    public void setMetrics(List<String> metrics) { this.metrics = metrics; }
+
+    public Sampling getSampling() { return sampling; }
+    public void setSampling(Sampling sampling) { this.sampling = sampling; }
+
+    public int getBaseSamples() { return baseSamples; }
+    public void setBaseSamples(int baseSamples) { this.baseSamples = baseSamples; }
+
+    public int getReplicatesPerPoint() { return replicatesPerPoint; }
+    public void setReplicatesPerPoint(int replicatesPerPoint) { this.replicatesPerPoint = replicatesPerPoint; }
+
+    public long getSamplingSeed() { return samplingSeed; }
+    public void setSamplingSeed(long samplingSeed) { this.samplingSeed = samplingSeed; }
+
+    public long getBaseSeed() { return baseSeed; }
+    public void setBaseSeed(long baseSeed) { this.baseSeed = baseSeed; }
+
+    @Override
+    public String toString() {
+        return "SensitivityRequest{" +
+                "request=" + request +
+                ", parameters=" + parameters +
+                ", metrics=" + metrics +
+                ", sampling=" + sampling +
+                ", baseSamples=" + baseSamples +
+                ", replicatesPerPoint=" + replicatesPerPoint +
+                ", samplingSeed=" + samplingSeed +
+                ", baseSeed=" + baseSeed +
+                '}';
+    }
+}
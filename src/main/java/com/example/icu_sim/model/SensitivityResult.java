@@ -0,0 +1,56 @@
+package com.example.icu_sim.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SensitivityResult {
+
+    /**
+     * Índices de Sobol de una métrica, por parámetro.
+     */
+    public static class MetricIndices {
+        private double mean;
+        private double variance; // Varianza de la métrica sobre las matrices A y B
+        private Map<String, Double> firstOrder = new LinkedHashMap<>();
+        private Map<String, Double> totalOrder = new LinkedHashMap<>();
+
+        public MetricIndices() {}
+
+        public double getMean() { return mean; }
+        public void setMean(double mean) { this.mean = mean; }
+
+        public double getVariance() { return variance; }
+        public void setVariance(double variance) { this.variance = variance; }
+
+        public Map<String, Double> getFirstOrder() { return firstOrder; }
+        public void setFirstOrder(Map<String, Double> firstOrder) { this.firstOrder = firstOrder; }
+
+        public Map<String, Double> getTotalOrder() { return totalOrder; }
+        public void setTotalOrder(Map<String, Double> totalOrder) { this.totalOrder = totalOrder; }
+    }
+
+    private List<String> parameters = new ArrayList<>();
+    private int baseSamples;
+    private int evaluations; // Puntos evaluados: baseSamples * (k + 2)
+    private int runs; // Simulaciones: evaluations * replicatesPerPoint
+    private Map<String, MetricIndices> indices = new LinkedHashMap<>();
+
+    public SensitivityResult() {}
+
+    public List<String> getParameters() { return parameters; }
+    public void setParameters(List<String> parameters) { this.parameters = parameters; }
+
+    public int getBaseSamples() { return baseSamples; }
+    public void setBaseSamples(int baseSamples) { this.baseSamples = baseSamples; }
+
+    public int getEvaluations() { return evaluations; }
+    public void setEvaluations(int evaluations) { this.evaluations = evaluations; }
+
+    public int getRuns() { return runs; }
+    public void setRuns(int runs) { this.runs = runs; }
+
+    public Map<String, MetricIndices> getIndices() { return indices; }
+    public void setIndices(Map<String, MetricIndices> indices) { this.indices = indices; }
+}
@@ -0,0 +1,28 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fragmento de un lote: la misma solicitud ejecutada con cada una de las semillas indicadas.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ShardRequest {
+    private IcuSimulationRequest request = new IcuSimulationRequest();
+    private List<Long> seeds = new ArrayList<>();
+
+    public ShardRequest() {}
+
+    public ShardRequest(IcuSimulationRequest request, List<Long> seeds) {
+        this.request = request;
+        this.seeds = seeds;
+    }
+
+    public IcuSimulationRequest getRequest() { return request; }
+    public void setRequest(IcuSimulationRequest request) { this.request = request; }
+
+    public List<Long> getSeeds() { return seeds; }
+    public void setSeeds(List<Long> seeds) { this.seeds = seeds; }
+}
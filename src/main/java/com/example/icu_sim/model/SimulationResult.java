@@ -9,18 +9,46 @@ import java.util.List;
 import java.util.Map;
 
 public class SimulationResult {
+
+    public enum StopReason {
+        MAX_STEPS,            // Se llegó a maxSteps
+        EXTINCTION,           // Sin KNN ni agentes infectados o colonizados
+        PREVALENCE_THRESHOLD, // Se alcanzó stopPrevalenceThreshold
+        STEADY_STATE,         // Prevalencia estable durante steadyStateWindow pasos (tras steadyStateWarmup)
+        WALL_CLOCK            // Se agotó maxWallClockSeconds
+    }
+
     private int totalWorkers;
     private int totalPatients;
     private List<Double> pctPatientsInfected;
     private List<Double> pctWorkersInfected;
+    private List<Double> newPatientInfections; // Pacientes que pasan a infectados en cada paso (incidencia)
     private List<Map<String, Object>> gridState;
     private List<Map<String, Object>> bacteriaCounts; // Nueva lista para cantidades
+    private List<Long> totalKnnQuantity; // Suma de KNN en todo el grid por paso
+    private int agentSwitchStep; // Modo HYBRID: paso en que se pasó a agentes (0 si no ocurrió)
+    private int strainCount; // Cepas distintas en la tabla de cepas al final
+    private TransmissionReport transmissions; // Solo con recordTransmissions
+    // Solo con BedAllocationMode.MANAGED
+    private int icuTotalBeds;
+    private List<Integer> icuOccupiedBeds; // Camas ocupadas por paso
+    private List<Integer> icuQueueLength; // Infectados esperando cama por paso
+    private MetricSummary icuWaitSteps; // Pasos de espera hasta recibir cama, por ingreso
+    private List<String> admissionNotes; // Ajustes aplicados a la solicitud para que cupiera en el presupuesto
+    private StopReason stopReason = StopReason.MAX_STEPS;
+    private int stopStep; // Último paso simulado
+    private String recordingId; // Grabación JFR de la ejecución (solo con /run?record=true)
 
     public SimulationResult() {
         this.pctPatientsInfected = new ArrayList<>();
         this.pctWorkersInfected = new ArrayList<>();
+        this.newPatientInfections = new ArrayList<>();
         this.gridState = new ArrayList<>();
         this.bacteriaCounts = new ArrayList<>();
+        this.totalKnnQuantity = new ArrayList<>();
+        this.icuOccupiedBeds = new ArrayList<>();
+        this.icuQueueLength = new ArrayList<>();
+        this.admissionNotes = new ArrayList<>();
     }
 
     public int getTotalWorkers() {
@@ -55,6 +83,18 @@ public class SimulationResult {
         this.pctWorkersInfected = pctWorkersInfected;
     }
 
+    /**
+     * Nuevas infecciones de pacientes por paso. En el modelo compartimental es el flujo esperado C -> I, así que
+     * puede no ser entero.
+     */
+    public List<Double> getNewPatientInfections() {
+        return newPatientInfections;
+    }
+
+    public void setNewPatientInfections(List<Double> newPatientInfections) {
+        this.newPatientInfections = newPatientInfections;
+    }
+
     public List<Map<String, Object>> getGridState() {
         return gridState;
     }
@@ -71,8 +111,126 @@ public class SimulationResult {
         this.bacteriaCounts = bacteriaCounts;
     }
 
-    public void addGridState(Grid grid) {
+    public List<Long> getTotalKnnQuantity() {
+        return totalKnnQuantity;
+    }
+
+    public void setTotalKnnQuantity(List<Long> totalKnnQuantity) {
+        this.totalKnnQuantity = totalKnnQuantity;
+    }
+
+    public int getAgentSwitchStep() {
+        return agentSwitchStep;
+    }
+
+    public void setAgentSwitchStep(int agentSwitchStep) {
+        this.agentSwitchStep = agentSwitchStep;
+    }
+
+    public int getStrainCount() {
+        return strainCount;
+    }
+
+    public void setStrainCount(int strainCount) {
+        this.strainCount = strainCount;
+    }
+
+    public TransmissionReport getTransmissions() {
+        return transmissions;
+    }
+
+    public void setTransmissions(TransmissionReport transmissions) {
+        this.transmissions = transmissions;
+    }
+
+    public int getIcuTotalBeds() {
+        return icuTotalBeds;
+    }
+
+    public void setIcuTotalBeds(int icuTotalBeds) {
+        this.icuTotalBeds = icuTotalBeds;
+    }
+
+    public List<Integer> getIcuOccupiedBeds() {
+        return icuOccupiedBeds;
+    }
+
+    public void setIcuOccupiedBeds(List<Integer> icuOccupiedBeds) {
+        this.icuOccupiedBeds = icuOccupiedBeds;
+    }
+
+    public List<Integer> getIcuQueueLength() {
+        return icuQueueLength;
+    }
+
+    public void setIcuQueueLength(List<Integer> icuQueueLength) {
+        this.icuQueueLength = icuQueueLength;
+    }
+
+    public MetricSummary getIcuWaitSteps() {
+        return icuWaitSteps;
+    }
+
+    public void setIcuWaitSteps(MetricSummary icuWaitSteps) {
+        this.icuWaitSteps = icuWaitSteps;
+    }
+
+    public List<String> getAdmissionNotes() {
+        return admissionNotes;
+    }
+
+    public void setAdmissionNotes(List<String> admissionNotes) {
+        this.admissionNotes = admissionNotes;
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(StopReason stopReason) {
+        this.stopReason = stopReason;
+    }
+
+    public int getStopStep() {
+        return stopStep;
+    }
+
+    public void setStopStep(int stopStep) {
+        this.stopStep = stopStep;
+    }
+
+    public String getRecordingId() {
+        return recordingId;
+    }
+
+    public void setRecordingId(String recordingId) {
+        this.recordingId = recordingId;
+    }
+
+    /**
+     * Reserva capacidad para {@code steps} valores en las series que se escriben en cada paso, para que no se
+     * copien al crecer durante la ejecución.
+     */
+    public void reserveSteps(int steps, boolean bedSeries) {
+        reserve(pctPatientsInfected, steps);
+        reserve(pctWorkersInfected, steps);
+        reserve(newPatientInfections, steps);
+        reserve(totalKnnQuantity, steps);
+        if(bedSeries) {
+            reserve(icuOccupiedBeds, steps);
+            reserve(icuQueueLength, steps);
+        }
+    }
+
+    private static void reserve(List<?> series, int steps) {
+        if(series instanceof ArrayList<?> list) {
+            list.ensureCapacity(steps);
+        }
+    }
+
+    public void addGridState(Grid grid, int step) {
         Map<String, Object> state = new HashMap<>();
+        state.put("step", step);
         List<Map<String, Object>> cellsData = new ArrayList<>();
         for(int x=0; x<grid.getWidth(); x++) {
             for(int y=0; y<grid.getHeight(); y++) {
@@ -82,9 +240,12 @@ public class SimulationResult {
                 cellInfo.put("y", y);
                 cellInfo.put("knnState", cell.getKnn().getState().toString());
                 cellInfo.put("knnSensitivity", cell.getKnn().getSensitivity().toString());
+                cellInfo.put("knnStrain", cell.getKnn().getStrainId());
                 cellInfo.put("knnQuantity", cell.getKnn().getQuantity());
                 cellInfo.put("isIcuCell", cell.isIcuCell());
                 cellInfo.put("icuCapacity", cell.getIcuCapacity());
+                cellInfo.put("blocked", cell.isBlocked());
+                cellInfo.put("roomId", cell.getRoomId());
 
                 List<String> agentIds = new ArrayList<>();
                 for(com.example.icu_sim.model.agents.Agent ag : cell.getAgents()) {
@@ -98,8 +259,9 @@ public class SimulationResult {
         this.gridState.add(state);
     }
 
-    public void addBacteriaCounts(Grid grid) {
+    public void addBacteriaCounts(Grid grid, int step) {
         Map<String, Object> counts = new HashMap<>();
+        counts.put("step", step);
         List<Map<String, Object>> cellsData = new ArrayList<>();
         for(int x=0; x<grid.getWidth(); x++) {
             for(int y=0; y<grid.getHeight(); y++) {
@@ -115,4 +277,14 @@ public class SimulationResult {
         counts.put("bacteriaCounts", cellsData);
         this.bacteriaCounts.add(counts);
     }
+
+    public void addTotalKnnQuantity(Grid grid) {
+        long total = 0;
+        for(int x=0; x<grid.getWidth(); x++) {
+            for(int y=0; y<grid.getHeight(); y++) {
+                total += grid.getCell(x, y).getKnn().getQuantity();
+            }
+        }
+        this.totalKnnQuantity.add(total);
+    }
 }
@@ -0,0 +1,90 @@
+package com.example.icu_sim.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de las transmisiones registradas en una simulación: árboles de transmisión desde cada siembra,
+ * R efectivo por día de infección y ranking de superdiseminadores.
+ */
+public class TransmissionReport {
+
+    public static class Spreader {
+        private String node;
+        private int secondaryCases;
+
+        public Spreader() {}
+
+        public Spreader(String node, int secondaryCases) {
+            this.node = node;
+            this.secondaryCases = secondaryCases;
+        }
+
+        public String getNode() { return node; }
+        public void setNode(String node) { this.node = node; }
+
+        public int getSecondaryCases() { return secondaryCases; }
+        public void setSecondaryCases(int secondaryCases) { this.secondaryCases = secondaryCases; }
+    }
+
+    public static class TreeNode {
+        private String node;
+        private String source;
+        private String kind;
+        private int step;
+        private int strain;
+        private List<TreeNode> children = new ArrayList<>();
+
+        public TreeNode() {}
+
+        public TreeNode(String node, String source, String kind, int step, int strain) {
+            this.node = node;
+            this.source = source;
+            this.kind = kind;
+            this.step = step;
+            this.strain = strain;
+        }
+
+        public String getNode() { return node; }
+        public void setNode(String node) { this.node = node; }
+
+        public String getSource() { return source; }
+        public void setSource(String source) { this.source = source; }
+
+        public String getKind() { return kind; }
+        public void setKind(String kind) { this.kind = kind; }
+
+        public int getStep() { return step; }
+        public void setStep(int step) { this.step = step; }
+
+        public int getStrain() { return strain; }
+        public void setStrain(int strain) { this.strain = strain; }
+
+        public List<TreeNode> getChildren() { return children; }
+        public void setChildren(List<TreeNode> children) { this.children = children; }
+    }
+
+    private int transmissions;
+    private List<Double> effectiveRByDay = new ArrayList<>();
+    private List<Spreader> superSpreaders = new ArrayList<>();
+    private List<TreeNode> trees = new ArrayList<>();
+    private boolean treesTruncated; // Se alcanzó el máximo de nodos pedido
+
+    public TransmissionReport() {}
+
+    // Getters & Setters
+    public int getTransmissions() { return transmissions; }
+    public void setTransmissions(int transmissions) { this.transmissions = transmissions; }
+
+    public List<Double> getEffectiveRByDay() { return effectiveRByDay; }
+    public void setEffectiveRByDay(List<Double> effectiveRByDay) { this.effectiveRByDay = effectiveRByDay; }
+
+    public List<Spreader> getSuperSpreaders() { return superSpreaders; }
+    public void setSuperSpreaders(List<Spreader> superSpreaders) { this.superSpreaders = superSpreaders; }
+
+    public List<TreeNode> getTrees() { return trees; }
+    public void setTrees(List<TreeNode> trees) { this.trees = trees; }
+
+    public boolean isTreesTruncated() { return treesTruncated; }
+    public void setTreesTruncated(boolean treesTruncated) { this.treesTruncated = treesTruncated; }
+}
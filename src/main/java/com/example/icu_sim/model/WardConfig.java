@@ -0,0 +1,85 @@
+package com.example.icu_sim.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WardConfig {
+
+    public enum WardType {
+        ICU,     // todas las celdas son camas de UCI
+        GENERAL, // sin camas de UCI
+        ER       // urgencias: sin camas de UCI, alta rotación de pacientes
+    }
+
+    // Urgencias: los pacientes salen ER_TRANSFER_FACTOR veces más rápido que de las demás salas
+    public static final double ER_TRANSFER_FACTOR = 4.0;
+
+    private String name = "ward";
+    private WardType type = WardType.GENERAL;
+    private int gridWidth = 10;
+    private int gridHeight = 10;
+    private int nPatients = 20;
+    private String floorPlanPath; // Si se indica, sustituye al rectángulo gridWidth x gridHeight
+
+    public WardConfig() {}
+
+    public WardConfig(String name, WardType type, int gridWidth, int gridHeight, int nPatients) {
+        this.name = name;
+        this.type = type;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.nPatients = nPatients;
+    }
+
+    /**
+     * Filas de UCI del grid de la sala según su tipo.
+     */
+    public int getIcuRows() {
+        return type == WardType.ICU ? gridHeight : 0;
+    }
+
+    /**
+     * Probabilidad por paciente y paso de salir de la sala, a partir de la del hospital.
+     */
+    public double getTransferRate(double hospitalTransferRate) {
+        return type == WardType.ER ? Math.min(1.0, hospitalTransferRate * ER_TRANSFER_FACTOR) : hospitalTransferRate;
+    }
+
+    /**
+     * Si la sala recibe traslados de pacientes de otras salas. A urgencias solo llegan pacientes nuevos.
+     */
+    public boolean acceptsTransfers() {
+        return type != WardType.ER;
+    }
+
+    // Getters & Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public WardType getType() { return type; }
+    public void setType(WardType type) { this.type = type; }
+
+    public int getGridWidth() { return gridWidth; }
+    public void setGridWidth(int gridWidth) { this.gridWidth = gridWidth; }
+
+    public int getGridHeight() { return gridHeight; }
+    public void setGridHeight(int gridHeight) { this.gridHeight = gridHeight; }
+
+    public int getNPatients() { return nPatients; }
+    public void setNPatients(int nPatients) { this.nPatients = nPatients; }
+
+    public String getFloorPlanPath() { return floorPlanPath; }
+    public void setFloorPlanPath(String floorPlanPath) { this.floorPlanPath = floorPlanPath; }
+
+    @Override
+    public String toString() {
+        return "WardConfig{" +
+                "name='" + name + '\'' +
+                ", type=" + type +
+                ", gridWidth=" + gridWidth +
+                ", gridHeight=" + gridHeight +
+                ", nPatients=" + nPatients +
+                ", floorPlanPath=" + floorPlanPath +
+                '}';
+    }
+}
@@ -3,6 +3,8 @@ package com.example.icu_sim.model.agents;
 import com.example.icu_sim.service.IcuSimulationService;
 import com.example.icu_sim.model.data.Cell;
 
+import java.util.Random;
+
 public abstract class Agent {
     private String uniqueId;
     private Cell currentCell;
@@ -34,4 +36,9 @@ public abstract class Agent {
     }
 
     public abstract void step(int currentStep, IcuSimulationService service);
+
+    /**
+     * Generador propio del agente.
+     */
+    public abstract Random getRandom();
 }
@@ -0,0 +1,111 @@
+package com.example.icu_sim.model.agents;
+
+import java.util.Arrays;
+
+/**
+ * Almacén compacto de agentes en arrays primitivos paralelos (modo AgentStorage.COMPACT).
+ *
+ * Cada agente ocupa una posición del array y se identifica por un id entero estable; en lugar de un objeto
+ * con su propio KlebsiellaPneumoniae, Random, id String y referencia a Cell, guarda solo la celda (índice
+ * plano del grid), los flags de estado y los factores que usa la lógica de paso: unos 22 bytes por agente.
+ * Las bajas se hacen intercambiando con el último, así que el orden de las posiciones no es estable.
+ */
+public class CompactAgentStore {
+
+    public static final byte INFECTED = 1;
+    public static final byte COLONIZED = 1 << 1;
+    public static final byte IN_ICU = 1 << 2;
+
+    // Prioridad de triage codificada: 0 => 0.0, 1 => 0.5, 2 => 1.0
+    public static final byte PRIORITY_NONE = 0;
+    public static final byte PRIORITY_COLONIZED = 1;
+    public static final byte PRIORITY_INFECTED = 2;
+
+    private int size;
+    private int nextId;
+
+    private int[] ids;
+    private int[] cells;
+    private byte[] flags;
+    private byte[] priority;
+    private float[] susceptibility;
+    private float[] hygieneFactor;
+    private float[] ppeFactor;
+
+    public CompactAgentStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        ids = new int[capacity];
+        cells = new int[capacity];
+        flags = new byte[capacity];
+        priority = new byte[capacity];
+        susceptibility = new float[capacity];
+        hygieneFactor = new float[capacity];
+        ppeFactor = new float[capacity];
+    }
+
+    /**
+     * Añade un agente y devuelve su posición.
+     */
+    public int add(int cell, float susceptibility, float hygieneFactor, float ppeFactor) {
+        if (size == ids.length) {
+            grow();
+        }
+        int i = size++;
+        ids[i] = nextId++;
+        cells[i] = cell;
+        flags[i] = 0;
+        priority[i] = PRIORITY_NONE;
+        this.susceptibility[i] = susceptibility;
+        this.hygieneFactor[i] = hygieneFactor;
+        this.ppeFactor[i] = ppeFactor;
+        return i;
+    }
+
+    /**
+     * Elimina el agente de la posición i moviendo el último a su lugar.
+     */
+    public void remove(int i) {
+        int last = --size;
+        ids[i] = ids[last];
+        cells[i] = cells[last];
+        flags[i] = flags[last];
+        priority[i] = priority[last];
+        susceptibility[i] = susceptibility[last];
+        hygieneFactor[i] = hygieneFactor[last];
+        ppeFactor[i] = ppeFactor[last];
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        cells = Arrays.copyOf(cells, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        susceptibility = Arrays.copyOf(susceptibility, capacity);
+        hygieneFactor = Arrays.copyOf(hygieneFactor, capacity);
+        ppeFactor = Arrays.copyOf(ppeFactor, capacity);
+    }
+
+    public int size() { return size; }
+
+    public int getId(int i) { return ids[i]; }
+
+    public int getCell(int i) { return cells[i]; }
+    public void setCell(int i, int cell) { cells[i] = cell; }
+
+    public boolean has(int i, byte flag) { return (flags[i] & flag) != 0; }
+    public void set(int i, byte flag) { flags[i] |= flag; }
+    public void clear(int i, byte flag) { flags[i] &= (byte) ~flag; }
+
+    public byte getPriority(int i) { return priority[i]; }
+    public void setPriority(int i, byte p) { priority[i] = p; }
+
+    public float getSusceptibility(int i) { return susceptibility[i]; }
+    public void setSusceptibility(int i, float s) { susceptibility[i] = s; }
+
+    public float getHygieneFactor(int i) { return hygieneFactor[i]; }
+    public void setHygieneFactor(int i, float h) { hygieneFactor[i] = h; }
+
+    public float getPpeFactor(int i) { return ppeFactor[i]; }
+    public void setPpeFactor(int i, float p) { ppeFactor[i] = p; }
+}
@@ -12,6 +12,9 @@ import java.util.Random;
 public class HealthcareWorker extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(HealthcareWorker.class);
 
+    public static final double RECOVERY_CHANCE = 0.03; // Un poco baja para que se mantenga infectado
+    public static final double MOVEMENT_CHANCE = 0.1; // 10% de probabilidad de movimiento por paso
+
     private boolean infected;
     private KlebsiellaPneumoniae knn;
     private Random random;
@@ -35,34 +38,74 @@ public class HealthcareWorker extends Agent {
     @Override
     public void step(int currentStep, IcuSimulationService service) {
         if (!infected) {
-            KlebsiellaPneumoniae cellKnn = getCurrentCell().getKnn();
-            if (cellKnn.getState() == State.INFECTED && cellKnn.getQuantity() > 0) {
-                // Base chance ajustable desde la solicitud de simulación
-                double effectiveChance = workerBaseInfectionChance * (1 - hygieneFactor) * (1 - ppeFactor);
-
-                if (random.nextDouble() < effectiveChance) {
-                    this.infected = true;
-                    this.knn.setState(State.INFECTED);
-                    logger.info("{} se ha infectado (worker).", getUniqueId());
-                }
+            if (tryInfectFromCell()) {
+                service.recordWorkerInfection(this);
             }
         } else {
             // Chance de recuperarse
-            double recoveryChance = 0.03; // Un poco baja para que se mantenga infectado
-            if (random.nextDouble() < recoveryChance) {
-                this.infected = false;
-                this.knn.setState(State.SUSCEPTIBLE);
-                logger.info("{} se ha recuperado (worker).", getUniqueId());
+            if (random.nextDouble() < RECOVERY_CHANCE) {
+                recover();
             }
         }
 
         // Movilidad
-        if (random.nextDouble() < 0.1) { // 10% de probabilidad de movimiento por paso
+        if (random.nextDouble() < MOVEMENT_CHANCE) {
             service.moveAgent(this);
         }
     }
 
+    /**
+     * Evalúa la exposición a la celda actual. Devuelve true si el trabajador se infectó en esta llamada.
+     */
+    public boolean tryInfectFromCell() {
+        if (infected) {
+            return false;
+        }
+        KlebsiellaPneumoniae cellKnn = getCurrentCell().getKnn();
+        if (cellKnn.getState() == State.INFECTED && cellKnn.getQuantity() > 0) {
+            // Base chance ajustable desde la solicitud de simulación
+            if (random.nextDouble() < getEffectiveInfectionChance()) {
+                knn.acquireStrain(cellKnn);
+                becomeInfected();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Probabilidad por paso de infectarse en una celda contaminada.
+     */
+    public double getEffectiveInfectionChance() {
+        return workerBaseInfectionChance * (1 - hygieneFactor) * (1 - ppeFactor);
+    }
+
+    public void becomeInfected() {
+        this.infected = true;
+        this.knn.setState(State.INFECTED);
+        logger.info("{} se ha infectado (worker).", getUniqueId());
+    }
+
+    public void recover() {
+        this.infected = false;
+        this.knn.setState(State.SUSCEPTIBLE);
+        logger.info("{} se ha recuperado (worker).", getUniqueId());
+    }
+
     // Getters & Setters
+    /**
+     * Sustituye el generador propio del agente (por defecto sin semilla) por uno derivado de la semilla de
+     * la simulación.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public Random getRandom() {
+        return random;
+    }
+
     public boolean isInfected() {
         return infected;
     }
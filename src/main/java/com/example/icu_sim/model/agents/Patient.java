@@ -12,6 +12,12 @@ import java.util.Random;
 public class Patient extends Agent {
     private static final Logger logger = LoggerFactory.getLogger(Patient.class);
 
+    public static final int STEPS_PER_DAY = 24; // Las altas se evalúan una vez al día
+    public static final double DISCHARGE_CHANCE = 0.05;
+    public static final double MOVEMENT_CHANCE = 0.05; // 5% de probabilidad de movimiento por paso
+    public static final double REMAIN_COLONIZED_CHANCE = 0.5; // 50% chance de quedar colonizado tras curar infección
+    public static final double ICU_SUSCEPTIBILITY_FACTOR = 1.5; // Mayor susceptibilidad en UCI
+
     private boolean infected;
     private boolean colonized;
     private KlebsiellaPneumoniae knn;
@@ -41,7 +47,7 @@ public class Patient extends Agent {
 
         // Inicializar susceptibilidad
         if (initialCell.isIcuCell()) {
-            this.susceptibilityFactor = 1.5; // Mayor susceptibilidad en UCI
+            this.susceptibilityFactor = ICU_SUSCEPTIBILITY_FACTOR;
         } else {
             this.susceptibilityFactor = 1.0;
         }
@@ -50,33 +56,71 @@ public class Patient extends Agent {
     @Override
     public void step(int currentStep, IcuSimulationService service) {
         // Simular entrada y salida de pacientes
-        if (currentStep % 24 == 0) { // Cada día
+        if (currentStep % STEPS_PER_DAY == 0) { // Cada día
             // Posibilidad de alta
             if (canBeDischarged()) {
-                dischargePatient(service);
+                discharge(service);
                 return;
             }
         }
 
-        if (!infected && !colonized) {
-            KlebsiellaPneumoniae cellKnn = getCurrentCell().getKnn();
-            if (cellKnn.getState() == State.INFECTED && cellKnn.getQuantity() > 0) {
-                if (random.nextDouble() < colonizationChance * susceptibilityFactor) {
-                    this.colonized = true;
-                    this.knn.setState(State.COLONIZED);
-                    logger.info("{} se ha colonizado (patient).", getUniqueId());
-                }
-            }
+        if (tryColonizeFromCell()) {
+            service.recordColonization(this);
         }
 
         if (colonized && !infected) {
-            if (random.nextDouble() < infectionFromColonizedChance * susceptibilityFactor) {
-                this.infected = true;
-                this.knn.setState(State.INFECTED);
-                logger.info("{} se ha infectado (patient).", getUniqueId());
+            if (random.nextDouble() < getInfectionChance()) {
+                becomeInfected();
+                service.recordPatientInfection(this);
+            }
+        }
+
+        updateTriagePriority();
+
+        // Movilidad
+        if (random.nextDouble() < MOVEMENT_CHANCE) {
+            service.moveAgent(this);
+        }
+    }
+
+    /**
+     * Evalúa la exposición a la celda actual. Devuelve true si el paciente se colonizó en esta llamada.
+     */
+    public boolean tryColonizeFromCell() {
+        if (infected || colonized) {
+            return false;
+        }
+        KlebsiellaPneumoniae cellKnn = getCurrentCell().getKnn();
+        if (cellKnn.getState() == State.INFECTED && cellKnn.getQuantity() > 0) {
+            if (random.nextDouble() < colonizationChance * susceptibilityFactor) {
+                knn.acquireStrain(cellKnn);
+                colonize();
+                return true;
             }
         }
+        return false;
+    }
 
+    public void colonize() {
+        this.colonized = true;
+        this.knn.setState(State.COLONIZED);
+        logger.info("{} se ha colonizado (patient).", getUniqueId());
+    }
+
+    public void becomeInfected() {
+        this.infected = true;
+        this.knn.setState(State.INFECTED);
+        logger.info("{} se ha infectado (patient).", getUniqueId());
+    }
+
+    /**
+     * Probabilidad por paso de pasar de colonizado a infectado.
+     */
+    public double getInfectionChance() {
+        return infectionFromColonizedChance * susceptibilityFactor;
+    }
+
+    public void updateTriagePriority() {
         // Asignar prioridad
         if (infected) {
             triagePriority = 1.0;
@@ -85,26 +129,17 @@ public class Patient extends Agent {
         } else {
             triagePriority = 0.0;
         }
-
-        // Movilidad
-        if (random.nextDouble() < 0.05) { // 5% de probabilidad de movimiento por paso
-            service.moveAgent(this);
-        }
     }
 
-    private void dischargePatient(IcuSimulationService service) {
-        if (inIcu) {
-            getCurrentCell().freeBed();
-        }
+    public void discharge(IcuSimulationService service) {
+        releaseIcuBed();
         getCurrentCell().removeAgent(this);
         service.removePatient(this);
         logger.info("{} ha sido dado de alta del sistema.", getUniqueId());
     }
 
     public void partiallyCure() {
-        // 50% chance de quedar colonizado tras curar infección
-        double remainColonizedChance = 0.5;
-        if (random.nextDouble() < remainColonizedChance) {
+        if (random.nextDouble() < REMAIN_COLONIZED_CHANCE) {
             this.infected = false;
             this.colonized = true;
             this.knn.setState(State.COLONIZED);
@@ -120,13 +155,17 @@ public class Patient extends Agent {
 
     public boolean canBeDischarged() {
         // Probabilidad moderada de alta si no está infectado ni colonizado
-        if (!infected && !colonized && random.nextDouble() < 0.05) {
-            return true;
-        }
-        return false;
+        return isDischargeable() && random.nextDouble() < DISCHARGE_CHANCE;
+    }
+
+    public boolean isDischargeable() {
+        return !infected && !colonized;
     }
 
     public void occupyIcuBedIfNeeded(IcuSimulationService service) {
+        if (service.isBedManaged()) {
+            return; // Las camas las asigna IcuBedManager al final de la fase de agentes
+        }
         if (triagePriority >= 1.0 && !inIcu) {
             if (!getCurrentCell().isIcuCell()) {
                 return;
@@ -137,12 +176,46 @@ public class Patient extends Agent {
                 logger.info("{} entró a la UCI (celda {}, {})",
                         getUniqueId(), getCurrentCell().getX(), getCurrentCell().getY());
                 // Aumentar susceptibilidad al entrar en UCI
-                this.susceptibilityFactor = 1.5;
+                this.susceptibilityFactor = ICU_SUSCEPTIBILITY_FACTOR;
             }
         }
     }
 
+    /**
+     * Traslada al paciente a la cama asignada por IcuBedManager y la ocupa.
+     */
+    public void occupyIcuBed(Cell bed) {
+        setCurrentCell(bed);
+        bed.occupyBed();
+        inIcu = true;
+        this.susceptibilityFactor = ICU_SUSCEPTIBILITY_FACTOR;
+        logger.info("{} ingresó en cama de UCI (celda {}, {})", getUniqueId(), bed.getX(), bed.getY());
+    }
+
+    /**
+     * Libera la cama de UCI ocupada (alta o traslado a otra sala).
+     */
+    public void releaseIcuBed() {
+        if (inIcu) {
+            getCurrentCell().freeBed();
+            inIcu = false;
+        }
+    }
+
     // Getters & Setters
+    /**
+     * Sustituye el generador propio del agente (por defecto sin semilla) por uno derivado de la semilla de
+     * la simulación.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public Random getRandom() {
+        return random;
+    }
+
     public double getColonizationChance() {
         return colonizationChance;
     }
@@ -19,39 +19,42 @@ public class KlebsiellaPneumoniae {
         RESISTANT_TO_TREATMENT_C
     }
 
+    // Cepas que pueden convivir en una misma población (la dominante más las minoritarias)
+    public static final int MAX_STRAINS = 4;
+
     private State state;
-    private Sensitivity sensitivity;
-    private int quantity;
+    private int quantity; // Total de todas las cepas
 
-    // Nuevas variables
-    private double virulenceFactor; // 0.0 a 1.0
-    private double reproductionRate; // Tasa de reproducción por paso
+    // Cepa dominante; sensibilidad, virulencia y reproducción salen de la tabla (null = solo la salvaje)
+    private StrainTable strains;
+    private int strainId;
+    // Cepas minoritarias como pares (id, cantidad); null mientras la población es de una sola cepa
+    private int[] minorStrains;
+    private int minorCount;
 
     private static final Random random = new Random();
 
     public KlebsiellaPneumoniae() {
         this.state = State.SUSCEPTIBLE;
-        this.sensitivity = Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A;
         this.quantity = 0;
-        this.virulenceFactor = 0.5; // Valor por defecto
-        this.reproductionRate = 0.1; // Valor por defecto
+        this.strainId = StrainTable.WILD_TYPE;
     }
 
-    // Getters y Setters para las nuevas variables
+    // Propiedades de la cepa dominante
     public double getVirulenceFactor() {
-        return virulenceFactor;
+        return strains != null ? strains.getVirulence(strainId) : StrainTable.WILD_TYPE_VIRULENCE;
     }
 
     public void setVirulenceFactor(double virulenceFactor) {
-        this.virulenceFactor = virulenceFactor;
+        setStrain(table().intern(getSensitivity(), virulenceFactor, getReproductionRate(), strainId));
     }
 
     public double getReproductionRate() {
-        return reproductionRate;
+        return strains != null ? strains.getReproductionRate(strainId) : StrainTable.WILD_TYPE_REPRODUCTION_RATE;
     }
 
     public void setReproductionRate(double reproductionRate) {
-        this.reproductionRate = reproductionRate;
+        setStrain(table().intern(getSensitivity(), getVirulenceFactor(), reproductionRate, strainId));
     }
 
     // Resto de getters y setters
@@ -64,11 +67,95 @@ public class KlebsiellaPneumoniae {
     }
 
     public Sensitivity getSensitivity() {
-        return sensitivity;
+        return strains != null ? strains.getSensitivity(strainId) : Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A;
     }
 
     public void setSensitivity(Sensitivity sensitivity) {
-        this.sensitivity = sensitivity;
+        setStrain(table().intern(sensitivity, getVirulenceFactor(), getReproductionRate(), strainId));
+    }
+
+    /**
+     * Tratamientos a los que es resistente la cepa dominante (StrainTable.RESISTANT_A...).
+     */
+    public int getResistanceMask() {
+        return strains != null ? strains.getResistanceMask(strainId) : 0;
+    }
+
+    public StrainTable getStrainTable() {
+        return strains;
+    }
+
+    /**
+     * Tabla de cepas de la simulación; la fija el Grid para las celdas.
+     */
+    public void setStrainTable(StrainTable strains) {
+        this.strains = strains;
+    }
+
+    /**
+     * Pasa la población a la tabla {@code table}, traduciendo los ids de sus cepas (agente que cambia de sala).
+     */
+    public void moveToTable(StrainTable table) {
+        if (strains == null || strains == table) {
+            this.strains = table;
+            return;
+        }
+        strainId = table.importStrain(strains, strainId);
+        for (int i = 0; i < minorCount; i++) {
+            minorStrains[2 * i] = table.importStrain(strains, minorStrains[2 * i]);
+        }
+        this.strains = table;
+    }
+
+    private StrainTable table() {
+        if (strains == null) {
+            strains = new StrainTable();
+        }
+        return strains;
+    }
+
+    public int getStrainId() {
+        return strainId;
+    }
+
+    private void setStrain(int strainId) {
+        this.strainId = strainId;
+    }
+
+    /**
+     * Un agente adquiere la cepa dominante de la población {@code source} (colonización o infección desde una
+     * celda).
+     */
+    public void acquireStrain(KlebsiellaPneumoniae source) {
+        this.strains = source.strains;
+        this.strainId = source.strainId;
+    }
+
+    /**
+     * Cantidad de la cepa dominante.
+     */
+    public int getDominantQuantity() {
+        int minor = 0;
+        for (int i = 0; i < minorCount; i++) {
+            minor += minorStrains[2 * i + 1];
+        }
+        return quantity - minor;
+    }
+
+    public int getStrainCount() {
+        return quantity > 0 ? 1 + minorCount : 0;
+    }
+
+    /**
+     * Ids de las cepas presentes, la dominante primero.
+     */
+    public int[] getStrainIds() {
+        int[] ids = new int[1 + minorCount];
+        ids[0] = strainId;
+        for (int i = 0; i < minorCount; i++) {
+            ids[i + 1] = minorStrains[2 * i];
+        }
+        return ids;
     }
 
     public int getQuantity() {
@@ -77,24 +164,131 @@ public class KlebsiellaPneumoniae {
 
     public void setQuantity(int quantity) {
         this.quantity = quantity;
+        this.minorCount = 0;
     }
 
     public void increaseQuantity(int amount) {
+        if (minorCount > 0) {
+            scaleMinors(quantity + amount);
+        }
         this.quantity += amount;
     }
 
     public void decreaseQuantity(int amount) {
-        this.quantity = Math.max(this.quantity - amount, 0);
+        int newQuantity = Math.max(this.quantity - amount, 0);
+        if (minorCount > 0) {
+            scaleMinors(newQuantity);
+        }
+        this.quantity = newQuantity;
+    }
+
+    /**
+     * Añade {@code amount} bacterias de la cepa {@code strain} (llegada desde una celda vecina). Si la población
+     * estaba vacía pasa a ser de esa cepa; si no, la cepa se suma como minoritaria y puede pasar a dominar.
+     */
+    public void addStrain(StrainTable table, int strain, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        if (quantity == 0) {
+            this.strains = table;
+            this.strainId = strain;
+            this.minorCount = 0;
+            this.quantity = amount;
+            return;
+        }
+        this.quantity += amount;
+        if (strain == strainId) {
+            return;
+        }
+        for (int i = 0; i < minorCount; i++) {
+            if (minorStrains[2 * i] == strain) {
+                minorStrains[2 * i + 1] += amount;
+                promoteIfDominant(i);
+                return;
+            }
+        }
+        if (minorCount == MAX_STRAINS - 1) {
+            return; // Sin hueco: se suma a la dominante
+        }
+        if (minorStrains == null) {
+            minorStrains = new int[2 * (MAX_STRAINS - 1)];
+        }
+        minorStrains[2 * minorCount] = strain;
+        minorStrains[2 * minorCount + 1] = amount;
+        minorCount++;
+        promoteIfDominant(minorCount - 1);
+    }
+
+    private void promoteIfDominant(int i) {
+        int dominant = getDominantQuantity();
+        if (minorStrains[2 * i + 1] > dominant) {
+            int promoted = minorStrains[2 * i];
+            minorStrains[2 * i] = strainId;
+            minorStrains[2 * i + 1] = dominant;
+            strainId = promoted;
+        }
+    }
+
+    /**
+     * Reparte el nuevo total entre las cepas en proporción a su cantidad actual; el redondeo va a la dominante
+     * y las minoritarias que se quedan a cero desaparecen.
+     */
+    private void scaleMinors(int newQuantity) {
+        if (quantity <= 0) {
+            minorCount = 0;
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < minorCount; i++) {
+            int scaled = (int) ((long) minorStrains[2 * i + 1] * newQuantity / quantity);
+            if (scaled > 0) {
+                minorStrains[2 * kept] = minorStrains[2 * i];
+                minorStrains[2 * kept + 1] = scaled;
+                kept++;
+            }
+        }
+        minorCount = kept;
     }
 
     public void resetQuantity() {
         this.quantity = 0;
+        this.minorCount = 0;
     }
 
     public void tryMutate(double mutationRate) {
-        if (random.nextDouble() < mutationRate) {
-            Sensitivity[] vals = Sensitivity.values();
-            this.sensitivity = vals[random.nextInt(vals.length)];
+        tryMutate(mutationRate, random);
+    }
+
+    /**
+     * Igual que tryMutate(double) pero con el generador de la simulación, para que sea reproducible con semilla.
+     * Devuelve si hubo mutación.
+     */
+    public boolean tryMutate(double mutationRate, Random rng) {
+        if (rng.nextDouble() < mutationRate) {
+            mutate(rng);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Equivale a llamar tryMutate(mutationRate) durante varios pasos seguidos: la sensibilidad final solo
+     * depende de si hubo al menos una mutación, porque cada mutación la re-sortea uniformemente.
+     */
+    public boolean tryMutate(double mutationRate, int steps, Random rng) {
+        double anyMutation = 1.0 - Math.pow(1.0 - mutationRate, steps);
+        if (rng.nextDouble() < anyMutation) {
+            mutate(rng);
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * La cepa dominante muta a una cepa hija de la tabla.
+     */
+    private void mutate(Random rng) {
+        this.strainId = table().mutate(strainId, rng);
     }
 }
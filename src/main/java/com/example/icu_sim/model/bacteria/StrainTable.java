@@ -0,0 +1,264 @@
+package com.example.icu_sim.model.bacteria;
+
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.Sensitivity;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tabla de cepas de KNN de una simulación. Cada fenotipo distinto (perfil de sensibilidad, virulencia y tasa de
+ * reproducción) se guarda una sola vez en columnas primitivas y las celdas y los agentes lo referencian por su
+ * id entero. La cepa 0 es la salvaje (sensible al tratamiento A, virulencia 0.5, reproducción 0.1), que es la
+ * que tienen todos los KNN al crearse.
+ *
+ * Las mutaciones crean cepas hijas: el perfil de sensibilidad se re-sortea como antes y, si driftStd > 0,
+ * la virulencia y la tasa de reproducción derivan con ruido normal. La madre no forma parte de la clave: si una
+ * mutación llega a un fenotipo que ya existe, es esa cepa, y su linaje es el de la primera vez que apareció. Así,
+ * sin deriva la tabla no pasa de los seis perfiles de sensibilidad. Con deriva, al llegar a maxStrains las
+ * mutaciones van a la cepa existente más parecida del mismo perfil en lugar de crear otra.
+ *
+ * Es segura para varios hilos: intern es sincronizado y las columnas se publican al crecer.
+ */
+public class StrainTable {
+
+    public static final int WILD_TYPE = 0;
+
+    public static final double WILD_TYPE_VIRULENCE = 0.5;
+    public static final double WILD_TYPE_REPRODUCTION_RATE = 0.1;
+
+    public static final int DEFAULT_MAX_STRAINS = 4096;
+
+    // Bits de resistencia por tratamiento
+    public static final int RESISTANT_A = 1;
+    public static final int RESISTANT_B = 1 << 1;
+    public static final int RESISTANT_C = 1 << 2;
+
+    private static final Sensitivity[] SENSITIVITIES = Sensitivity.values();
+
+    private static final class StrainKey {
+        private final int sensitivity;
+        private final long virulenceBits;
+        private final long reproductionBits;
+
+        private StrainKey(int sensitivity, double virulence, double reproductionRate) {
+            this.sensitivity = sensitivity;
+            this.virulenceBits = Double.doubleToLongBits(virulence);
+            this.reproductionBits = Double.doubleToLongBits(reproductionRate);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StrainKey)) {
+                return false;
+            }
+            StrainKey k = (StrainKey) o;
+            return sensitivity == k.sensitivity && virulenceBits == k.virulenceBits
+                    && reproductionBits == k.reproductionBits;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = sensitivity;
+            h = 31 * h + Long.hashCode(virulenceBits);
+            return 31 * h + Long.hashCode(reproductionBits);
+        }
+    }
+
+    private static final class Columns {
+        private final byte[] sensitivity;
+        private final double[] virulence;
+        private final double[] reproductionRate;
+        private final int[] parent;
+        private final int[] generation;
+
+        private Columns(int capacity) {
+            sensitivity = new byte[capacity];
+            virulence = new double[capacity];
+            reproductionRate = new double[capacity];
+            parent = new int[capacity];
+            generation = new int[capacity];
+        }
+
+        private Columns grow(int capacity, int size) {
+            Columns c = new Columns(capacity);
+            System.arraycopy(sensitivity, 0, c.sensitivity, 0, size);
+            System.arraycopy(virulence, 0, c.virulence, 0, size);
+            System.arraycopy(reproductionRate, 0, c.reproductionRate, 0, size);
+            System.arraycopy(parent, 0, c.parent, 0, size);
+            System.arraycopy(generation, 0, c.generation, 0, size);
+            return c;
+        }
+    }
+
+    private final double driftStd;
+    private final int maxStrains;
+    private final Map<StrainKey, Integer> index = new HashMap<>();
+    private volatile Columns columns = new Columns(16);
+    private volatile int size;
+
+    public StrainTable() {
+        this(0.0);
+    }
+
+    public StrainTable(double driftStd) {
+        this(driftStd, DEFAULT_MAX_STRAINS);
+    }
+
+    public StrainTable(double driftStd, int maxStrains) {
+        this.driftStd = driftStd;
+        this.maxStrains = Math.max(SENSITIVITIES.length, maxStrains);
+        intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A, WILD_TYPE_VIRULENCE, WILD_TYPE_REPRODUCTION_RATE, -1);
+    }
+
+    /**
+     * Id de la cepa con esas propiedades; si no existía se crea como hija de {@code parent} o, con la tabla
+     * llena, se devuelve la más parecida.
+     */
+    public synchronized int intern(Sensitivity sensitivity, double virulence, double reproductionRate, int parent) {
+        StrainKey key = new StrainKey(sensitivity.ordinal(), virulence, reproductionRate);
+        Integer existing = index.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (size >= maxStrains) {
+            return nearest(sensitivity, virulence, reproductionRate);
+        }
+        int id = size;
+        Columns c = columns;
+        if (id == c.sensitivity.length) {
+            c = c.grow(id * 2, id);
+        }
+        c.sensitivity[id] = (byte) sensitivity.ordinal();
+        c.virulence[id] = virulence;
+        c.reproductionRate[id] = reproductionRate;
+        c.parent[id] = parent;
+        c.generation[id] = parent >= 0 ? c.generation[parent] + 1 : 0;
+        columns = c;
+        size = id + 1;
+        index.put(key, id);
+        return id;
+    }
+
+    /**
+     * Cepa hija de {@code strain}: perfil re-sorteado y, con deriva, virulencia y reproducción perturbadas.
+     */
+    public int mutate(int strain, Random rng) {
+        Sensitivity sensitivity = SENSITIVITIES[rng.nextInt(SENSITIVITIES.length)];
+        double virulence = getVirulence(strain);
+        double reproductionRate = getReproductionRate(strain);
+        if (driftStd > 0) {
+            virulence = clamp(virulence + rng.nextGaussian() * driftStd);
+            reproductionRate = clamp(reproductionRate + rng.nextGaussian() * driftStd * WILD_TYPE_REPRODUCTION_RATE);
+        }
+        return intern(sensitivity, virulence, reproductionRate, strain);
+    }
+
+    /**
+     * Cepa existente del mismo perfil más cercana en virulencia y reproducción (esta en unidades de la salvaje).
+     */
+    private int nearest(Sensitivity sensitivity, double virulence, double reproductionRate) {
+        Columns c = columns;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int id = 0; id < size; id++) {
+            if (c.sensitivity[id] != sensitivity.ordinal()) {
+                continue;
+            }
+            double dv = c.virulence[id] - virulence;
+            double dr = (c.reproductionRate[id] - reproductionRate) / WILD_TYPE_REPRODUCTION_RATE;
+            double distance = dv * dv + dr * dr;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = id;
+            }
+        }
+        return best >= 0 ? best : WILD_TYPE;
+    }
+
+    /**
+     * Id en esta tabla de la cepa {@code strain} de otra tabla: se internan su linaje desde la salvaje y su
+     * fenotipo. Con el mismo orden de llamadas el resultado es el mismo, así que se usa para mover agentes entre
+     * salas (cada una con su tabla) en la barrera del paso.
+     */
+    public int importStrain(StrainTable source, int strain) {
+        if (source == this) {
+            return strain;
+        }
+        int id = -1;
+        for (int ancestor : source.getLineage(strain)) {
+            id = intern(source.getSensitivity(ancestor), source.getVirulence(ancestor), source.getReproductionRate(ancestor), id);
+        }
+        return id;
+    }
+
+    private static double clamp(double v) {
+        return Math.max(0.0, Math.min(1.0, v));
+    }
+
+    public Sensitivity getSensitivity(int strain) {
+        return SENSITIVITIES[columns.sensitivity[strain]];
+    }
+
+    /**
+     * Tratamientos a los que la cepa es resistente. Los perfiles "sensible a B/C" implican que el tratamiento
+     * anterior ya no funciona.
+     */
+    public int getResistanceMask(int strain) {
+        switch (getSensitivity(strain)) {
+            case RESISTANT_TO_TREATMENT_A:
+            case SUSCEPTIBLE_TO_TREATMENT_B:
+                return RESISTANT_A;
+            case RESISTANT_TO_TREATMENT_B:
+            case SUSCEPTIBLE_TO_TREATMENT_C:
+                return RESISTANT_A | RESISTANT_B;
+            case RESISTANT_TO_TREATMENT_C:
+                return RESISTANT_A | RESISTANT_B | RESISTANT_C;
+            default:
+                return 0;
+        }
+    }
+
+    public double getVirulence(int strain) {
+        return columns.virulence[strain];
+    }
+
+    public double getReproductionRate(int strain) {
+        return columns.reproductionRate[strain];
+    }
+
+    public int getParent(int strain) {
+        return columns.parent[strain];
+    }
+
+    public int getGeneration(int strain) {
+        return columns.generation[strain];
+    }
+
+    /**
+     * Linaje de la cepa desde la salvaje hasta ella.
+     */
+    public int[] getLineage(int strain) {
+        Columns c = columns;
+        int[] lineage = new int[c.generation[strain] + 1];
+        for (int i = lineage.length - 1; i >= 0; i--) {
+            lineage[i] = strain;
+            strain = c.parent[strain];
+        }
+        return lineage;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxStrains() {
+        return maxStrains;
+    }
+
+    @Override
+    public String toString() {
+        return "StrainTable{size=" + size + ", lineageDepth=" + Arrays.stream(columns.generation, 0, size).max().orElse(0) + '}';
+    }
+}
@@ -16,6 +16,12 @@ public class Cell {
     private int icuCapacity;
     private int usedBeds;
 
+    // Plano de la unidad (ver FloorPlan)
+    private boolean blocked;
+    private int roomId;
+    private boolean sink;
+    private boolean highTouchSurface;
+
     public Cell(int x, int y) {
         this.x = x;
         this.y = y;
@@ -46,6 +52,10 @@ public class Cell {
         return usedBeds < icuCapacity;
     }
 
+    public int getUsedBeds() {
+        return usedBeds;
+    }
+
     public void occupyBed() {
         if (hasFreeBed()) {
             usedBeds++;
@@ -58,6 +68,18 @@ public class Cell {
         }
     }
 
+    public boolean isBlocked() { return blocked; }
+    public void setBlocked(boolean blocked) { this.blocked = blocked; }
+
+    public int getRoomId() { return roomId; }
+    public void setRoomId(int roomId) { this.roomId = roomId; }
+
+    public boolean isSink() { return sink; }
+    public void setSink(boolean sink) { this.sink = sink; }
+
+    public boolean isHighTouchSurface() { return highTouchSurface; }
+    public void setHighTouchSurface(boolean highTouchSurface) { this.highTouchSurface = highTouchSurface; }
+
     public int getX() { return x; }
     public int getY() { return y; }
 
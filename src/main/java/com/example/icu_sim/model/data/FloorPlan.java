@@ -0,0 +1,300 @@
+package com.example.icu_sim.model.data;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plano de una unidad: una fila de texto por fila del grid (y hacia abajo, x hacia la derecha) con la leyenda
+ *
+ *   #  pared (celda bloqueada)        .  suelo
+ *   D  puerta (transitable, separa habitaciones)
+ *   I  celda de UCI con Grid.ICU_CAPACITY camas     1-9  celda de UCI con ese número de camas
+ *   S  lavabo                         H  superficie de alto contacto
+ *
+ * En JSON ({@code rows} más listas opcionales {@code icuBeds}, {@code sinks} y {@code highTouchSurfaces} con
+ * coordenadas x, y) las listas se aplican sobre lo que indiquen las filas. Las filas más cortas se completan
+ * con pared. Grid(FloorPlan) lo compila a tablas planas (máscara de bloqueadas, id de habitación, vecinos).
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FloorPlan {
+
+    public static final char WALL = '#';
+    public static final char FLOOR = '.';
+    public static final char DOOR = 'D';
+    public static final char ICU = 'I';
+    public static final char SINK = 'S';
+    public static final char HIGH_TOUCH = 'H';
+
+    public static final String CLASSPATH_PREFIX = "classpath:";
+    // Los recursos de plano solo se buscan en este paquete del classpath
+    public static final String CLASSPATH_DIRECTORY = "floorplans/";
+
+    // Directorio de los planos en fichero (icu-sim.floorplans.directory); null = solo recursos del classpath
+    private static volatile Path plansDirectory;
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CellSpec {
+        private int x;
+        private int y;
+        private int beds = Grid.ICU_CAPACITY; // Solo en icuBeds
+
+        public CellSpec() {}
+
+        public CellSpec(int x, int y, int beds) {
+            this.x = x;
+            this.y = y;
+            this.beds = beds;
+        }
+
+        public int getX() { return x; }
+        public void setX(int x) { this.x = x; }
+
+        public int getY() { return y; }
+        public void setY(int y) { this.y = y; }
+
+        public int getBeds() { return beds; }
+        public void setBeds(int beds) { this.beds = beds; }
+    }
+
+    private List<String> rows = new ArrayList<>();
+    private List<CellSpec> icuBeds = new ArrayList<>();
+    private List<CellSpec> sinks = new ArrayList<>();
+    private List<CellSpec> highTouchSurfaces = new ArrayList<>();
+
+    public FloorPlan() {}
+
+    /**
+     * Plano en formato ASCII; se ignoran las líneas vacías al principio y al final.
+     */
+    public static FloorPlan parseAscii(String text) {
+        List<String> lines = new ArrayList<>(text.lines().map(String::stripTrailing).toList());
+        while (!lines.isEmpty() && lines.get(0).isEmpty()) {
+            lines.remove(0);
+        }
+        while (!lines.isEmpty() && lines.get(lines.size() - 1).isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        FloorPlan plan = new FloorPlan();
+        plan.setRows(lines);
+        return plan;
+    }
+
+    /**
+     * Directorio bajo el que se resuelven los planos en fichero; null para admitir solo recursos del classpath.
+     */
+    public static void setPlansDirectory(Path directory) {
+        plansDirectory = directory != null ? directory.toAbsolutePath().normalize() : null;
+    }
+
+    public static Path getPlansDirectory() {
+        return plansDirectory;
+    }
+
+    /**
+     * Carga un plano: con el prefijo {@code classpath:}, un recurso bajo {@code floorplans/}; si no, un nombre
+     * relativo al directorio de planos. Se rechazan las rutas absolutas, los segmentos {@code ..} y lo que
+     * quede fuera del directorio (también a través de enlaces simbólicos), porque la ruta llega en las
+     * solicitudes HTTP. Los ficheros {@code .json} se leen como JSON y el resto como ASCII.
+     */
+    public static FloorPlan load(String location) {
+        String text;
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            text = readResource(location);
+        } else {
+            text = readFile(location);
+        }
+        if (location.toLowerCase().endsWith(".json")) {
+            try {
+                return new ObjectMapper().readValue(text, FloorPlan.class);
+            } catch (IOException e) {
+                // Sin el mensaje de Jackson, que cita el contenido del fichero
+                throw new IllegalArgumentException("El plano " + location + " no es un JSON de plano válido");
+            }
+        }
+        return parseAscii(text);
+    }
+
+    private static String readResource(String location) {
+        String resource = location.substring(CLASSPATH_PREFIX.length());
+        if (!resource.startsWith(CLASSPATH_DIRECTORY) || hasParentSegment(resource)) {
+            throw new IllegalArgumentException("Los planos del classpath deben estar en " + CLASSPATH_DIRECTORY
+                    + " y no pueden contener '..': " + location);
+        }
+        try (InputStream in = FloorPlan.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No existe el recurso de plano " + location);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el plano " + location);
+        }
+    }
+
+    private static String readFile(String location) {
+        Path directory = plansDirectory;
+        if (directory == null) {
+            throw new IllegalArgumentException("Los planos en fichero no están habilitados (icu-sim.floorplans.directory);"
+                    + " use un recurso " + CLASSPATH_PREFIX + CLASSPATH_DIRECTORY + "...");
+        }
+        Path relative;
+        try {
+            relative = Path.of(location);
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Nombre de plano no válido: " + location);
+        }
+        if (location.isBlank() || relative.isAbsolute() || hasParentSegment(location)) {
+            throw new IllegalArgumentException("El plano debe ser un nombre relativo al directorio de planos, sin '..': " + location);
+        }
+        try {
+            Path file = directory.resolve(relative).normalize().toRealPath();
+            if (!file.startsWith(directory.toRealPath()) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("El plano " + location + " está fuera del directorio de planos");
+            }
+            return Files.readString(file);
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("No existe el plano " + location);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el plano " + location);
+        }
+    }
+
+    private static boolean hasParentSegment(String location) {
+        for (String segment : location.split("[/\\\\]")) {
+            if (segment.equals("..")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getWidth() {
+        int width = 0;
+        for (String row : rows) {
+            width = Math.max(width, row.length());
+        }
+        return width;
+    }
+
+    public int getHeight() {
+        return rows.size();
+    }
+
+    /**
+     * Celdas transitables (todas menos las paredes), como las compila Grid(FloorPlan).
+     */
+    public int countWalkableCells() {
+        int walkable = 0;
+        for (int x = 0; x < getWidth(); x++) {
+            for (int y = 0; y < getHeight(); y++) {
+                if (symbolAt(x, y) != WALL) {
+                    walkable++;
+                }
+            }
+        }
+        return walkable;
+    }
+
+    /**
+     * Celdas de UCI (con las correcciones de {@code icuBeds}), como las marca Grid(FloorPlan). Sirve para
+     * dimensionar el modelo compartimental sin crear el grid.
+     */
+    public int countIcuCells() {
+        int width = getWidth();
+        int height = getHeight();
+        boolean[] icu = new boolean[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                char symbol = symbolAt(x, y);
+                icu[x * height + y] = symbol == ICU || (symbol >= '1' && symbol <= '9');
+            }
+        }
+        for (CellSpec spec : icuBeds) {
+            int x = spec.getX();
+            int y = spec.getY();
+            if (x >= 0 && x < width && y >= 0 && y < height && symbolAt(x, y) != WALL) {
+                icu[x * height + y] = spec.getBeds() > 0;
+            }
+        }
+        int count = 0;
+        for (boolean cell : icu) {
+            if (cell) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Comprueba que las filas solo usan símbolos de la leyenda; lanza IllegalArgumentException con el primero
+     * que no lo es.
+     */
+    public void validate() {
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("El plano no tiene filas");
+        }
+        for (int y = 0; y < rows.size(); y++) {
+            String row = rows.get(y);
+            if (row == null) {
+                throw new IllegalArgumentException("El plano tiene una fila vacía en y=" + y);
+            }
+            for (int x = 0; x < row.length(); x++) {
+                if (!isKnownSymbol(row.charAt(x))) {
+                    throw new IllegalArgumentException(String.format(
+                            "Símbolo desconocido '%c' en (%d, %d) del plano (admitidos: # . D I S H 1-9)", row.charAt(x), x, y));
+                }
+            }
+        }
+    }
+
+    private static boolean isKnownSymbol(char symbol) {
+        switch (symbol) {
+            case WALL:
+            case FLOOR:
+            case DOOR:
+            case ICU:
+            case SINK:
+            case HIGH_TOUCH:
+                return true;
+            default:
+                return symbol >= '1' && symbol <= '9';
+        }
+    }
+
+    /**
+     * Carácter de la celda (x, y); fuera de las filas es pared.
+     */
+    public char symbolAt(int x, int y) {
+        if (y < 0 || y >= rows.size() || x < 0 || x >= rows.get(y).length()) {
+            return WALL;
+        }
+        return rows.get(y).charAt(x);
+    }
+
+    // Getters & Setters
+    public List<String> getRows() { return rows; }
+    public void setRows(List<String> rows) { this.rows = rows; }
+
+    public List<CellSpec> getIcuBeds() { return icuBeds; }
+    public void setIcuBeds(List<CellSpec> icuBeds) { this.icuBeds = icuBeds; }
+
+    public List<CellSpec> getSinks() { return sinks; }
+    public void setSinks(List<CellSpec> sinks) { this.sinks = sinks; }
+
+    public List<CellSpec> getHighTouchSurfaces() { return highTouchSurfaces; }
+    public void setHighTouchSurfaces(List<CellSpec> highTouchSurfaces) { this.highTouchSurfaces = highTouchSurfaces; }
+
+    @Override
+    public String toString() {
+        return "FloorPlan{" + getWidth() + "x" + getHeight() + '}';
+    }
+}
@@ -1,11 +1,46 @@
 package com.example.icu_sim.model.data;
 
+import com.example.icu_sim.model.bacteria.StrainTable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class Grid {
+    public static final int ICU_ROWS = 2; // Filas inferiores reservadas a UCI
+    public static final int ICU_CAPACITY = 4; // Camas por celda de UCI
+
     private int width;
     private int height;
     private Cell[][] cells;
 
+    // Tablas precalculadas sobre el índice plano x * height + y
+    private Cell[] flatCells;
+    // Vecinos alcanzables (incluida la propia celda) en orden dx, dy de -1 a 1, en formato CSR:
+    // los de la celda i están en neighborCells[neighborOffsets[i] .. neighborOffsets[i + 1])
+    private int[] neighborOffsets;
+    private int[] neighborCells;
+    // Destino de un movimiento (dx, dy) recortado al borde; si el destino no es alcanzable, la propia celda:
+    // moveTargets[i * 9 + (dx+1) * 3 + (dy+1)]
+    private int[] moveTargets;
+
+    // Plano: máscara de celdas bloqueadas (bit i = celda i), celdas transitables y reservorios
+    private long[] blockedMask;
+    private int[] walkableCells;
+    private int[] reservoirCells; // Lavabos y después superficies de alto contacto
+    private int roomCount;
+
+    private StrainTable strains = new StrainTable();
+
     public Grid(int width, int height) {
+        this(width, height, ICU_ROWS);
+    }
+
+    /**
+     * Grid con las {@code icuRows} filas inferiores como UCI (0 = sin UCI, height = toda la sala es UCI).
+     */
+    public Grid(int width, int height, int icuRows) {
         this.width = width;
         this.height = height;
         this.cells = new Cell[width][height];
@@ -14,14 +49,188 @@ public class Grid {
             for(int y = 0; y < height; y++) {
                 Cell c = new Cell(x, y);
                 // Designar las filas inferiores como UCI
-                // Por ejemplo, las últimas 2 filas
-                if(y >= height - 2) {
+                if(y >= height - icuRows) {
+                    c.setIcuCell(true);
+                    c.setIcuCapacity(ICU_CAPACITY); // Capacidad de camas en UCI
+                }
+                cells[x][y] = c;
+            }
+        }
+        buildCellTables();
+        buildNeighborTables();
+    }
+
+    /**
+     * Grid a partir de un plano: paredes bloqueadas, camas de UCI por celda, lavabos, superficies de alto
+     * contacto y habitaciones (componentes conexas de suelo separadas por paredes y puertas). Los agentes y
+     * los KNN solo pasan de una habitación a otra a través de una puerta.
+     */
+    public Grid(FloorPlan plan) {
+        plan.validate();
+        this.width = plan.getWidth();
+        this.height = plan.getHeight();
+        this.cells = new Cell[width][height];
+
+        for(int x = 0; x < width; x++) {
+            for(int y = 0; y < height; y++) {
+                Cell c = new Cell(x, y);
+                char symbol = plan.symbolAt(x, y);
+                if(symbol == FloorPlan.WALL) {
+                    c.setBlocked(true);
+                } else if(symbol == FloorPlan.ICU) {
                     c.setIcuCell(true);
-                    c.setIcuCapacity(4); // Capacidad de camas en UCI
+                    c.setIcuCapacity(ICU_CAPACITY);
+                } else if(symbol >= '1' && symbol <= '9') {
+                    c.setIcuCell(true);
+                    c.setIcuCapacity(symbol - '0');
+                } else if(symbol == FloorPlan.SINK) {
+                    c.setSink(true);
+                } else if(symbol == FloorPlan.HIGH_TOUCH) {
+                    c.setHighTouchSurface(true);
                 }
                 cells[x][y] = c;
             }
         }
+        for(FloorPlan.CellSpec spec : plan.getIcuBeds()) {
+            Cell c = getCell(spec.getX(), spec.getY());
+            if(c != null && !c.isBlocked()) {
+                c.setIcuCell(spec.getBeds() > 0);
+                c.setIcuCapacity(spec.getBeds());
+            }
+        }
+        for(FloorPlan.CellSpec spec : plan.getSinks()) {
+            Cell c = getCell(spec.getX(), spec.getY());
+            if(c != null && !c.isBlocked()) {
+                c.setSink(true);
+            }
+        }
+        for(FloorPlan.CellSpec spec : plan.getHighTouchSurfaces()) {
+            Cell c = getCell(spec.getX(), spec.getY());
+            if(c != null && !c.isBlocked()) {
+                c.setHighTouchSurface(true);
+            }
+        }
+
+        buildCellTables();
+        assignRooms(plan);
+        buildNeighborTables();
+    }
+
+    private void buildCellTables() {
+        setStrainTable(strains);
+        int n = width * height;
+        flatCells = new Cell[n];
+        blockedMask = new long[(n + 63) / 64];
+        for(int x = 0; x < width; x++) {
+            for(int y = 0; y < height; y++) {
+                int i = x * height + y;
+                flatCells[i] = cells[x][y];
+                if(cells[x][y].isBlocked()) {
+                    blockedMask[i >> 6] |= 1L << i;
+                }
+            }
+        }
+
+        List<Integer> walkable = new ArrayList<>();
+        List<Integer> sinks = new ArrayList<>();
+        List<Integer> highTouch = new ArrayList<>();
+        for(int i = 0; i < n; i++) {
+            if(!isBlocked(i)) {
+                walkable.add(i);
+                if(flatCells[i].isSink()) sinks.add(i);
+                if(flatCells[i].isHighTouchSurface()) highTouch.add(i);
+            }
+        }
+        walkableCells = walkable.stream().mapToInt(Integer::intValue).toArray();
+        sinks.addAll(highTouch);
+        reservoirCells = sinks.stream().mapToInt(Integer::intValue).toArray();
+        roomCount = walkableCells.length > 0 ? 1 : 0;
+    }
+
+    private void buildNeighborTables() {
+        int n = width * height;
+        neighborOffsets = new int[n + 1];
+        int[] buffer = new int[n * 9];
+        moveTargets = new int[n * 9];
+
+        int count = 0;
+        for(int x = 0; x < width; x++) {
+            for(int y = 0; y < height; y++) {
+                int i = x * height + y;
+                neighborOffsets[i] = count;
+                boolean blocked = isBlocked(i);
+                for(int dx = -1; dx <= 1; dx++) {
+                    for(int dy = -1; dy <= 1; dy++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if(!blocked && nx >= 0 && nx < width && ny >= 0 && ny < height && reachable(i, nx * height + ny)) {
+                            buffer[count++] = nx * height + ny;
+                        }
+                        int cx = Math.max(0, Math.min(nx, width - 1));
+                        int cy = Math.max(0, Math.min(ny, height - 1));
+                        int target = cx * height + cy;
+                        moveTargets[i * 9 + (dx + 1) * 3 + (dy + 1)] = reachable(i, target) ? target : i;
+                    }
+                }
+            }
+        }
+        neighborOffsets[n] = count;
+        neighborCells = Arrays.copyOf(buffer, count);
+    }
+
+    /**
+     * Se puede pasar de la celda i a la vecina j: j no está bloqueada y son de la misma habitación o una de
+     * las dos es una puerta (roomId -1). Sin plano todas las celdas son de la habitación 0.
+     */
+    private boolean reachable(int i, int j) {
+        if(isBlocked(j)) {
+            return false;
+        }
+        int from = flatCells[i].getRoomId();
+        int to = flatCells[j].getRoomId();
+        return from == to || from < 0 || to < 0;
+    }
+
+    /**
+     * Rellena por inundación (4-vecindad) el suelo que no es puerta; cada componente es una habitación.
+     * Las puertas quedan con roomId -1.
+     */
+    private void assignRooms(FloorPlan plan) {
+        int[] roomIds = new int[width * height];
+        Arrays.fill(roomIds, -1);
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        roomCount = 0;
+        for(int start : walkableCells) {
+            if(roomIds[start] != -1 || isDoor(plan, start)) {
+                continue;
+            }
+            int room = roomCount++;
+            roomIds[start] = room;
+            pending.add(start);
+            while(!pending.isEmpty()) {
+                int i = pending.poll();
+                int x = i / height;
+                int y = i % height;
+                int[][] steps = {{x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1}};
+                for(int[] s : steps) {
+                    if(s[0] < 0 || s[0] >= width || s[1] < 0 || s[1] >= height) {
+                        continue;
+                    }
+                    int j = s[0] * height + s[1];
+                    if(roomIds[j] == -1 && !isBlocked(j) && !isDoor(plan, j)) {
+                        roomIds[j] = room;
+                        pending.add(j);
+                    }
+                }
+            }
+        }
+        for(int i = 0; i < roomIds.length; i++) {
+            flatCells[i].setRoomId(roomIds[i]);
+        }
+    }
+
+    private boolean isDoor(FloorPlan plan, int index) {
+        return plan.symbolAt(index / height, index % height) == FloorPlan.DOOR;
     }
 
     public Cell getCell(int x, int y) {
@@ -31,6 +240,88 @@ public class Grid {
         return null;
     }
 
+    /**
+     * Índice plano de la celda (x * height + y).
+     */
+    public int indexOf(Cell cell) {
+        return cell.getX() * height + cell.getY();
+    }
+
+    public Cell getCell(int index) {
+        return flatCells[index];
+    }
+
+    public int getCellCount() {
+        return flatCells.length;
+    }
+
+    public boolean isBlocked(int index) {
+        return (blockedMask[index >> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * true si el plano tiene paredes; si no, todas las celdas son transitables.
+     */
+    public boolean hasBlockedCells() {
+        return walkableCells.length < flatCells.length;
+    }
+
+    public int getWalkableCount() {
+        return walkableCells.length;
+    }
+
+    /**
+     * k-ésima celda transitable (0 <= k < getWalkableCount).
+     */
+    public int getWalkableCell(int k) {
+        return walkableCells[k];
+    }
+
+    /**
+     * Lavabos y superficies de alto contacto, en ese orden.
+     */
+    public int[] getReservoirCells() {
+        return reservoirCells;
+    }
+
+    public StrainTable getStrainTable() {
+        return strains;
+    }
+
+    /**
+     * Tabla de cepas que usan los KNN de todas las celdas.
+     */
+    public void setStrainTable(StrainTable strains) {
+        this.strains = strains;
+        for(Cell[] column : cells) {
+            for(Cell c : column) {
+                c.getKnn().setStrainTable(strains);
+            }
+        }
+    }
+
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    public int getNeighborCount(int index) {
+        return neighborOffsets[index + 1] - neighborOffsets[index];
+    }
+
+    /**
+     * k-ésimo vecino (0 <= k < getNeighborCount) de la celda, sin comprobar límites.
+     */
+    public int getNeighbor(int index, int k) {
+        return neighborCells[neighborOffsets[index] + k];
+    }
+
+    /**
+     * Celda destino de moverse (dx, dy), con dx y dy en {0, 1, 2} para -1, 0 y +1, recortada al borde.
+     */
+    public int moveTarget(int index, int dx, int dy) {
+        return moveTargets[index * 9 + dx * 3 + dy];
+    }
+
     public int getWidth() { return width; }
     public int getHeight() { return height; }
     public Cell[][] getCells() { return cells; }
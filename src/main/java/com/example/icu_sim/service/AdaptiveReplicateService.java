@@ -0,0 +1,104 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.AdaptiveBatchRequest;
+import com.example.icu_sim.model.AdaptiveBatchResult;
+import com.example.icu_sim.model.AdaptiveBatchResult.MetricEstimate;
+import com.example.icu_sim.model.BatchRequest;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.ReplicateStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Número de réplicas adaptativo. Lanza rondas de roundSize réplicas (con el coordinador de lotes, así que
+ * se reparten entre los workers si los hay) y, a partir de minReplicates, para en cuanto el intervalo de
+ * confianza de la media de cada métrica elegida tiene una semiamplitud por debajo del objetivo, absoluto o
+ * relativo, o al llegar a maxReplicates.
+ *
+ * Las semillas son baseSeed + i, como en /batch, y se comprueba al final de cada ronda. Por eso, con el mismo
+ * roundSize, el resultado no depende del número de hilos ni de workers.
+ */
+@Service
+public class AdaptiveReplicateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveReplicateService.class);
+
+    @Autowired
+    private BatchCoordinatorService batchCoordinatorService;
+
+    public AdaptiveBatchResult run(AdaptiveBatchRequest request) {
+        validate(request);
+        int roundSize = Math.max(1, request.getRoundSize());
+        ReplicateStatistics stats = new ReplicateStatistics();
+        AdaptiveBatchResult result = new AdaptiveBatchResult();
+        result.setConfidenceLevel(request.getConfidenceLevel());
+
+        while (stats.getReplicates() < request.getMaxReplicates()) {
+            BatchRequest round = new BatchRequest();
+            round.setRequest(request.getRequest());
+            round.setBaseSeed(request.getBaseSeed() + stats.getReplicates());
+            round.setReplicates(Math.min(roundSize, request.getMaxReplicates() - stats.getReplicates()));
+            round.setShardSize(request.getShardSize());
+            stats.merge(batchCoordinatorService.runBatch(round).getStatistics());
+            result.setRounds(result.getRounds() + 1);
+
+            boolean converged = estimate(request, stats, result);
+            logger.info("Ronda {}: {} réplicas, IC {}", result.getRounds(), stats.getReplicates(),
+                    converged ? "dentro del objetivo" : "aún ancho");
+            if (converged && stats.getReplicates() >= request.getMinReplicates()) {
+                result.setConverged(true);
+                break;
+            }
+        }
+        result.setReplicates(stats.getReplicates());
+        result.setStatistics(stats);
+        return result;
+    }
+
+    /**
+     * Actualiza las estimaciones de las métricas y devuelve true si todas cumplen el objetivo.
+     */
+    private boolean estimate(AdaptiveBatchRequest request, ReplicateStatistics stats, AdaptiveBatchResult result) {
+        boolean all = true;
+        for (String name : request.getMetrics()) {
+            MetricSummary summary = stats.getMetrics().getOrDefault(name, new MetricSummary());
+            double halfWidth = summary.confidenceHalfWidth(request.getConfidenceLevel());
+            boolean converged = halfWidth <= request.getTargetHalfWidth()
+                    || (request.getTargetRelativeHalfWidth() > 0
+                        && halfWidth <= request.getTargetRelativeHalfWidth() * Math.abs(summary.getMean()));
+
+            MetricEstimate estimate = new MetricEstimate();
+            estimate.setMean(summary.getMean());
+            estimate.setHalfWidth(halfWidth);
+            estimate.setLower(summary.getMean() - halfWidth);
+            estimate.setUpper(summary.getMean() + halfWidth);
+            estimate.setStd(summary.getStd());
+            estimate.setConverged(converged);
+            result.getEstimates().put(name, estimate);
+            all &= converged;
+        }
+        return all;
+    }
+
+    private void validate(AdaptiveBatchRequest request) {
+        if (request.getMetrics() == null || request.getMetrics().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos una métrica");
+        }
+        for (String name : request.getMetrics()) {
+            if (!ReplicateStatistics.METRIC_NAMES.contains(name)) {
+                throw new AdmissionRejectedException("Métrica desconocida: " + name + " (disponibles: "
+                        + ReplicateStatistics.METRIC_NAMES + ")");
+            }
+        }
+        if (request.getConfidenceLevel() <= 0 || request.getConfidenceLevel() >= 1) {
+            throw new AdmissionRejectedException("confidenceLevel debe estar entre 0 y 1");
+        }
+        if (request.getMaxReplicates() < 2 || request.getMinReplicates() > request.getMaxReplicates()) {
+            throw new AdmissionRejectedException("Se necesitan 2 <= minReplicates <= maxReplicates");
+        }
+        batchCoordinatorService.checkReplicates("maxReplicates", request.getMaxReplicates());
+        ReplicateRunner.checkBaseSeed(request.getBaseSeed(), request.getMaxReplicates());
+    }
+}
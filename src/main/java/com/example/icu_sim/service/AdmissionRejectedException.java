@@ -0,0 +1,15 @@
+package com.example.icu_sim.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Solicitud no válida o fuera del presupuesto de recursos configurado.
+ */
+@ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+public class AdmissionRejectedException extends RuntimeException {
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
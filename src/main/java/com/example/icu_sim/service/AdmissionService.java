@@ -0,0 +1,249 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.Intervention;
+import com.example.icu_sim.model.ResourceEstimate;
+import com.example.icu_sim.model.WardConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Control de admisión de ejecuciones. Valida la solicitud, estima CPU y memoria con ResourceEstimator y la
+ * compara con el presupuesto (propiedades icu-sim.admission.*):
+ *
+ * - Tamaños fuera de límites (celdas, pasos, agentes) o CPU estimada excesiva: se rechaza.
+ * - Memoria excesiva por los snapshots del grid: si se permite degradar, se guardan cada snapshotInterval
+ *   pasos (o ninguno) hasta que quepa y se anota el ajuste; si no, se rechaza.
+ *
+ * Los motores que crea {@link #newEngine()} llevan además los límites de tiempo y memoria por ejecución, y se
+ * detienen con SimulationCancelledException si los superan. Todas las ejecuciones que lanza el servidor (réplicas
+ * de lotes, sensibilidad, calibración, escenarios y salas de hospital) usan esos motores.
+ *
+ * Las solicitudes de muchas réplicas se comprueban además en conjunto: CPU estimada de una réplica por el número
+ * de réplicas, frente a icu-sim.admission.max-batch-cpu-seconds.
+ */
+@Service
+public class AdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionService.class);
+
+    @Value("${icu-sim.admission.max-cells:1000000}")
+    private long maxCells;
+
+    @Value("${icu-sim.admission.max-steps:262800}")
+    private int maxSteps;
+
+    @Value("${icu-sim.admission.max-agents:200000}")
+    private long maxAgents;
+
+    @Value("${icu-sim.admission.max-memory-mb:0}")
+    private long maxMemoryMb;
+
+    @Value("${icu-sim.admission.max-cpu-seconds:600}")
+    private double maxCpuSeconds;
+
+    @Value("${icu-sim.admission.max-run-seconds:900}")
+    private long maxRunSeconds;
+
+    @Value("${icu-sim.admission.max-batch-cpu-seconds:86400}")
+    private double maxBatchCpuSeconds;
+
+    @Value("${icu-sim.admission.downgrade:true}")
+    private boolean downgrade;
+
+    public ResourceEstimate estimate(IcuSimulationRequest request) {
+        validate(request);
+        return ResourceEstimator.estimate(request);
+    }
+
+    /**
+     * Devuelve la solicitud que se va a ejecutar: la misma o una copia degradada, con los ajustes añadidos a
+     * {@code notes}. Lanza AdmissionRejectedException si no cabe en el presupuesto.
+     */
+    public IcuSimulationRequest admit(IcuSimulationRequest request, List<String> notes) {
+        validate(request);
+        ResourceEstimate estimate = ResourceEstimator.estimate(request);
+        checkSizes(estimate);
+
+        IcuSimulationRequest admitted = request;
+        long budget = getMemoryBudgetBytes();
+        if(estimate.getMemoryBytes() > budget) {
+            if(!downgrade || estimate.getSnapshots() == 0) {
+                throw new AdmissionRejectedException(String.format(
+                        "Memoria estimada %d MB por encima del presupuesto de %d MB", mb(estimate.getMemoryBytes()), mb(budget)));
+            }
+            admitted = new IcuSimulationRequest(request);
+            fitSnapshots(admitted, estimate, budget, notes);
+            estimate = ResourceEstimator.estimate(admitted);
+        }
+
+        if(estimate.getCpuSeconds() > maxCpuSeconds) {
+            throw new AdmissionRejectedException(String.format(
+                    "CPU estimada %.0f s por encima del presupuesto de %.0f s", estimate.getCpuSeconds(), maxCpuSeconds));
+        }
+        logger.info("Solicitud admitida: {}", estimate);
+        return admitted;
+    }
+
+    /**
+     * Comprueba una simulación de hospital sumando las estimaciones de sus salas. No se degrada: se rechaza
+     * si no cabe.
+     */
+    public void checkHospital(HospitalSimulationRequest request) {
+        IcuSimulationRequest params = request.getParameters();
+        validate(params);
+        if(params.getEngineMode() != IcuSimulationRequest.EngineMode.AGENT) {
+            throw new AdmissionRejectedException("La simulación de hospital solo admite engineMode AGENT");
+        }
+        if(params.getAgentStorage() != IcuSimulationRequest.AgentStorage.OBJECTS) {
+            // Las métricas y los traslados entre salas se leen de los objetos Patient
+            throw new AdmissionRejectedException("La simulación de hospital solo admite agentStorage OBJECTS");
+        }
+        List<WardConfig> wards = request.getWards();
+        if(wards == null || wards.isEmpty()) {
+            throw new AdmissionRejectedException("La simulación de hospital necesita al menos una sala");
+        }
+        long memory = 0;
+        double cpu = 0;
+        for(int i = 0; i < wards.size(); i++) {
+            IcuSimulationRequest ward = new IcuSimulationRequest(params);
+            ward.setGridWidth(wards.get(i).getGridWidth());
+            ward.setGridHeight(wards.get(i).getGridHeight());
+            ward.setFloorPlanPath(wards.get(i).getFloorPlanPath());
+            ward.setNPatients(wards.get(i).getNPatients());
+            ward.setNWorkers(params.getNWorkers() / wards.size() + (i < params.getNWorkers() % wards.size() ? 1 : 0));
+            validate(ward);
+            ResourceEstimate estimate = ResourceEstimator.estimate(ward);
+            checkSizes(estimate);
+            memory += estimate.getMemoryBytes();
+            cpu += estimate.getCpuSeconds();
+        }
+        if(memory > getMemoryBudgetBytes()) {
+            throw new AdmissionRejectedException(String.format(
+                    "Memoria estimada del hospital %d MB por encima del presupuesto de %d MB", mb(memory), mb(getMemoryBudgetBytes())));
+        }
+        if(cpu > maxCpuSeconds) {
+            throw new AdmissionRejectedException(String.format(
+                    "CPU estimada del hospital %.0f s por encima del presupuesto de %.0f s", cpu, maxCpuSeconds));
+        }
+    }
+
+    /**
+     * Admite una réplica (sin snapshots: solo se agregan sus métricas) y devuelve su CPU estimada en segundos.
+     */
+    public double admitReplicate(IcuSimulationRequest template) {
+        IcuSimulationRequest replicate = new IcuSimulationRequest(template);
+        replicate.setSaveGridSnapshots(false);
+        return ResourceEstimator.estimate(admit(replicate, new ArrayList<>())).getCpuSeconds();
+    }
+
+    /**
+     * Comprueba la CPU total de {@code runs} réplicas de {@code cpuSecondsPerRun} segundos cada una.
+     */
+    public void checkBatchCpu(double cpuSecondsPerRun, long runs) {
+        double total = cpuSecondsPerRun * Math.max(0, runs);
+        if(total > maxBatchCpuSeconds) {
+            throw new AdmissionRejectedException(String.format(
+                    "CPU estimada del lote %.0f s (%d ejecuciones de %.1f s) por encima del presupuesto de %.0f s",
+                    total, runs, cpuSecondsPerRun, maxBatchCpuSeconds));
+        }
+    }
+
+    /**
+     * Motor nuevo con los límites de tiempo y memoria por ejecución.
+     */
+    public IcuSimulationService newEngine() {
+        return newEngine(getMemoryBudgetBytes());
+    }
+
+    /**
+     * Motor con el límite de tiempo y el presupuesto de memoria indicado (p. ej. la parte de una sala de hospital).
+     */
+    public IcuSimulationService newEngine(long memoryBudgetBytes) {
+        IcuSimulationService engine = new IcuSimulationService();
+        engine.setRunLimits(maxRunSeconds * 1000, memoryBudgetBytes);
+        return engine;
+    }
+
+    /**
+     * Presupuesto de memoria por ejecución; con max-memory-mb=0, la mitad del heap máximo.
+     */
+    public long getMemoryBudgetBytes() {
+        return maxMemoryMb > 0 ? maxMemoryMb * 1024 * 1024 : Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    private void validate(IcuSimulationRequest request) {
+        boolean hasPlan = request.getFloorPlan() != null
+                || (request.getFloorPlanPath() != null && !request.getFloorPlanPath().isBlank());
+        if(!hasPlan && (request.getGridWidth() < 1 || request.getGridHeight() < 1)) {
+            throw new AdmissionRejectedException("gridWidth y gridHeight deben ser al menos 1");
+        }
+        if(request.getMaxSteps() < 0 || request.getNPatients() < 0 || request.getNWorkers() < 0) {
+            throw new AdmissionRejectedException("maxSteps, nPatients y nWorkers no pueden ser negativos");
+        }
+        if(request.getSnapshotInterval() < 1) {
+            throw new AdmissionRejectedException("snapshotInterval debe ser al menos 1");
+        }
+        String unsupported = IcuSimulationService.unsupportedWithCompact(request);
+        if(unsupported != null) {
+            throw new AdmissionRejectedException(unsupported);
+        }
+        for(Intervention intervention : request.getInterventions()) {
+            if(!RequestParameters.isRuntime(intervention.getParameter())) {
+                throw new AdmissionRejectedException("Intervención no admitida: " + intervention
+                        + " (parámetros admitidos: " + RequestParameters.runtimeNames() + ")");
+            }
+        }
+        try {
+            ResourceEstimator.cellCount(request);
+        } catch (IllegalArgumentException e) {
+            throw new AdmissionRejectedException(e.getMessage());
+        }
+    }
+
+    private void checkSizes(ResourceEstimate estimate) {
+        if(estimate.getCells() > maxCells) {
+            throw new AdmissionRejectedException(String.format("%d celdas por encima del máximo de %d", estimate.getCells(), maxCells));
+        }
+        if(estimate.getSteps() > maxSteps) {
+            throw new AdmissionRejectedException(String.format("%d pasos por encima del máximo de %d", estimate.getSteps(), maxSteps));
+        }
+        if(estimate.getPeakAgents() > maxAgents) {
+            throw new AdmissionRejectedException(String.format("%d agentes estimados por encima del máximo de %d", estimate.getPeakAgents(), maxAgents));
+        }
+    }
+
+    /**
+     * Ajusta snapshotInterval (o desactiva los snapshots) para que la memoria estimada quepa en el presupuesto.
+     */
+    private void fitSnapshots(IcuSimulationRequest request, ResourceEstimate estimate, long budget, List<String> notes) {
+        boolean compact = request.getAgentStorage() == IcuSimulationRequest.AgentStorage.COMPACT;
+        long base = ResourceEstimator.retainedBytes(estimate.getCells(), estimate.getSteps(), 0, estimate.getPeakAgents(), compact);
+        if(base > budget) {
+            throw new AdmissionRejectedException(String.format(
+                    "Memoria estimada sin snapshots %d MB por encima del presupuesto de %d MB", mb(base), mb(budget)));
+        }
+        long perSnapshot = Math.max(1, estimate.getCells() * ResourceEstimator.SNAPSHOT_BYTES_PER_CELL);
+        long allowed = (budget - base) / perSnapshot;
+        if(allowed < 1) {
+            request.setSaveGridSnapshots(false);
+            notes.add("saveGridSnapshots=false: ni un snapshot del grid cabe en el presupuesto de memoria");
+        } else {
+            int interval = (int) Math.min(Integer.MAX_VALUE, (estimate.getSteps() + allowed - 1) / allowed);
+            interval = Math.max(interval, request.getSnapshotInterval());
+            request.setSnapshotInterval(interval);
+            notes.add("snapshotInterval=" + interval + ": snapshots del grid reducidos para caber en el presupuesto de memoria");
+        }
+        logger.info("Solicitud degradada: {}", notes);
+    }
+
+    private static long mb(long bytes) {
+        return bytes / (1024 * 1024);
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.agents.Agent;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.State;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Planificador next-event para los agentes (modo SchedulingMode.EVENT).
+ *
+ * En lugar de llamar a step() de cada agente en cada paso, se muestrean los tiempos del próximo
+ * movimiento, recuperación, alta y paso de colonizado a infectado (todos procesos de Bernoulli por paso,
+ * por lo que el tiempo de espera es geométrico) y se guardan en una cola de prioridad. La exposición a
+ * celdas contaminadas depende del estado del grid en cada paso, así que solo se evalúa para los agentes
+ * que están en celdas INFECTED.
+ *
+ * Los eventos que dependen del estado del agente llevan una "época": cuando el estado cambia por otra vía
+ * (tratamiento, alta, entrada en UCI) la época avanza y los eventos pendientes quedan obsoletos.
+ */
+public class AgentEventScheduler {
+
+    private enum EventType {
+        MOVE,
+        RECOVER,
+        INFECT,
+        DISCHARGE_CHECK
+    }
+
+    private static final class Event implements Comparable<Event> {
+        private final int step;
+        private final long seq;
+        private final EventType type;
+        private final Agent agent;
+        private final int epoch;
+
+        private Event(int step, long seq, EventType type, Agent agent, int epoch) {
+            this.step = step;
+            this.seq = seq;
+            this.type = type;
+            this.agent = agent;
+            this.epoch = epoch;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (step != other.step) {
+                return Integer.compare(step, other.step);
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final IcuSimulationService service;
+    private final Random random;
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    // Época actual de cada agente registrado; los agentes dados de alta desaparecen del mapa
+    private final Map<Agent, Integer> epochs = new IdentityHashMap<>();
+    // Pacientes infectados que todavía no tienen cama de UCI
+    private final Set<Patient> awaitingBed = new LinkedHashSet<>();
+    private final List<Agent> exposed = new ArrayList<>();
+
+    private long seq;
+    private int currentStep;
+
+    public AgentEventScheduler(IcuSimulationService service, Random random) {
+        this.service = service;
+        this.random = random;
+    }
+
+    public void registerWorker(HealthcareWorker worker) {
+        epochs.put(worker, 0);
+        schedule(EventType.MOVE, worker, sampleDelay(HealthcareWorker.MOVEMENT_CHANCE));
+        if (worker.isInfected()) {
+            schedule(EventType.RECOVER, worker, sampleDelay(HealthcareWorker.RECOVERY_CHANCE));
+        }
+    }
+
+    public void registerPatient(Patient patient) {
+        epochs.put(patient, 0);
+        schedule(EventType.MOVE, patient, sampleDelay(Patient.MOVEMENT_CHANCE));
+        scheduleDischargeCheck(patient);
+        if (patient.isColonized() && !patient.isInfected()) {
+            // Puede infectarse en el mismo paso en que se evalúa
+            schedule(EventType.INFECT, patient, sampleDelay(patient.getInfectionChance()) - 1);
+        }
+        if (patient.isInfected()) {
+            awaitingBed.add(patient);
+        }
+    }
+
+    public void unregister(Agent agent) {
+        epochs.remove(agent);
+        if (agent instanceof Patient) {
+            awaitingBed.remove(agent);
+        }
+    }
+
+    /**
+     * Notifica un cambio de estado del paciente producido fuera del planificador (p. ej. un tratamiento).
+     */
+    public void onPatientStateChanged(Patient patient) {
+        if (!epochs.containsKey(patient)) {
+            return;
+        }
+        bumpEpoch(patient);
+        patient.updateTriagePriority();
+        if (patient.isColonized() && !patient.isInfected()) {
+            schedule(EventType.INFECT, patient, sampleDelay(patient.getInfectionChance()));
+        }
+        if (patient.isInfected() && !patient.isInIcu()) {
+            awaitingBed.add(patient);
+        } else {
+            awaitingBed.remove(patient);
+        }
+    }
+
+    /**
+     * Procesa todos los eventos vencidos en el paso indicado y la exposición de los agentes en celdas
+     * contaminadas.
+     */
+    public void advance(int step, Grid grid) {
+        this.currentStep = step;
+
+        fireDueEvents();
+        exposeAgentsInInfectedCells(grid);
+        // Las colonizaciones de este paso pueden progresar a infección en el mismo paso
+        fireDueEvents();
+        assignIcuBeds();
+    }
+
+    private void fireDueEvents() {
+        while (!queue.isEmpty() && queue.peek().step <= currentStep) {
+            fire(queue.poll());
+        }
+    }
+
+    private void fire(Event event) {
+        Agent agent = event.agent;
+        Integer epoch = epochs.get(agent);
+        if (epoch == null) {
+            return; // Agente dado de alta
+        }
+        switch (event.type) {
+            case MOVE:
+                service.moveAgent(agent);
+                double moveChance = agent instanceof Patient ? Patient.MOVEMENT_CHANCE : HealthcareWorker.MOVEMENT_CHANCE;
+                schedule(EventType.MOVE, agent, sampleDelay(moveChance));
+                break;
+            case RECOVER:
+                HealthcareWorker worker = (HealthcareWorker) agent;
+                if (event.epoch == epoch && worker.isInfected()) {
+                    worker.recover();
+                    bumpEpoch(worker);
+                }
+                break;
+            case INFECT:
+                Patient colonizedPatient = (Patient) agent;
+                if (event.epoch == epoch && colonizedPatient.isColonized() && !colonizedPatient.isInfected()) {
+                    colonizedPatient.becomeInfected();
+                    service.recordPatientInfection(colonizedPatient);
+                    colonizedPatient.updateTriagePriority();
+                    bumpEpoch(colonizedPatient);
+                    awaitingBed.add(colonizedPatient);
+                }
+                break;
+            case DISCHARGE_CHECK:
+                Patient patient = (Patient) agent;
+                if (patient.isDischargeable()) {
+                    patient.discharge(service);
+                } else {
+                    scheduleDischargeCheck(patient);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void exposeAgentsInInfectedCells(Grid grid) {
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                Cell cell = grid.getCell(x, y);
+                KlebsiellaPneumoniae knn = cell.getKnn();
+                if (knn.getState() != State.INFECTED || knn.getQuantity() <= 0 || cell.getAgents().isEmpty()) {
+                    continue;
+                }
+                exposed.clear();
+                exposed.addAll(cell.getAgents());
+                for (Agent agent : exposed) {
+                    expose(agent);
+                }
+            }
+        }
+    }
+
+    private void expose(Agent agent) {
+        if (!epochs.containsKey(agent)) {
+            return;
+        }
+        if (agent instanceof HealthcareWorker) {
+            HealthcareWorker worker = (HealthcareWorker) agent;
+            if (worker.tryInfectFromCell()) {
+                service.recordWorkerInfection(worker);
+                bumpEpoch(worker);
+                schedule(EventType.RECOVER, worker, sampleDelay(HealthcareWorker.RECOVERY_CHANCE));
+            }
+        } else if (agent instanceof Patient) {
+            Patient patient = (Patient) agent;
+            if (patient.tryColonizeFromCell()) {
+                service.recordColonization(patient);
+                patient.updateTriagePriority();
+                bumpEpoch(patient);
+                schedule(EventType.INFECT, patient, sampleDelay(patient.getInfectionChance()) - 1);
+            }
+        }
+    }
+
+    private void assignIcuBeds() {
+        Iterator<Patient> it = awaitingBed.iterator();
+        while (it.hasNext()) {
+            Patient patient = it.next();
+            if (!patient.isInfected()) {
+                it.remove();
+                continue;
+            }
+            patient.occupyIcuBedIfNeeded(service);
+            if (patient.isInIcu()) {
+                it.remove();
+            }
+        }
+    }
+
+    private void scheduleDischargeCheck(Patient patient) {
+        // Las altas solo se evalúan en pasos múltiplos de STEPS_PER_DAY
+        int days = StochasticSampler.geometric(random, Patient.DISCHARGE_CHANCE);
+        int firstDay = currentStep / Patient.STEPS_PER_DAY + 1;
+        long step = (long) (firstDay + days - 1) * Patient.STEPS_PER_DAY;
+        scheduleAt(EventType.DISCHARGE_CHECK, patient, step);
+    }
+
+    private int sampleDelay(double p) {
+        return StochasticSampler.geometric(random, p);
+    }
+
+    private void schedule(EventType type, Agent agent, int delay) {
+        scheduleAt(type, agent, (long) currentStep + delay);
+    }
+
+    private void scheduleAt(EventType type, Agent agent, long step) {
+        if (step > Integer.MAX_VALUE) {
+            return; // Nunca ocurre dentro del horizonte simulable
+        }
+        queue.add(new Event((int) step, seq++, type, agent, epochs.get(agent)));
+    }
+
+    private void bumpEpoch(Agent agent) {
+        epochs.computeIfPresent(agent, (a, e) -> e + 1);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.BatchRequest;
+import com.example.icu_sim.model.BatchResult;
+import com.example.icu_sim.model.ReplicateStatistics;
+import com.example.icu_sim.model.ShardRequest;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Coordinador de lotes de réplicas. Divide el lote en fragmentos de semillas, los envía por HTTP a otras
+ * JVM de esta misma aplicación (POST /api/simulation/shard), reintenta en otro worker los fragmentos que
+ * fallan y combina las estadísticas. Sin workers configurados, o si un fragmento agota los reintentos, se
+ * ejecuta en el propio coordinador.
+ */
+@Service
+public class BatchCoordinatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCoordinatorService.class);
+
+    @Autowired
+    private ReplicateRunner replicateRunner;
+
+    @Value("${icu-sim.cluster.workers:}")
+    private List<String> workerUrls;
+
+    @Value("${icu-sim.cluster.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${icu-sim.cluster.shards-per-worker:2}")
+    private int shardsPerWorker;
+
+    @Value("${icu-sim.cluster.request-timeout-seconds:600}")
+    private int requestTimeoutSeconds;
+
+    @Value("${icu-sim.cluster.max-replicates:100000}")
+    private int maxReplicates;
+
+    private RestClient restClient;
+
+    private static final class ShardOutcome {
+        private final ReplicateStatistics statistics;
+        private final boolean remote;
+        private final int retries;
+
+        private ShardOutcome(ReplicateStatistics statistics, boolean remote, int retries) {
+            this.statistics = statistics;
+            this.remote = remote;
+            this.retries = retries;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        workerUrls = workerUrls.stream().map(String::trim).filter(u -> !u.isEmpty()).toList();
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(Duration.ofSeconds(5));
+        factory.setReadTimeout(Duration.ofSeconds(requestTimeoutSeconds));
+        restClient = RestClient.builder().requestFactory(factory).build();
+    }
+
+    /**
+     * Rechaza (422) un número de réplicas negativo o por encima de icu-sim.cluster.max-replicates; {@code field}
+     * es el campo de la solicitud, para el mensaje.
+     */
+    public void checkReplicates(String field, long replicates) {
+        if (replicates < 0 || replicates > maxReplicates) {
+            throw new AdmissionRejectedException(String.format("%s=%d fuera del rango admitido [0, %d]",
+                    field, replicates, maxReplicates));
+        }
+    }
+
+    public BatchResult runBatch(BatchRequest batch) {
+        checkReplicates("replicates", batch.getReplicates());
+        ReplicateRunner.checkBaseSeed(batch.getBaseSeed(), batch.getReplicates());
+        List<ShardRequest> shards = splitIntoShards(batch);
+        logger.info("Lote de {} réplicas en {} fragmentos, {} workers.", batch.getReplicates(), shards.size(), workerUrls.size());
+
+        BatchResult result = new BatchResult();
+        result.setShards(shards.size());
+
+        if (workerUrls.isEmpty()) {
+            for (ShardRequest shard : shards) {
+                result.getStatistics().merge(replicateRunner.runReplicates(shard.getRequest(), shard.getSeeds()));
+                result.setLocalShards(result.getLocalShards() + 1);
+            }
+            return result;
+        }
+
+        ExecutorService dispatcher = Executors.newFixedThreadPool(workerUrls.size() * Math.max(1, shardsPerWorker));
+        try {
+            List<Future<ShardOutcome>> futures = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                ShardRequest shard = shards.get(i);
+                int shardIndex = i;
+                futures.add(dispatcher.submit(() -> dispatch(shard, shardIndex)));
+            }
+            // Se combinan en orden de fragmento para que la agregación sea determinista
+            for (Future<ShardOutcome> f : futures) {
+                ShardOutcome outcome = f.get();
+                result.getStatistics().merge(outcome.statistics);
+                result.setRetries(result.getRetries() + outcome.retries);
+                if (outcome.remote) {
+                    result.setRemoteShards(result.getRemoteShards() + 1);
+                } else {
+                    result.setLocalShards(result.getLocalShards() + 1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Lote interrumpido", e);
+        } catch (ExecutionException e) {
+            throw SimulationExecutor.failure(e, "Error ejecutando un fragmento");
+        } finally {
+            dispatcher.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Fragmentos de shardSize semillas consecutivas desde baseSeed (el último puede ser más corto).
+     */
+    static List<ShardRequest> splitIntoShards(BatchRequest batch) {
+        int shardSize = Math.max(1, batch.getShardSize());
+        List<ShardRequest> shards = new ArrayList<>();
+        for (int start = 0; start < batch.getReplicates(); start += shardSize) {
+            List<Long> seeds = new ArrayList<>();
+            for (int i = start; i < Math.min(start + shardSize, batch.getReplicates()); i++) {
+                seeds.add(batch.getBaseSeed() + i);
+            }
+            shards.add(new ShardRequest(batch.getRequest(), seeds));
+        }
+        return shards;
+    }
+
+    private ShardOutcome dispatch(ShardRequest shard, int shardIndex) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            // Cada reintento va a un worker distinto
+            String worker = workerUrls.get((shardIndex + attempt) % workerUrls.size());
+            try {
+                ReplicateStatistics stats = restClient.post()
+                        .uri(worker + "/api/simulation/shard")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(shard)
+                        .retrieve()
+                        .body(ReplicateStatistics.class);
+                if (stats != null && stats.getReplicates() == shard.getSeeds().size()) {
+                    return new ShardOutcome(stats, true, attempt);
+                }
+                logger.warn("Fragmento {}: respuesta incompleta de {}", shardIndex, worker);
+            } catch (RestClientException e) {
+                logger.warn("Fragmento {}: fallo en {} (intento {}): {}", shardIndex, worker, attempt + 1, e.getMessage());
+            }
+        }
+        logger.warn("Fragmento {}: reintentos agotados, se ejecuta en el coordinador.", shardIndex);
+        return new ShardOutcome(replicateRunner.runReplicates(shard.getRequest(), shard.getSeeds()), false, maxRetries);
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.CalibrationRequest;
+import com.example.icu_sim.model.CalibrationResult;
+import com.example.icu_sim.model.CalibrationResult.Generation;
+import com.example.icu_sim.model.CalibrationResult.Particle;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.ParameterRange;
+import com.example.icu_sim.model.SimulationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Calibración por ABC-SMC (Toni et al. 2009, con el núcleo de Beaumont et al. 2009) frente a una serie observada.
+ *
+ * La distancia es la raíz del error cuadrático medio entre la serie observada y la incidencia simulada: las
+ * nuevas infecciones de pacientes de cada periodo de observationInterval pasos. La generación 0 muestrea los priors uniformes sin
+ * tolerancia; en las siguientes, la tolerancia es el cuantil toleranceQuantile de las distancias de la
+ * población anterior y las propuestas salen de remuestrear esa población por pesos y perturbar cada parámetro
+ * con una normal de varianza 2 * varianza ponderada.
+ *
+ * Rechazo anticipado: la suma de cuadrados solo crece con cada periodo completado, así que la distancia parcial
+ * es una cota inferior de la final. En cuanto la supera la tolerancia, el motor se cancela sin terminar la
+ * ejecución (solo en los pasos del motor de agentes; la fase compartimental es barata).
+ *
+ * El intento i (contando desde el principio de la calibración) genera su propuesta con un generador derivado de
+ * samplingSeed e i, y simula con la semilla baseSeed + i. Los intentos se lanzan en lotes en paralelo y se
+ * consumen en orden; al completar la población se cancelan los que sobran. Así la población aceptada no depende
+ * del número de hilos.
+ */
+@Service
+public class CalibrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibrationService.class);
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Value("${icu-sim.calibration.max-simulations:100000}")
+    private int maxSimulationsLimit;
+
+    @Autowired
+    private SimulationExecutor executor;
+
+    public CalibrationService() {}
+
+    /**
+     * Servicio fuera de Spring sobre {@code executor} (pruebas de que el resultado no depende de sus hilos).
+     */
+    CalibrationService(AdmissionService admissionService, int maxSimulationsLimit, SimulationExecutor executor) {
+        this.admissionService = admissionService;
+        this.maxSimulationsLimit = maxSimulationsLimit;
+        this.executor = executor;
+    }
+
+    /**
+     * Resultado de una simulación: distancia (infinita si se rechazó antes de terminar) y pasos simulados.
+     */
+    private record Evaluation(double distance, int steps, boolean earlyRejected) {}
+
+    /**
+     * Población de partículas con pesos normalizados.
+     */
+    private record Population(double[][] theta, double[] weights, double[] distances, double tolerance) {}
+
+    /**
+     * Distancia parcial: consume los periodos completos de la serie de nuevas infecciones por paso a medida que
+     * aparecen.
+     */
+    private static final class DistanceTracker {
+        private final List<Double> observed;
+        private final int interval;
+        private double sumSquares;
+        private int periods;
+
+        private DistanceTracker(List<Double> observed, int interval) {
+            this.observed = observed;
+            this.interval = interval;
+        }
+
+        /**
+         * Añade los periodos completados y devuelve la distancia parcial (cota inferior de la final).
+         */
+        private double update(List<Double> series) {
+            while (periods < observed.size() && series.size() >= (periods + 1) * interval) {
+                double sum = 0.0;
+                for (int i = periods * interval; i < (periods + 1) * interval; i++) {
+                    sum += series.get(i);
+                }
+                double diff = sum - observed.get(periods);
+                sumSquares += diff * diff;
+                periods++;
+            }
+            return Math.sqrt(sumSquares / observed.size());
+        }
+    }
+
+    public CalibrationResult run(CalibrationRequest request) {
+        validate(request);
+        List<ParameterRange> priors = request.getPriors();
+        int n = request.getPopulationSize();
+        CalibrationResult result = new CalibrationResult();
+        IcuSimulationRequest template = template(request);
+
+        Population previous = null;
+        for (int t = 0; t < request.getGenerations(); t++) {
+            double tolerance = previous == null ? Double.POSITIVE_INFINITY
+                    : Math.max(request.getTargetTolerance(), quantile(previous.distances(), request.getToleranceQuantile()));
+            Generation generation = new Generation();
+            generation.setTolerance(tolerance);
+            Population population = nextPopulation(request, template, previous, tolerance, result, generation);
+            if (population == null) {
+                result.setBudgetExhausted(true);
+                logger.info("Calibración: presupuesto de {} simulaciones agotado en la generación {}", request.getMaxSimulations(), t);
+                break;
+            }
+            summarize(priors, population, generation);
+            result.getGenerations().add(generation);
+            previous = population;
+            logger.info("Calibración: generación {}, tolerancia {}, {} simulaciones ({} rechazadas antes de terminar)",
+                    t, tolerance, generation.getSimulations(), generation.getEarlyRejected());
+            if (request.getTargetTolerance() > 0 && tolerance <= request.getTargetTolerance()) {
+                break;
+            }
+        }
+
+        if (previous != null) {
+            result.setTolerance(previous.tolerance());
+            for (int j = 0; j < n; j++) {
+                Particle particle = new Particle();
+                for (int i = 0; i < priors.size(); i++) {
+                    particle.getParameters().put(priors.get(i).getName(), previous.theta()[j][i]);
+                }
+                particle.setWeight(previous.weights()[j]);
+                particle.setDistance(previous.distances()[j]);
+                result.getParticles().add(particle);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Genera una población de populationSize partículas aceptadas con la tolerancia dada, o null si se agota el
+     * presupuesto de simulaciones.
+     */
+    private Population nextPopulation(CalibrationRequest request, IcuSimulationRequest template, Population previous,
+                                      double tolerance, CalibrationResult result, Generation generation) {
+        List<ParameterRange> priors = request.getPriors();
+        int n = request.getPopulationSize();
+        int k = priors.size();
+        double[] sigma = previous == null ? null : kernelSigma(previous, k);
+
+        double[][] theta = new double[n][];
+        double[] distances = new double[n];
+        int accepted = 0;
+        int batchSize = 2 * executor.getThreads();
+        while (accepted < n) {
+            int remaining = request.getMaxSimulations() - result.getSimulations();
+            if (remaining <= 0) {
+                return null;
+            }
+            List<double[]> proposals = new ArrayList<>();
+            List<Future<Evaluation>> futures = new ArrayList<>();
+            for (int b = 0; b < Math.min(batchSize, remaining); b++) {
+                long attempt = result.getSimulations() + b;
+                // SplittableRandom mezcla la semilla: semillas consecutivas dan secuencias independientes
+                SplittableRandom random = new SplittableRandom(request.getSamplingSeed() * 0x9E3779B97F4A7C15L + attempt);
+                double[] proposal = previous == null ? samplePrior(priors, random) : perturb(previous, sigma, priors, random);
+                long seed = request.getBaseSeed() + attempt;
+                proposals.add(proposal);
+                futures.add(executor.submit(() -> simulate(request, template, proposal, seed, tolerance)));
+            }
+            try {
+                for (int b = 0; b < futures.size() && accepted < n; b++) {
+                    Evaluation evaluation = futures.get(b).get();
+                    record(result, generation, evaluation, request);
+                    if (evaluation.distance() <= tolerance) {
+                        theta[accepted] = proposals.get(b);
+                        distances[accepted] = evaluation.distance();
+                        accepted++;
+                    }
+                }
+                // Los intentos que sobran no cuentan: se cancelan
+                futures.forEach(f -> f.cancel(true));
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Calibración interrumpida", e);
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw SimulationExecutor.failure(e, "Error en una simulación de la calibración");
+            }
+        }
+        generation.setAcceptanceRate((double) n / generation.getSimulations());
+        return new Population(theta, weights(theta, previous, sigma), distances, tolerance);
+    }
+
+    private Evaluation simulate(CalibrationRequest request, IcuSimulationRequest template, double[] theta, long seed, double tolerance) {
+        IcuSimulationRequest run = new IcuSimulationRequest(template);
+        for (int i = 0; i < theta.length; i++) {
+            RequestParameters.set(run, request.getPriors().get(i).getName(), theta[i]);
+        }
+        run.setSeed(seed);
+
+        IcuSimulationService engine = admissionService.newEngine();
+        DistanceTracker tracker = new DistanceTracker(request.getObserved(), request.getObservationInterval());
+        boolean[] rejected = new boolean[1];
+        if (request.isEarlyRejection() && !Double.isInfinite(tolerance)) {
+            engine.setStepListener((step, e) -> {
+                if (step % request.getObservationInterval() == 0
+                        && tracker.update(e.getResult().getNewPatientInfections()) > tolerance) {
+                    rejected[0] = true;
+                    e.cancel();
+                }
+            });
+        }
+        try {
+            SimulationResult result = engine.runSimulation(run);
+            return new Evaluation(tracker.update(result.getNewPatientInfections()), result.getStopStep(), false);
+        } catch (SimulationCancelledException e) {
+            if (!rejected[0]) {
+                throw e; // Límites de la ejecución, no rechazo anticipado
+            }
+            return new Evaluation(Double.POSITIVE_INFINITY, engine.getResult().getStopStep(), true);
+        }
+    }
+
+    private static void record(CalibrationResult result, Generation generation, Evaluation evaluation, CalibrationRequest request) {
+        result.setSimulations(result.getSimulations() + 1);
+        generation.setSimulations(generation.getSimulations() + 1);
+        result.setSimulatedSteps(result.getSimulatedSteps() + evaluation.steps());
+        result.setFullSteps(result.getFullSteps() + (long) request.getObserved().size() * request.getObservationInterval());
+        if (evaluation.earlyRejected()) {
+            result.setEarlyRejected(result.getEarlyRejected() + 1);
+            generation.setEarlyRejected(generation.getEarlyRejected() + 1);
+        }
+    }
+
+    /**
+     * Solicitud base: maxSteps cubre exactamente los periodos observados, sin snapshots ni criterios de parada
+     * anticipada (cortarían la serie).
+     */
+    private static IcuSimulationRequest template(CalibrationRequest request) {
+        IcuSimulationRequest template = new IcuSimulationRequest(request.getRequest());
+        template.setMaxSteps(request.getObserved().size() * request.getObservationInterval());
+        template.setSaveLogs(false);
+        template.setSaveGridSnapshots(false);
+        template.setStopOnExtinction(false);
+        template.setStopPrevalenceThreshold(0.0);
+        template.setSteadyStateWindow(0);
+        template.setMaxWallClockSeconds(0.0);
+        return template;
+    }
+
+    private static double[] samplePrior(List<ParameterRange> priors, SplittableRandom random) {
+        double[] theta = new double[priors.size()];
+        for (int i = 0; i < theta.length; i++) {
+            ParameterRange prior = priors.get(i);
+            theta[i] = prior.getMin() + random.nextDouble() * (prior.getMax() - prior.getMin());
+        }
+        return theta;
+    }
+
+    /**
+     * Remuestrea una partícula por pesos y la perturba hasta que cae dentro del soporte de los priors.
+     */
+    private static double[] perturb(Population previous, double[] sigma, List<ParameterRange> priors, SplittableRandom random) {
+        while (true) {
+            double[] base = previous.theta()[sampleIndex(previous.weights(), random)];
+            double[] theta = new double[base.length];
+            boolean inside = true;
+            for (int i = 0; i < theta.length; i++) {
+                theta[i] = base[i] + sigma[i] * random.nextGaussian();
+                inside &= priors.get(i).contains(theta[i]);
+            }
+            if (inside) {
+                return theta;
+            }
+        }
+    }
+
+    private static int sampleIndex(double[] weights, SplittableRandom random) {
+        double u = random.nextDouble();
+        double cumulative = 0.0;
+        for (int j = 0; j < weights.length; j++) {
+            cumulative += weights[j];
+            if (u < cumulative) {
+                return j;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Desviación del núcleo por parámetro: raíz de 2 * varianza ponderada de la población anterior.
+     */
+    private static double[] kernelSigma(Population population, int k) {
+        double[] sigma = new double[k];
+        for (int i = 0; i < k; i++) {
+            double mean = 0.0;
+            for (int j = 0; j < population.weights().length; j++) {
+                mean += population.weights()[j] * population.theta()[j][i];
+            }
+            double variance = 0.0;
+            for (int j = 0; j < population.weights().length; j++) {
+                double d = population.theta()[j][i] - mean;
+                variance += population.weights()[j] * d * d;
+            }
+            sigma[i] = Math.sqrt(2 * variance);
+        }
+        return sigma;
+    }
+
+    /**
+     * Pesos de importancia: con priors uniformes, w_j proporcional a 1 / sum_l W_l K(theta_j | theta_l).
+     */
+    private static double[] weights(double[][] theta, Population previous, double[] sigma) {
+        int n = theta.length;
+        double[] weights = new double[n];
+        if (previous == null) {
+            Arrays.fill(weights, 1.0 / n);
+            return weights;
+        }
+        double total = 0.0;
+        for (int j = 0; j < n; j++) {
+            double denominator = 0.0;
+            for (int l = 0; l < previous.weights().length; l++) {
+                double logKernel = 0.0;
+                for (int i = 0; i < sigma.length; i++) {
+                    if (sigma[i] > 0) {
+                        double z = (theta[j][i] - previous.theta()[l][i]) / sigma[i];
+                        logKernel -= 0.5 * z * z;
+                    }
+                }
+                denominator += previous.weights()[l] * Math.exp(logKernel);
+            }
+            weights[j] = denominator > 0 ? 1.0 / denominator : 0.0;
+            total += weights[j];
+        }
+        for (int j = 0; j < n; j++) {
+            weights[j] = total > 0 ? weights[j] / total : 1.0 / n;
+        }
+        return weights;
+    }
+
+    private static void summarize(List<ParameterRange> priors, Population population, Generation generation) {
+        for (int i = 0; i < priors.size(); i++) {
+            double mean = 0.0;
+            double squares = 0.0;
+            for (int j = 0; j < population.weights().length; j++) {
+                mean += population.weights()[j] * population.theta()[j][i];
+                squares += population.weights()[j] * population.theta()[j][i] * population.theta()[j][i];
+            }
+            generation.getPosteriorMean().put(priors.get(i).getName(), mean);
+            generation.getPosteriorStd().put(priors.get(i).getName(), Math.sqrt(Math.max(0.0, squares - mean * mean)));
+        }
+    }
+
+    private static double quantile(double[] values, double q) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(q * sorted.length))];
+    }
+
+    /**
+     * Comprueba la solicitud (422 si no es válida). El controlador la llama antes de estimar su coste.
+     */
+    public void validate(CalibrationRequest request) {
+        if (request.getRequest() == null) {
+            throw new AdmissionRejectedException("Falta la solicitud base (request)");
+        }
+        if (request.getPriors() == null || request.getPriors().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos un parámetro con su prior");
+        }
+        for (ParameterRange prior : request.getPriors()) {
+            if (prior == null) {
+                throw new AdmissionRejectedException("Prior vacío en la lista de priors");
+            }
+            if (!RequestParameters.isKnown(prior.getName())) {
+                throw new AdmissionRejectedException("Parámetro desconocido: " + prior.getName()
+                        + " (disponibles: " + RequestParameters.names() + ")");
+            }
+            if (!(prior.getMin() < prior.getMax())) {
+                throw new AdmissionRejectedException("Prior vacío para " + prior);
+            }
+        }
+        if (request.getObserved() == null || request.getObserved().isEmpty() || request.getObservationInterval() < 1) {
+            throw new AdmissionRejectedException("Se necesitan una serie observada y observationInterval >= 1");
+        }
+        for (Double value : request.getObserved()) {
+            if (value == null) {
+                throw new AdmissionRejectedException("La serie observada tiene valores vacíos");
+            }
+        }
+        if (request.getPopulationSize() < 2 || request.getGenerations() < 1) {
+            throw new AdmissionRejectedException("Se necesitan populationSize >= 2 y generations >= 1");
+        }
+        if (request.getToleranceQuantile() <= 0 || request.getToleranceQuantile() >= 1) {
+            throw new AdmissionRejectedException("toleranceQuantile debe estar entre 0 y 1");
+        }
+        if (request.getMaxSimulations() < request.getPopulationSize() || request.getMaxSimulations() > maxSimulationsLimit) {
+            throw new AdmissionRejectedException(String.format("maxSimulations debe estar entre populationSize y %d", maxSimulationsLimit));
+        }
+        ReplicateRunner.checkBaseSeed(request.getBaseSeed(), request.getMaxSimulations());
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.agents.CompactAgentStore;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.State;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.util.Random;
+
+/**
+ * Lógica de paso de trabajadores y pacientes sobre CompactAgentStore (modo AgentStorage.COMPACT).
+ *
+ * Reproduce las reglas de HealthcareWorker.step, Patient.step, occupyIcuBedIfNeeded y del tratamiento con
+ * bucles sobre arrays. El estado de contaminación de las celdas se copia una vez por paso a un array de
+ * booleanos para no recorrer Cell/KlebsiellaPneumoniae por cada agente, y los contadores de infectados se
+ * mantienen de forma incremental. Los agentes no se registran en Cell.getAgents(). Las opciones que necesitan
+ * la cepa o la identidad de cada agente se rechazan antes de ejecutar (IcuSimulationService.unsupportedWithCompact).
+ */
+public class CompactAgentEngine {
+
+    private final Grid grid;
+    private final Random random;
+    private final CompactAgentStore workers;
+    private final CompactAgentStore patients;
+    private double workerBaseInfectionChance;
+    private double colonizationChance;
+    private double infectionFromColonizedChance;
+
+    private final boolean[] contaminated;
+    private int infectedWorkers;
+    private int infectedPatients;
+    private int newInfectedPatients; // Desde la última llamada a takeNewInfectedPatients
+
+    public CompactAgentEngine(Grid grid, Random random, IcuSimulationRequest req, int expectedPatients) {
+        this.grid = grid;
+        this.random = random;
+        this.workers = new CompactAgentStore(req.getNWorkers());
+        this.patients = new CompactAgentStore(expectedPatients);
+        this.workerBaseInfectionChance = req.getWorkerBaseInfectionChance();
+        this.colonizationChance = req.getColonizationChance();
+        this.infectionFromColonizedChance = req.getInfectionFromColonizedChance();
+        this.contaminated = new boolean[grid.getWidth() * grid.getHeight()];
+    }
+
+    // Intervenciones durante la ejecución (ver IcuSimulationService.applyInterventions)
+
+    public void setWorkerBaseInfectionChance(double workerBaseInfectionChance) {
+        this.workerBaseInfectionChance = workerBaseInfectionChance;
+    }
+
+    public void setColonizationChance(double colonizationChance) {
+        this.colonizationChance = colonizationChance;
+    }
+
+    public void setInfectionFromColonizedChance(double infectionFromColonizedChance) {
+        this.infectionFromColonizedChance = infectionFromColonizedChance;
+    }
+
+    public void setPpeFactor(double ppeFactor) {
+        for (int i = 0; i < workers.size(); i++) {
+            workers.setPpeFactor(i, (float) ppeFactor);
+        }
+    }
+
+    public void shiftHygieneFactor(double delta) {
+        for (int i = 0; i < workers.size(); i++) {
+            workers.setHygieneFactor(i, (float) Math.max(0, Math.min(1, workers.getHygieneFactor(i) + delta)));
+        }
+    }
+
+    public void addWorker(Cell cell, double hygieneFactor, double ppeFactor, boolean infected) {
+        int i = workers.add(cellIndex(cell), 1.0f, (float) hygieneFactor, (float) ppeFactor);
+        if (infected) {
+            workers.set(i, CompactAgentStore.INFECTED);
+            infectedWorkers++;
+        }
+    }
+
+    public void addPatient(Cell cell, boolean colonized, boolean infected) {
+        float susceptibility = (float) (cell.isIcuCell() ? Patient.ICU_SUSCEPTIBILITY_FACTOR : 1.0);
+        int i = patients.add(cellIndex(cell), susceptibility, 0f, 0f);
+        if (colonized || infected) {
+            patients.set(i, CompactAgentStore.COLONIZED);
+            patients.setPriority(i, CompactAgentStore.PRIORITY_COLONIZED);
+        }
+        if (infected) {
+            patients.set(i, CompactAgentStore.INFECTED);
+            patients.setPriority(i, CompactAgentStore.PRIORITY_INFECTED);
+            infectedPatients++;
+        }
+    }
+
+    /**
+     * Pasos 3 y 4 del bucle: trabajadores y luego pacientes.
+     */
+    public void step(int currentStep) {
+        snapshotContamination();
+        stepWorkers();
+        stepPatients(currentStep);
+    }
+
+    private void snapshotContamination() {
+        for (int i = 0; i < contaminated.length; i++) {
+            KlebsiellaPneumoniae knn = grid.getCell(i).getKnn();
+            contaminated[i] = knn.getState() == State.INFECTED && knn.getQuantity() > 0;
+        }
+    }
+
+    private void stepWorkers() {
+        for (int i = 0; i < workers.size(); i++) {
+            if (!workers.has(i, CompactAgentStore.INFECTED)) {
+                if (contaminated[workers.getCell(i)]) {
+                    double effectiveChance = workerBaseInfectionChance
+                            * (1 - workers.getHygieneFactor(i)) * (1 - workers.getPpeFactor(i));
+                    if (random.nextDouble() < effectiveChance) {
+                        workers.set(i, CompactAgentStore.INFECTED);
+                        infectedWorkers++;
+                    }
+                }
+            } else if (random.nextDouble() < HealthcareWorker.RECOVERY_CHANCE) {
+                workers.clear(i, CompactAgentStore.INFECTED);
+                infectedWorkers--;
+            }
+
+            if (random.nextDouble() < HealthcareWorker.MOVEMENT_CHANCE) {
+                workers.setCell(i, randomNeighbor(workers.getCell(i)));
+            }
+        }
+    }
+
+    private void stepPatients(int currentStep) {
+        boolean dischargeDay = currentStep % Patient.STEPS_PER_DAY == 0;
+        int i = 0;
+        while (i < patients.size()) {
+            boolean infected = patients.has(i, CompactAgentStore.INFECTED);
+            boolean colonized = patients.has(i, CompactAgentStore.COLONIZED);
+
+            if (dischargeDay && !infected && !colonized && random.nextDouble() < Patient.DISCHARGE_CHANCE) {
+                if (patients.has(i, CompactAgentStore.IN_ICU)) {
+                    cellAt(patients.getCell(i)).freeBed();
+                }
+                patients.remove(i); // El último ocupa la posición i: no se avanza
+                continue;
+            }
+
+            float susceptibility = patients.getSusceptibility(i);
+            if (!infected && !colonized && contaminated[patients.getCell(i)]) {
+                if (random.nextDouble() < colonizationChance * susceptibility) {
+                    patients.set(i, CompactAgentStore.COLONIZED);
+                    colonized = true;
+                }
+            }
+            if (colonized && !infected) {
+                if (random.nextDouble() < infectionFromColonizedChance * susceptibility) {
+                    patients.set(i, CompactAgentStore.INFECTED);
+                    infected = true;
+                    infectedPatients++;
+                    newInfectedPatients++;
+                }
+            }
+
+            patients.setPriority(i, infected ? CompactAgentStore.PRIORITY_INFECTED
+                    : colonized ? CompactAgentStore.PRIORITY_COLONIZED : CompactAgentStore.PRIORITY_NONE);
+
+            if (random.nextDouble() < Patient.MOVEMENT_CHANCE) {
+                patients.setCell(i, randomNeighbor(patients.getCell(i)));
+            }
+
+            occupyIcuBedIfNeeded(i);
+            i++;
+        }
+    }
+
+    private void occupyIcuBedIfNeeded(int i) {
+        if (patients.getPriority(i) != CompactAgentStore.PRIORITY_INFECTED || patients.has(i, CompactAgentStore.IN_ICU)) {
+            return;
+        }
+        Cell cell = cellAt(patients.getCell(i));
+        if (cell.isIcuCell() && cell.hasFreeBed()) {
+            cell.occupyBed();
+            patients.set(i, CompactAgentStore.IN_ICU);
+            patients.setSusceptibility(i, (float) Patient.ICU_SUSCEPTIBILITY_FACTOR);
+        }
+    }
+
+    /**
+     * Paso 5: tratamiento de los infectados. El almacén no guarda la cepa de cada paciente, así que todos reciben
+     * el tratamiento A de la salvaje (por eso strainAwareTreatment no se admite con COMPACT).
+     */
+    public void applyTreatments() {
+        for (int i = 0; i < patients.size(); i++) {
+            if (!patients.has(i, CompactAgentStore.INFECTED)) {
+                continue;
+            }
+            if (random.nextDouble() < IcuSimulationService.TREATMENT_A_CURE_CHANCE) {
+                patients.clear(i, CompactAgentStore.INFECTED);
+                infectedPatients--;
+                if (random.nextDouble() >= Patient.REMAIN_COLONIZED_CHANCE) {
+                    patients.clear(i, CompactAgentStore.COLONIZED);
+                }
+            }
+        }
+    }
+
+    private int randomNeighbor(int cell) {
+        int dx = random.nextInt(3);
+        int dy = random.nextInt(3);
+        return grid.moveTarget(cell, dx, dy);
+    }
+
+    private int cellIndex(Cell cell) {
+        return grid.indexOf(cell);
+    }
+
+    private Cell cellAt(int cell) {
+        return grid.getCell(cell);
+    }
+
+    public CompactAgentStore getWorkerStore() {
+        return workers;
+    }
+
+    public CompactAgentStore getPatientStore() {
+        return patients;
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    public int getPatientCount() {
+        return patients.size();
+    }
+
+    public int getInfectedWorkers() {
+        return infectedWorkers;
+    }
+
+    public int getInfectedPatients() {
+        return infectedPatients;
+    }
+
+    /**
+     * Pacientes que se infectaron desde la llamada anterior; pone el contador a cero.
+     */
+    public int takeNewInfectedPatients() {
+        int n = newInfectedPatients;
+        newInfectedPatients = 0;
+        return n;
+    }
+
+    public int countColonizedPatients() {
+        int colonized = 0;
+        for (int i = 0; i < patients.size(); i++) {
+            if (patients.has(i, CompactAgentStore.COLONIZED)) {
+                colonized++;
+            }
+        }
+        return colonized;
+    }
+}
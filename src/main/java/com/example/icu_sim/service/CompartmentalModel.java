@@ -0,0 +1,181 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.data.FloorPlan;
+import com.example.icu_sim.model.data.Grid;
+
+/**
+ * Modelo compartimental de campo medio equivalente al motor de agentes (versión Java del SIR de
+ * sir_model/sir_model.py, con compartimento de colonización).
+ *
+ * Pacientes: S (susceptibles) -> C (colonizados) -> I (infectados) -> C o S tras el tratamiento.
+ * Trabajadores: SIS. Entorno: fracción E de celdas con KNN en estado INFECTED, con crecimiento logístico.
+ *
+ * Cada paso aplica los valores esperados de las transiciones del motor de agentes en el mismo orden
+ * (llegadas, KNN, trabajadores, pacientes, tratamiento), suponiendo mezcla homogénea en el grid. Así los
+ * porcentajes por paso son comparables con los del modo AGENT y el modo HYBRID puede materializar agentes
+ * a partir de los compartimentos sin saltos.
+ */
+public class CompartmentalModel {
+
+    // Campo medio de calculateMovementProbability (0.3 * virulencia 0.5) con vecinos limpios en fracción 1 - E
+    private static final double ENV_SPREAD_RATE = 0.15;
+    // El modelo no distingue cepas: todos los infectados reciben el tratamiento A de la salvaje
+    private static final double TREATMENT_CURE_CHANCE = IcuSimulationService.TREATMENT_A_CURE_CHANCE;
+
+    // Pacientes
+    private double susceptible;
+    private double colonized;
+    private double infected;
+
+    // Trabajadores
+    private final double workers;
+    private double infectedWorkers;
+
+    // Entorno
+    private double contaminatedFraction;
+    private double icuFraction; // Fracción de las celdas transitables que son de UCI
+
+    private double newInfections; // Flujo C -> I del último paso
+
+    // Tasas por paso
+    private double arrivalRate;
+    private double colonizationChance;
+    private double infectionChance;
+    private double workerInfectionChance;
+
+    public CompartmentalModel(double patients, double workers, double contaminatedFraction,
+                              double arrivalRate, double colonizationChance, double infectionChance,
+                              double workerInfectionChance) {
+        this.susceptible = patients;
+        this.workers = workers;
+        this.contaminatedFraction = contaminatedFraction;
+        this.arrivalRate = arrivalRate;
+        this.colonizationChance = colonizationChance;
+        this.infectionChance = infectionChance;
+        this.workerInfectionChance = workerInfectionChance;
+    }
+
+    /**
+     * Modelo de la solicitud sobre {@code plan} (el plano de la solicitud, o null para el rectángulo
+     * gridWidth x gridHeight con Grid.ICU_ROWS filas de UCI). Del plano salen las celdas transitables, sobre las
+     * que se reparte el KNN inicial, y la fracción de ellas que son de UCI.
+     */
+    public static CompartmentalModel fromRequest(IcuSimulationRequest req, FloorPlan plan, int initialInfectedCells) {
+        int cells;
+        int icuCells;
+        if (plan != null) {
+            plan.validate();
+            cells = plan.countWalkableCells();
+            icuCells = plan.countIcuCells();
+        } else {
+            cells = req.getGridWidth() * req.getGridHeight();
+            icuCells = req.getGridWidth() * Math.min(Grid.ICU_ROWS, req.getGridHeight());
+        }
+        CompartmentalModel model = new CompartmentalModel(
+                req.getNPatients(),
+                req.getNWorkers(),
+                Math.min(1.0, initialInfectedCells / (double) Math.max(1, cells)),
+                0, 0, 0, 0);
+        model.icuFraction = icuCells / (double) Math.max(1, cells);
+        model.updateRates(req);
+        return model;
+    }
+
+    /**
+     * Recalcula las tasas por paso con los parámetros de la solicitud (al crear el modelo y tras cada
+     * intervención). mutationRate no interviene: el modelo no distingue cepas.
+     */
+    public void updateRates(IcuSimulationRequest req) {
+        // Susceptibilidad media: los pacientes en celdas de UCI tienen factor 1.5
+        double susceptibility = 1.0 + (Patient.ICU_SUSCEPTIBILITY_FACTOR - 1.0) * icuFraction;
+        this.arrivalRate = req.getArrivalRate();
+        this.colonizationChance = req.getColonizationChance() * susceptibility;
+        this.infectionChance = req.getInfectionFromColonizedChance() * susceptibility;
+        this.workerInfectionChance = req.getWorkerBaseInfectionChance()
+                * (1 - Math.max(0, Math.min(1, req.getHygieneFactorMean())))
+                * (1 - req.getPpeFactor());
+    }
+
+    public void step(int currentStep) {
+        // 1. Llegadas
+        susceptible += arrivalRate;
+
+        // 2. KNN en el entorno
+        contaminatedFraction += ENV_SPREAD_RATE * contaminatedFraction * (1 - contaminatedFraction);
+        contaminatedFraction = Math.min(1.0, contaminatedFraction);
+
+        // 3. Trabajadores
+        double newWorkerInfections = (workers - infectedWorkers) * workerInfectionChance * contaminatedFraction;
+        double workerRecoveries = infectedWorkers * HealthcareWorker.RECOVERY_CHANCE;
+        infectedWorkers += newWorkerInfections - workerRecoveries;
+
+        // 4. Pacientes: altas diarias, colonización y progresión a infección
+        if (currentStep % Patient.STEPS_PER_DAY == 0) {
+            susceptible -= susceptible * Patient.DISCHARGE_CHANCE;
+        }
+        double newColonized = susceptible * colonizationChance * contaminatedFraction;
+        susceptible -= newColonized;
+        colonized += newColonized;
+        double newInfected = colonized * infectionChance;
+        colonized -= newInfected;
+        infected += newInfected;
+        newInfections = newInfected;
+
+        // 5. Tratamiento
+        double cured = infected * TREATMENT_CURE_CHANCE;
+        infected -= cured;
+        colonized += cured * Patient.REMAIN_COLONIZED_CHANCE;
+        susceptible += cured * (1 - Patient.REMAIN_COLONIZED_CHANCE);
+    }
+
+    public double getPatients() {
+        return susceptible + colonized + infected;
+    }
+
+    public double getPctPatientsInfected() {
+        double n = getPatients();
+        return n > 0 ? infected * 100.0 / n : 0.0;
+    }
+
+    /**
+     * Pacientes que pasaron de colonizados a infectados en el último paso.
+     */
+    public double getNewInfections() {
+        return newInfections;
+    }
+
+    public double getPctWorkersInfected() {
+        return workers > 0 ? infectedWorkers * 100.0 / workers : 0.0;
+    }
+
+    /**
+     * Fracción de pacientes colonizados o infectados.
+     */
+    public double getPatientPrevalence() {
+        double n = getPatients();
+        return n > 0 ? (colonized + infected) / n : 0.0;
+    }
+
+    public double getSusceptible() {
+        return susceptible;
+    }
+
+    public double getColonized() {
+        return colonized;
+    }
+
+    public double getInfected() {
+        return infected;
+    }
+
+    public double getInfectedWorkers() {
+        return infectedWorkers;
+    }
+
+    public double getContaminatedFraction() {
+        return contaminatedFraction;
+    }
+}
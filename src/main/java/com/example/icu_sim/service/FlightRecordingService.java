@@ -0,0 +1,163 @@
+package com.example.icu_sim.service;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grabaciones de Java Flight Recorder por ejecución (POST /run?record=true). Cada grabación usa la configuración
+ * icu-sim.jfr.settings más los eventos del simulador (paquete jfr), se escribe en un .jfr al terminar la
+ * ejecución y se descarga con GET /recordings/{id}. Se conservan las icu-sim.jfr.max-recordings más recientes.
+ *
+ * JFR graba toda la JVM: si a la vez hay otras ejecuciones, sus eventos también aparecen; se distinguen por el
+ * hilo y por el evento SimulationRun. Como las descargas no piden autenticación, todo está desactivado salvo con
+ * icu-sim.jfr.enabled=true, y como mucho hay icu-sim.jfr.max-active-recordings grabaciones en curso.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    @Value("${icu-sim.jfr.settings:profile}")
+    private String settings;
+
+    @Value("${icu-sim.jfr.directory:}")
+    private String directory; // Vacío = directorio temporal
+
+    @Value("${icu-sim.jfr.max-recordings:20}")
+    private int maxRecordings;
+
+    @Value("${icu-sim.jfr.enabled:false}")
+    private boolean enabled;
+
+    @Value("${icu-sim.jfr.max-active-recordings:2}")
+    private int maxActiveRecordings;
+
+    private final Map<String, Recording> active = new ConcurrentHashMap<>();
+    private final Map<String, Path> finished = new LinkedHashMap<>(); // Por orden de llegada; acceso sincronizado
+    private Path recordingDir;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Empieza una grabación y devuelve su id. Lanza AdmissionRejectedException si las grabaciones están
+     * desactivadas o ya hay icu-sim.jfr.max-active-recordings en curso.
+     */
+    public String start() {
+        if (!enabled) {
+            throw new AdmissionRejectedException("Las grabaciones JFR están desactivadas (icu-sim.jfr.enabled)");
+        }
+        String id = UUID.randomUUID().toString();
+        synchronized (active) {
+            if (active.size() >= Math.max(1, maxActiveRecordings)) {
+                throw new AdmissionRejectedException("Ya hay " + active.size() + " grabaciones JFR en curso (máximo "
+                        + maxActiveRecordings + ")");
+            }
+            active.put(id, begin(id));
+        }
+        logger.info("Grabación JFR {} iniciada ({}).", id, settings);
+        return id;
+    }
+
+    private Recording begin(String id) {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(settings));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Configuración JFR no válida: " + settings, e);
+        }
+        try {
+            recording.setName("icu-sim-" + id);
+            recording.setToDisk(true);
+            recording.setDestination(recordingDir().resolve(id + ".jfr"));
+        } catch (IOException e) {
+            recording.close();
+            throw new UncheckedIOException("No se pudo preparar la grabación JFR", e);
+        }
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Para la grabación, que queda escrita en disco y disponible para descarga.
+     */
+    public void stop(String id) {
+        Recording recording;
+        synchronized (active) {
+            recording = active.remove(id);
+        }
+        if (recording == null) {
+            return;
+        }
+        Path path = recording.getDestination();
+        try {
+            recording.stop();
+        } finally {
+            recording.close();
+        }
+        synchronized (this) {
+            finished.put(id, path);
+            Iterator<Map.Entry<String, Path>> oldest = finished.entrySet().iterator();
+            while (finished.size() > Math.max(1, maxRecordings)) {
+                Path evicted = oldest.next().getValue();
+                oldest.remove();
+                delete(evicted);
+            }
+        }
+        logger.info("Grabación JFR {} guardada en {}.", id, path);
+    }
+
+    /**
+     * Fichero .jfr de una grabación terminada, o null si no existe (id desconocido o ya descartada).
+     */
+    public synchronized Path getRecording(String id) {
+        return finished.get(id);
+    }
+
+    public synchronized List<String> getRecordingIds() {
+        return new ArrayList<>(finished.keySet());
+    }
+
+    private synchronized Path recordingDir() throws IOException {
+        if (recordingDir == null) {
+            recordingDir = directory.isBlank()
+                    ? Files.createTempDirectory("icu-sim-jfr")
+                    : Files.createDirectories(Paths.get(directory));
+        }
+        return recordingDir;
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar la grabación JFR {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        active.values().forEach(Recording::close);
+        active.clear();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.agents.CompactAgentStore;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.State;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Codifica el estado del grid en un frame binario compacto para el feed en vivo (big-endian):
+ *
+ *   u8  versión (2)           u8  tipo (1 = grid)
+ *   i32 paso                  u32 ancho   u32 alto
+ *   f32 % pacientes infectados             f32 % trabajadores infectados
+ *   f32 escala de KNN: cantidad ~= byte * escala
+ *   ancho*alto bytes: cantidad de KNN cuantizada, celda i = x * alto + y
+ *   ancho*alto bytes: bits de estado (1 KNN INFECTED, 2 celda de UCI, 4 bloqueada, 8 lavabo o superficie)
+ *   i32 número de agentes
+ *   por agente, i32: índice de celda en los 24 bits bajos y flags en los 8 altos
+ *     (1 trabajador, 2 infectado, 4 colonizado, 8 en cama de UCI)
+ *
+ * La versión 1 llevaba ancho y alto en u16, que se truncaban por encima de 65535 celdas de lado. El índice de
+ * celda de los agentes limita el grid a MAX_CELLS celdas; el feed rechaza grids mayores al admitir la solicitud.
+ *
+ * Un grid de 10x10 con 60 agentes ocupa unos 470 bytes, frente a decenas de KB del snapshot JSON.
+ */
+public final class GridFrameEncoder {
+
+    public static final byte VERSION = 2;
+    public static final byte TYPE_GRID = 1;
+
+    public static final int CELL_INFECTED = 1;
+    public static final int CELL_ICU = 1 << 1;
+    public static final int CELL_BLOCKED = 1 << 2;
+    public static final int CELL_RESERVOIR = 1 << 3;
+
+    public static final int AGENT_WORKER = 1;
+    public static final int AGENT_INFECTED = 1 << 1;
+    public static final int AGENT_COLONIZED = 1 << 2;
+    public static final int AGENT_IN_ICU = 1 << 3;
+
+    public static final int MAX_CELLS = 1 << 24; // Índices de celda de 24 bits en la palabra de cada agente
+
+    private static final int HEADER_BYTES = 2 + 4 + 4 + 4 + 4 + 4 + 4;
+
+    private GridFrameEncoder() {}
+
+    public static byte[] encode(int step, IcuSimulationService engine) {
+        Grid grid = engine.getGrid();
+        SimulationResult result = engine.getResult();
+        int n = grid.getCellCount();
+        if (n > MAX_CELLS) {
+            throw new IllegalArgumentException("Grid de " + n + " celdas: el frame admite como mucho " + MAX_CELLS);
+        }
+        CompactAgentEngine compact = engine.getCompactEngine();
+        int agents = compact != null ? compact.getWorkerCount() + compact.getPatientCount()
+                : engine.getWorkers().size() + engine.getPatients().size();
+
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + 2 * n + 4 + 4 * agents);
+        buf.put(VERSION).put(TYPE_GRID);
+        buf.putInt(step);
+        buf.putInt(grid.getWidth()).putInt(grid.getHeight());
+        buf.putFloat(last(result.getPctPatientsInfected()));
+        buf.putFloat(last(result.getPctWorkersInfected()));
+
+        int maxQuantity = 0;
+        for (int i = 0; i < n; i++) {
+            maxQuantity = Math.max(maxQuantity, grid.getCell(i).getKnn().getQuantity());
+        }
+        float scale = Math.max(1f, maxQuantity / 255f);
+        buf.putFloat(scale);
+        for (int i = 0; i < n; i++) {
+            int q = Math.round(Math.max(0, grid.getCell(i).getKnn().getQuantity()) / scale);
+            buf.put((byte) Math.min(255, q));
+        }
+        for (int i = 0; i < n; i++) {
+            Cell c = grid.getCell(i);
+            KlebsiellaPneumoniae knn = c.getKnn();
+            int bits = 0;
+            if (knn.getState() == State.INFECTED && knn.getQuantity() > 0) bits |= CELL_INFECTED;
+            if (c.isIcuCell()) bits |= CELL_ICU;
+            if (c.isBlocked()) bits |= CELL_BLOCKED;
+            if (c.isSink() || c.isHighTouchSurface()) bits |= CELL_RESERVOIR;
+            buf.put((byte) bits);
+        }
+
+        buf.putInt(agents);
+        if (compact != null) {
+            putCompact(buf, compact.getWorkerStore(), AGENT_WORKER);
+            putCompact(buf, compact.getPatientStore(), 0);
+        } else {
+            putWorkers(buf, grid, engine.getWorkers());
+            putPatients(buf, grid, engine.getPatients());
+        }
+        return buf.array();
+    }
+
+    private static void putWorkers(ByteBuffer buf, Grid grid, List<HealthcareWorker> workers) {
+        for (HealthcareWorker hw : workers) {
+            int flags = AGENT_WORKER | (hw.isInfected() ? AGENT_INFECTED : 0);
+            buf.putInt(agentWord(grid.indexOf(hw.getCurrentCell()), flags));
+        }
+    }
+
+    private static void putPatients(ByteBuffer buf, Grid grid, List<Patient> patients) {
+        for (Patient p : patients) {
+            int flags = (p.isInfected() ? AGENT_INFECTED : 0)
+                    | (p.isColonized() ? AGENT_COLONIZED : 0)
+                    | (p.isInIcu() ? AGENT_IN_ICU : 0);
+            buf.putInt(agentWord(grid.indexOf(p.getCurrentCell()), flags));
+        }
+    }
+
+    private static void putCompact(ByteBuffer buf, CompactAgentStore store, int baseFlags) {
+        for (int i = 0; i < store.size(); i++) {
+            int flags = baseFlags
+                    | (store.has(i, CompactAgentStore.INFECTED) ? AGENT_INFECTED : 0)
+                    | (store.has(i, CompactAgentStore.COLONIZED) ? AGENT_COLONIZED : 0)
+                    | (store.has(i, CompactAgentStore.IN_ICU) ? AGENT_IN_ICU : 0);
+            buf.putInt(agentWord(store.getCell(i), flags));
+        }
+    }
+
+    private static int agentWord(int cell, int flags) {
+        return (flags << 24) | (cell & 0xFFFFFF);
+    }
+
+    private static float last(List<Double> series) {
+        return series.isEmpty() ? 0f : series.get(series.size() - 1).floatValue();
+    }
+}
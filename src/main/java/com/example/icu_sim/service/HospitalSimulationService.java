@@ -0,0 +1,235 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.HospitalSimulationResult;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.WardConfig;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.StrainTable;
+import com.example.icu_sim.model.data.FloorPlan;
+import com.example.icu_sim.model.data.Grid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Simulación de un hospital con varias salas (UCI, general, urgencias), cada una con su propio grid y su
+ * propio motor IcuSimulationService. En cada paso todas las salas avanzan en paralelo; al terminar el paso
+ * (barrera) se intercambian en el hilo coordinador los traslados de pacientes y las rotaciones del pool
+ * compartido de trabajadores, en orden fijo de salas para que el resultado sea reproducible con semilla.
+ *
+ * Cada sala tiene su propia tabla de cepas, que solo toca su hilo durante el paso. Un agente que cambia de sala
+ * lleva sus cepas a la tabla de destino en la barrera (StrainTable.importStrain), también en orden fijo, así que
+ * los ids de cepa no dependen del orden en que terminan los hilos.
+ *
+ * Las salas de urgencias (WardType.ER) no tienen camas de UCI, sus pacientes se trasladan
+ * WardConfig.ER_TRANSFER_FACTOR veces más a menudo y no reciben traslados. Las salas solo usan el motor de
+ * agentes: los traslados mueven agentes concretos, que una sala en fase compartimental no tiene, así que otro
+ * engineMode se rechaza.
+ *
+ * Los criterios de parada anticipada (StopConditions) se evalúan tras la barrera con el % de pacientes infectados
+ * de todo el hospital; la extinción exige que lo estén todas las salas.
+ */
+@Service
+public class HospitalSimulationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HospitalSimulationService.class);
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    private static final class Ward {
+        private final WardConfig config;
+        private final IcuSimulationRequest request;
+        private final IcuSimulationService engine;
+        private List<Patient> outgoingPatients = new ArrayList<>();
+        private List<HealthcareWorker> outgoingWorkers = new ArrayList<>();
+
+        private Ward(WardConfig config, IcuSimulationRequest request, IcuSimulationService engine) {
+            this.config = config;
+            this.request = request;
+            this.engine = engine;
+        }
+    }
+
+    public HospitalSimulationResult runSimulation(HospitalSimulationRequest request) {
+        IcuSimulationRequest params = request.getParameters();
+        List<WardConfig> configs = request.getWards();
+        if (configs == null || configs.isEmpty()) {
+            throw new IllegalArgumentException("La simulación de hospital necesita al menos una sala.");
+        }
+        if (params.getEngineMode() != IcuSimulationRequest.EngineMode.AGENT) {
+            throw new IllegalArgumentException("La simulación de hospital solo admite engineMode AGENT");
+        }
+        if (params.getAgentStorage() != IcuSimulationRequest.AgentStorage.OBJECTS) {
+            throw new IllegalArgumentException("La simulación de hospital solo admite agentStorage OBJECTS");
+        }
+        logger.info("Iniciando simulación de hospital: {}", request);
+
+        Random random = params.getSeed() != 0 ? new Random(params.getSeed()) : new Random();
+
+        // Crear salas y repartir el pool de trabajadores
+        List<Ward> wards = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            WardConfig config = configs.get(i);
+            IcuSimulationRequest wardRequest = new IcuSimulationRequest(params);
+            wardRequest.setGridWidth(config.getGridWidth());
+            wardRequest.setGridHeight(config.getGridHeight());
+            wardRequest.setNPatients(config.getNPatients());
+            wardRequest.setNWorkers(params.getNWorkers() / configs.size() + (i < params.getNWorkers() % configs.size() ? 1 : 0));
+            wardRequest.setSeed(params.getSeed() != 0 ? params.getSeed() + 1_000_003L * (i + 1) : 0);
+            wardRequest.setSaveLogs(false);
+
+            // Límite de tiempo de una ejecución y el presupuesto de memoria repartido entre las salas
+            Ward ward = new Ward(config, wardRequest, admissionService.newEngine(admissionService.getMemoryBudgetBytes() / configs.size()));
+            Grid grid = config.getFloorPlanPath() != null
+                    ? new Grid(FloorPlan.load(config.getFloorPlanPath()))
+                    : new Grid(config.getGridWidth(), config.getGridHeight(), config.getIcuRows());
+            grid.setStrainTable(new StrainTable(params.getStrainDriftStd()));
+            ward.engine.startWard(wardRequest, grid, config.getName() + ":");
+            wards.add(ward);
+        }
+
+        int threads = request.getThreads() > 0 ? request.getThreads()
+                : Math.min(wards.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+
+        HospitalSimulationResult result = new HospitalSimulationResult();
+        result.setTotalWorkers(params.getNWorkers());
+        StopConditions stopConditions = new StopConditions(params);
+        BooleanSupplier extinct = () -> wards.stream().allMatch(ward -> ward.engine.isWardExtinct());
+        try {
+            for (int step = 1; step <= params.getMaxSteps(); step++) {
+                final int currentStep = step;
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Ward ward : wards) {
+                    tasks.add(() -> {
+                        ward.engine.advanceWard(currentStep, ward.request);
+                        ward.outgoingPatients = ward.engine.selectOutgoingPatients(ward.config.getTransferRate(request.getTransferRate()));
+                        ward.outgoingWorkers = ward.engine.selectOutgoingWorkers(request.getWorkerRotationProb());
+                        return null;
+                    });
+                }
+                // Barrera: invokeAll espera a que todas las salas terminen el paso
+                for (Future<Void> f : executor.invokeAll(tasks)) {
+                    f.get();
+                }
+
+                exchangeTransfers(wards, random, result);
+                recordHospitalMetrics(wards, result);
+                result.setStopStep(step);
+
+                List<Double> pct = result.getPctPatientsInfected();
+                SimulationResult.StopReason reason = stopConditions.check(pct.get(pct.size() - 1), extinct);
+                if (reason != null) {
+                    for (Ward ward : wards) {
+                        ward.engine.getResult().setStopReason(reason);
+                    }
+                    result.setStopReason(reason);
+                    logger.info("Paso {}: parada anticipada del hospital ({}).", step, reason);
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulación de hospital interrumpida", e);
+        } catch (ExecutionException e) {
+            throw SimulationExecutor.failure(e, "Error en el paso de una sala");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Ward ward : wards) {
+            ward.engine.finishWard();
+            result.getWards().put(ward.config.getName(), ward.engine.getResult());
+        }
+        logger.info("Simulación de hospital completada: {} traslados, {} rotaciones.",
+                result.getPatientTransfers(), result.getWorkerRotations());
+        return result;
+    }
+
+    private void exchangeTransfers(List<Ward> wards, Random random, HospitalSimulationResult result) {
+        if (wards.size() < 2) {
+            return;
+        }
+        for (int i = 0; i < wards.size(); i++) {
+            Ward source = wards.get(i);
+            for (Patient p : source.outgoingPatients) {
+                Ward target = wards.get(pickPatientDestination(wards, i, p, random));
+                source.engine.releasePatient(p);
+                target.engine.admitPatient(p);
+                result.setPatientTransfers(result.getPatientTransfers() + 1);
+            }
+            for (HealthcareWorker hw : source.outgoingWorkers) {
+                Ward target = wards.get(pickOtherWard(wards.size(), i, random));
+                source.engine.releaseWorker(hw);
+                target.engine.admitWorker(hw);
+                result.setWorkerRotations(result.getWorkerRotations() + 1);
+            }
+        }
+    }
+
+    private int pickPatientDestination(List<Ward> wards, int sourceIndex, Patient p, Random random) {
+        // Los infectados fuera de UCI se trasladan preferentemente a una sala de UCI
+        if (p.isInfected() && wards.get(sourceIndex).config.getType() != WardConfig.WardType.ICU) {
+            List<Integer> icuWards = new ArrayList<>();
+            for (int i = 0; i < wards.size(); i++) {
+                if (wards.get(i).config.getType() == WardConfig.WardType.ICU) {
+                    icuWards.add(i);
+                }
+            }
+            if (!icuWards.isEmpty()) {
+                return icuWards.get(random.nextInt(icuWards.size()));
+            }
+        }
+        // Cualquier otra sala que reciba traslados; si no hay ninguna, cualquier otra
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < wards.size(); i++) {
+            if (i != sourceIndex && wards.get(i).config.acceptsTransfers()) {
+                candidates.add(i);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return pickOtherWard(wards.size(), sourceIndex, random);
+        }
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private int pickOtherWard(int wardCount, int sourceIndex, Random random) {
+        int target = random.nextInt(wardCount - 1);
+        return target >= sourceIndex ? target + 1 : target;
+    }
+
+    private void recordHospitalMetrics(List<Ward> wards, HospitalSimulationResult result) {
+        int patients = 0;
+        int infectedPatients = 0;
+        int workers = 0;
+        int infectedWorkers = 0;
+        for (Ward ward : wards) {
+            for (Patient p : ward.engine.getPatients()) {
+                patients++;
+                if (p.isInfected()) infectedPatients++;
+            }
+            for (HealthcareWorker hw : ward.engine.getWorkers()) {
+                workers++;
+                if (hw.isInfected()) infectedWorkers++;
+            }
+        }
+        result.setTotalPatients(patients);
+        result.getPctPatientsInfected().add(patients > 0 ? infectedPatients * 100.0 / patients : 0.0);
+        result.getPctWorkersInfected().add(workers > 0 ? infectedWorkers * 100.0 / workers : 0.0);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Gestor de camas de UCI (modo BedAllocationMode.MANAGED).
+ *
+ * Mantiene un índice global de las celdas de UCI con camas libres (por fila, las x en un TreeSet) a partir de
+ * las capacidades de cada celda del Grid. Los pacientes infectados sin cama entran en una cola ordenada por
+ * gravedad de la cepa que los infecta: primero los que resisten más tratamientos, después los de mayor
+ * virulencia y, a igualdad, por orden de llegada (la gravedad se fija al entrar en la cola). Mientras quedan
+ * camas, se asignan a la cama libre más cercana (distancia de Chebyshev, la de los movimientos del grid): en
+ * cada fila la candidata sale de floor/ceiling en O(log n) y solo se recorren las filas más cercanas que la
+ * mejor hasta el momento. El paciente se traslada a la celda de la cama y no se mueve mientras la ocupa; la libera
+ * cuando deja de estar infectado, al recibir el alta o al salir de la sala.
+ */
+public class IcuBedManager {
+
+    private static final class BedRequest implements Comparable<BedRequest> {
+        private final Patient patient;
+        private final int resistances;
+        private final double virulence;
+        private final int step;
+        private final long seq;
+        private boolean cancelled;
+
+        private BedRequest(Patient patient, int step, long seq) {
+            this.patient = patient;
+            this.resistances = Integer.bitCount(patient.getKnn().getResistanceMask());
+            this.virulence = patient.getKnn().getVirulenceFactor();
+            this.step = step;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(BedRequest other) {
+            if (resistances != other.resistances) {
+                return Integer.compare(other.resistances, resistances);
+            }
+            if (virulence != other.virulence) {
+                return Double.compare(other.virulence, virulence);
+            }
+            if (step != other.step) {
+                return Integer.compare(step, other.step);
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+
+    private final Grid grid;
+    // Fila (y) -> columnas (x) de celdas de UCI con al menos una cama libre
+    private final TreeMap<Integer, TreeSet<Integer>> freeByRow = new TreeMap<>();
+    private final int totalBeds;
+    private int occupiedBeds;
+
+    private final PriorityQueue<BedRequest> queue = new PriorityQueue<>();
+    private final Map<Patient, BedRequest> waiting = new IdentityHashMap<>();
+    // Paciente -> celda de su cama, en orden de ingreso
+    private final Map<Patient, Cell> assigned = new LinkedHashMap<>();
+    private final MetricSummary waitSteps = new MetricSummary();
+    private long seq;
+
+    public IcuBedManager(Grid grid) {
+        this.grid = grid;
+        int beds = 0;
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                Cell cell = grid.getCell(x, y);
+                if (cell.isIcuCell() && cell.getIcuCapacity() > 0) {
+                    beds += cell.getIcuCapacity();
+                    occupiedBeds += cell.getUsedBeds();
+                    refreshIndex(cell);
+                }
+            }
+        }
+        this.totalBeds = beds;
+    }
+
+    /**
+     * Fin de la fase de agentes: libera las camas de los que ya no están infectados, encola a los infectados
+     * sin cama y asigna camas por orden de gravedad mientras queden libres.
+     */
+    public void allocate(int step, List<Patient> patients) {
+        Iterator<Map.Entry<Patient, Cell>> it = assigned.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Patient, Cell> entry = it.next();
+            if (!entry.getKey().isInfected()) {
+                it.remove();
+                freeBed(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Iterator<BedRequest> wit = waiting.values().iterator();
+        while (wit.hasNext()) {
+            BedRequest request = wit.next();
+            if (!request.patient.isInfected()) {
+                request.cancelled = true;
+                wit.remove();
+            }
+        }
+
+        for (Patient p : patients) {
+            if (p.isInfected() && !p.isInIcu() && !waiting.containsKey(p)) {
+                p.updateTriagePriority();
+                BedRequest request = new BedRequest(p, step, seq++);
+                waiting.put(p, request);
+                queue.add(request);
+            }
+        }
+
+        while (occupiedBeds < totalBeds && !queue.isEmpty()) {
+            BedRequest request = queue.poll();
+            if (request.cancelled) {
+                continue;
+            }
+            waiting.remove(request.patient);
+            Cell bed = nearestFreeBed(request.patient.getCurrentCell());
+            if (bed == null) {
+                break; // No debería ocurrir con occupiedBeds < totalBeds
+            }
+            request.patient.occupyIcuBed(bed);
+            assigned.put(request.patient, bed);
+            occupiedBeds++;
+            refreshIndex(bed);
+            waitSteps.add(step - request.step);
+        }
+    }
+
+    /**
+     * El paciente sale de la sala (alta o traslado): libera su cama o su puesto en la cola.
+     */
+    public void release(Patient p) {
+        Cell bed = assigned.remove(p);
+        if (bed != null) {
+            freeBed(p, bed);
+        }
+        BedRequest request = waiting.remove(p);
+        if (request != null) {
+            request.cancelled = true;
+        }
+    }
+
+    private void freeBed(Patient p, Cell bed) {
+        if (p.isInIcu()) {
+            p.releaseIcuBed();
+        }
+        occupiedBeds--;
+        refreshIndex(bed);
+    }
+
+    private void refreshIndex(Cell cell) {
+        if (cell.hasFreeBed()) {
+            freeByRow.computeIfAbsent(cell.getY(), y -> new TreeSet<>()).add(cell.getX());
+        } else {
+            TreeSet<Integer> row = freeByRow.get(cell.getY());
+            if (row != null) {
+                row.remove(cell.getX());
+                if (row.isEmpty()) {
+                    freeByRow.remove(cell.getY());
+                }
+            }
+        }
+    }
+
+    private Cell nearestFreeBed(Cell from) {
+        int px = from != null ? from.getX() : 0;
+        int py = from != null ? from.getY() : 0;
+        int bestDist = Integer.MAX_VALUE;
+        int bestX = -1;
+        int bestY = -1;
+
+        // Filas hacia arriba y hacia abajo alternando, mientras puedan mejorar la mejor distancia
+        Integer below = freeByRow.floorKey(py);
+        Integer above = freeByRow.higherKey(py);
+        while (below != null || above != null) {
+            int y;
+            if (above == null || (below != null && py - below <= above - py)) {
+                y = below;
+                below = freeByRow.lowerKey(below);
+            } else {
+                y = above;
+                above = freeByRow.higherKey(above);
+            }
+            int dy = Math.abs(y - py);
+            if (dy >= bestDist) {
+                break;
+            }
+            NavigableSet<Integer> row = freeByRow.get(y);
+            Integer left = row.floor(px);
+            Integer right = row.ceiling(px);
+            for (Integer x : new Integer[]{left, right}) {
+                if (x == null) {
+                    continue;
+                }
+                int dist = Math.max(Math.abs(x - px), dy);
+                if (dist < bestDist) {
+                    bestDist = dist;
+                    bestX = x;
+                    bestY = y;
+                }
+            }
+        }
+        return bestDist == Integer.MAX_VALUE ? null : grid.getCell(bestX, bestY);
+    }
+
+    public int getTotalBeds() {
+        return totalBeds;
+    }
+
+    public int getOccupiedBeds() {
+        return occupiedBeds;
+    }
+
+    public int getQueueLength() {
+        return waiting.size();
+    }
+
+    public MetricSummary getWaitSteps() {
+        return waitSteps;
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.icu_sim.service;
 
+import com.example.icu_sim.jfr.FirstPatientInfectionEvent;
+import com.example.icu_sim.jfr.IcuSaturationEvent;
+import com.example.icu_sim.jfr.KnnMutationBurstEvent;
+import com.example.icu_sim.jfr.SimulationRunEvent;
+import com.example.icu_sim.jfr.SimulationStepEvent;
 import com.example.icu_sim.model.*;
 import com.example.icu_sim.model.agents.HealthcareWorker;
 import com.example.icu_sim.model.agents.Patient;
@@ -7,7 +12,9 @@ import com.example.icu_sim.model.agents.Agent;
 import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae;
 import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.Sensitivity;
 import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.State;
+import com.example.icu_sim.model.bacteria.StrainTable;
 import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.FloorPlan;
 import com.example.icu_sim.model.data.Grid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,22 +24,371 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class IcuSimulationService {
 
     private static final Logger logger = LoggerFactory.getLogger(IcuSimulationService.class);
 
+    // Dinámica de KNN en las celdas
+    private static final int KNN_GROWTH = 5;
+    private static final int KNN_GROWTH_ICU = 3;
+    private static final double KNN_DEATH_CHANCE = 0.03;
+    private static final int KNN_DEATH_AMOUNT = 5;
+    private static final int KNN_MIN_QUANTITY_TO_MOVE = 10;
+    private static final int KNN_MOVE_AMOUNT = 10;
+
+    public static final double TREATMENT_A_CURE_CHANCE = 0.7;
+
+    private static final Comparator<Patient> TRIAGE_ORDER =
+            (p1, p2) -> Double.compare(p2.getTriagePriority(), p1.getTriagePriority());
+
+    // Informe de transmisiones incluido en el resultado
+    private static final int REPORT_TOP_SPREADERS = 10;
+    private static final int REPORT_MAX_TREE_NODES = 500;
+
     private Random random;
     private StringBuilder logBuffer;
 
     // Listas de agentes y grid
     private List<HealthcareWorker> workers;
     private List<Patient> patients;
+    private final List<Patient> patientBuffer = new ArrayList<>(); // Copia de patients del paso, reutilizada
     private Grid grid;
     private SimulationResult result;
+    private AgentEventScheduler scheduler; // Solo en modo EVENT
+    private CompactAgentEngine compactEngine; // Solo con AgentStorage.COMPACT
+    private ParallelAgentStepper parallelStepper; // Solo en modo PARALLEL
+    private IcuBedManager bedManager; // Solo con BedAllocationMode.MANAGED
+    private TransmissionRecorder recorder; // Solo con recordTransmissions
+    private String idPrefix = ""; // Prefijo de los ids de agentes (nombre de la sala en modo multi-sala)
+
+    // Límites de la ejecución (ver AdmissionService); 0 = sin límite
+    private long maxRunNanos;
+    private long maxMemoryBytes;
+    private long deadlineNanos;
+    private volatile boolean cancelled;
+    private StopConditions stopConditions;
+    private StepListener stepListener; // Observador de cada paso del motor de agentes (p. ej. el feed en vivo)
+
+    // Intervenciones pendientes, ordenadas por paso
+    private List<Intervention> timeline = List.of();
+    private int nextIntervention;
+
+    // RandomStreams.PER_ENTITY: los sorteos de cada celda y de las llegadas en un paso salen de un generador
+    // resembrado con (semilla, entidad, paso), así que no dependen de lo ocurrido antes en la ejecución
+    private static final long ARRIVALS_STREAM = -1;
+    private boolean perEntityStreams;
+    private long entitySeed;
+    private final Random entityStream = new Random();
+    private int currentStep;
+
+    // Eventos JFR de hitos del brote (ver docs/jfr.md)
+    private int stepMutations; // Mutaciones de KNN en el paso
+    private int stepPopulatedCells; // Celdas con KNN que podían mutar en el paso
+    private double mutationChance; // Probabilidad de mutación por celda en el paso
+    private boolean patientInfected; // Ya hubo algún paciente infectado
+    private int newPatientInfections; // Pacientes infectados en el paso en curso
+    private IcuSaturationEvent saturation; // Periodo de UCI saturada en curso
+    private int icuBeds = -1; // Camas de UCI del grid sin IcuBedManager (-1 = sin contar)
+
+    /**
+     * Límites por ejecución: tiempo de pared y memoria retenida estimada (ResourceEstimator). Al superarlos,
+     * runSimulation lanza SimulationCancelledException.
+     */
+    public void setRunLimits(long maxRunMillis, long maxMemoryBytes) {
+        this.maxRunNanos = maxRunMillis * 1_000_000;
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * Pide que la ejecución en curso se detenga al final del paso actual.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
 
     public SimulationResult runSimulation(IcuSimulationRequest request) {
+        if(!SimulationRunEvent.enabled()) {
+            return run(request);
+        }
+        SimulationRunEvent event = new SimulationRunEvent();
+        event.begin();
+        try {
+            SimulationResult completed = run(request);
+            event.stopReason = completed.getStopReason().name();
+            return completed;
+        } catch(RuntimeException e) {
+            event.stopReason = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            event.end();
+            event.seed = request.getSeed();
+            event.patients = request.getNPatients();
+            event.workers = request.getNWorkers();
+            event.cells = grid != null ? grid.getCellCount() : request.getGridWidth() * request.getGridHeight();
+            event.maxSteps = request.getMaxSteps();
+            event.engineMode = request.getEngineMode().name();
+            event.agentStorage = request.getAgentStorage().name();
+            event.schedulingMode = request.getSchedulingMode().name();
+            event.bacteriaUpdateMode = request.getBacteriaUpdateMode().name();
+            event.stopStep = result != null ? result.getStopStep() : 0;
+            event.commit();
+        }
+    }
+
+    private SimulationResult run(IcuSimulationRequest request) {
+        if(!request.getInterventions().isEmpty() || request.isLowAllocation()) {
+            // Las intervenciones y el modo lowAllocation cambian la solicitud: se trabaja sobre una copia
+            request = new IcuSimulationRequest(request);
+        }
+        if(request.isLowAllocation()) {
+            prepareLowAllocation(request);
+        }
+        prepareRun(request);
+        prepareTimeline(request);
+        prepareStreams(request);
+        deadlineNanos = maxRunNanos > 0 ? System.nanoTime() + maxRunNanos : 0;
+        stopConditions = new StopConditions(request);
+
+        int firstAgentStep = 1;
+        if(request.getEngineMode() == IcuSimulationRequest.EngineMode.AGENT) {
+            initializeAgents(request, createGrid(request), request.getNPatients(), 0, 0, 0, request.getInitialInfectedCells());
+        } else {
+            firstAgentStep = runCompartmentalPhase(request);
+        }
+
+        // Bucle de simulación
+        BooleanSupplier extinct = this::isExtinct;
+        try {
+            for(int step=firstAgentStep; step<=request.getMaxSteps(); step++){
+                checkRunLimits(step);
+                applyInterventions(step, request);
+                stepAgents(step, request);
+                result.setStopStep(step);
+                if(stepListener != null) {
+                    stepListener.onStep(step, this);
+                }
+                if(shouldStop(step, extinct)) {
+                    break;
+                }
+            }
+        } finally {
+            endIcuSaturation();
+        }
+
+        if(recorder != null) {
+            result.setTransmissions(recorder.buildReport(REPORT_TOP_SPREADERS, REPORT_MAX_TREE_NODES));
+        }
+
+        // Guardar logs en .txt
+        if(request.isSaveLogs()) {
+            writeLogsToFile("simulation_logs.txt");
+        }
+
+        logger.info("Simulación completada.");
+        return result;
+    }
+
+    /**
+     * Ejecuta la simulación registrando las transmisiones y devuelve solo el informe de transmisión. El registro
+     * sigue a cada agente desde el paso 1, así que se rechaza (antes de ejecutar) lo que no lo permite: modos
+     * COMPARTMENTAL e HYBRID, AgentStorage.COMPACT y lowAllocation.
+     */
+    public TransmissionReport runTransmissionAnalysis(IcuSimulationRequest request, int topSpreaders, int maxTreeNodes) {
+        if(request.getEngineMode() != IcuSimulationRequest.EngineMode.AGENT
+                || request.getAgentStorage() != IcuSimulationRequest.AgentStorage.OBJECTS
+                || request.isLowAllocation()) {
+            throw new AdmissionRejectedException("El registro de transmisiones necesita engineMode AGENT, "
+                    + "agentStorage OBJECTS y lowAllocation=false");
+        }
+        IcuSimulationRequest recorded = new IcuSimulationRequest(request);
+        recorded.setRecordTransmissions(true);
+        recorded.setSaveGridSnapshots(false);
+        runSimulation(recorded);
+        if(recorder == null) {
+            throw new IllegalArgumentException("El registro de transmisiones necesita agentes con AgentStorage.OBJECTS.");
+        }
+        return recorder.buildReport(topSpreaders, maxTreeNodes);
+    }
+
+    /**
+     * Inicializa este servicio como motor de una sala dentro de una simulación multi-sala
+     * (ver HospitalSimulationService). Los pasos se avanzan luego con {@link #advanceWard}. Las intervenciones
+     * cambian {@code request}, así que cada sala necesita su propia copia.
+     */
+    public void startWard(IcuSimulationRequest request, Grid wardGrid, String wardIdPrefix) {
+        prepareRun(request);
+        prepareTimeline(request);
+        prepareStreams(request);
+        this.idPrefix = wardIdPrefix;
+        deadlineNanos = maxRunNanos > 0 ? System.nanoTime() + maxRunNanos : 0;
+        initializeAgents(request, wardGrid, request.getNPatients(), 0, 0, 0, request.getInitialInfectedCells());
+    }
+
+    /**
+     * Avanza un paso de la sala (con las intervenciones de ese paso); con límites de ejecución, lanza
+     * SimulationCancelledException al superarlos.
+     */
+    public void advanceWard(int step, IcuSimulationRequest request) {
+        checkRunLimits(step);
+        applyInterventions(step, request);
+        stepAgents(step, request);
+        result.setStopStep(step);
+    }
+
+    /**
+     * Si en la sala ya no puede volver a haber contagios (ver StopConditions); el hospital para por extinción
+     * cuando lo cumplen todas sus salas.
+     */
+    public boolean isWardExtinct() {
+        return isExtinct();
+    }
+
+    /**
+     * Cierra lo que quede abierto de la sala al terminar la simulación multi-sala (evento JFR de UCI saturada).
+     */
+    public void finishWard() {
+        endIcuSaturation();
+    }
+
+    /**
+     * Selecciona (con la semilla de la sala) los pacientes que salen de la sala en este paso.
+     */
+    public List<Patient> selectOutgoingPatients(double transferRate) {
+        List<Patient> outgoing = new ArrayList<>();
+        for(Patient p : patients) {
+            if(random.nextDouble() < transferRate) {
+                outgoing.add(p);
+            }
+        }
+        return outgoing;
+    }
+
+    public List<HealthcareWorker> selectOutgoingWorkers(double rotationProb) {
+        List<HealthcareWorker> outgoing = new ArrayList<>();
+        for(HealthcareWorker hw : workers) {
+            if(random.nextDouble() < rotationProb) {
+                outgoing.add(hw);
+            }
+        }
+        return outgoing;
+    }
+
+    /**
+     * Recibe un paciente de otra sala; sus cepas pasan a la tabla de esta sala.
+     */
+    public void admitPatient(Patient p) {
+        p.getKnn().moveToTable(grid.getStrainTable());
+        p.setCurrentCell(getRandomCell(grid));
+        patients.add(p);
+        if(scheduler != null) {
+            scheduler.registerPatient(p);
+        }
+        if(parallelStepper != null) {
+            parallelStepper.register(p);
+        }
+        result.setTotalPatients(patients.size());
+    }
+
+    public void releasePatient(Patient p) {
+        p.releaseIcuBed();
+        p.setCurrentCell(null);
+        removePatient(p);
+    }
+
+    public void admitWorker(HealthcareWorker hw) {
+        hw.getKnn().moveToTable(grid.getStrainTable());
+        hw.setCurrentCell(getRandomCell(grid));
+        workers.add(hw);
+        if(scheduler != null) {
+            scheduler.registerWorker(hw);
+        }
+        if(parallelStepper != null) {
+            parallelStepper.register(hw);
+        }
+        result.setTotalWorkers(workers.size());
+    }
+
+    public void releaseWorker(HealthcareWorker hw) {
+        hw.setCurrentCell(null);
+        workers.remove(hw);
+        if(scheduler != null) {
+            scheduler.unregister(hw);
+        }
+        if(parallelStepper != null) {
+            parallelStepper.unregister(hw);
+        }
+        result.setTotalWorkers(workers.size());
+    }
+
+    /**
+     * true si las camas de UCI las asigna IcuBedManager (BedAllocationMode.MANAGED).
+     */
+    public boolean isBedManaged() {
+        return bedManager != null;
+    }
+
+    public List<Patient> getPatients() {
+        return patients;
+    }
+
+    public List<HealthcareWorker> getWorkers() {
+        return workers;
+    }
+
+    public SimulationResult getResult() {
+        return result;
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Motor compacto de la ejecución, o null si los agentes son objetos.
+     */
+    public CompactAgentEngine getCompactEngine() {
+        return compactEngine;
+    }
+
+    /**
+     * Observador que se llama al final de cada paso del motor de agentes, en el hilo de la simulación. No se
+     * llama durante la fase compartimental ni en modo multi-sala.
+     */
+    public void setStepListener(StepListener stepListener) {
+        this.stepListener = stepListener;
+    }
+
+    /**
+     * Grid del plano de la petición (en línea o en fichero) o, si no hay, el rectángulo gridWidth x gridHeight.
+     */
+    public static Grid createGrid(IcuSimulationRequest request) {
+        return createGrid(request, floorPlan(request));
+    }
+
+    private static Grid createGrid(IcuSimulationRequest request, FloorPlan plan) {
+        Grid newGrid = plan != null ? new Grid(plan) : new Grid(request.getGridWidth(), request.getGridHeight());
+        newGrid.setStrainTable(new StrainTable(request.getStrainDriftStd()));
+        return newGrid;
+    }
+
+    /**
+     * Plano de la solicitud: el de floorPlan, el de floorPlanPath o null si la sala es el rectángulo
+     * gridWidth x gridHeight.
+     */
+    static FloorPlan floorPlan(IcuSimulationRequest request) {
+        if(request.getFloorPlan() != null) {
+            return request.getFloorPlan();
+        }
+        if(request.getFloorPlanPath() != null && !request.getFloorPlanPath().isBlank()) {
+            return FloorPlan.load(request.getFloorPlanPath());
+        }
+        return null;
+    }
+
+    private void prepareRun(IcuSimulationRequest request) {
         // Semilla
         if(request.getSeed() != 0) {
             random = new Random(request.getSeed());
@@ -49,8 +405,27 @@ public class IcuSimulationService {
 
         logger.info("Iniciando simulación: {}", request);
 
-        // Crear Grid
-        grid = new Grid(request.getGridWidth(), request.getGridHeight());
+        // Objeto resultado
+        result = new SimulationResult();
+        patientInfected = false;
+        newPatientInfections = 0;
+        saturation = null;
+        icuBeds = -1;
+    }
+
+    /**
+     * Instala el grid y crea los trabajadores (los primeros {@code infectedWorkers} ya infectados), los pacientes
+     * (los primeros {@code infectedPatients} infectados y los siguientes {@code colonizedPatients} solo
+     * colonizados) y siembra {@code infectedCells} celdas con KNN.
+     */
+    private void initializeAgents(IcuSimulationRequest request, Grid newGrid, int nPatients, int colonizedPatients,
+                                  int infectedPatients, int infectedWorkers, int infectedCells) {
+        grid = newGrid;
+
+        compactEngine = null;
+        if(request.getAgentStorage() == IcuSimulationRequest.AgentStorage.COMPACT) {
+            compactEngine = new CompactAgentEngine(grid, random, request, nPatients);
+        }
 
         // Crear Workers
         workers = new ArrayList<>();
@@ -58,110 +433,647 @@ public class IcuSimulationService {
             Cell c = getRandomCell(grid);
             double hVal = sampleNormal(request.getHygieneFactorMean(), request.getHygieneFactorStd());
             hVal = Math.max(0, Math.min(1, hVal));
-            HealthcareWorker hw = new HealthcareWorker("HW-"+i, c, hVal, request.getPpeFactor(), request.getWorkerBaseInfectionChance());
+            if(compactEngine != null) {
+                compactEngine.addWorker(c, hVal, request.getPpeFactor(), i < infectedWorkers);
+                continue;
+            }
+            HealthcareWorker hw = new HealthcareWorker(idPrefix+"HW-"+i, c, hVal, request.getPpeFactor(), request.getWorkerBaseInfectionChance());
+            hw.setRandom(new Random(random.nextLong()));
+            if(i < infectedWorkers) {
+                hw.setInfected(true);
+                hw.getKnn().setState(State.INFECTED);
+            }
             workers.add(hw);
         }
 
         // Crear Pacientes
         patients = new ArrayList<>();
-        for(int i=0; i<request.getNPatients(); i++){
+        for(int i=0; i<nPatients; i++){
             Cell c = getRandomCell(grid);
-            Patient p = new Patient("P-"+i, c, request.getColonizationChance(), request.getInfectionFromColonizedChance());
+            if(compactEngine != null) {
+                compactEngine.addPatient(c, i < infectedPatients + colonizedPatients, i < infectedPatients);
+                continue;
+            }
+            Patient p = new Patient(idPrefix+"P-"+i, c, request.getColonizationChance(), request.getInfectionFromColonizedChance());
+            p.setRandom(new Random(random.nextLong()));
+            if(i < infectedPatients + colonizedPatients) {
+                p.colonize();
+                if(i < infectedPatients) {
+                    p.becomeInfected();
+                }
+                p.updateTriagePriority();
+            }
             patients.add(p);
         }
 
+        // Registro de transmisiones (antes de sembrar, para que las siembras sean las raíces)
+        recorder = null;
+        if(request.isRecordTransmissions() && compactEngine == null) {
+            recorder = new TransmissionRecorder(grid);
+        }
+
         // Infectar celdas
-        initializeInfectedCells(grid, 8, 200); // Infecta 8 celdas con 200 de KNN
+        initializeInfectedCells(grid, infectedCells, request.getInitialCellKnn());
 
-        // Objeto resultado
-        result = new SimulationResult();
-        result.setTotalWorkers(workers.size());
-        result.setTotalPatients(patients.size());
+        // Planificador por eventos
+        scheduler = null;
+        if(request.getSchedulingMode() == IcuSimulationRequest.SchedulingMode.EVENT && compactEngine == null) {
+            scheduler = new AgentEventScheduler(this, random);
+            workers.forEach(scheduler::registerWorker);
+            patients.forEach(scheduler::registerPatient);
+        }
+
+        // Fase de agentes en paralelo
+        parallelStepper = null;
+        if(request.getSchedulingMode() == IcuSimulationRequest.SchedulingMode.PARALLEL && compactEngine == null) {
+            long streamSeed = request.getSeed() != 0 ? request.getSeed() : random.nextLong();
+            parallelStepper = new ParallelAgentStepper(this, grid, streamSeed);
+            workers.forEach(parallelStepper::register);
+            patients.forEach(parallelStepper::register);
+        }
+
+        // Gestor de camas de UCI
+        bedManager = null;
+        if(request.getBedAllocationMode() == IcuSimulationRequest.BedAllocationMode.MANAGED && compactEngine == null) {
+            bedManager = new IcuBedManager(grid);
+            result.setIcuTotalBeds(bedManager.getTotalBeds());
+            result.setIcuWaitSteps(bedManager.getWaitSteps());
+        }
+
+        result.setTotalWorkers(compactEngine != null ? compactEngine.getWorkerCount() : workers.size());
+        result.setTotalPatients(compactEngine != null ? compactEngine.getPatientCount() : patients.size());
+        if(request.isLowAllocation()) {
+            result.reserveSteps(request.getMaxSteps(), bedManager != null);
+        }
+    }
+
+    /**
+     * Ejecuta el modelo compartimental desde el paso 1. En modo HYBRID, cuando la prevalencia de pacientes
+     * colonizados o infectados alcanza el umbral se materializan los agentes con los tamaños de los
+     * compartimentos y se devuelve el paso desde el que sigue el motor de agentes.
+     */
+    private int runCompartmentalPhase(IcuSimulationRequest request) {
+        FloorPlan plan = floorPlan(request);
+        CompartmentalModel model = CompartmentalModel.fromRequest(request, plan, request.getInitialInfectedCells());
+        boolean hybrid = request.getEngineMode() == IcuSimulationRequest.EngineMode.HYBRID;
+        result.setTotalWorkers(request.getNWorkers());
 
-        // Bucle de simulación
         for(int step=1; step<=request.getMaxSteps(); step++){
+            checkRunLimits(step);
+            applyInterventions(step, request, model);
+            model.step(step);
+            result.getPctPatientsInfected().add(model.getPctPatientsInfected());
+            result.getPctWorkersInfected().add(model.getPctWorkersInfected());
+            result.getNewPatientInfections().add(model.getNewInfections());
+            result.setTotalPatients((int) Math.round(model.getPatients()));
+
+            if(hybrid && model.getPatientPrevalence() >= request.getHybridSwitchThreshold()) {
+                int nPatients = (int) Math.round(model.getPatients());
+                int infectedPatients = Math.min(nPatients, (int) Math.round(model.getInfected()));
+                int colonizedPatients = Math.min(nPatients - infectedPatients, (int) Math.round(model.getColonized()));
+                int infectedWorkers = (int) Math.round(model.getInfectedWorkers());
+                Grid newGrid = createGrid(request, plan);
+                int infectedCells = (int) Math.round(model.getContaminatedFraction() * newGrid.getWalkableCount());
+
+                initializeAgents(request, newGrid, nPatients, colonizedPatients, infectedPatients, infectedWorkers, infectedCells);
+                result.setAgentSwitchStep(step);
+                logger.info("Paso {}: prevalencia {} >= {}, se pasa a agentes individuales.",
+                        step, model.getPatientPrevalence(), request.getHybridSwitchThreshold());
+                return step + 1;
+            }
+            result.setStopStep(step);
+            // El modelo de campo medio no llega a extinguirse: solo se aplican los demás criterios
+            if(shouldStop(step, () -> false)) {
+                break;
+            }
+        }
+        return request.getMaxSteps() + 1;
+    }
+
+    private boolean shouldStop(int step, BooleanSupplier extinct) {
+        List<Double> pct = result.getPctPatientsInfected();
+        SimulationResult.StopReason reason = stopConditions.check(pct.get(pct.size() - 1), extinct);
+        if(reason == null) {
+            return false;
+        }
+        result.setStopReason(reason);
+        logger.info("Paso {}: parada anticipada ({}).", step, reason);
+        return true;
+    }
+
+    /**
+     * Sin KNN en el grid ni trabajadores infectados ni pacientes infectados o colonizados: nada puede volver a
+     * contaminar, así que el estado ya no cambia.
+     */
+    private boolean isExtinct() {
+        List<Long> knn = result.getTotalKnnQuantity();
+        if(knn.isEmpty() || knn.get(knn.size() - 1) > 0) {
+            return false;
+        }
+        if(compactEngine != null) {
+            return compactEngine.getInfectedWorkers() == 0 && compactEngine.getInfectedPatients() == 0
+                    && compactEngine.countColonizedPatients() == 0;
+        }
+        for(HealthcareWorker hw : workers) {
+            if(hw.isInfected()) {
+                return false;
+            }
+        }
+        for(Patient p : patients) {
+            if(p.isInfected() || p.isColonized()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stepAgents(int step, IcuSimulationRequest request) {
+        currentStep = step;
+        boolean logging = logging(request.isSaveLogs());
+        if(logging) {
             logEvent("== Paso " + step + " ==", request.isSaveLogs());
+        }
+        if(recorder != null) {
+            recorder.setStep(step);
+        }
+        // Evento JFR con el tiempo de cada fase (solo si hay una grabación que lo pida)
+        SimulationStepEvent stepEvent = SimulationStepEvent.enabled() ? new SimulationStepEvent() : null;
+        if(stepEvent != null) {
+            stepEvent.start(step);
+        }
+        stepMutations = 0;
+        stepPopulatedCells = 0;
+        mutationChance = 0.0;
 
-            // 1. Llega algún paciente
-            spawnNewPatients(grid, request);
+        // 1. Llega algún paciente
+        spawnNewPatients(grid, request);
+        if(stepEvent != null) {
+            stepEvent.arrivals = stepEvent.lap();
+        }
 
-            // 2. Actualizar KNN
+        // 2. Actualizar KNN
+        if(request.getBacteriaUpdateMode() == IcuSimulationRequest.BacteriaUpdateMode.TAU_LEAP) {
+            int tau = Math.max(1, request.getTauLeapSteps());
+            if((step - 1) % tau == 0) {
+                leapKnn(request, Math.min(tau, request.getMaxSteps() - step + 1));
+            }
+        } else {
             updateKnn(request);
+        }
+        if(stepMutations > 1 && KnnMutationBurstEvent.enabled()) {
+            reportMutationBurst(step);
+        }
+        if(stepEvent != null) {
+            stepEvent.bacteria = stepEvent.lap();
+        }
 
-            // 3. Mover y step() en Workers
-            for(HealthcareWorker hw : workers){
-                hw.step(step, this);
+        if(compactEngine != null) {
+            // 3-4. Bucles sobre los arrays del almacén compacto
+            compactEngine.step(step);
+        } else if(scheduler != null) {
+            // 3-4. Solo los agentes con eventos vencidos o en celdas contaminadas
+            scheduler.advance(step, grid);
+        } else if(parallelStepper != null) {
+            // 3-4. Intenciones en paralelo y confirmación en orden
+            parallelStepper.advance(step, workers, patients);
+        } else {
+            // 3. Mover y step() en Workers (bucles con índice: sin iteradores en cada paso)
+            for(int i=0; i<workers.size(); i++){
+                workers.get(i).step(step, this);
             }
 
             // 4. Mover y step() en Patients
-            for(Patient p : new ArrayList<>(patients)){
+            // Copia en un buffer reutilizado: step() puede dar de alta (quitar de patients). Sin addAll, que
+            // pasa por un toArray() nuevo
+            patientBuffer.clear();
+            for(int i=0; i<patients.size(); i++) {
+                patientBuffer.add(patients.get(i));
+            }
+            for(int i=0; i<patientBuffer.size(); i++){
+                Patient p = patientBuffer.get(i);
                 p.step(step, this);
                 p.occupyIcuBedIfNeeded(this);
             }
+            patientBuffer.clear();
+        }
+        if(stepEvent != null) {
+            stepEvent.agents = stepEvent.lap();
+        }
 
-            // 5. Asignar tratamiento
+        // Camas de UCI por gravedad de la cepa
+        if(bedManager != null) {
+            bedManager.allocate(step, patients);
+            result.getIcuOccupiedBeds().add(bedManager.getOccupiedBeds());
+            result.getIcuQueueLength().add(bedManager.getQueueLength());
+        }
+        if(saturation != null || IcuSaturationEvent.enabled()) {
+            trackIcuSaturation(step);
+        }
+        if(stepEvent != null) {
+            stepEvent.beds = stepEvent.lap();
+        }
+
+        // 5. Asignar tratamiento
+        if(compactEngine != null) {
+            compactEngine.applyTreatments();
+        } else {
             applyTreatments(request);
+        }
+        if(stepEvent != null) {
+            stepEvent.treatments = stepEvent.lap();
+        }
+
+        // 6. Métricas
+        long nPatients, infectedP, nWorkers, infectedW;
+        if(compactEngine != null) {
+            nPatients = compactEngine.getPatientCount();
+            infectedP = compactEngine.getInfectedPatients();
+            nWorkers = compactEngine.getWorkerCount();
+            infectedW = compactEngine.getInfectedWorkers();
+            result.setTotalPatients((int) nPatients);
+        } else {
+            nPatients = patients.size();
+            infectedP = 0;
+            for(int i=0; i<patients.size(); i++) {
+                if(patients.get(i).isInfected()) {
+                    infectedP++;
+                }
+            }
+            nWorkers = workers.size();
+            infectedW = 0;
+            for(int i=0; i<workers.size(); i++) {
+                if(workers.get(i).isInfected()) {
+                    infectedW++;
+                }
+            }
+        }
+        double pctP = nPatients>0 ? (infectedP*100.0)/nPatients : 0.0;
+        result.getPctPatientsInfected().add(pctP);
+
+        double pctW = nWorkers>0 ? (infectedW*100.0)/nWorkers : 0.0;
+        result.getPctWorkersInfected().add(pctW);
 
-            // 6. Métricas
-            long infectedP = patients.stream().filter(Patient::isInfected).count();
-            double pctP = patients.size()>0 ? (infectedP*100.0)/patients.size() : 0.0;
-            result.getPctPatientsInfected().add(pctP);
+        int newInfections = compactEngine != null ? compactEngine.takeNewInfectedPatients() : newPatientInfections;
+        newPatientInfections = 0;
+        result.getNewPatientInfections().add((double) newInfections);
 
-            long infectedW = workers.stream().filter(HealthcareWorker::isInfected).count();
-            double pctW = workers.size()>0 ? (infectedW*100.0)/workers.size() : 0.0;
-            result.getPctWorkersInfected().add(pctW);
+        if(!patientInfected && infectedP > 0) {
+            patientInfected = true;
+            if(FirstPatientInfectionEvent.enabled()) {
+                reportFirstPatientInfection(step, (int) infectedP);
+            }
+        }
 
-            // 7. Guardar grid y bacterias
-            result.addGridState(grid);
-            result.addBacteriaCounts(grid);
+        // 7. Guardar grid y bacterias
+        if(request.isSaveGridSnapshots() && (step - 1) % Math.max(1, request.getSnapshotInterval()) == 0) {
+            result.addGridState(grid, step);
+            result.addBacteriaCounts(grid, step);
+        }
+        result.addTotalKnnQuantity(grid);
+        result.setStrainCount(grid.getStrainTable().size());
+        if(stepEvent != null) {
+            stepEvent.metrics = stepEvent.lap();
+            stepEvent.pctPatientsInfected = pctP;
+            stepEvent.pctWorkersInfected = pctW;
+            stepEvent.commit();
+        }
 
+        if(logging) {
             logEvent(String.format("Paso %d => PacInfect=%.2f%%, WorkInfect=%.2f%%",
                     step, pctP, pctW), request.isSaveLogs());
         }
+    }
+
+    /**
+     * Ráfaga: más mutaciones que la media más tres desviaciones típicas de la Poisson esperada.
+     */
+    private void reportMutationBurst(int step) {
+        double expected = mutationChance * stepPopulatedCells;
+        if(stepMutations <= expected + 3 * Math.sqrt(expected)) {
+            return;
+        }
+        KnnMutationBurstEvent event = new KnnMutationBurstEvent();
+        event.step = step;
+        event.mutations = stepMutations;
+        event.expected = expected;
+        event.strains = grid.getStrainTable().size();
+        event.commit();
+    }
 
-        // Guardar logs en .txt
-        if(request.isSaveLogs()) {
-            writeLogsToFile("simulation_logs.txt");
+    private void reportFirstPatientInfection(int step, int infectedPatients) {
+        FirstPatientInfectionEvent event = new FirstPatientInfectionEvent();
+        event.step = step;
+        event.infectedPatients = infectedPatients;
+        event.patientId = "";
+        event.strainId = -1;
+        if(compactEngine == null) {
+            for(int i=0; i<patients.size(); i++) {
+                Patient p = patients.get(i);
+                if(p.isInfected()) {
+                    event.patientId = p.getUniqueId();
+                    event.strainId = p.getKnn().getStrainId();
+                    break;
+                }
+            }
         }
+        event.commit();
+    }
 
-        logger.info("Simulación completada.");
-        return result;
+    /**
+     * Abre el evento de UCI saturada cuando se ocupan todas las camas y lo cierra cuando queda alguna libre. Sin
+     * IcuBedManager las camas son la capacidad de las celdas de UCI y las ocupadas, los pacientes en UCI.
+     */
+    private void trackIcuSaturation(int step) {
+        if(compactEngine != null) {
+            return; // El almacén compacto no registra quién está en UCI
+        }
+        int totalBeds, occupied, queue;
+        if(bedManager != null) {
+            totalBeds = bedManager.getTotalBeds();
+            occupied = bedManager.getOccupiedBeds();
+            queue = bedManager.getQueueLength();
+        } else {
+            if(icuBeds < 0) {
+                icuBeds = 0;
+                for(int i=0; i<grid.getCellCount(); i++) {
+                    Cell cell = grid.getCell(i);
+                    if(cell.isIcuCell()) {
+                        icuBeds += cell.getIcuCapacity();
+                    }
+                }
+            }
+            totalBeds = icuBeds;
+            occupied = 0;
+            for(int i=0; i<patients.size(); i++) {
+                if(patients.get(i).isInIcu()) {
+                    occupied++;
+                }
+            }
+            queue = 0;
+        }
+        if(totalBeds > 0 && occupied >= totalBeds) {
+            if(saturation == null) {
+                saturation = new IcuSaturationEvent();
+                saturation.begin();
+                saturation.startStep = step;
+                saturation.totalBeds = totalBeds;
+            }
+            saturation.endStep = step;
+            saturation.maxQueueLength = Math.max(saturation.maxQueueLength, queue);
+        } else {
+            endIcuSaturation();
+        }
+    }
+
+    private void endIcuSaturation() {
+        if(saturation != null) {
+            saturation.end();
+            saturation.commit();
+            saturation = null;
+        }
+    }
+
+    private void checkRunLimits(int step) {
+        if(cancelled || Thread.currentThread().isInterrupted()) {
+            throw new SimulationCancelledException("Simulación cancelada en el paso " + step);
+        }
+        if(deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new SimulationCancelledException("Tiempo máximo de ejecución superado en el paso " + step);
+        }
+        if(maxMemoryBytes > 0 && grid != null) {
+            boolean compact = compactEngine != null;
+            long agents = compact ? compactEngine.getWorkerCount() + compactEngine.getPatientCount()
+                    : workers.size() + patients.size();
+            long retained = ResourceEstimator.retainedBytes(grid.getCellCount(), step, result.getGridState().size(), agents, compact);
+            if(retained > maxMemoryBytes) {
+                throw new SimulationCancelledException("Memoria máxima de la ejecución superada en el paso " + step);
+            }
+        }
+    }
+
+    /**
+     * Modo lowAllocation: desactiva las salidas que reservan memoria en cada paso (logs, snapshots y registro de
+     * transmisiones). Las series por paso se reservan de antemano al crear los agentes.
+     */
+    private void prepareLowAllocation(IcuSimulationRequest request) {
+        if(request.isSaveLogs() || request.isSaveGridSnapshots() || request.isRecordTransmissions()) {
+            logger.warn("lowAllocation: se desactivan saveLogs, saveGridSnapshots y recordTransmissions.");
+        }
+        request.setSaveLogs(false);
+        request.setSaveGridSnapshots(false);
+        request.setRecordTransmissions(false);
+    }
+
+    private void prepareTimeline(IcuSimulationRequest request) {
+        List<Intervention> sorted = new ArrayList<>(request.getInterventions());
+        for(Intervention intervention : sorted) {
+            if(!RequestParameters.isRuntime(intervention.getParameter())) {
+                throw new IllegalArgumentException("El parámetro " + intervention.getParameter()
+                        + " no se puede cambiar durante la ejecución (admitidos: " + RequestParameters.runtimeNames() + ")");
+            }
+        }
+        sorted.sort(Comparator.comparingInt(Intervention::getStep));
+        timeline = sorted;
+        nextIntervention = 0;
+    }
+
+    private void prepareStreams(IcuSimulationRequest request) {
+        String unsupported = unsupportedWithCompact(request);
+        if(unsupported != null) {
+            throw new IllegalArgumentException(unsupported);
+        }
+        perEntityStreams = request.getRandomStreams() == IcuSimulationRequest.RandomStreams.PER_ENTITY;
+        entitySeed = perEntityStreams ? (request.getSeed() != 0 ? request.getSeed() : random.nextLong()) : 0;
+    }
+
+    /**
+     * Opción de la solicitud que AgentStorage.COMPACT no implementa (null si no hay ninguna). El almacén compacto
+     * no guarda la cepa ni un generador por agente y no tiene cola de eventos, pasos en paralelo, registro de
+     * transmisiones ni gestor de camas, así que esas opciones se rechazan en lugar de ignorarse.
+     */
+    public static String unsupportedWithCompact(IcuSimulationRequest request) {
+        if(request.getAgentStorage() != IcuSimulationRequest.AgentStorage.COMPACT) {
+            return null;
+        }
+        if(request.getRandomStreams() == IcuSimulationRequest.RandomStreams.PER_ENTITY) {
+            return "randomStreams=PER_ENTITY no está disponible con agentStorage=COMPACT";
+        }
+        if(request.getSchedulingMode() != IcuSimulationRequest.SchedulingMode.POLLING) {
+            return "schedulingMode=" + request.getSchedulingMode() + " no está disponible con agentStorage=COMPACT";
+        }
+        if(request.getBedAllocationMode() == IcuSimulationRequest.BedAllocationMode.MANAGED) {
+            return "bedAllocationMode=MANAGED no está disponible con agentStorage=COMPACT";
+        }
+        if(request.isRecordTransmissions()) {
+            return "recordTransmissions no está disponible con agentStorage=COMPACT";
+        }
+        if(request.isStrainAwareTreatment()) {
+            return "strainAwareTreatment no está disponible con agentStorage=COMPACT";
+        }
+        return null;
+    }
+
+    /**
+     * Generador de una entidad (celda o llegadas) en el paso actual; con RandomStreams.SHARED, el común.
+     */
+    private Random entityRandom(long entity) {
+        if(!perEntityStreams) {
+            return random;
+        }
+        long z = ParallelAgentStepper.mix64(entitySeed + entity * 0x9E3779B97F4A7C15L);
+        entityStream.setSeed(ParallelAgentStepper.mix64(z + currentStep * 0x9E3779B97F4A7C15L));
+        return entityStream;
+    }
+
+    /**
+     * Aplica las intervenciones con paso <= step: cambia la solicitud (llegadas, mutación y nuevos agentes) y
+     * los parámetros de los agentes existentes. Las de la fase compartimental ya están en la solicitud con la que
+     * se crean los agentes al pasar a agentes.
+     */
+    private void applyInterventions(int step, IcuSimulationRequest request) {
+        while(nextIntervention < timeline.size() && timeline.get(nextIntervention).getStep() <= step) {
+            Intervention intervention = timeline.get(nextIntervention++);
+            double previousHygiene = request.getHygieneFactorMean();
+            double value = intervention.getValue();
+            RequestParameters.set(request, intervention.getParameter(), value);
+            switch(intervention.getParameter()) {
+                case "ppeFactor":
+                    workers.forEach(hw -> hw.setPpeFactor(value));
+                    if(compactEngine != null) {
+                        compactEngine.setPpeFactor(value);
+                    }
+                    break;
+                case "hygieneFactorMean":
+                    // Se desplaza la higiene de cada trabajador, conservando la dispersión entre ellos
+                    double delta = value - previousHygiene;
+                    workers.forEach(hw -> hw.setHygieneFactor(Math.max(0, Math.min(1, hw.getHygieneFactor() + delta))));
+                    if(compactEngine != null) {
+                        compactEngine.shiftHygieneFactor(delta);
+                    }
+                    break;
+                case "workerBaseInfectionChance":
+                    workers.forEach(hw -> hw.setWorkerBaseInfectionChance(value));
+                    if(compactEngine != null) {
+                        compactEngine.setWorkerBaseInfectionChance(value);
+                    }
+                    break;
+                case "colonizationChance":
+                    patients.forEach(p -> p.setColonizationChance(value));
+                    if(compactEngine != null) {
+                        compactEngine.setColonizationChance(value);
+                    }
+                    break;
+                case "infectionFromColonizedChance":
+                    patients.forEach(p -> p.setInfectionFromColonizedChance(value));
+                    if(compactEngine != null) {
+                        compactEngine.setInfectionFromColonizedChance(value);
+                    }
+                    if(scheduler != null) {
+                        // Los tiempos de infección ya sorteados usaban la probabilidad anterior
+                        new ArrayList<>(patients).forEach(scheduler::onPatientStateChanged);
+                    }
+                    break;
+                default:
+                    // arrivalRate y mutationRate se leen de la solicitud en cada paso
+                    break;
+            }
+            logEvent("Intervención en el paso " + step + ": " + intervention, request.isSaveLogs());
+            logger.info("Paso {}: intervención {}", step, intervention);
+        }
+    }
+
+    /**
+     * Intervenciones con paso <= step en la fase compartimental: cambian la solicitud y las tasas del modelo.
+     */
+    private void applyInterventions(int step, IcuSimulationRequest request, CompartmentalModel model) {
+        boolean changed = false;
+        while(nextIntervention < timeline.size() && timeline.get(nextIntervention).getStep() <= step) {
+            Intervention intervention = timeline.get(nextIntervention++);
+            RequestParameters.set(request, intervention.getParameter(), intervention.getValue());
+            logger.info("Paso {}: intervención {} (modelo compartimental)", step, intervention);
+            changed = true;
+        }
+        if(changed) {
+            model.updateRates(request);
+        }
     }
 
     private void applyTreatments(IcuSimulationRequest req) {
-        // Ordenar pacientes según triage
-        patients.sort((p1, p2) -> Double.compare(p2.getTriagePriority(), p1.getTriagePriority()));
+        // Ordenar pacientes según triage. Casi siempre ya están en orden, y así se evita el array temporal de
+        // TimSort en cada paso; la ordenación es estable, así que saltarla no cambia el resultado
+        if(req.isLowAllocation()) {
+            insertionSort(patients, TRIAGE_ORDER);
+        } else if(!isSorted(patients, TRIAGE_ORDER)) {
+            patients.sort(TRIAGE_ORDER);
+        }
 
-        for(Patient patient : patients) {
+        for(int i=0; i<patients.size(); i++) {
+            Patient patient = patients.get(i);
             if(patient.isInfected()) {
-                // Seleccionamos tratamiento según la sensibilidad
-                applyOneTreatment(patient, patient.getKnn().getSensitivity(), req.isSaveLogs());
+                // Seleccionamos tratamiento según la sensibilidad de la cepa adquirida o, por defecto, el A
+                Sensitivity s = req.isStrainAwareTreatment() ? patient.getKnn().getSensitivity()
+                        : Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A;
+                applyOneTreatment(patient, s, req.isSaveLogs());
+                if(scheduler != null && !patient.isInfected()) {
+                    scheduler.onPatientStateChanged(patient);
+                }
+            }
+        }
+    }
+
+    private static <T> boolean isSorted(List<T> list, Comparator<? super T> order) {
+        for(int i=1; i<list.size(); i++) {
+            if(order.compare(list.get(i - 1), list.get(i)) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ordenación estable in situ, sin memoria auxiliar: O(n + inversiones), barata con listas casi ordenadas.
+     */
+    private static <T> void insertionSort(List<T> list, Comparator<? super T> order) {
+        for(int i=1; i<list.size(); i++) {
+            T item = list.get(i);
+            int j = i - 1;
+            while(j >= 0 && order.compare(list.get(j), item) > 0) {
+                list.set(j + 1, list.get(j));
+                j--;
             }
+            list.set(j + 1, item);
         }
     }
 
     private void applyOneTreatment(Patient patient, Sensitivity s, boolean saveLogs) {
-        double r = random.nextDouble();
+        double r = (perEntityStreams ? patient.getRandom() : random).nextDouble();
         switch(s){
             case SUSCEPTIBLE_TO_TREATMENT_A:
                 // 70% => partially cure
-                if(r < 0.7) {
+                if(r < TREATMENT_A_CURE_CHANCE) {
                     patient.partiallyCure();
-                    logEvent("Tratamiento A para "+patient.getUniqueId(), saveLogs);
+                    logTreatment("Tratamiento A", patient, saveLogs);
                 }
                 break;
             case RESISTANT_TO_TREATMENT_A:
                 // 50% => partially cure
                 if(r < 0.5) {
                     patient.partiallyCure();
-                    logEvent("Tratamiento B para "+patient.getUniqueId(), saveLogs);
+                    logTreatment("Tratamiento B", patient, saveLogs);
                 }
                 break;
             case SUSCEPTIBLE_TO_TREATMENT_B:
                 // 60% => partially cure
                 if(r < 0.6) {
                     patient.partiallyCure();
-                    logEvent("Tratamiento C para "+patient.getUniqueId(), saveLogs);
+                    logTreatment("Tratamiento C", patient, saveLogs);
+                }
+                break;
+            case SUSCEPTIBLE_TO_TREATMENT_C:
+                // Resistente a A y B: tratamiento C, 60% => partially cure
+                if(r < 0.6) {
+                    patient.partiallyCure();
+                    logTreatment("Tratamiento C", patient, saveLogs);
                 }
                 break;
             case RESISTANT_TO_TREATMENT_B:
@@ -169,7 +1081,7 @@ public class IcuSimulationService {
                 // 40% => partially cure
                 if(r < 0.4) {
                     patient.partiallyCure();
-                    logEvent("Tratamiento agresivo para "+patient.getUniqueId(), saveLogs);
+                    logTreatment("Tratamiento agresivo", patient, saveLogs);
                 }
                 break;
             default:
@@ -177,34 +1089,62 @@ public class IcuSimulationService {
         }
     }
 
+    private void logTreatment(String treatment, Patient patient, boolean saveLogs) {
+        if(logging(saveLogs)) {
+            logEvent(treatment+" para "+patient.getUniqueId(), saveLogs);
+        }
+    }
+
     private void spawnNewPatients(Grid grid, IcuSimulationRequest req) {
-        if(random.nextDouble() < req.getArrivalRate()) {
-            Cell c = getRandomCell(grid);
-            String id = "P-NEW-"+patients.size();
+        Random rng = entityRandom(ARRIVALS_STREAM);
+        if(rng.nextDouble() < req.getArrivalRate()) {
+            Cell c = getRandomCell(grid, rng);
+            if(compactEngine != null) {
+                compactEngine.addPatient(c, false, false);
+                return;
+            }
+            String id = idPrefix+"P-NEW-"+patients.size();
             Patient newP = new Patient(id, c, req.getColonizationChance(), req.getInfectionFromColonizedChance());
+            newP.setRandom(new Random(rng.nextLong()));
             patients.add(newP);
-            logEvent("Llega nuevo paciente: "+id, req.isSaveLogs());
+            if(scheduler != null) {
+                scheduler.registerPatient(newP);
+            }
+            if(parallelStepper != null) {
+                parallelStepper.register(newP);
+            }
+            if(logging(req.isSaveLogs())) {
+                logEvent("Llega nuevo paciente: "+id, req.isSaveLogs());
+            }
         }
     }
 
     private void updateKnn(IcuSimulationRequest req) {
+        mutationChance = req.getMutationRate();
         for(int x=0; x<grid.getWidth(); x++){
             for(int y=0; y<grid.getHeight(); y++){
                 Cell cell = grid.getCell(x,y);
+                Random rng = entityRandom(grid.indexOf(cell));
                 KlebsiellaPneumoniae knn = cell.getKnn();
-                knn.tryMutate(req.getMutationRate());
+                // Solo mutan las poblaciones con bacterias: en una celda vacía la mutación no tiene a quién afectar
+                // y solo llenaría la tabla de cepas
+                if(knn.getQuantity() > 0) {
+                    stepPopulatedCells++;
+                    if(knn.tryMutate(req.getMutationRate(), rng)) {
+                        stepMutations++;
+                    }
+                }
 
                 if(knn.getState() == State.INFECTED && knn.getQuantity() > 0){
                     // Reproducción dependiente de la tasa específica
-                    if(random.nextDouble() < knn.getReproductionRate()) {
-                        int growth = 5;
-                        if(cell.isIcuCell()) growth = 3;
+                    if(rng.nextDouble() < knn.getReproductionRate()) {
+                        int growth = cell.isIcuCell() ? KNN_GROWTH_ICU : KNN_GROWTH;
                         knn.increaseQuantity(growth);
                     }
 
                     // Muerte
-                    if(random.nextDouble() < 0.03){ // 3%
-                        knn.decreaseQuantity(5);
+                    if(rng.nextDouble() < KNN_DEATH_CHANCE){ // 3%
+                        knn.decreaseQuantity(KNN_DEATH_AMOUNT);
                         if(knn.getQuantity() <= 0){
                             knn.setState(State.SUSCEPTIBLE);
                         }
@@ -212,8 +1152,49 @@ public class IcuSimulationService {
 
                     // Movimiento más dinámico
                     double movementProbability = calculateMovementProbability(knn, cell, grid);
-                    if(random.nextDouble() < movementProbability && knn.getQuantity() >= 10){
-                        moveBacteria(cell, grid, knn, x, y, req);
+                    if(rng.nextDouble() < movementProbability && knn.getQuantity() >= KNN_MIN_QUANTITY_TO_MOVE){
+                        moveBacteria(cell, grid, knn, x, y, req, rng);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tau-leaping: avanza el campo de KNN {@code steps} pasos de una vez. El número de eventos de
+     * crecimiento, muerte y movimiento de cada celda se sortea con una binomial sobre los pasos del salto,
+     * usando el estado de la celda al inicio del salto.
+     */
+    private void leapKnn(IcuSimulationRequest req, int steps) {
+        mutationChance = 1.0 - Math.pow(1.0 - req.getMutationRate(), steps);
+        for(int x=0; x<grid.getWidth(); x++){
+            for(int y=0; y<grid.getHeight(); y++){
+                Cell cell = grid.getCell(x,y);
+                Random rng = entityRandom(grid.indexOf(cell));
+                KlebsiellaPneumoniae knn = cell.getKnn();
+                if(knn.getQuantity() > 0) {
+                    stepPopulatedCells++;
+                    if(knn.tryMutate(req.getMutationRate(), steps, rng)) {
+                        stepMutations++;
+                    }
+                }
+
+                if(knn.getState() == State.INFECTED && knn.getQuantity() > 0){
+                    double movementProbability = calculateMovementProbability(knn, cell, grid);
+
+                    int growth = cell.isIcuCell() ? KNN_GROWTH_ICU : KNN_GROWTH;
+                    int growthEvents = StochasticSampler.binomial(rng, steps, knn.getReproductionRate());
+                    int deathEvents = StochasticSampler.binomial(rng, steps, KNN_DEATH_CHANCE);
+                    knn.increaseQuantity(growthEvents * growth);
+                    knn.decreaseQuantity(deathEvents * KNN_DEATH_AMOUNT);
+                    if(knn.getQuantity() <= 0){
+                        knn.setState(State.SUSCEPTIBLE);
+                        continue;
+                    }
+
+                    int moveEvents = StochasticSampler.binomial(rng, steps, Math.min(1.0, movementProbability));
+                    for(int i=0; i<moveEvents && knn.getQuantity() >= KNN_MIN_QUANTITY_TO_MOVE; i++){
+                        moveBacteria(cell, grid, knn, x, y, req, rng);
                     }
                 }
             }
@@ -237,31 +1218,41 @@ public class IcuSimulationService {
         return baseMovement * (1 + densityFactor) * virulenceFactor;
     }
 
-    private void moveBacteria(Cell currentCell, Grid grid, KlebsiellaPneumoniae knn, int x, int y, IcuSimulationRequest req) {
-        List<Cell> potentialCells = new ArrayList<>();
-        // Obtener celdas vecinas con menos bacterias
-        for(int dx=-1; dx<=1; dx++) {
-            for(int dy=-1; dy<=1; dy++) {
-                int nx = x + dx;
-                int ny = y + dy;
-                if(nx >=0 && nx < grid.getWidth() && ny >=0 && ny < grid.getHeight()) {
-                    Cell neighbor = grid.getCell(nx, ny);
-                    if(neighbor.getKnn().getQuantity() < currentCell.getKnn().getQuantity()) {
-                        potentialCells.add(neighbor);
-                    }
-                }
+    private void moveBacteria(Cell currentCell, Grid grid, KlebsiellaPneumoniae knn, int x, int y, IcuSimulationRequest req, Random rng) {
+        // Celdas vecinas con menos bacterias: se cuentan y se elige la k-ésima, sin lista intermedia
+        int index = grid.indexOf(currentCell);
+        int nNeighbors = grid.getNeighborCount(index);
+        int quantity = knn.getQuantity();
+        int candidates = 0;
+        for(int k=0; k<nNeighbors; k++) {
+            if(grid.getCell(grid.getNeighbor(index, k)).getKnn().getQuantity() < quantity) {
+                candidates++;
             }
         }
-        if(!potentialCells.isEmpty()) {
-            Cell targetCell = potentialCells.get(random.nextInt(potentialCells.size()));
-            int moveAmount = Math.min(10, knn.getQuantity());
+        if(candidates > 0) {
+            int chosen = rng.nextInt(candidates);
+            Cell targetCell = null;
+            for(int k=0; k<nNeighbors; k++) {
+                Cell neighbor = grid.getCell(grid.getNeighbor(index, k));
+                if(neighbor.getKnn().getQuantity() < quantity && chosen-- == 0) {
+                    targetCell = neighbor;
+                    break;
+                }
+            }
+            int moveAmount = Math.min(KNN_MOVE_AMOUNT, knn.getQuantity());
+            int movedStrain = knn.getStrainId(); // Lo que se mueve es de la cepa dominante
             knn.decreaseQuantity(moveAmount);
             KlebsiellaPneumoniae tknn = targetCell.getKnn();
             if(tknn.getState() == State.SUSCEPTIBLE || tknn.getState() == State.INFECTED) {
+                if(recorder != null && tknn.getState() == State.SUSCEPTIBLE) {
+                    recorder.recordEnvironment(currentCell, targetCell, movedStrain);
+                }
                 tknn.setState(State.INFECTED);
-                tknn.increaseQuantity(moveAmount);
-                logEvent(String.format("KNN se movió de (%d,%d) a (%d,%d) con cantidad %d",
-                        x, y, targetCell.getX(), targetCell.getY(), moveAmount), req.isSaveLogs());
+                tknn.addStrain(knn.getStrainTable(), movedStrain, moveAmount);
+                if(logging(req.isSaveLogs())) {
+                    logEvent(String.format("KNN se movió de (%d,%d) a (%d,%d) con cantidad %d",
+                            x, y, targetCell.getX(), targetCell.getY(), moveAmount), req.isSaveLogs());
+                }
             }
             if(knn.getQuantity() <= 0){
                 knn.setState(State.SUSCEPTIBLE);
@@ -269,16 +1260,23 @@ public class IcuSimulationService {
         }
     }
 
+    /**
+     * Siembra KNN en {@code count} celdas: primero los lavabos y superficies de alto contacto del plano y el
+     * resto en celdas transitables al azar.
+     */
     private void initializeInfectedCells(Grid grid, int count, int quantity) {
+        for(int index : grid.getReservoirCells()) {
+            if(count <= 0) {
+                break;
+            }
+            seedCell(grid.getCell(index), quantity);
+            count--;
+        }
         int attempts = 0;
-        while(count > 0 && attempts < grid.getWidth() * grid.getHeight()) {
-            int x = random.nextInt(grid.getWidth());
-            int y = random.nextInt(grid.getHeight());
-            Cell cell = grid.getCell(x,y);
+        while(count > 0 && attempts < grid.getCellCount()) {
+            Cell cell = getRandomCell(grid);
             if(cell.getKnn().getState() != State.INFECTED){
-                cell.getKnn().setState(State.INFECTED);
-                cell.getKnn().setQuantity(quantity);
-                logger.info("Celda ({},{}) infectada con {} KNN", x,y,quantity);
+                seedCell(cell, quantity);
                 count--;
             }
             attempts++;
@@ -288,9 +1286,25 @@ public class IcuSimulationService {
         }
     }
 
+    private void seedCell(Cell cell, int quantity) {
+        cell.getKnn().setState(State.INFECTED);
+        cell.getKnn().setQuantity(quantity);
+        if(recorder != null) {
+            recorder.recordSeed(cell, cell.getKnn().getStrainId());
+        }
+        logger.info("Celda ({},{}) infectada con {} KNN", cell.getX(), cell.getY(), quantity);
+    }
+
     private Cell getRandomCell(Grid grid){
-        int x = random.nextInt(grid.getWidth());
-        int y = random.nextInt(grid.getHeight());
+        return getRandomCell(grid, random);
+    }
+
+    private Cell getRandomCell(Grid grid, Random rng){
+        if(grid.hasBlockedCells()) {
+            return grid.getCell(grid.getWalkableCell(rng.nextInt(grid.getWalkableCount())));
+        }
+        int x = rng.nextInt(grid.getWidth());
+        int y = rng.nextInt(grid.getHeight());
         return grid.getCell(x,y);
     }
 
@@ -303,27 +1317,67 @@ public class IcuSimulationService {
 
     // Métodos para mover y gestionar agentes
     public void moveAgent(Agent a) {
-        int cx = a.getCurrentCell().getX();
-        int cy = a.getCurrentCell().getY();
+        if(bedManager != null && a instanceof Patient && ((Patient) a).isInIcu()) {
+            return; // Encamado en UCI
+        }
+        // Con RandomStreams.PER_ENTITY la dirección sale del generador del agente
+        Random rng = perEntityStreams ? a.getRandom() : random;
+        int dx = rng.nextInt(3);
+        int dy = rng.nextInt(3);
+        Cell nextCell = grid.getCell(grid.moveTarget(grid.indexOf(a.getCurrentCell()), dx, dy));
+        if(nextCell != a.getCurrentCell()){
+            a.setCurrentCell(nextCell);
+        }
+    }
 
-        int nx = cx + (random.nextInt(3) -1);
-        int ny = cy + (random.nextInt(3) -1);
+    /**
+     * Notifica que el paciente se acaba de colonizar desde su celda actual (registro de transmisiones).
+     */
+    public void recordColonization(Patient p) {
+        if(recorder != null) {
+            recorder.recordColonization(p);
+        }
+    }
 
-        nx = Math.max(0, Math.min(nx, grid.getWidth()-1));
-        ny = Math.max(0, Math.min(ny, grid.getHeight()-1));
+    /**
+     * Notifica que el paciente acaba de pasar de colonizado a infectado (incidencia por paso).
+     */
+    public void recordPatientInfection(Patient p) {
+        newPatientInfections++;
+    }
 
-        Cell nextCell = grid.getCell(nx, ny);
-        if(nextCell != null && nextCell != a.getCurrentCell()){
-            a.setCurrentCell(nextCell);
-            logEvent(a.getUniqueId()+" se movió a ("+nx+","+ny+")", false);
+    public void recordWorkerInfection(HealthcareWorker hw) {
+        if(recorder != null) {
+            recorder.recordWorkerInfection(hw);
         }
     }
 
+    public TransmissionRecorder getTransmissionRecorder() {
+        return recorder;
+    }
+
     public void removePatient(Patient p) {
         patients.remove(p);
+        if(bedManager != null) {
+            bedManager.release(p);
+        }
+        if(scheduler != null) {
+            scheduler.unregister(p);
+        }
+        if(parallelStepper != null) {
+            parallelStepper.unregister(p);
+        }
         result.setTotalPatients(patients.size());
     }
 
+    /**
+     * Si un mensaje de logEvent va a algún sitio (buffer de saveLogs o log en DEBUG). Los mensajes de cada paso
+     * se construyen solo entonces: String.format en moveBacteria era casi toda la memoria que reservaba un paso.
+     */
+    private boolean logging(boolean saveLogs){
+        return (saveLogs && logBuffer != null) || logger.isDebugEnabled();
+    }
+
     private void logEvent(String msg, boolean saveLogs){
         logger.debug(msg);
         if(saveLogs && logBuffer != null){
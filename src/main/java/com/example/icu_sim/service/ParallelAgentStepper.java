@@ -0,0 +1,202 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.agents.Agent;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.State;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Fase de agentes en paralelo (modo SchedulingMode.PARALLEL), en dos fases:
+ *
+ * 1. Intenciones, en paralelo: cada agente decide a partir del estado al inicio de la fase (celdas y su
+ *    propio estado, que nadie modifica durante esta fase) si se infecta, se recupera, se coloniza, recibe
+ *    el alta y a qué celda se mueve. Los sorteos salen de un generador basado en contador indexado por
+ *    (semilla, número de serie del agente, paso, sorteo), así que no dependen del hilo ni del orden.
+ * 2. Confirmación, secuencial en el orden de las listas: se aplican los cambios de estado, los movimientos
+ *    (que modifican las listas de agentes de las celdas) y la ocupación de camas de UCI.
+ *
+ * Con la misma semilla el resultado es idéntico con cualquier número de hilos.
+ */
+public class ParallelAgentStepper {
+
+    private static final byte INFECT = 1;
+    private static final byte RECOVER = 1 << 1;
+    private static final byte COLONIZE = 1 << 2;
+    private static final byte DISCHARGE = 1 << 3;
+
+    // Índices de sorteo dentro de un paso
+    private static final int DRAW_DISCHARGE = 0;
+    private static final int DRAW_COLONIZE = 1;
+    private static final int DRAW_INFECT = 2;
+    private static final int DRAW_RECOVER = 3;
+    private static final int DRAW_MOVE = 4;
+    private static final int DRAW_DX = 5;
+    private static final int DRAW_DY = 6;
+
+    private final IcuSimulationService service;
+    private final Grid grid;
+    private final long streamSeed;
+    // Número de serie de cada agente en orden de registro; estable aunque cambie su posición en las listas
+    private final Map<Agent, Long> serials = new IdentityHashMap<>();
+    private long nextSerial;
+
+    private byte[] workerActions = new byte[0];
+    private Cell[] workerTargets = new Cell[0];
+    private byte[] patientActions = new byte[0];
+    private Cell[] patientTargets = new Cell[0];
+
+    public ParallelAgentStepper(IcuSimulationService service, Grid grid, long streamSeed) {
+        this.service = service;
+        this.grid = grid;
+        this.streamSeed = streamSeed;
+    }
+
+    public void register(Agent agent) {
+        serials.put(agent, nextSerial++);
+    }
+
+    public void unregister(Agent agent) {
+        serials.remove(agent);
+    }
+
+    public void advance(int step, List<HealthcareWorker> workers, List<Patient> patients) {
+        HealthcareWorker[] ws = workers.toArray(new HealthcareWorker[0]);
+        Patient[] ps = patients.toArray(new Patient[0]);
+        ensureCapacity(ws.length, ps.length);
+
+        // 1. Intenciones
+        IntStream.range(0, ws.length).parallel().forEach(i -> workerIntent(step, i, ws[i]));
+        IntStream.range(0, ps.length).parallel().forEach(i -> patientIntent(step, i, ps[i]));
+
+        // 2. Confirmación
+        for (int i = 0; i < ws.length; i++) {
+            commitWorker(ws[i], workerActions[i], workerTargets[i]);
+        }
+        for (int i = 0; i < ps.length; i++) {
+            commitPatient(ps[i], patientActions[i], patientTargets[i]);
+        }
+    }
+
+    private void workerIntent(int step, int i, HealthcareWorker hw) {
+        long serial = serials.get(hw);
+        byte action = 0;
+        if (!hw.isInfected()) {
+            if (isContaminated(hw.getCurrentCell())
+                    && uniform(serial, step, DRAW_INFECT) < hw.getEffectiveInfectionChance()) {
+                action |= INFECT;
+            }
+        } else if (uniform(serial, step, DRAW_RECOVER) < HealthcareWorker.RECOVERY_CHANCE) {
+            action |= RECOVER;
+        }
+        workerActions[i] = action;
+        workerTargets[i] = uniform(serial, step, DRAW_MOVE) < HealthcareWorker.MOVEMENT_CHANCE
+                ? neighbor(hw.getCurrentCell(), serial, step) : null;
+    }
+
+    private void patientIntent(int step, int i, Patient p) {
+        long serial = serials.get(p);
+        patientTargets[i] = null;
+        if (step % Patient.STEPS_PER_DAY == 0 && p.isDischargeable()
+                && uniform(serial, step, DRAW_DISCHARGE) < Patient.DISCHARGE_CHANCE) {
+            patientActions[i] = DISCHARGE;
+            return;
+        }
+
+        byte action = 0;
+        boolean colonized = p.isColonized();
+        if (!p.isInfected() && !colonized && isContaminated(p.getCurrentCell())
+                && uniform(serial, step, DRAW_COLONIZE) < p.getColonizationChance() * p.getSusceptibilityFactor()) {
+            action |= COLONIZE;
+            colonized = true;
+        }
+        if (colonized && !p.isInfected() && uniform(serial, step, DRAW_INFECT) < p.getInfectionChance()) {
+            action |= INFECT;
+        }
+        patientActions[i] = action;
+        if (uniform(serial, step, DRAW_MOVE) < Patient.MOVEMENT_CHANCE) {
+            patientTargets[i] = neighbor(p.getCurrentCell(), serial, step);
+        }
+    }
+
+    private void commitWorker(HealthcareWorker hw, byte action, Cell target) {
+        if ((action & INFECT) != 0) {
+            hw.getKnn().acquireStrain(hw.getCurrentCell().getKnn());
+            hw.becomeInfected();
+            service.recordWorkerInfection(hw);
+        } else if ((action & RECOVER) != 0) {
+            hw.recover();
+        }
+        if (target != null && target != hw.getCurrentCell()) {
+            hw.setCurrentCell(target);
+        }
+    }
+
+    private void commitPatient(Patient p, byte action, Cell target) {
+        if ((action & DISCHARGE) != 0) {
+            p.discharge(service);
+            return;
+        }
+        if ((action & COLONIZE) != 0) {
+            p.getKnn().acquireStrain(p.getCurrentCell().getKnn());
+            p.colonize();
+            service.recordColonization(p);
+        }
+        if ((action & INFECT) != 0) {
+            p.becomeInfected();
+            service.recordPatientInfection(p);
+        }
+        p.updateTriagePriority();
+        // Con camas gestionadas el paciente no se mueve mientras ocupa una
+        if (target != null && target != p.getCurrentCell() && !(p.isInIcu() && service.isBedManaged())) {
+            p.setCurrentCell(target);
+        }
+        p.occupyIcuBedIfNeeded(service);
+    }
+
+    private boolean isContaminated(Cell cell) {
+        KlebsiellaPneumoniae knn = cell.getKnn();
+        return knn.getState() == State.INFECTED && knn.getQuantity() > 0;
+    }
+
+    private Cell neighbor(Cell current, long serial, int step) {
+        int dx = (int) (uniform(serial, step, DRAW_DX) * 3);
+        int dy = (int) (uniform(serial, step, DRAW_DY) * 3);
+        return grid.getCell(grid.moveTarget(grid.indexOf(current), dx, dy));
+    }
+
+    private void ensureCapacity(int nWorkers, int nPatients) {
+        if (workerActions.length < nWorkers) {
+            workerActions = Arrays.copyOf(workerActions, nWorkers * 2);
+            workerTargets = Arrays.copyOf(workerTargets, nWorkers * 2);
+        }
+        if (patientActions.length < nPatients) {
+            patientActions = Arrays.copyOf(patientActions, nPatients * 2);
+            patientTargets = Arrays.copyOf(patientTargets, nPatients * 2);
+        }
+    }
+
+    /**
+     * Uniforme en [0, 1) que solo depende de (semilla, serie, paso, sorteo): SplitMix64 encadenado.
+     */
+    private double uniform(long serial, int step, int draw) {
+        long z = mix64(streamSeed + serial * 0x9E3779B97F4A7C15L);
+        z = mix64(z + step * 0x9E3779B97F4A7C15L);
+        z = mix64(z + draw * 0x9E3779B97F4A7C15L);
+        return (z >>> 11) * 0x1.0p-53;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.ReplicateStatistics;
+import com.example.icu_sim.model.SimulationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Ejecuta réplicas de una solicitud en paralelo dentro de esta JVM. Cada réplica usa su propia instancia
+ * de IcuSimulationService (el motor guarda el estado de la ejecución en sus campos), creada por AdmissionService
+ * con los límites de tiempo y memoria por ejecución, y no guarda snapshots del grid, porque solo se agregan las
+ * métricas.
+ *
+ * Cada tarea reduce su resultado a las métricas de ReplicateStatistics antes de devolverlo y solo hay una ventana
+ * acotada de réplicas en curso, así que la memoria no crece con el número de semillas del fragmento.
+ */
+@Service
+public class ReplicateRunner {
+
+    @Autowired
+    private AdmissionService admissionService;
+
+    @Autowired
+    private SimulationExecutor executor;
+
+    /**
+     * Rechaza (422) una semilla base con la que alguna de las {@code runs} semillas baseSeed + i sería 0 (ejecución
+     * sin semilla, que no se puede reproducir ni emparejar) o se desbordaría.
+     */
+    public static void checkBaseSeed(long baseSeed, long runs) {
+        long max = Long.MAX_VALUE - Math.max(0, runs);
+        if (baseSeed < 1 || baseSeed > max) {
+            throw new AdmissionRejectedException(String.format("baseSeed=%d fuera del rango admitido [1, %d]", baseSeed, max));
+        }
+    }
+
+    /**
+     * Rechaza (422) un fragmento con la semilla 0 (ejecución sin semilla).
+     */
+    public static void checkSeeds(List<Long> seeds) {
+        for (Long seed : seeds) {
+            if (seed == null || seed == 0) {
+                throw new AdmissionRejectedException("Las semillas de un fragmento no pueden ser 0 ni estar vacías");
+            }
+        }
+    }
+
+    public ReplicateStatistics runReplicates(IcuSimulationRequest template, List<Long> seeds) {
+        // Se agregan en el orden de las semillas para que el resultado no dependa de la planificación
+        ReplicateStatistics stats = new ReplicateStatistics();
+        Deque<Future<Map<String, Double>>> inFlight = new ArrayDeque<>();
+        int window = 2 * executor.getThreads();
+        try {
+            for (long seed : seeds) {
+                inFlight.add(executor.submit(() -> ReplicateStatistics.metricValues(runReplicate(template, seed))));
+                if (inFlight.size() >= window) {
+                    stats.addValues(inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                stats.addValues(inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ejecución de réplicas interrumpida", e);
+        } catch (ExecutionException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw SimulationExecutor.failure(e, "Error en una réplica");
+        }
+        return stats;
+    }
+
+    public SimulationResult runReplicate(IcuSimulationRequest template, long seed) {
+        IcuSimulationRequest request = new IcuSimulationRequest(template);
+        request.setSeed(seed);
+        request.setSaveLogs(false);
+        request.setSaveGridSnapshots(false);
+        return admissionService.newEngine().runSimulation(request);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Parámetros numéricos de IcuSimulationRequest que se pueden muestrear (análisis de sensibilidad, calibración)
+ * o cambiar con intervenciones, por nombre de propiedad. Los enteros se redondean al valor más cercano.
+ *
+ * workerMovementProb, patientMovementProb e icuPatientInfectionFactor no están: los agentes usan sus constantes
+ * (HealthcareWorker.MOVEMENT_CHANCE, Patient.MOVEMENT_CHANCE, Patient.ICU_SUSCEPTIBILITY_FACTOR), así que
+ * muestrearlos no cambiaría la simulación.
+ */
+public final class RequestParameters {
+
+    private static final Map<String, BiConsumer<IcuSimulationRequest, Double>> SETTERS = new LinkedHashMap<>();
+
+    // Los que IcuSimulationService sabe cambiar durante la ejecución (intervenciones)
+    private static final Set<String> RUNTIME = Collections.unmodifiableSet(new LinkedHashSet<>(List.of(
+            "arrivalRate", "mutationRate", "hygieneFactorMean", "ppeFactor", "colonizationChance",
+            "infectionFromColonizedChance", "workerBaseInfectionChance")));
+
+    static {
+        real("arrivalRate", IcuSimulationRequest::setArrivalRate);
+        real("mutationRate", IcuSimulationRequest::setMutationRate);
+        real("strainDriftStd", IcuSimulationRequest::setStrainDriftStd);
+        real("hygieneFactorMean", IcuSimulationRequest::setHygieneFactorMean);
+        real("hygieneFactorStd", IcuSimulationRequest::setHygieneFactorStd);
+        real("ppeFactor", IcuSimulationRequest::setPpeFactor);
+        real("colonizationChance", IcuSimulationRequest::setColonizationChance);
+        real("infectionFromColonizedChance", IcuSimulationRequest::setInfectionFromColonizedChance);
+        real("workerBaseInfectionChance", IcuSimulationRequest::setWorkerBaseInfectionChance);
+        real("hybridSwitchThreshold", IcuSimulationRequest::setHybridSwitchThreshold);
+        integer("nPatients", IcuSimulationRequest::setNPatients);
+        integer("nWorkers", IcuSimulationRequest::setNWorkers);
+        integer("initialInfectedCells", IcuSimulationRequest::setInitialInfectedCells);
+        integer("initialCellKnn", IcuSimulationRequest::setInitialCellKnn);
+    }
+
+    private RequestParameters() {}
+
+    private static void real(String name, BiConsumer<IcuSimulationRequest, Double> setter) {
+        SETTERS.put(name, setter);
+    }
+
+    private static void integer(String name, IntSetter setter) {
+        SETTERS.put(name, (request, value) -> setter.set(request, (int) Math.round(value)));
+    }
+
+    @FunctionalInterface
+    private interface IntSetter {
+        void set(IcuSimulationRequest request, int value);
+    }
+
+    public static Set<String> names() {
+        return Collections.unmodifiableSet(SETTERS.keySet());
+    }
+
+    public static boolean isKnown(String name) {
+        return SETTERS.containsKey(name);
+    }
+
+    public static Set<String> runtimeNames() {
+        return RUNTIME;
+    }
+
+    public static boolean isRuntime(String name) {
+        return RUNTIME.contains(name);
+    }
+
+    /**
+     * Asigna {@code value} al parámetro {@code name} de la solicitud.
+     */
+    public static void set(IcuSimulationRequest request, String name, double value) {
+        BiConsumer<IcuSimulationRequest, Double> setter = SETTERS.get(name);
+        if (setter == null) {
+            throw new IllegalArgumentException("Parámetro desconocido: " + name + " (disponibles: " + SETTERS.keySet() + ")");
+        }
+        setter.accept(request, value);
+    }
+}
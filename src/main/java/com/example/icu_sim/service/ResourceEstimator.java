@@ -0,0 +1,91 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.ResourceEstimate;
+import com.example.icu_sim.model.data.FloorPlan;
+
+/**
+ * Modelo de coste de una ejecución: memoria retenida (grid, agentes, series por paso y snapshots) y tiempo de
+ * CPU. Las constantes se midieron con el motor de agentes en JDK 17; son aproximadas y algo conservadoras.
+ */
+public final class ResourceEstimator {
+
+    // Memoria
+    static final long SNAPSHOT_BYTES_PER_CELL = 850; // Entrada de gridState más la de bacteriaCounts
+    static final long GRID_BYTES_PER_CELL = 250;     // Cell, su KNN y las tablas del grid
+    static final long SERIES_BYTES_PER_STEP = 250;   // Porcentajes, KNN total y series de camas
+    static final long AGENT_BYTES = 500;             // Patient/HealthcareWorker con su KNN y Random
+    static final long COMPACT_AGENT_BYTES = 32;      // Fila de CompactAgentStore
+
+    // CPU (nanosegundos)
+    static final double CELL_STEP_NANOS = 350;
+    static final double AGENT_STEP_NANOS = 450;
+    static final double SNAPSHOT_CELL_NANOS = 1000;
+    static final double COMPARTMENTAL_STEP_NANOS = 200;
+
+    private ResourceEstimator() {}
+
+    public static ResourceEstimate estimate(IcuSimulationRequest request) {
+        long cells = cellCount(request);
+        int steps = Math.max(0, request.getMaxSteps());
+        long agents = peakAgents(request);
+        long snapshots = snapshotCount(request);
+        boolean compact = request.getAgentStorage() == IcuSimulationRequest.AgentStorage.COMPACT;
+
+        double cellNanos = CELL_STEP_NANOS;
+        if(request.getBacteriaUpdateMode() == IcuSimulationRequest.BacteriaUpdateMode.TAU_LEAP) {
+            cellNanos /= Math.max(1, request.getTauLeapSteps());
+        }
+        double cpuNanos = request.getEngineMode() == IcuSimulationRequest.EngineMode.COMPARTMENTAL
+                ? steps * COMPARTMENTAL_STEP_NANOS
+                : steps * (cells * cellNanos + agents * AGENT_STEP_NANOS);
+        cpuNanos += snapshots * cells * SNAPSHOT_CELL_NANOS;
+
+        ResourceEstimate estimate = new ResourceEstimate();
+        estimate.setCells(cells);
+        estimate.setSteps(steps);
+        estimate.setPeakAgents(agents);
+        estimate.setSnapshots(snapshots);
+        estimate.setMemoryBytes(retainedBytes(cells, steps, snapshots, agents, compact));
+        estimate.setCpuSeconds(cpuNanos / 1e9);
+        return estimate;
+    }
+
+    /**
+     * Memoria retenida por una ejecución con ese grid, pasos, snapshots y agentes.
+     */
+    public static long retainedBytes(long cells, long steps, long snapshots, long agents, boolean compact) {
+        return cells * GRID_BYTES_PER_CELL
+                + steps * SERIES_BYTES_PER_STEP
+                + snapshots * cells * SNAPSHOT_BYTES_PER_CELL
+                + agents * (compact ? COMPACT_AGENT_BYTES : AGENT_BYTES);
+    }
+
+    /**
+     * Celdas del grid; si hay plano, las de su rectángulo (un plano en fichero se lee para conocerlo).
+     */
+    public static long cellCount(IcuSimulationRequest request) {
+        FloorPlan plan = request.getFloorPlan();
+        if(plan == null && request.getFloorPlanPath() != null && !request.getFloorPlanPath().isBlank()) {
+            plan = FloorPlan.load(request.getFloorPlanPath());
+        }
+        if(plan != null) {
+            plan.validate();
+            return (long) plan.getWidth() * plan.getHeight();
+        }
+        return (long) Math.max(0, request.getGridWidth()) * Math.max(0, request.getGridHeight());
+    }
+
+    public static long peakAgents(IcuSimulationRequest request) {
+        long arrivals = (long) Math.ceil(Math.max(0, request.getArrivalRate()) * Math.max(0, request.getMaxSteps()));
+        return (long) Math.max(0, request.getNPatients()) + Math.max(0, request.getNWorkers()) + arrivals;
+    }
+
+    public static long snapshotCount(IcuSimulationRequest request) {
+        if(!request.isSaveGridSnapshots() || request.getEngineMode() == IcuSimulationRequest.EngineMode.COMPARTMENTAL) {
+            return 0;
+        }
+        int interval = Math.max(1, request.getSnapshotInterval());
+        return (Math.max(0, request.getMaxSteps()) + interval - 1) / interval;
+    }
+}
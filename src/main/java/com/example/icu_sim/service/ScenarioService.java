@@ -0,0 +1,213 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.Intervention;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.ReplicateStatistics;
+import com.example.icu_sim.model.ScenarioRequest;
+import com.example.icu_sim.model.ScenarioResult;
+import com.example.icu_sim.model.ScenarioResult.ArmResult;
+import com.example.icu_sim.model.ScenarioResult.PairedDifference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Comparación de escenarios con números aleatorios comunes (CRN). La réplica i ejecuta la base y cada brazo con
+ * la misma semilla y randomStreams=PER_ENTITY: cada celda, agente y las llegadas consumen su propio flujo, así
+ * que una intervención solo desplaza los sorteos de las entidades a las que afecta. Las diferencias brazo - base
+ * se calculan réplica a réplica (diferencias pareadas), y su varianza es menor que la suma de las varianzas de
+ * los dos brazos en la medida en que las trayectorias estén correladas.
+ *
+ * Con commonRandomNumbers=false cada brazo usa semillas propias y el flujo compartido de siempre, lo que sirve de
+ * referencia para medir cuánto reduce la varianza el emparejamiento.
+ */
+@Service
+public class ScenarioService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioService.class);
+
+    @Value("${icu-sim.scenario.max-runs:20000}")
+    private int maxRuns;
+
+    @Autowired
+    private ReplicateRunner replicateRunner;
+
+    @Autowired
+    private SimulationExecutor executor;
+
+    public ScenarioResult run(ScenarioRequest request) {
+        validate(request);
+        List<ScenarioRequest.Arm> arms = request.getArms();
+        List<String> metrics = request.getMetrics();
+        IcuSimulationRequest[] templates = templates(request);
+
+        // [brazo][métrica], con la base en 0; las diferencias son [brazo - 1][métrica]
+        MetricSummary[][] summaries = new MetricSummary[arms.size() + 1][metrics.size()];
+        MetricSummary[][] differences = new MetricSummary[arms.size()][metrics.size()];
+        for (int a = 0; a <= arms.size(); a++) {
+            for (int m = 0; m < metrics.size(); m++) {
+                summaries[a][m] = new MetricSummary();
+                if (a > 0) {
+                    differences[a - 1][m] = new MetricSummary();
+                }
+            }
+        }
+
+        Deque<Future<double[][]>> inFlight = new ArrayDeque<>();
+        int window = 2 * executor.getThreads();
+        try {
+            for (int i = 0; i < request.getReplicates(); i++) {
+                int replicate = i;
+                inFlight.add(executor.submit(() -> runReplicate(request, templates, replicate)));
+                if (inFlight.size() >= window) {
+                    accumulate(summaries, differences, inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                accumulate(summaries, differences, inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Comparación de escenarios interrumpida", e);
+        } catch (ExecutionException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw SimulationExecutor.failure(e, "Error en una réplica de la comparación de escenarios");
+        }
+
+        ScenarioResult result = new ScenarioResult();
+        result.setReplicates(request.getReplicates());
+        result.setCommonRandomNumbers(request.isCommonRandomNumbers());
+        result.setConfidenceLevel(request.getConfidenceLevel());
+        for (int m = 0; m < metrics.size(); m++) {
+            result.getBaseline().put(metrics.get(m), summaries[0][m]);
+        }
+        for (int a = 0; a < arms.size(); a++) {
+            ArmResult arm = new ArmResult();
+            arm.setName(arms.get(a).getName());
+            for (int m = 0; m < metrics.size(); m++) {
+                arm.getMetrics().put(metrics.get(m), summaries[a + 1][m]);
+                arm.getDifferences().put(metrics.get(m),
+                        paired(differences[a][m], summaries[0][m], summaries[a + 1][m], request.getConfidenceLevel()));
+            }
+            result.getArms().add(arm);
+        }
+        logger.info("Comparación de escenarios: {} brazos x {} réplicas (CRN={})", arms.size() + 1,
+                request.getReplicates(), request.isCommonRandomNumbers());
+        return result;
+    }
+
+    /**
+     * Solicitud de cada brazo: la base más las intervenciones del brazo, con flujos por entidad si hay CRN.
+     */
+    private static IcuSimulationRequest[] templates(ScenarioRequest request) {
+        List<ScenarioRequest.Arm> arms = request.getArms();
+        IcuSimulationRequest[] templates = new IcuSimulationRequest[arms.size() + 1];
+        for (int a = 0; a <= arms.size(); a++) {
+            IcuSimulationRequest template = new IcuSimulationRequest(request.getRequest());
+            if (a > 0) {
+                template.getInterventions().addAll(arms.get(a - 1).getInterventions());
+            }
+            if (request.isCommonRandomNumbers()) {
+                template.setRandomStreams(IcuSimulationRequest.RandomStreams.PER_ENTITY);
+            }
+            templates[a] = template;
+        }
+        return templates;
+    }
+
+    /**
+     * Ejecuta todos los brazos de la réplica {@code i}. Devuelve [brazo][métrica].
+     */
+    private double[][] runReplicate(ScenarioRequest request, IcuSimulationRequest[] templates, int i) {
+        List<String> metrics = request.getMetrics();
+        double[][] values = new double[templates.length][metrics.size()];
+        for (int a = 0; a < templates.length; a++) {
+            long seed = request.isCommonRandomNumbers()
+                    ? request.getBaseSeed() + i
+                    : request.getBaseSeed() + (long) a * request.getReplicates() + i;
+            Map<String, Double> run = ReplicateStatistics.metricValues(replicateRunner.runReplicate(templates[a], seed));
+            for (int m = 0; m < metrics.size(); m++) {
+                values[a][m] = run.getOrDefault(metrics.get(m), 0.0);
+            }
+        }
+        return values;
+    }
+
+    private static void accumulate(MetricSummary[][] summaries, MetricSummary[][] differences, double[][] values) {
+        for (int a = 0; a < summaries.length; a++) {
+            for (int m = 0; m < values[a].length; m++) {
+                summaries[a][m].add(values[a][m]);
+                if (a > 0) {
+                    differences[a - 1][m].add(values[a][m] - values[0][m]);
+                }
+            }
+        }
+    }
+
+    private static PairedDifference paired(MetricSummary diff, MetricSummary base, MetricSummary arm, double level) {
+        PairedDifference result = new PairedDifference();
+        double halfWidth = diff.confidenceHalfWidth(level);
+        result.setMean(diff.getMean());
+        result.setStd(diff.getStd());
+        result.setHalfWidth(halfWidth);
+        result.setLower(diff.getMean() - halfWidth);
+        result.setUpper(diff.getMean() + halfWidth);
+        double independent = base.getVariance() + arm.getVariance();
+        result.setVarianceReduction(diff.getVariance() > 0 ? independent / diff.getVariance()
+                : independent > 0 ? Double.POSITIVE_INFINITY : 1.0);
+        return result;
+    }
+
+    private void validate(ScenarioRequest request) {
+        if (request.getArms() == null || request.getArms().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos un brazo");
+        }
+        for (ScenarioRequest.Arm arm : request.getArms()) {
+            if (arm.getInterventions() == null) {
+                arm.setInterventions(List.of());
+            }
+            for (Intervention intervention : arm.getInterventions()) {
+                if (!RequestParameters.isRuntime(intervention.getParameter())) {
+                    throw new AdmissionRejectedException("Intervención no soportada en " + arm.getName() + ": "
+                            + intervention.getParameter() + " (disponibles: " + RequestParameters.runtimeNames() + ")");
+                }
+            }
+        }
+        if (request.isCommonRandomNumbers()
+                && request.getRequest().getAgentStorage() == IcuSimulationRequest.AgentStorage.COMPACT) {
+            throw new AdmissionRejectedException("commonRandomNumbers usa randomStreams=PER_ENTITY, que no está "
+                    + "disponible con agentStorage=COMPACT");
+        }
+        if (request.getMetrics() == null || request.getMetrics().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos una métrica");
+        }
+        for (String name : request.getMetrics()) {
+            if (!ReplicateStatistics.METRIC_NAMES.contains(name)) {
+                throw new AdmissionRejectedException("Métrica desconocida: " + name + " (disponibles: "
+                        + ReplicateStatistics.METRIC_NAMES + ")");
+            }
+        }
+        if (request.getReplicates() < 2) {
+            throw new AdmissionRejectedException("Se necesitan replicates >= 2");
+        }
+        if (!(request.getConfidenceLevel() > 0 && request.getConfidenceLevel() < 1)) {
+            throw new AdmissionRejectedException("confidenceLevel debe estar en (0, 1)");
+        }
+        long runs = (long) request.getReplicates() * (request.getArms().size() + 1);
+        if (runs > maxRuns) {
+            throw new AdmissionRejectedException(String.format("%d simulaciones por encima del máximo de %d", runs, maxRuns));
+        }
+        ReplicateRunner.checkBaseSeed(request.getBaseSeed(), runs);
+    }
+}
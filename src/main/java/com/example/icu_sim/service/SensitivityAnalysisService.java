@@ -0,0 +1,284 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.ParameterRange;
+import com.example.icu_sim.model.ReplicateStatistics;
+import com.example.icu_sim.model.SensitivityRequest;
+import com.example.icu_sim.model.SensitivityResult;
+import com.example.icu_sim.model.SensitivityResult.MetricIndices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Análisis de sensibilidad global por el esquema de Saltelli. Se generan dos matrices A y B de N x k puntos en los
+ * rangos de los k parámetros (hipercubo latino o Monte Carlo) y, para cada fila j, se evalúan A_j, B_j y los k
+ * puntos AB_j^(i) (A_j con la columna i de B_j): N * (k + 2) puntos en total.
+ *
+ * Los índices salen de sumas que se actualizan fila a fila, así que no se guardan las trayectorias ni los
+ * valores de todos los puntos:
+ *
+ *   V    = varianza de f sobre A y B
+ *   S_i  = (1/N) sum f(B)(f(AB_i) - f(A)) / V          (Saltelli 2010, primer orden)
+ *   ST_i = (1/2N) sum (f(A) - f(AB_i))^2 / V           (Jansen, total)
+ *
+ * Las filas se ejecutan en paralelo y se agregan en orden, con una ventana acotada de filas en curso. Los k + 2
+ * puntos de una fila usan las mismas semillas (números aleatorios comunes), lo que reduce el ruido estocástico
+ * del simulador en las diferencias f(AB_i) - f(A).
+ */
+@Service
+public class SensitivityAnalysisService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensitivityAnalysisService.class);
+
+    @Value("${icu-sim.sensitivity.max-runs:20000}")
+    private int maxRuns;
+
+    @Autowired
+    private ReplicateRunner replicateRunner;
+
+    @Autowired
+    private SimulationExecutor executor;
+
+    /**
+     * Sumas de los estimadores de una métrica.
+     */
+    static final class Accumulator {
+        private final MetricSummary summary = new MetricSummary();
+        private final double[] firstOrder;
+        private final double[] totalOrder;
+        private int rows;
+
+        Accumulator(int k) {
+            this.firstOrder = new double[k];
+            this.totalOrder = new double[k];
+        }
+
+        /**
+         * Añade una fila [punto][métrica] de evaluateRow para la métrica {@code m}.
+         */
+        void add(double[][] row, int m) {
+            double fa = row[0][m];
+            double fb = row[1][m];
+            summary.add(fa);
+            summary.add(fb);
+            for (int i = 0; i < firstOrder.length; i++) {
+                double fab = row[2 + i][m];
+                firstOrder[i] += fb * (fab - fa);
+                totalOrder[i] += (fa - fab) * (fa - fab);
+            }
+            rows++;
+        }
+
+        double getMean() {
+            return summary.getMean();
+        }
+
+        double getVariance() {
+            return summary.getVariance();
+        }
+
+        double firstOrder(int i) {
+            double variance = getVariance();
+            return variance > 0 ? firstOrder[i] / rows / variance : 0.0;
+        }
+
+        double totalOrder(int i) {
+            double variance = getVariance();
+            return variance > 0 ? totalOrder[i] / (2.0 * rows) / variance : 0.0;
+        }
+    }
+
+    public SensitivityResult run(SensitivityRequest request) {
+        validate(request);
+        List<ParameterRange> parameters = request.getParameters();
+        List<String> metrics = request.getMetrics();
+        int k = parameters.size();
+        int n = request.getBaseSamples();
+
+        double[][] design = request.getSampling() == SensitivityRequest.Sampling.LATIN_HYPERCUBE
+                ? latinHypercube(n, 2 * k, new Random(request.getSamplingSeed()))
+                : uniform(n, 2 * k, new Random(request.getSamplingSeed()));
+
+        Accumulator[] acc = new Accumulator[metrics.size()];
+        for (int m = 0; m < acc.length; m++) {
+            acc[m] = new Accumulator(k);
+        }
+
+        Deque<Future<double[][]>> inFlight = new ArrayDeque<>();
+        int window = 2 * executor.getThreads();
+        try {
+            for (int j = 0; j < n; j++) {
+                int row = j;
+                inFlight.add(executor.submit(() -> evaluateRow(request, design[row], row)));
+                if (inFlight.size() >= window) {
+                    accumulate(acc, inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                accumulate(acc, inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análisis de sensibilidad interrumpido", e);
+        } catch (ExecutionException e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw SimulationExecutor.failure(e, "Error en una evaluación del análisis de sensibilidad");
+        }
+
+        SensitivityResult result = new SensitivityResult();
+        parameters.forEach(p -> result.getParameters().add(p.getName()));
+        result.setBaseSamples(n);
+        result.setEvaluations(n * (k + 2));
+        result.setRuns(n * (k + 2) * request.getReplicatesPerPoint());
+        for (int m = 0; m < acc.length; m++) {
+            MetricIndices indices = new MetricIndices();
+            indices.setMean(acc[m].getMean());
+            indices.setVariance(acc[m].getVariance());
+            for (int i = 0; i < k; i++) {
+                String name = parameters.get(i).getName();
+                indices.getFirstOrder().put(name, acc[m].firstOrder(i));
+                indices.getTotalOrder().put(name, acc[m].totalOrder(i));
+            }
+            result.getIndices().put(metrics.get(m), indices);
+        }
+        logger.info("Análisis de sensibilidad: {} puntos, {} simulaciones", result.getEvaluations(), result.getRuns());
+        return result;
+    }
+
+    /**
+     * Evalúa A_j, B_j y AB_j^(i). Devuelve [punto][métrica], con A en 0, B en 1 y AB_i en 2 + i.
+     */
+    private double[][] evaluateRow(SensitivityRequest request, double[] unit, int row) {
+        int k = request.getParameters().size();
+        double[][] values = new double[k + 2][];
+        double[] a = new double[k];
+        double[] b = new double[k];
+        System.arraycopy(unit, 0, a, 0, k);
+        System.arraycopy(unit, k, b, 0, k);
+        values[0] = evaluate(request, a, row);
+        values[1] = evaluate(request, b, row);
+        for (int i = 0; i < k; i++) {
+            double[] ab = a.clone();
+            ab[i] = b[i];
+            values[2 + i] = evaluate(request, ab, row);
+        }
+        return values;
+    }
+
+    /**
+     * Media de las métricas sobre replicatesPerPoint réplicas en el punto {@code unit} de [0,1)^k.
+     */
+    private double[] evaluate(SensitivityRequest request, double[] unit, int row) {
+        IcuSimulationRequest template = new IcuSimulationRequest(request.getRequest());
+        List<ParameterRange> parameters = request.getParameters();
+        for (int i = 0; i < unit.length; i++) {
+            ParameterRange range = parameters.get(i);
+            RequestParameters.set(template, range.getName(), range.getMin() + unit[i] * (range.getMax() - range.getMin()));
+        }
+
+        List<String> metrics = request.getMetrics();
+        int replicates = request.getReplicatesPerPoint();
+        double[] values = new double[metrics.size()];
+        for (int r = 0; r < replicates; r++) {
+            long seed = request.getBaseSeed() + (long) row * replicates + r;
+            Map<String, Double> run = ReplicateStatistics.metricValues(replicateRunner.runReplicate(template, seed));
+            for (int m = 0; m < values.length; m++) {
+                values[m] += run.getOrDefault(metrics.get(m), 0.0) / replicates;
+            }
+        }
+        return values;
+    }
+
+    private static void accumulate(Accumulator[] acc, double[][] row) {
+        for (int m = 0; m < acc.length; m++) {
+            acc[m].add(row, m);
+        }
+    }
+
+    /**
+     * Hipercubo latino de n puntos en [0,1)^dims: en cada dimensión cae exactamente un punto por estrato 1/n.
+     */
+    static double[][] latinHypercube(int n, int dims, Random random) {
+        double[][] points = new double[n][dims];
+        int[] strata = new int[n];
+        for (int d = 0; d < dims; d++) {
+            for (int j = 0; j < n; j++) {
+                strata[j] = j;
+            }
+            for (int j = n - 1; j > 0; j--) {
+                int swap = random.nextInt(j + 1);
+                int t = strata[j];
+                strata[j] = strata[swap];
+                strata[swap] = t;
+            }
+            for (int j = 0; j < n; j++) {
+                points[j][d] = (strata[j] + random.nextDouble()) / n;
+            }
+        }
+        return points;
+    }
+
+    static double[][] uniform(int n, int dims, Random random) {
+        double[][] points = new double[n][dims];
+        for (int j = 0; j < n; j++) {
+            for (int d = 0; d < dims; d++) {
+                points[j][d] = random.nextDouble();
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Comprueba la solicitud (422 si no es válida). El controlador la llama antes de estimar su coste.
+     */
+    public void validate(SensitivityRequest request) {
+        if (request.getRequest() == null) {
+            throw new AdmissionRejectedException("Falta la solicitud base (request)");
+        }
+        if (request.getParameters() == null || request.getParameters().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos un parámetro");
+        }
+        for (ParameterRange range : request.getParameters()) {
+            if (range == null) {
+                throw new AdmissionRejectedException("Rango vacío en la lista de parámetros");
+            }
+            if (!RequestParameters.isKnown(range.getName())) {
+                throw new AdmissionRejectedException("Parámetro desconocido: " + range.getName()
+                        + " (disponibles: " + RequestParameters.names() + ")");
+            }
+            if (!(range.getMin() <= range.getMax())) {
+                throw new AdmissionRejectedException("Rango vacío para " + range);
+            }
+        }
+        if (request.getMetrics() == null || request.getMetrics().isEmpty()) {
+            throw new AdmissionRejectedException("Hay que indicar al menos una métrica");
+        }
+        for (String name : request.getMetrics()) {
+            if (!ReplicateStatistics.METRIC_NAMES.contains(name)) {
+                throw new AdmissionRejectedException("Métrica desconocida: " + name + " (disponibles: "
+                        + ReplicateStatistics.METRIC_NAMES + ")");
+            }
+        }
+        if (request.getBaseSamples() < 2 || request.getReplicatesPerPoint() < 1) {
+            throw new AdmissionRejectedException("Se necesitan baseSamples >= 2 y replicatesPerPoint >= 1");
+        }
+        long runs = (long) request.getBaseSamples() * (request.getParameters().size() + 2) * request.getReplicatesPerPoint();
+        if (runs > maxRuns) {
+            throw new AdmissionRejectedException(String.format("%d simulaciones por encima del máximo de %d", runs, maxRuns));
+        }
+        ReplicateRunner.checkBaseSeed(request.getBaseSeed(), (long) request.getBaseSamples() * request.getReplicatesPerPoint());
+    }
+}
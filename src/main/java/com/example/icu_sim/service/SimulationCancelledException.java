@@ -0,0 +1,15 @@
+package com.example.icu_sim.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Ejecución detenida antes de terminar: cancelada, interrumpida o fuera de sus límites de tiempo o memoria.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SimulationCancelledException extends RuntimeException {
+
+    public SimulationCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.icu_sim.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pool de hilos compartido por los servicios que lanzan muchas simulaciones (réplicas de lotes, sensibilidad,
+ * calibración y escenarios), con icu-sim.executor.threads hilos (0 = uno por procesador). Así varias peticiones a
+ * la vez se reparten los procesadores en lugar de lanzar cada una tantos hilos como procesadores.
+ *
+ * Una tarea del pool no debe esperar a otra tarea del pool, porque con todos los hilos esperando no avanzaría
+ * ninguna: los servicios que se apoyan en otro (escenarios y sensibilidad sobre ReplicateRunner) llaman a
+ * runReplicate dentro de su propia tarea.
+ */
+@Component
+public class SimulationExecutor {
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    public SimulationExecutor(@Value("${icu-sim.executor.threads:0}") int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(this.threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Excepción que se relanza cuando falla una simulación en otro hilo: SimulationCancelledException (límites de
+     * la ejecución, 503 con su motivo) tal cual y cualquier otra causa dentro de una IllegalStateException con
+     * {@code message}.
+     */
+    public static RuntimeException failure(ExecutionException e, String message) {
+        if (e.getCause() instanceof SimulationCancelledException cancelled) {
+            return cancelled;
+        }
+        return new IllegalStateException(message, e.getCause());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.icu_sim.service;
+
+/**
+ * Observador de los pasos de IcuSimulationService. Se ejecuta en el hilo de la simulación, así que debe
+ * volver enseguida.
+ */
+@FunctionalInterface
+public interface StepListener {
+
+    void onStep(int step, IcuSimulationService engine);
+}
@@ -0,0 +1,56 @@
+package com.example.icu_sim.service;
+
+import java.util.Random;
+
+/**
+ * Utilidades de muestreo de distribuciones discretas usadas por los modos acelerados del motor.
+ */
+public final class StochasticSampler {
+
+    private StochasticSampler() {}
+
+    /**
+     * Número de ensayos de Bernoulli(p) hasta el primer éxito (incluido), es decir, un valor >= 1.
+     * Devuelve Integer.MAX_VALUE si p <= 0 (el evento nunca ocurre).
+     */
+    public static int geometric(Random random, double p) {
+        if (p <= 0.0) {
+            return Integer.MAX_VALUE;
+        }
+        if (p >= 1.0) {
+            return 1;
+        }
+        double u = 1.0 - random.nextDouble(); // (0, 1]
+        double trials = Math.floor(Math.log(u) / Math.log1p(-p)) + 1.0;
+        return trials >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) trials;
+    }
+
+    /**
+     * Muestra de Binomial(n, p). Para n·p pequeño se cuentan los éxitos saltando entre ellos con esperas
+     * geométricas (coste O(n·p)); para n·p grande se usa la aproximación normal redondeada.
+     */
+    public static int binomial(Random random, int n, double p) {
+        if (n <= 0 || p <= 0.0) {
+            return 0;
+        }
+        if (p >= 1.0) {
+            return n;
+        }
+        if (p > 0.5) {
+            return n - binomial(random, n, 1.0 - p);
+        }
+        double mean = n * p;
+        if (mean < 30.0) {
+            int successes = 0;
+            long position = geometric(random, p);
+            while (position <= n) {
+                successes++;
+                position += geometric(random, p);
+            }
+            return successes;
+        }
+        double std = Math.sqrt(mean * (1.0 - p));
+        long k = Math.round(mean + std * random.nextGaussian());
+        return (int) Math.max(0, Math.min(n, k));
+    }
+}
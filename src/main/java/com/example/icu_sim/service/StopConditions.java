@@ -0,0 +1,103 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult.StopReason;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Criterios de parada anticipada de una ejecución, evaluados al final de cada paso con valores que el motor ya
+ * calcula (porcentaje de pacientes infectados, KNN total):
+ *
+ * - EXTINCTION: no queda KNN en el grid ni agentes infectados o colonizados. Solo se comprueba cuando el KNN
+ *   total es 0, así que en la práctica casi no cuesta.
+ * - PREVALENCE_THRESHOLD: el % de pacientes infectados alcanza el umbral.
+ * - STEADY_STATE: en los últimos steadyStateWindow pasos el % de pacientes infectados no ha variado más de
+ *   steadyStateTolerance puntos. La ventana empieza a llenarse tras los steadyStateWarmup primeros pasos, para
+ *   que el 0% del comienzo (antes de las primeras infecciones) no cuente como estado estacionario. El máximo y
+ *   el mínimo de la ventana se mantienen con colas monótonas, O(1) amortizado por paso.
+ * - WALL_CLOCK: se agotó el tiempo de pared; a diferencia del límite de admisión, se devuelve el resultado
+ *   parcial.
+ */
+public class StopConditions {
+
+    private final boolean extinction;
+    private final double prevalenceThreshold;
+    private final int window;
+    private final int warmup;
+    private final double tolerance;
+    private final long deadlineNanos;
+
+    // Ventana deslizante: valores por paso en un anillo y colas monótonas de pasos (máximo y mínimo)
+    private final double[] values;
+    private final int[] maxQueue;
+    private final int[] minQueue;
+    private int maxHead, maxSize, minHead, minSize;
+    private int observed;
+
+    public StopConditions(IcuSimulationRequest request) {
+        this.extinction = request.isStopOnExtinction();
+        this.prevalenceThreshold = request.getStopPrevalenceThreshold();
+        this.window = Math.max(0, request.getSteadyStateWindow());
+        this.warmup = Math.max(0, request.getSteadyStateWarmup());
+        this.tolerance = request.getSteadyStateTolerance();
+        this.deadlineNanos = request.getMaxWallClockSeconds() > 0
+                ? System.nanoTime() + (long) (request.getMaxWallClockSeconds() * 1e9) : 0;
+        this.values = new double[Math.max(1, window)];
+        this.maxQueue = new int[Math.max(1, window)];
+        this.minQueue = new int[Math.max(1, window)];
+    }
+
+    /**
+     * Motivo de parada tras un paso, o null si la ejecución debe seguir.
+     *
+     * @param pctPatientsInfected % de pacientes infectados al final del paso
+     * @param extinct             comprobación de extinción; solo se llama si el criterio está activado
+     */
+    public StopReason check(double pctPatientsInfected, BooleanSupplier extinct) {
+        observed++;
+        if(extinction && extinct.getAsBoolean()) {
+            return StopReason.EXTINCTION;
+        }
+        if(prevalenceThreshold > 0 && pctPatientsInfected >= prevalenceThreshold) {
+            return StopReason.PREVALENCE_THRESHOLD;
+        }
+        if(window > 0 && observed > warmup && steady(observed - warmup, pctPatientsInfected)) {
+            return StopReason.STEADY_STATE;
+        }
+        if(deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            return StopReason.WALL_CLOCK;
+        }
+        return null;
+    }
+
+    /**
+     * Añade el valor del paso t de la ventana (desde 1) y dice si la ventana está llena y dentro de la tolerancia.
+     */
+    private boolean steady(int t, double value) {
+        values[t % window] = value;
+        // Fuera de la ventana por la izquierda
+        if(maxSize > 0 && maxQueue[maxHead] <= t - window) {
+            maxHead = (maxHead + 1) % window;
+            maxSize--;
+        }
+        if(minSize > 0 && minQueue[minHead] <= t - window) {
+            minHead = (minHead + 1) % window;
+            minSize--;
+        }
+        // Por la derecha se descartan los que ya no pueden ser máximo (o mínimo)
+        while(maxSize > 0 && values[maxQueue[(maxHead + maxSize - 1) % window] % window] <= value) {
+            maxSize--;
+        }
+        maxQueue[(maxHead + maxSize++) % window] = t;
+        while(minSize > 0 && values[minQueue[(minHead + minSize - 1) % window] % window] >= value) {
+            minSize--;
+        }
+        minQueue[(minHead + minSize++) % window] = t;
+
+        if(t < window) {
+            return false;
+        }
+        return values[maxQueue[maxHead] % window] - values[minQueue[minHead] % window] <= tolerance;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.TransmissionReport;
+import com.example.icu_sim.model.agents.Agent;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Registro de transmisiones (request.recordTransmissions). Cada contagio es una arista (paso, origen, destino,
+ * cepa) en una lista de solo añadir sobre arrays primitivos:
+ *
+ *   SEED         siembra inicial de una celda (sin origen)
+ *   ENVIRONMENT  moveBacteria lleva KNN a una celda limpia
+ *   COLONIZATION un paciente se coloniza desde su celda
+ *   WORKER       un trabajador se infecta desde su celda
+ *
+ * Los nodos son las celdas (índice plano del grid) y los agentes (a continuación, por orden de registro). Al
+ * añadir cada arista se enlaza con la arista que infectó a su origen (episodio actual del nodo), así que los
+ * árboles de transmisión, el R efectivo por día y los casos secundarios por nodo se mantienen de forma
+ * incremental y las consultas no recorren el registro completo.
+ */
+public class TransmissionRecorder {
+
+    public static final byte SEED = 0;
+    public static final byte ENVIRONMENT = 1;
+    public static final byte COLONIZATION = 2;
+    public static final byte WORKER = 3;
+
+    private static final String[] KIND_NAMES = {"SEED", "ENVIRONMENT", "COLONIZATION", "WORKER"};
+
+    private final Grid grid;
+    private final int cellNodes;
+    private final Map<Agent, Integer> agentNodes = new IdentityHashMap<>();
+    private final List<String> agentNames = new ArrayList<>();
+
+    // Aristas
+    private int size;
+    private int[] steps = new int[1024];
+    private int[] sources = new int[1024];
+    private int[] targets = new int[1024];
+    private int[] strains = new int[1024];
+    private byte[] kinds = new byte[1024];
+    private int[] parentEdge = new int[1024]; // Arista que infectó al origen, -1 si no hay
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+
+    // Por nodo
+    private int[] lastInfectionEdge;
+    private int[] nodeSecondaryCases;
+
+    // Por día de infección del episodio: episodios y casos secundarios que causaron
+    private int[] episodesByDay = new int[64];
+    private int[] secondaryByDay = new int[64];
+
+    private int currentStep;
+
+    public TransmissionRecorder(Grid grid) {
+        this.grid = grid;
+        this.cellNodes = grid.getCellCount();
+        this.lastInfectionEdge = new int[cellNodes + 64];
+        this.nodeSecondaryCases = new int[cellNodes + 64];
+        Arrays.fill(lastInfectionEdge, -1);
+    }
+
+    public void setStep(int step) {
+        this.currentStep = step;
+    }
+
+    public void recordSeed(Cell cell, int strain) {
+        add(-1, grid.indexOf(cell), strain, SEED);
+    }
+
+    public void recordEnvironment(Cell source, Cell target, int strain) {
+        add(grid.indexOf(source), grid.indexOf(target), strain, ENVIRONMENT);
+    }
+
+    /**
+     * El paciente acaba de colonizarse desde su celda actual con la cepa de su KNN.
+     */
+    public void recordColonization(Patient patient) {
+        add(grid.indexOf(patient.getCurrentCell()), agentNode(patient), patient.getKnn().getStrainId(), COLONIZATION);
+    }
+
+    /**
+     * El trabajador acaba de infectarse desde su celda actual con la cepa de su KNN.
+     */
+    public void recordWorkerInfection(HealthcareWorker worker) {
+        add(grid.indexOf(worker.getCurrentCell()), agentNode(worker), worker.getKnn().getStrainId(), WORKER);
+    }
+
+    private int agentNode(Agent agent) {
+        Integer node = agentNodes.get(agent);
+        if (node == null) {
+            node = cellNodes + agentNames.size();
+            agentNodes.put(agent, node);
+            agentNames.add(agent.getUniqueId());
+            if (node >= lastInfectionEdge.length) {
+                int capacity = lastInfectionEdge.length * 2;
+                int old = lastInfectionEdge.length;
+                lastInfectionEdge = Arrays.copyOf(lastInfectionEdge, capacity);
+                Arrays.fill(lastInfectionEdge, old, capacity, -1);
+                nodeSecondaryCases = Arrays.copyOf(nodeSecondaryCases, capacity);
+            }
+        }
+        return node;
+    }
+
+    private void add(int source, int target, int strain, byte kind) {
+        if (size == steps.length) {
+            grow();
+        }
+        int e = size++;
+        steps[e] = currentStep;
+        sources[e] = source;
+        targets[e] = target;
+        strains[e] = strain;
+        kinds[e] = kind;
+        firstChild[e] = -1;
+        nextSibling[e] = -1;
+
+        int parent = source >= 0 ? lastInfectionEdge[source] : -1;
+        parentEdge[e] = parent;
+        if (parent >= 0) {
+            nextSibling[e] = firstChild[parent];
+            firstChild[parent] = e;
+            int parentDay = dayOf(steps[parent]);
+            ensureDay(parentDay);
+            secondaryByDay[parentDay]++;
+        }
+        if (source >= 0) {
+            nodeSecondaryCases[source]++;
+        }
+        lastInfectionEdge[target] = e;
+        int day = dayOf(currentStep);
+        ensureDay(day);
+        episodesByDay[day]++;
+    }
+
+    private void grow() {
+        int capacity = steps.length * 2;
+        steps = Arrays.copyOf(steps, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        strains = Arrays.copyOf(strains, capacity);
+        kinds = Arrays.copyOf(kinds, capacity);
+        parentEdge = Arrays.copyOf(parentEdge, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+    }
+
+    private int dayOf(int step) {
+        return step / Patient.STEPS_PER_DAY;
+    }
+
+    private void ensureDay(int day) {
+        if (day >= episodesByDay.length) {
+            int capacity = Math.max(day + 1, episodesByDay.length * 2);
+            episodesByDay = Arrays.copyOf(episodesByDay, capacity);
+            secondaryByDay = Arrays.copyOf(secondaryByDay, capacity);
+        }
+    }
+
+    public int getTransmissionCount() {
+        return size;
+    }
+
+    /**
+     * R efectivo por día: casos secundarios medios de los episodios que empezaron ese día.
+     */
+    public List<Double> getEffectiveRByDay() {
+        int lastDay = dayOf(currentStep);
+        List<Double> r = new ArrayList<>(lastDay + 1);
+        for (int d = 0; d <= lastDay && d < episodesByDay.length; d++) {
+            r.add(episodesByDay[d] > 0 ? secondaryByDay[d] / (double) episodesByDay[d] : 0.0);
+        }
+        return r;
+    }
+
+    /**
+     * Los {@code k} nodos con más casos secundarios (montículo de tamaño k sobre los contadores).
+     */
+    public List<TransmissionReport.Spreader> getSuperSpreaders(int k) {
+        PriorityQueue<Integer> top = new PriorityQueue<>((a, b) -> nodeSecondaryCases[a] != nodeSecondaryCases[b]
+                ? Integer.compare(nodeSecondaryCases[a], nodeSecondaryCases[b]) : Integer.compare(b, a));
+        int nodes = cellNodes + agentNames.size();
+        for (int n = 0; n < nodes; n++) {
+            if (nodeSecondaryCases[n] == 0) {
+                continue;
+            }
+            top.add(n);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+        List<TransmissionReport.Spreader> ranking = new ArrayList<>();
+        while (!top.isEmpty()) {
+            int n = top.poll();
+            ranking.add(0, new TransmissionReport.Spreader(nodeName(n), nodeSecondaryCases[n]));
+        }
+        return ranking;
+    }
+
+    /**
+     * Árboles de transmisión desde las aristas sin padre (siembras), en anchura y con como mucho
+     * {@code maxNodes} nodos en total. Devuelve true si se cortó por el máximo.
+     */
+    private boolean fillTrees(List<TransmissionReport.TreeNode> roots, int maxNodes) {
+        ArrayDeque<Integer> pendingEdges = new ArrayDeque<>();
+        ArrayDeque<TransmissionReport.TreeNode> pendingNodes = new ArrayDeque<>();
+        int emitted = 0;
+        for (int e = 0; e < size; e++) {
+            if (parentEdge[e] != -1) {
+                continue;
+            }
+            if (emitted >= maxNodes) {
+                return true;
+            }
+            TransmissionReport.TreeNode root = toNode(e);
+            roots.add(root);
+            emitted++;
+            pendingEdges.add(e);
+            pendingNodes.add(root);
+        }
+        while (!pendingEdges.isEmpty()) {
+            int e = pendingEdges.poll();
+            TransmissionReport.TreeNode node = pendingNodes.poll();
+            // Los hijos están enlazados del más reciente al más antiguo
+            for (int c = firstChild[e]; c != -1; c = nextSibling[c]) {
+                if (emitted >= maxNodes) {
+                    Collections.reverse(node.getChildren());
+                    return true;
+                }
+                TransmissionReport.TreeNode child = toNode(c);
+                node.getChildren().add(child);
+                emitted++;
+                pendingEdges.add(c);
+                pendingNodes.add(child);
+            }
+            Collections.reverse(node.getChildren());
+        }
+        return false;
+    }
+
+    /**
+     * Cadena de transmisión que llevó al último contagio del agente, desde la siembra.
+     */
+    public List<TransmissionReport.TreeNode> getChain(Agent agent) {
+        Integer node = agentNodes.get(agent);
+        List<TransmissionReport.TreeNode> chain = new ArrayList<>();
+        for (int e = node != null ? lastInfectionEdge[node] : -1; e != -1; e = parentEdge[e]) {
+            chain.add(0, toNode(e));
+        }
+        return chain;
+    }
+
+    public TransmissionReport buildReport(int topSpreaders, int maxTreeNodes) {
+        TransmissionReport report = new TransmissionReport();
+        report.setTransmissions(size);
+        report.setEffectiveRByDay(getEffectiveRByDay());
+        report.setSuperSpreaders(getSuperSpreaders(topSpreaders));
+        report.setTreesTruncated(fillTrees(report.getTrees(), maxTreeNodes));
+        return report;
+    }
+
+    private TransmissionReport.TreeNode toNode(int e) {
+        return new TransmissionReport.TreeNode(nodeName(targets[e]), sources[e] >= 0 ? nodeName(sources[e]) : null,
+                KIND_NAMES[kinds[e]], steps[e], strains[e]);
+    }
+
+    private String nodeName(int node) {
+        if (node < cellNodes) {
+            Cell c = grid.getCell(node);
+            return "C(" + c.getX() + "," + c.getY() + ")";
+        }
+        return agentNames.get(node - cellNodes);
+    }
+}
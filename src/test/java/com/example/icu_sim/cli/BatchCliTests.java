@@ -0,0 +1,114 @@
+package com.example.icu_sim.cli;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.SchedulingMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lectura de solicitudes de BatchCli: separación de campos CSV y conversión de filas CSV y ficheros JSON.
+ */
+class BatchCliTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void quotedFieldsKeepCommasAndEscapedQuotes() {
+		assertEquals(List.of("a,b", "c"), BatchCli.splitCsvLine("\"a,b\",c"));
+		assertEquals(List.of("dijo \"hola\"", "x"), BatchCli.splitCsvLine("\"dijo \"\"hola\"\"\",x"));
+		assertEquals(List.of("", "y"), BatchCli.splitCsvLine("\"\",y"));
+		// Las comillas solo delimitan: pueden abrir y cerrar a mitad de campo
+		assertEquals(List.of("plano de uci.txt"), BatchCli.splitCsvLine("plano \"de\" uci.txt"));
+	}
+
+	@Test
+	void emptyColumnsAreKept() {
+		assertEquals(List.of("1", "", "3"), BatchCli.splitCsvLine("1,,3"));
+		assertEquals(List.of("", "", ""), BatchCli.splitCsvLine(",,"));
+		assertEquals(List.of(""), BatchCli.splitCsvLine(""));
+		assertEquals(List.of(" 1 ", " "), BatchCli.splitCsvLine(" 1 , "));
+	}
+
+	@Test
+	void csvRowsBecomeRequestsWithDefaultsForEmptyCells() throws IOException {
+		IcuSimulationRequest defaults = new IcuSimulationRequest();
+		Path file = write("barrido.csv", """
+				# comentario
+				nPatients, MAXSTEPS ,hygieneFactorMean,seed,schedulingMode,floorPlanPath
+
+				30,720,0.4,1,,
+				,100,,2,EVENT,"plano,con coma.txt"
+				40
+				""");
+
+		List<IcuSimulationRequest> requests = new BatchCli().readRequests(file);
+
+		assertEquals(3, requests.size());
+		IcuSimulationRequest first = requests.get(0);
+		assertEquals(30, first.getNPatients());
+		assertEquals(720, first.getMaxSteps());
+		assertEquals(0.4, first.getHygieneFactorMean());
+		assertEquals(1, first.getSeed());
+		assertEquals(defaults.getSchedulingMode(), first.getSchedulingMode());
+
+		IcuSimulationRequest second = requests.get(1);
+		assertEquals(defaults.getNPatients(), second.getNPatients());
+		assertEquals(defaults.getHygieneFactorMean(), second.getHygieneFactorMean());
+		assertEquals(SchedulingMode.EVENT, second.getSchedulingMode());
+		assertEquals("plano,con coma.txt", second.getFloorPlanPath());
+
+		// Una fila más corta que la cabecera deja el resto por defecto
+		assertEquals(40, requests.get(2).getNPatients());
+		assertEquals(defaults.getMaxSteps(), requests.get(2).getMaxSteps());
+	}
+
+	@Test
+	void unknownHeadersAreRejected() throws IOException {
+		Path typo = write("errata.csv", "nPatients,nPatinets\n30,40\n");
+		IOException e = assertThrows(IOException.class, () -> new BatchCli().readRequests(typo));
+		assertTrue(e.getMessage().contains(":1:") && e.getMessage().contains("nPatinets"), e.getMessage());
+
+		Path unnamed = write("sin-nombre.csv", "nPatients,\n30,\n");
+		assertThrows(IOException.class, () -> new BatchCli().readRequests(unnamed));
+	}
+
+	@Test
+	void malformedRowsReportTheirLine() throws IOException {
+		Path extraColumn = write("columnas.csv", "nPatients,seed\n30,1\n30,2,3\n");
+		IOException e = assertThrows(IOException.class, () -> new BatchCli().readRequests(extraColumn));
+		assertTrue(e.getMessage().contains(":3:"), e.getMessage());
+
+		Path badValue = write("valor.csv", "nPatients\ntreinta\n");
+		e = assertThrows(IOException.class, () -> new BatchCli().readRequests(badValue));
+		assertTrue(e.getMessage().contains(":2:"), e.getMessage());
+	}
+
+	@Test
+	void jsonAcceptsObjectOrArray() throws IOException {
+		Path object = write("una.json", "{\"npatients\": 12, \"seed\": 5}");
+		Path array = write("varias.json", "[{\"nPatients\": 12}, {\"maxSteps\": 50}]");
+
+		List<IcuSimulationRequest> single = new BatchCli().readRequests(object);
+		assertEquals(1, single.size());
+		assertEquals(12, single.get(0).getNPatients());
+		assertEquals(5, single.get(0).getSeed());
+
+		List<IcuSimulationRequest> several = new BatchCli().readRequests(array);
+		assertEquals(2, several.size());
+		assertEquals(50, several.get(1).getMaxSteps());
+	}
+
+	private Path write(String name, String content) throws IOException {
+		return Files.writeString(directory.resolve(name), content);
+	}
+}
@@ -0,0 +1,212 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.EngineMode;
+import com.example.icu_sim.model.Intervention;
+import com.example.icu_sim.model.ResourceEstimate;
+import com.example.icu_sim.model.WardConfig;
+import com.example.icu_sim.model.WardConfig.WardType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AdmissionService: validación de la solicitud, límites de tamaño y CPU, degradación de los snapshots para caber
+ * en el presupuesto de memoria y comprobación conjunta de las salas de un hospital.
+ */
+class AdmissionServiceTests {
+
+	private static final long MB = 1024 * 1024;
+
+	@Test
+	void invalidRequestsAreRejected() {
+		AdmissionService service = service(0, true);
+
+		assertRejected(service, request -> request.setGridWidth(0));
+		assertRejected(service, request -> request.setMaxSteps(-1));
+		assertRejected(service, request -> request.setNWorkers(-1));
+		assertRejected(service, request -> request.setSnapshotInterval(0));
+		assertRejected(service, request -> request.getInterventions().add(new Intervention(10, "gridWidth", 20.0)));
+		assertRejected(service, request -> request.setFloorPlanPath("classpath:floorplans/missing.txt"));
+
+		// Con plano el tamaño del grid no cuenta; una intervención sobre un parámetro de ejecución se admite
+		IcuSimulationRequest request = grid(10, 10, 100);
+		request.setGridWidth(0);
+		request.setFloorPlanPath("classpath:floorplans/example-icu.txt");
+		request.getInterventions().add(new Intervention(10, "ppeFactor", 0.5));
+		assertDoesNotThrow(() -> service.admit(request, new ArrayList<>()));
+	}
+
+	@Test
+	void estimateValidatesAndReportsSizes() {
+		AdmissionService service = service(0, true);
+		IcuSimulationRequest request = grid(20, 10, 100);
+		request.setSnapshotInterval(30);
+
+		ResourceEstimate estimate = service.estimate(request);
+		assertEquals(200, estimate.getCells());
+		assertEquals(100, estimate.getSteps());
+		assertEquals(4, estimate.getSnapshots());
+		assertEquals(ResourceEstimator.retainedBytes(200, 100, 4, estimate.getPeakAgents(), false), estimate.getMemoryBytes());
+
+		request.setSnapshotInterval(0);
+		assertThrows(AdmissionRejectedException.class, () -> service.estimate(request));
+	}
+
+	@Test
+	void sizeAndCpuLimitsAreEnforced() {
+		AdmissionService service = service(0, true);
+		IcuSimulationRequest request = grid(100, 100, 1000);
+		request.setSaveGridSnapshots(false);
+		assertSame(request, service.admit(request, new ArrayList<>()));
+
+		assertRejected(service, r -> r.setGridWidth(100_001));
+		assertRejected(service, r -> r.setMaxSteps(262_801));
+		assertRejected(service, r -> r.setNPatients(200_001));
+
+		// 1000 pasos de 10.000 celdas son unos 3,5 s de CPU
+		ReflectionTestUtils.setField(service, "maxCpuSeconds", 1.0);
+		assertThrows(AdmissionRejectedException.class, () -> service.admit(request, new ArrayList<>()));
+	}
+
+	@Test
+	void snapshotsAreThinnedToFitTheMemoryBudget() {
+		// Un snapshot de 10.000 celdas son ~8 MB; sin snapshots la ejecución retiene ~3 MB
+		IcuSimulationRequest request = grid(100, 100, 1000);
+		List<String> notes = new ArrayList<>();
+
+		IcuSimulationRequest admitted = service(64, true).admit(request, notes);
+
+		assertNotSame(request, admitted);
+		assertEquals(1, request.getSnapshotInterval(), "la solicitud original no se toca");
+		assertTrue(admitted.getSnapshotInterval() > 1);
+		assertTrue(admitted.isSaveGridSnapshots());
+		assertTrue(ResourceEstimator.estimate(admitted).getMemoryBytes() <= 64 * MB);
+		// El intervalo es el menor que cabe
+		admitted.setSnapshotInterval(admitted.getSnapshotInterval() - 1);
+		assertTrue(ResourceEstimator.estimate(admitted).getMemoryBytes() > 64 * MB);
+		assertEquals(1, notes.size());
+		assertTrue(notes.get(0).startsWith("snapshotInterval="), notes.get(0));
+
+		// Si ni un snapshot cabe, se desactivan
+		notes.clear();
+		IcuSimulationRequest withoutSnapshots = service(4, true).admit(request, notes);
+		assertFalse(withoutSnapshots.isSaveGridSnapshots());
+		assertTrue(notes.get(0).startsWith("saveGridSnapshots=false"), notes.get(0));
+	}
+
+	@Test
+	void memoryOverBudgetIsRejectedWhenItCannotBeDowngraded() {
+		IcuSimulationRequest request = grid(100, 100, 1000);
+
+		// Degradación desactivada
+		assertThrows(AdmissionRejectedException.class, () -> service(64, false).admit(request, new ArrayList<>()));
+		// Ni sin snapshots cabe
+		assertThrows(AdmissionRejectedException.class, () -> service(2, true).admit(request, new ArrayList<>()));
+		// Sin snapshots no hay nada que degradar
+		request.setNPatients(100_000);
+		request.setSaveGridSnapshots(false);
+		assertThrows(AdmissionRejectedException.class, () -> service(16, true).admit(request, new ArrayList<>()));
+	}
+
+	@Test
+	void hospitalWardsAreCheckedTogether() {
+		// Cada sala retiene unos 88 MB con un snapshot cada 100 pasos: cabe sola en 128 MB, las dos juntas no
+		HospitalSimulationRequest request = hospital(grid(100, 100, 1000), 100);
+		IcuSimulationRequest ward = grid(100, 100, 1000);
+		ward.setSnapshotInterval(100);
+		ward.setNWorkers(request.getParameters().getNWorkers() / 2);
+		ward.setNPatients(50);
+		assertSame(ward, service(128, true).admit(ward, new ArrayList<>()));
+
+		assertThrows(AdmissionRejectedException.class, () -> service(128, true).checkHospital(request));
+		assertDoesNotThrow(() -> service(256, true).checkHospital(request));
+
+		// Lo mismo con la CPU: unos 3,6 s por sala
+		AdmissionService cpuLimited = service(256, true);
+		ReflectionTestUtils.setField(cpuLimited, "maxCpuSeconds", 5.0);
+		assertDoesNotThrow(() -> cpuLimited.admit(ward, new ArrayList<>()));
+		assertThrows(AdmissionRejectedException.class, () -> cpuLimited.checkHospital(request));
+	}
+
+	@Test
+	void hospitalRejectsUnsupportedConfigurations() {
+		AdmissionService service = service(0, true);
+
+		HospitalSimulationRequest compartmental = hospital(grid(10, 10, 100), 10);
+		compartmental.getParameters().setEngineMode(EngineMode.COMPARTMENTAL);
+		assertThrows(AdmissionRejectedException.class, () -> service.checkHospital(compartmental));
+
+		HospitalSimulationRequest noWards = hospital(grid(10, 10, 100), 10);
+		noWards.setWards(List.of());
+		assertThrows(AdmissionRejectedException.class, () -> service.checkHospital(noWards));
+
+		HospitalSimulationRequest emptyWard = hospital(grid(10, 10, 100), 10);
+		emptyWard.setWards(List.of(new WardConfig("uci", WardType.ICU, 0, 10, 10)));
+		assertThrows(AdmissionRejectedException.class, () -> service.checkHospital(emptyWard));
+	}
+
+	@Test
+	void batchCpuIsCheckedForAllRuns() {
+		AdmissionService service = service(0, true);
+
+		assertDoesNotThrow(() -> service.checkBatchCpu(86.4, 1000));
+		assertThrows(AdmissionRejectedException.class, () -> service.checkBatchCpu(86.4, 1001));
+		assertDoesNotThrow(() -> service.checkBatchCpu(1e9, -1));
+	}
+
+	/**
+	 * Servicio con los valores por defecto de application.properties, el presupuesto de memoria en MB indicado
+	 * (0 = mitad del heap) y degradación activada o no.
+	 */
+	private static AdmissionService service(long maxMemoryMb, boolean downgrade) {
+		AdmissionService service = new AdmissionService();
+		ReflectionTestUtils.setField(service, "maxCells", 1_000_000L);
+		ReflectionTestUtils.setField(service, "maxSteps", 262_800);
+		ReflectionTestUtils.setField(service, "maxAgents", 200_000L);
+		ReflectionTestUtils.setField(service, "maxMemoryMb", maxMemoryMb);
+		ReflectionTestUtils.setField(service, "maxCpuSeconds", 600.0);
+		ReflectionTestUtils.setField(service, "maxRunSeconds", 900L);
+		ReflectionTestUtils.setField(service, "maxBatchCpuSeconds", 86_400.0);
+		ReflectionTestUtils.setField(service, "downgrade", downgrade);
+		return service;
+	}
+
+	private static IcuSimulationRequest grid(int width, int height, int steps) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setGridWidth(width);
+		request.setGridHeight(height);
+		request.setMaxSteps(steps);
+		request.setArrivalRate(0.0);
+		request.setSnapshotInterval(1);
+		request.setSaveGridSnapshots(true);
+		return request;
+	}
+
+	private static HospitalSimulationRequest hospital(IcuSimulationRequest parameters, int snapshotInterval) {
+		parameters.setSnapshotInterval(snapshotInterval);
+		HospitalSimulationRequest request = new HospitalSimulationRequest();
+		request.setParameters(parameters);
+		request.setWards(List.of(new WardConfig("uci", WardType.ICU, parameters.getGridWidth(), parameters.getGridHeight(), 50),
+				new WardConfig("general", WardType.GENERAL, parameters.getGridWidth(), parameters.getGridHeight(), 50)));
+		return request;
+	}
+
+	private static void assertRejected(AdmissionService service, Consumer<IcuSimulationRequest> change) {
+		IcuSimulationRequest request = grid(10, 10, 100);
+		change.accept(request);
+		assertThrows(AdmissionRejectedException.class, () -> service.admit(request, new ArrayList<>()));
+	}
+}
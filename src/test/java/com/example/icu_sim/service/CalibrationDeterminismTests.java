@@ -0,0 +1,85 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.CalibrationRequest;
+import com.example.icu_sim.model.CalibrationResult;
+import com.example.icu_sim.model.CalibrationResult.Particle;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.ParameterRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ABC-SMC: los intentos se consumen en orden con propuestas y semillas derivadas de su índice, así que la
+ * población aceptada no depende del número de hilos, con o sin rechazo anticipado.
+ */
+class CalibrationDeterminismTests {
+
+	@Test
+	void acceptedPopulationDoesNotDependOnThreadCount() {
+		assertSameCalibration(request(true));
+	}
+
+	@Test
+	void withoutEarlyRejectionAcceptedPopulationDoesNotDependOnThreadCount() {
+		assertSameCalibration(request(false));
+	}
+
+	private static void assertSameCalibration(CalibrationRequest request) {
+		CalibrationResult single = calibrate(request, 1);
+		CalibrationResult several = calibrate(request, 4);
+
+		assertEquals(request.getGenerations(), single.getGenerations().size());
+		assertEquals(single.getSimulations(), several.getSimulations());
+		assertEquals(single.getEarlyRejected(), several.getEarlyRejected());
+		assertEquals(single.getSimulatedSteps(), several.getSimulatedSteps());
+		List<Particle> expected = single.getParticles();
+		List<Particle> actual = several.getParticles();
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getParameters(), actual.get(i).getParameters(), "partícula " + i);
+			assertEquals(expected.get(i).getWeight(), actual.get(i).getWeight(), "partícula " + i);
+			assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance(), "partícula " + i);
+		}
+		for (int t = 0; t < single.getGenerations().size(); t++) {
+			assertEquals(single.getGenerations().get(t).getTolerance(), several.getGenerations().get(t).getTolerance(),
+					"generación " + t);
+		}
+		if (request.isEarlyRejection()) {
+			assertTrue(single.getEarlyRejected() > 0, "sin rechazos anticipados: la prueba no los cubre");
+		}
+	}
+
+	private static CalibrationResult calibrate(CalibrationRequest request, int threads) {
+		SimulationExecutor executor = new SimulationExecutor(threads);
+		try {
+			return new CalibrationService(new AdmissionService(), 100000, executor).run(request);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static CalibrationRequest request(boolean earlyRejection) {
+		IcuSimulationRequest base = new IcuSimulationRequest();
+		base.setNPatients(30);
+		base.setNWorkers(6);
+
+		ParameterRange prior = new ParameterRange();
+		prior.setName("infectionFromColonizedChance");
+		prior.setMin(0.01);
+		prior.setMax(0.4);
+
+		CalibrationRequest request = new CalibrationRequest();
+		request.setRequest(base);
+		request.setPriors(List.of(prior));
+		request.setObserved(List.of(300.0, 280.0, 260.0));
+		request.setObservationInterval(120);
+		request.setPopulationSize(12);
+		request.setGenerations(3);
+		request.setEarlyRejection(earlyRejection);
+		return request;
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.AgentStorage;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AgentStorage.COMPACT frente a OBJECTS: mismas reglas con otro orden de sorteos, así que las medias entre
+ * réplicas deben coincidir dentro del error estadístico. Las opciones que COMPACT no implementa se rechazan.
+ */
+class CompactStorageTests {
+
+	private static final int REPLICATES = 20;
+	private static final int STEPS = 1500;
+	// Diferencia admitida en errores estándar de la diferencia de medias
+	private static final double MAX_Z = 4.0;
+
+	@Test
+	void compactAndObjectStorageAgreeStatistically() {
+		MetricSummary[] objects = replicate(AgentStorage.OBJECTS);
+		MetricSummary[] compact = replicate(AgentStorage.COMPACT);
+
+		String[] names = {"% medio de pacientes infectados", "% medio de trabajadores infectados",
+				"nuevas infecciones de pacientes", "pacientes al final"};
+		for (int m = 0; m < names.length; m++) {
+			double diff = Math.abs(objects[m].getMean() - compact[m].getMean());
+			double se = Math.sqrt((objects[m].getVariance() + compact[m].getVariance()) / REPLICATES);
+			assertTrue(diff <= MAX_Z * se, String.format("%s: OBJECTS %.3f, COMPACT %.3f (error estándar %.3f)",
+					names[m], objects[m].getMean(), compact[m].getMean(), se));
+		}
+	}
+
+	@Test
+	void unsupportedOptionsAreRejected() {
+		List<Consumer<IcuSimulationRequest>> options = List.of(
+				r -> r.setRandomStreams(IcuSimulationRequest.RandomStreams.PER_ENTITY),
+				r -> r.setSchedulingMode(IcuSimulationRequest.SchedulingMode.EVENT),
+				r -> r.setSchedulingMode(IcuSimulationRequest.SchedulingMode.PARALLEL),
+				r -> r.setBedAllocationMode(IcuSimulationRequest.BedAllocationMode.MANAGED),
+				r -> r.setRecordTransmissions(true),
+				r -> r.setStrainAwareTreatment(true));
+		for (Consumer<IcuSimulationRequest> option : options) {
+			IcuSimulationRequest request = request(AgentStorage.COMPACT, 1);
+			option.accept(request);
+			assertNotNull(IcuSimulationService.unsupportedWithCompact(request), request.toString());
+			assertThrows(IllegalArgumentException.class, () -> new IcuSimulationService().runSimulation(request));
+
+			request.setAgentStorage(AgentStorage.OBJECTS);
+			assertNull(IcuSimulationService.unsupportedWithCompact(request), request.toString());
+		}
+	}
+
+	private static MetricSummary[] replicate(AgentStorage storage) {
+		List<ToDoubleFunction<SimulationResult>> metrics = List.of(
+				r -> mean(r.getPctPatientsInfected()),
+				r -> mean(r.getPctWorkersInfected()),
+				r -> r.getNewPatientInfections().stream().mapToDouble(Double::doubleValue).sum(),
+				SimulationResult::getTotalPatients);
+		MetricSummary[] summaries = new MetricSummary[metrics.size()];
+		for (int m = 0; m < summaries.length; m++) {
+			summaries[m] = new MetricSummary();
+		}
+		for (int r = 0; r < REPLICATES; r++) {
+			SimulationResult result = new IcuSimulationService().runSimulation(request(storage, 1000 + r));
+			for (int m = 0; m < summaries.length; m++) {
+				summaries[m].add(metrics.get(m).applyAsDouble(result));
+			}
+		}
+		return summaries;
+	}
+
+	private static double mean(List<Double> series) {
+		return series.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+	}
+
+	private static IcuSimulationRequest request(AgentStorage storage, long seed) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSeed(seed);
+		request.setMaxSteps(STEPS);
+		request.setSaveGridSnapshots(false);
+		request.setAgentStorage(storage);
+		return request;
+	}
+}
@@ -0,0 +1,132 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.EngineMode;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Modos COMPARTMENTAL e HYBRID frente al motor de agentes: estado estacionario del campo medio, cambio a agentes
+ * y equivalencia de HYBRID con AGENT una vez hecho el cambio.
+ */
+class EngineModeTests {
+
+	private static final int STEPS = 4000;
+	private static final int REPLICATES = 8;
+	// El campo medio supone mezcla homogénea y no ve la correlación espacial de los contagios: con la
+	// configuración por defecto queda en torno a un 20% por debajo del motor de agentes
+	private static final double MAX_RELATIVE_GAP = 0.25;
+	// Diferencia admitida entre HYBRID y AGENT en errores estándar de la diferencia de medias
+	private static final double MAX_Z = 4.0;
+
+	@Test
+	void compartmentalSteadyStateIsCloseToAgentModel() {
+		SimulationResult compartmental = run(EngineMode.COMPARTMENTAL, 1);
+		MetricSummary[] agents = steadyState(EngineMode.AGENT);
+
+		List<Double> patients = compartmental.getPctPatientsInfected();
+		// El campo medio ya es estacionario en la segunda mitad
+		assertEquals(patients.get(STEPS / 2), patients.get(STEPS - 1), 0.01 * patients.get(STEPS - 1));
+		double[] values = tailMeans(compartmental);
+		String[] names = {"% de pacientes infectados", "% de trabajadores infectados"};
+		for (int m = 0; m < names.length; m++) {
+			double agent = agents[m].getMean();
+			assertTrue(Math.abs(values[m] - agent) <= MAX_RELATIVE_GAP * agent,
+					String.format("%s: COMPARTMENTAL %.3f, AGENT %.3f", names[m], values[m], agent));
+		}
+	}
+
+	@Test
+	void hybridMatchesAgentModelAfterSwitching() {
+		MetricSummary[] agents = steadyState(EngineMode.AGENT);
+		MetricSummary[] hybrid = steadyState(EngineMode.HYBRID);
+
+		for (int m = 0; m < agents.length; m++) {
+			double diff = Math.abs(agents[m].getMean() - hybrid[m].getMean());
+			double se = Math.sqrt((agents[m].getVariance() + hybrid[m].getVariance()) / REPLICATES);
+			assertTrue(diff <= MAX_Z * se, String.format("métrica %d: AGENT %.3f, HYBRID %.3f (error estándar %.3f)",
+					m, agents[m].getMean(), hybrid[m].getMean(), se));
+		}
+	}
+
+	@Test
+	void hybridFollowsCompartmentalModelUntilThreshold() {
+		for (double threshold : new double[]{0.3, 0.6}) {
+			IcuSimulationRequest request = request(EngineMode.HYBRID, 1);
+			request.setHybridSwitchThreshold(threshold);
+			SimulationResult hybrid = new IcuSimulationService().runSimulation(request);
+			request.setEngineMode(EngineMode.COMPARTMENTAL);
+			SimulationResult compartmental = new IcuSimulationService().runSimulation(request);
+
+			int switchStep = hybrid.getAgentSwitchStep();
+			assertTrue(switchStep > 1, "umbral " + threshold + ": cambio en el paso " + switchStep);
+			// Hasta el cambio (incluido) la serie es la del modelo compartimental
+			assertEquals(compartmental.getPctPatientsInfected().subList(0, switchStep),
+					hybrid.getPctPatientsInfected().subList(0, switchStep));
+			assertEquals(STEPS, hybrid.getPctPatientsInfected().size());
+			// El cambio lo decide el modelo compartimental, así que no depende de la semilla
+			request.setEngineMode(EngineMode.HYBRID);
+			request.setSeed(2);
+			assertEquals(switchStep, new IcuSimulationService().runSimulation(request).getAgentSwitchStep());
+		}
+	}
+
+	@Test
+	void hybridBelowThresholdStaysCompartmental() {
+		IcuSimulationRequest request = request(EngineMode.HYBRID, 1);
+		request.setHybridSwitchThreshold(1.1);
+		SimulationResult hybrid = new IcuSimulationService().runSimulation(request);
+		request.setEngineMode(EngineMode.COMPARTMENTAL);
+		SimulationResult compartmental = new IcuSimulationService().runSimulation(request);
+
+		assertEquals(0, hybrid.getAgentSwitchStep());
+		assertEquals(compartmental.getPctPatientsInfected(), hybrid.getPctPatientsInfected());
+		assertEquals(compartmental.getPctWorkersInfected(), hybrid.getPctWorkersInfected());
+	}
+
+	/**
+	 * Media entre réplicas del % de pacientes y de trabajadores infectados en la segunda mitad de la ejecución.
+	 */
+	private static MetricSummary[] steadyState(EngineMode mode) {
+		MetricSummary[] summaries = {new MetricSummary(), new MetricSummary()};
+		for (int seed = 1; seed <= REPLICATES; seed++) {
+			double[] values = tailMeans(run(mode, seed));
+			for (int m = 0; m < summaries.length; m++) {
+				summaries[m].add(values[m]);
+			}
+		}
+		return summaries;
+	}
+
+	private static double[] tailMeans(SimulationResult result) {
+		List<Double> patients = result.getPctPatientsInfected();
+		List<Double> workers = result.getPctWorkersInfected();
+		double[] means = new double[2];
+		for (int t = STEPS / 2; t < STEPS; t++) {
+			means[0] += patients.get(t);
+			means[1] += workers.get(t);
+		}
+		means[0] /= STEPS - STEPS / 2;
+		means[1] /= STEPS - STEPS / 2;
+		return means;
+	}
+
+	private static SimulationResult run(EngineMode mode, long seed) {
+		return new IcuSimulationService().runSimulation(request(mode, seed));
+	}
+
+	private static IcuSimulationRequest request(EngineMode mode, long seed) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setEngineMode(mode);
+		request.setMaxSteps(STEPS);
+		request.setSeed(seed);
+		request.setSaveGridSnapshots(false);
+		return request;
+	}
+}
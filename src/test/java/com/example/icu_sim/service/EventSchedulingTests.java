@@ -0,0 +1,59 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.SchedulingMode;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SchedulingMode.EVENT con semilla: la cola de eventos solo depende de la semilla, así que dos ejecuciones con
+ * la misma semilla dan las mismas series.
+ */
+class EventSchedulingTests {
+
+	private static final int STEPS = 1000;
+
+	@Test
+	void sameSeedGivesSameSeries() {
+		SimulationResult first = new IcuSimulationService().runSimulation(request(21));
+		SimulationResult second = new IcuSimulationService().runSimulation(request(21));
+
+		assertEquals(STEPS, first.getPctPatientsInfected().size());
+		assertEquals(first.getPctPatientsInfected(), second.getPctPatientsInfected());
+		assertEquals(first.getPctWorkersInfected(), second.getPctWorkersInfected());
+		assertEquals(first.getNewPatientInfections(), second.getNewPatientInfections());
+		assertEquals(first.getTotalKnnQuantity(), second.getTotalKnnQuantity());
+		assertEquals(first.getTotalPatients(), second.getTotalPatients());
+	}
+
+	@Test
+	void differentSeedsGiveDifferentSeries() {
+		SimulationResult first = new IcuSimulationService().runSimulation(request(21));
+		SimulationResult second = new IcuSimulationService().runSimulation(request(22));
+
+		assertNotEquals(first.getTotalKnnQuantity(), second.getTotalKnnQuantity());
+	}
+
+	@Test
+	void patientsGetInfected() {
+		SimulationResult result = new IcuSimulationService().runSimulation(request(21));
+
+		double infections = result.getNewPatientInfections().stream().mapToDouble(Double::doubleValue).sum();
+		assertTrue(infections > 0, "sin infecciones de pacientes en " + STEPS + " pasos");
+	}
+
+	private static IcuSimulationRequest request(long seed) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSeed(seed);
+		request.setNPatients(50);
+		request.setNWorkers(10);
+		request.setMaxSteps(STEPS);
+		request.setSaveGridSnapshots(false);
+		request.setSchedulingMode(SchedulingMode.EVENT);
+		return request;
+	}
+}
@@ -0,0 +1,200 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.FloorPlan;
+import com.example.icu_sim.model.data.FloorPlan.CellSpec;
+import com.example.icu_sim.model.data.Grid;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FloorPlan: formato ASCII, carga restringida al directorio de planos, habitaciones y vecinos de Grid(FloorPlan)
+ * y el tamaño del modelo compartimental sobre un plano.
+ */
+class FloorPlanTests {
+
+	private static final String TWO_ROOMS = """
+
+			#######
+			#..#..#
+			#..D..#
+			#######
+
+			""";
+
+	@TempDir
+	Path directory;
+
+	@AfterEach
+	void resetPlansDirectory() {
+		FloorPlan.setPlansDirectory(null);
+	}
+
+	@Test
+	void asciiIgnoresOuterBlankLinesAndPadsShortRowsWithWall() {
+		FloorPlan plan = FloorPlan.parseAscii("\n\n#..I\n#.\n\n");
+
+		assertEquals(2, plan.getHeight());
+		assertEquals(4, plan.getWidth());
+		assertEquals(FloorPlan.ICU, plan.symbolAt(3, 0));
+		assertEquals(FloorPlan.WALL, plan.symbolAt(3, 1));
+		assertEquals(FloorPlan.WALL, plan.symbolAt(-1, 0));
+	}
+
+	@Test
+	void unknownSymbolsAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.parseAscii("#.x#").validate());
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.parseAscii("#.0#").validate());
+		assertThrows(IllegalArgumentException.class, () -> new FloorPlan().validate());
+	}
+
+	@Test
+	void classpathPlansMustStayInTheirPackage() {
+		assertEquals(12, FloorPlan.load("classpath:floorplans/example-icu.txt").getHeight());
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("classpath:application.properties"));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("classpath:floorplans/../application.properties"));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("classpath:floorplans/missing.txt"));
+	}
+
+	@Test
+	void filePlansMustStayInThePlansDirectory() throws IOException {
+		Path plans = Files.createDirectory(directory.resolve("plans"));
+		Files.writeString(plans.resolve("ward.txt"), TWO_ROOMS);
+		Files.writeString(directory.resolve("outside.txt"), TWO_ROOMS);
+
+		// Sin directorio configurado solo hay recursos del classpath
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("ward.txt"));
+
+		FloorPlan.setPlansDirectory(plans);
+		assertEquals(4, FloorPlan.load("ward.txt").getHeight());
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("../outside.txt"));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load(directory.resolve("outside.txt").toString()));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("missing.txt"));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load(""));
+
+		Files.createSymbolicLink(plans.resolve("link.txt"), directory.resolve("outside.txt"));
+		assertThrows(IllegalArgumentException.class, () -> FloorPlan.load("link.txt"));
+	}
+
+	@Test
+	void jsonPlanListsApplyOverRows() throws IOException {
+		Files.writeString(directory.resolve("ward.json"), """
+				{"rows": ["#....", "#.I.."],
+				 "icuBeds": [{"x": 1, "y": 0, "beds": 2}, {"x": 2, "y": 1, "beds": 0}, {"x": 0, "y": 0}],
+				 "sinks": [{"x": 3, "y": 0}]}
+				""");
+		FloorPlan.setPlansDirectory(directory);
+
+		Grid grid = new Grid(FloorPlan.load("ward.json"));
+
+		assertTrue(grid.getCell(1, 0).isIcuCell());
+		assertEquals(2, grid.getCell(1, 0).getIcuCapacity());
+		assertFalse(grid.getCell(2, 1).isIcuCell());
+		assertFalse(grid.getCell(0, 0).isIcuCell(), "una pared no admite camas");
+		assertTrue(grid.getCell(3, 0).isSink());
+	}
+
+	@Test
+	void roomsOnlyConnectThroughDoors() {
+		FloorPlan plan = FloorPlan.parseAscii(TWO_ROOMS);
+		Grid grid = new Grid(plan);
+
+		assertEquals(2, grid.getRoomCount());
+		assertEquals(-1, grid.getCell(3, 2).getRoomId());
+		int left = grid.getCell(1, 1).getRoomId();
+		int right = grid.getCell(5, 1).getRoomId();
+		assertTrue(left >= 0 && right >= 0 && left != right);
+		assertNeighborsShareRoomOrDoor(grid);
+
+		// Desde la celda junto a la pared, moverse hacia ella deja al agente donde está
+		int index = grid.indexOf(grid.getCell(2, 1));
+		assertEquals(index, grid.moveTarget(index, 2, 1));
+		// Junto a la puerta sí se puede pasar a ella
+		int door = grid.indexOf(grid.getCell(3, 2));
+		assertEquals(door, grid.moveTarget(grid.indexOf(grid.getCell(2, 2)), 2, 1));
+	}
+
+	@Test
+	void examplePlanNeighborsRespectRooms() {
+		Grid grid = new Grid(FloorPlan.load("classpath:floorplans/example-icu.txt"));
+
+		assertTrue(grid.getRoomCount() > 1);
+		assertNeighborsShareRoomOrDoor(grid);
+	}
+
+	@Test
+	void cellCountsMatchCompiledGrid() {
+		FloorPlan example = FloorPlan.load("classpath:floorplans/example-icu.txt");
+		FloorPlan edited = FloorPlan.parseAscii(TWO_ROOMS);
+		edited.setIcuBeds(List.of(new CellSpec(1, 1, 3), new CellSpec(0, 0, 4), new CellSpec(9, 9, 4)));
+
+		for (FloorPlan plan : List.of(example, edited)) {
+			Grid grid = new Grid(plan);
+			int icu = 0;
+			for (int k = 0; k < grid.getWalkableCount(); k++) {
+				if (grid.getCell(grid.getWalkableCell(k)).isIcuCell()) {
+					icu++;
+				}
+			}
+			assertEquals(grid.getWalkableCount(), plan.countWalkableCells(), plan.toString());
+			assertEquals(icu, plan.countIcuCells(), plan.toString());
+		}
+	}
+
+	@Test
+	void compartmentalModelIsSizedByWalkableAndIcuCells() {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		// El rectángulo de 10 x 10 con 2 filas de UCI, rodeado de pared: mismas celdas y misma fracción de UCI
+		StringBuilder text = new StringBuilder("############\n");
+		for (int y = 0; y < 10; y++) {
+			text.append('#').append((y < 8 ? "." : "I").repeat(10)).append("#\n");
+		}
+		text.append("############\n");
+		FloorPlan walled = FloorPlan.parseAscii(text.toString());
+		FloorPlan allIcu = FloorPlan.parseAscii(("I".repeat(10) + "\n").repeat(10));
+
+		double[] rectangle = prevalence(CompartmentalModel.fromRequest(request, null, 8));
+		double[] sameGeometry = prevalence(CompartmentalModel.fromRequest(request, walled, 8));
+		double[] moreIcu = prevalence(CompartmentalModel.fromRequest(request, allIcu, 8));
+
+		for (int t = 0; t < rectangle.length; t++) {
+			assertEquals(rectangle[t], sameGeometry[t], 1e-12, "paso " + (t + 1));
+		}
+		// Más celdas de UCI, pacientes más susceptibles (al final ambos saturan)
+		assertTrue(moreIcu[0] > rectangle[0], moreIcu[0] + " <= " + rectangle[0]);
+	}
+
+	private static double[] prevalence(CompartmentalModel model) {
+		double[] values = new double[300];
+		for (int t = 0; t < values.length; t++) {
+			model.step(t + 1);
+			values[t] = model.getPatientPrevalence();
+		}
+		return values;
+	}
+
+	private static void assertNeighborsShareRoomOrDoor(Grid grid) {
+		for (int k = 0; k < grid.getWalkableCount(); k++) {
+			int i = grid.getWalkableCell(k);
+			Cell cell = grid.getCell(i);
+			for (int n = 0; n < grid.getNeighborCount(i); n++) {
+				Cell neighbor = grid.getCell(grid.getNeighbor(i, n));
+				assertFalse(neighbor.isBlocked());
+				assertTrue(cell.getRoomId() == neighbor.getRoomId() || cell.getRoomId() < 0 || neighbor.getRoomId() < 0,
+						"(" + cell.getX() + ", " + cell.getY() + ") -> (" + neighbor.getX() + ", " + neighbor.getY() + ")");
+			}
+		}
+	}
+}
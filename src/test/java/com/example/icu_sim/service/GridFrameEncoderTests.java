@@ -0,0 +1,64 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Frames binarios del feed en vivo: cabecera, tamaño y lados de grid por encima de 65535 celdas.
+ */
+class GridFrameEncoderTests {
+
+	@Test
+	void frameHeaderAndSizeMatchTheFormat() {
+		ByteBuffer frame = firstFrame(10, 10);
+
+		assertEquals(GridFrameEncoder.VERSION, frame.get(0));
+		assertEquals(GridFrameEncoder.TYPE_GRID, frame.get(1));
+		assertEquals(1, frame.getInt(2));
+		assertEquals(10, frame.getInt(6));
+		assertEquals(10, frame.getInt(10));
+		// Cabecera de 26 bytes, dos bytes por celda, número de agentes y un i32 por agente
+		int agents = frame.getInt(26 + 2 * 100);
+		assertEquals(26 + 2 * 100 + 4 + 4 * agents, frame.capacity());
+		assertAgentCellsInGrid(frame, 100, agents);
+	}
+
+	@Test
+	void sidesAbove65535AreNotTruncated() {
+		ByteBuffer frame = firstFrame(70_000, 3);
+
+		assertEquals(70_000, frame.getInt(6));
+		assertEquals(3, frame.getInt(10));
+		int agents = frame.getInt(26 + 2 * 210_000);
+		assertEquals(26 + 2 * 210_000 + 4 + 4 * agents, frame.capacity());
+		assertAgentCellsInGrid(frame, 210_000, agents);
+	}
+
+	private static ByteBuffer firstFrame(int width, int height) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setGridWidth(width);
+		request.setGridHeight(height);
+		request.setMaxSteps(1);
+		request.setSeed(1);
+		request.setSaveGridSnapshots(false);
+		byte[][] frame = new byte[1][];
+		IcuSimulationService engine = new IcuSimulationService();
+		engine.setStepListener((step, e) -> frame[0] = GridFrameEncoder.encode(step, e));
+		engine.runSimulation(request);
+		return ByteBuffer.wrap(frame[0]);
+	}
+
+	private static void assertAgentCellsInGrid(ByteBuffer frame, int cells, int agents) {
+		assertTrue(agents > 0);
+		int offset = 26 + 2 * cells + 4;
+		for (int a = 0; a < agents; a++) {
+			int cell = frame.getInt(offset + 4 * a) & 0xFFFFFF;
+			assertTrue(cell < cells, "agente " + a + " en la celda " + cell);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.HospitalSimulationResult;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.WardConfig;
+import com.example.icu_sim.model.WardConfig.WardType;
+import com.example.icu_sim.model.agents.Patient;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HospitalSimulationService: reproducibilidad de traslados y rotaciones con semilla sea cual sea el número de
+ * hilos, y conservación de pacientes y trabajadores entre salas.
+ */
+class HospitalSimulationTests {
+
+	private static final int UCI_PATIENTS = 20;
+	private static final int GENERAL_PATIENTS = 60;
+	private static final int ER_PATIENTS = 30;
+	private static final int WORKERS = 24;
+
+	@Test
+	void sameSeedGivesSameRunWhateverTheThreadCount() {
+		HospitalSimulationResult serial = run(300, 0.05, 1);
+		HospitalSimulationResult parallel = run(300, 0.05, 4);
+
+		assertTrue(serial.getPatientTransfers() > 0 && serial.getWorkerRotations() > 0,
+				"sin traslados ni rotaciones la prueba no cubre nada");
+		assertEquals(serial.getPatientTransfers(), parallel.getPatientTransfers());
+		assertEquals(serial.getWorkerRotations(), parallel.getWorkerRotations());
+		assertEquals(serial.getTotalPatients(), parallel.getTotalPatients());
+		assertEquals(serial.getPctPatientsInfected(), parallel.getPctPatientsInfected());
+		assertEquals(serial.getPctWorkersInfected(), parallel.getPctWorkersInfected());
+		for (String name : serial.getWards().keySet()) {
+			SimulationResult a = serial.getWards().get(name);
+			SimulationResult b = parallel.getWards().get(name);
+			assertEquals(a.getTotalPatients(), b.getTotalPatients(), name);
+			assertEquals(a.getTotalWorkers(), b.getTotalWorkers(), name);
+			assertEquals(a.getPctPatientsInfected(), b.getPctPatientsInfected(), name);
+			assertEquals(a.getStrainCount(), b.getStrainCount(), name);
+		}
+	}
+
+	@Test
+	void transfersConservePatientsAcrossWards() {
+		// Sin llegadas y antes de la primera evaluación de altas solo cambian de sala
+		HospitalSimulationResult result = run(Patient.STEPS_PER_DAY - 1, 0.2, 2);
+
+		assertTrue(result.getPatientTransfers() > 0);
+		assertEquals(UCI_PATIENTS + GENERAL_PATIENTS + ER_PATIENTS, result.getTotalPatients());
+		assertEquals(result.getTotalPatients(), wardSum(result, SimulationResult::getTotalPatients));
+		// Urgencias no recibe traslados: solo pierde pacientes
+		assertTrue(result.getWards().get("urgencias").getTotalPatients() < ER_PATIENTS);
+	}
+
+	@Test
+	void rotationsConserveWorkersAndHospitalTotalsMatchWards() {
+		// Con altas: el hospital solo cuenta los pacientes que siguen en alguna sala
+		HospitalSimulationResult result = run(300, 0.05, 2);
+
+		assertTrue(result.getWorkerRotations() > 0);
+		assertEquals(WORKERS, wardSum(result, SimulationResult::getTotalWorkers));
+		assertEquals(result.getTotalPatients(), wardSum(result, SimulationResult::getTotalPatients));
+		assertTrue(result.getTotalPatients() <= UCI_PATIENTS + GENERAL_PATIENTS + ER_PATIENTS);
+	}
+
+	private static HospitalSimulationResult run(int steps, double transferRate, int threads) {
+		IcuSimulationRequest parameters = new IcuSimulationRequest();
+		parameters.setNWorkers(WORKERS);
+		parameters.setMaxSteps(steps);
+		parameters.setSeed(7);
+		parameters.setArrivalRate(0.0);
+		parameters.setSaveGridSnapshots(false);
+
+		HospitalSimulationRequest request = new HospitalSimulationRequest();
+		request.setParameters(parameters);
+		request.setWards(List.of(new WardConfig("uci", WardType.ICU, 8, 8, UCI_PATIENTS),
+				new WardConfig("general", WardType.GENERAL, 15, 15, GENERAL_PATIENTS),
+				new WardConfig("urgencias", WardType.ER, 10, 10, ER_PATIENTS)));
+		request.setTransferRate(transferRate);
+		request.setWorkerRotationProb(0.02);
+		request.setThreads(threads);
+
+		HospitalSimulationService service = new HospitalSimulationService();
+		ReflectionTestUtils.setField(service, "admissionService", new AdmissionService());
+		return service.runSimulation(request);
+	}
+
+	private static int wardSum(HospitalSimulationResult result, ToIntFunction<SimulationResult> count) {
+		return result.getWards().values().stream().mapToInt(count).sum();
+	}
+}
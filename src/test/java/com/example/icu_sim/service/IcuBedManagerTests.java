@@ -0,0 +1,151 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.Sensitivity;
+import com.example.icu_sim.model.data.Cell;
+import com.example.icu_sim.model.data.Grid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IcuBedManager: cama libre más cercana (Chebyshev) frente a una búsqueda directa y orden de la cola por
+ * resistencias, virulencia y llegada.
+ */
+class IcuBedManagerTests {
+
+	@Test
+	void assignsNearestFreeBed() {
+		Grid grid = grid(10, 10, new int[][]{{0, 0}, {5, 5}, {9, 9}});
+		IcuBedManager manager = new IcuBedManager(grid);
+		Patient first = infected(grid, 6, 7, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		manager.allocate(1, List.of(first));
+		Patient second = infected(grid, 6, 7, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		manager.allocate(2, List.of(first, second));
+
+		assertSame(grid.getCell(5, 5), first.getCurrentCell());
+		assertTrue(first.isInIcu());
+		assertSame(grid.getCell(9, 9), second.getCurrentCell()); // Distancia 3 frente a 7 de (0, 0)
+		assertEquals(2, manager.getOccupiedBeds());
+		assertEquals(0, manager.getQueueLength());
+	}
+
+	@Test
+	void nearestFreeBedMatchesBruteForce() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 20; trial++) {
+			int width = 5 + random.nextInt(20);
+			int height = 5 + random.nextInt(20);
+			int[][] beds = new int[1 + random.nextInt(15)][];
+			for (int i = 0; i < beds.length; i++) {
+				beds[i] = new int[]{random.nextInt(width), random.nextInt(height)};
+			}
+			Grid grid = grid(width, height, beds);
+			IcuBedManager manager = new IcuBedManager(grid);
+			List<Patient> patients = new ArrayList<>();
+			while (manager.getOccupiedBeds() < manager.getTotalBeds()) {
+				int x = random.nextInt(width);
+				int y = random.nextInt(height);
+				int expected = nearestFreeDistance(grid, x, y);
+				Patient p = infected(grid, x, y, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+				patients.add(p);
+				manager.allocate(patients.size(), patients);
+
+				Cell bed = p.getCurrentCell();
+				assertTrue(p.isInIcu(), "prueba " + trial);
+				assertEquals(expected, Math.max(Math.abs(bed.getX() - x), Math.abs(bed.getY() - y)),
+						"prueba " + trial + ", paciente en (" + x + ", " + y + ")");
+			}
+		}
+	}
+
+	@Test
+	void queueServesMoreResistantStrainsFirst() {
+		Grid grid = grid(10, 10, new int[][]{{0, 0}});
+		IcuBedManager manager = new IcuBedManager(grid);
+		Patient wild = infected(grid, 5, 5, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		Patient resistantC = infected(grid, 5, 5, Sensitivity.RESISTANT_TO_TREATMENT_C);
+		Patient resistantA = infected(grid, 5, 5, Sensitivity.RESISTANT_TO_TREATMENT_A);
+		List<Patient> patients = new ArrayList<>(List.of(wild, resistantC, resistantA));
+
+		manager.allocate(1, patients);
+		assertTrue(resistantC.isInIcu());
+		assertEquals(2, manager.getQueueLength());
+
+		resistantC.partiallyCure(); // Deja de estar infectado: libera la cama en la siguiente asignación
+		manager.allocate(2, patients);
+		assertFalse(resistantC.isInIcu());
+		assertTrue(resistantA.isInIcu());
+
+		patients.remove(resistantA); // Alta: sale de la sala
+		manager.release(resistantA);
+		manager.allocate(3, patients);
+		assertTrue(wild.isInIcu());
+		assertEquals(0, manager.getQueueLength());
+	}
+
+	@Test
+	void queueBreaksTiesByVirulenceThenArrival() {
+		Grid grid = grid(10, 10, new int[][]{{0, 0}});
+		IcuBedManager manager = new IcuBedManager(grid);
+		Patient occupant = infected(grid, 0, 0, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		manager.allocate(1, List.of(occupant));
+
+		Patient early = infected(grid, 5, 5, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		manager.allocate(2, List.of(occupant, early));
+		Patient late = infected(grid, 5, 5, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		Patient virulent = infected(grid, 5, 5, Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A);
+		virulent.getKnn().setVirulenceFactor(0.9);
+		List<Patient> patients = new ArrayList<>(List.of(occupant, late, virulent, early));
+		manager.allocate(3, patients);
+		assertEquals(3, manager.getQueueLength());
+
+		patients.remove(occupant);
+		manager.release(occupant);
+		manager.allocate(4, patients);
+		assertTrue(virulent.isInIcu());
+
+		patients.remove(virulent);
+		manager.release(virulent);
+		manager.allocate(5, patients);
+		assertTrue(early.isInIcu());
+		assertFalse(late.isInIcu());
+		assertEquals(3, manager.getWaitSteps().getCount()); // occupant, virulent y early
+	}
+
+	private static int nearestFreeDistance(Grid grid, int x, int y) {
+		int best = Integer.MAX_VALUE;
+		for (int i = 0; i < grid.getCellCount(); i++) {
+			Cell cell = grid.getCell(i);
+			if (cell.isIcuCell() && cell.hasFreeBed()) {
+				best = Math.min(best, Math.max(Math.abs(cell.getX() - x), Math.abs(cell.getY() - y)));
+			}
+		}
+		return best;
+	}
+
+	private static Grid grid(int width, int height, int[][] beds) {
+		Grid grid = new Grid(width, height, 0);
+		for (int[] bed : beds) {
+			Cell cell = grid.getCell(bed[0], bed[1]);
+			cell.setIcuCell(true);
+			cell.setIcuCapacity(cell.getIcuCapacity() + 1);
+		}
+		return grid;
+	}
+
+	private static Patient infected(Grid grid, int x, int y, Sensitivity sensitivity) {
+		Patient p = new Patient("P-" + x + "-" + y, grid.getCell(x, y), 0.0, 0.0);
+		p.getKnn().setSensitivity(sensitivity);
+		p.colonize();
+		p.becomeInfected();
+		return p;
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.BacteriaUpdateMode;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IcuSimulationServiceTauLeapTests {
+
+	private static final int DAYS = 10;
+	private static final int STEPS_PER_DAY = 24;
+	private static final int REPLICATES = 30;
+
+	@Test
+	void tauLeapMeanTrajectoryMatchesExactMode() {
+		double[] exact = meanDailyKnn(BacteriaUpdateMode.EXACT, 1);
+		double[] leap = meanDailyKnn(BacteriaUpdateMode.TAU_LEAP, STEPS_PER_DAY);
+
+		for (int day = 0; day < DAYS; day++) {
+			assertEquals(exact[day], leap[day], exact[day] * 0.10, "día " + (day + 1));
+		}
+	}
+
+	@Test
+	void tauLeapWithSingleStepReproducesExactMode() {
+		double[] exact = meanDailyKnn(BacteriaUpdateMode.EXACT, 1);
+		double[] leap = meanDailyKnn(BacteriaUpdateMode.TAU_LEAP, 1);
+
+		for (int day = 0; day < DAYS; day++) {
+			assertEquals(exact[day], leap[day], exact[day] * 0.05, "día " + (day + 1));
+		}
+	}
+
+	@Test
+	void binomialSamplerHasExpectedMean() {
+		Random random = new Random(42);
+		int samples = 20000;
+		int[][] cases = {{24, 10}, {24, 3}, {1000, 100}, {5000, 30}};
+		for (int[] c : cases) {
+			int n = c[0];
+			double p = c[1] / 100.0;
+			long sum = 0;
+			for (int i = 0; i < samples; i++) {
+				sum += StochasticSampler.binomial(random, n, p);
+			}
+			double expected = n * p;
+			assertEquals(expected, (double) sum / samples, Math.max(0.05, expected * 0.02), "n=" + n + ", p=" + p);
+		}
+	}
+
+	/**
+	 * Media entre réplicas de la cantidad total de KNN al final de cada día, sin agentes para aislar la
+	 * dinámica del campo bacteriano.
+	 */
+	private double[] meanDailyKnn(BacteriaUpdateMode mode, int tauLeapSteps) {
+		double[] mean = new double[DAYS];
+		for (int seed = 1; seed <= REPLICATES; seed++) {
+			IcuSimulationRequest request = new IcuSimulationRequest();
+			request.setNPatients(0);
+			request.setNWorkers(0);
+			request.setArrivalRate(0.0);
+			request.setMaxSteps(DAYS * STEPS_PER_DAY);
+			request.setSeed(seed);
+			request.setBacteriaUpdateMode(mode);
+			request.setTauLeapSteps(tauLeapSteps);
+
+			SimulationResult result = new IcuSimulationService().runSimulation(request);
+			for (int day = 0; day < DAYS; day++) {
+				mean[day] += result.getTotalKnnQuantity().get((day + 1) * STEPS_PER_DAY - 1) / (double) REPLICATES;
+			}
+		}
+		return mean;
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.HospitalSimulationResult;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.RandomStreams;
+import com.example.icu_sim.model.Intervention;
+import com.example.icu_sim.model.ScenarioRequest;
+import com.example.icu_sim.model.ScenarioResult;
+import com.example.icu_sim.model.ScenarioResult.PairedDifference;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.WardConfig;
+import com.example.icu_sim.model.WardConfig.WardType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Intervenciones en una ejecución, en las salas de un hospital y emparejamiento de réplicas con números
+ * aleatorios comunes (CRN) en ScenarioService.
+ */
+class InterventionTests {
+
+	private static final int STEPS = 400;
+	private static final int INTERVENTION_STEP = 200;
+
+	@Test
+	void interventionChangesRunOnlyFromItsStep() {
+		SimulationResult base = new IcuSimulationService().runSimulation(request(RandomStreams.PER_ENTITY));
+		IcuSimulationRequest changed = request(RandomStreams.PER_ENTITY);
+		changed.getInterventions().add(new Intervention(INTERVENTION_STEP, "workerBaseInfectionChance", 0.0));
+		SimulationResult arm = new IcuSimulationService().runSimulation(changed);
+
+		// Las series guardan el paso i en la posición i - 1
+		int before = INTERVENTION_STEP - 1;
+		assertEquals(base.getPctWorkersInfected().subList(0, before), arm.getPctWorkersInfected().subList(0, before));
+		assertEquals(base.getPctPatientsInfected().subList(0, before), arm.getPctPatientsInfected().subList(0, before));
+		assertNotEquals(base.getPctWorkersInfected(), arm.getPctWorkersInfected());
+	}
+
+	@Test
+	void hospitalWardsApplyInterventions() {
+		HospitalSimulationResult base = hospital(List.of());
+		// Sin paso de colonizado a infectado desde el primer paso, ninguna sala registra infecciones nuevas
+		HospitalSimulationResult arm = hospital(List.of(new Intervention(1, "infectionFromColonizedChance", 0.0)));
+
+		assertTrue(newPatientInfections(base) > 0, "la base no tiene infecciones: la prueba no cubre nada");
+		assertEquals(0.0, newPatientInfections(arm));
+	}
+
+	@Test
+	void commonRandomNumbersPairReplicates() {
+		// Un brazo que deja el parámetro como estaba es la base réplica a réplica solo si las semillas se emparejan
+		ScenarioResult paired = scenario(true);
+		ScenarioResult independent = scenario(false);
+
+		for (String metric : List.of("meanPctPatientsInfected", "meanPctWorkersInfected")) {
+			PairedDifference crn = paired.getArms().get(0).getDifferences().get(metric);
+			assertEquals(0.0, crn.getMean(), metric);
+			assertEquals(0.0, crn.getStd(), metric);
+			assertTrue(independent.getArms().get(0).getDifferences().get(metric).getStd() > 0, metric);
+		}
+	}
+
+	private static IcuSimulationRequest request(RandomStreams streams) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setNPatients(30);
+		request.setNWorkers(8);
+		request.setMaxSteps(STEPS);
+		request.setSeed(11);
+		request.setSaveGridSnapshots(false);
+		request.setRandomStreams(streams);
+		return request;
+	}
+
+	private static HospitalSimulationResult hospital(List<Intervention> interventions) {
+		HospitalSimulationRequest request = new HospitalSimulationRequest();
+		IcuSimulationRequest parameters = request(RandomStreams.PER_ENTITY);
+		parameters.getInterventions().addAll(interventions);
+		request.setParameters(parameters);
+		request.setWards(List.of(new WardConfig("uci", WardType.ICU, 10, 10, 20),
+				new WardConfig("general", WardType.GENERAL, 10, 10, 20)));
+		request.setTransferRate(0.01);
+		HospitalSimulationService service = new HospitalSimulationService();
+		ReflectionTestUtils.setField(service, "admissionService", new AdmissionService());
+		return service.runSimulation(request);
+	}
+
+	private static double newPatientInfections(HospitalSimulationResult result) {
+		return result.getWards().values().stream()
+				.flatMap(ward -> ward.getNewPatientInfections().stream())
+				.mapToDouble(Double::doubleValue).sum();
+	}
+
+	private static ScenarioResult scenario(boolean commonRandomNumbers) {
+		IcuSimulationRequest base = request(RandomStreams.SHARED);
+		base.setSeed(0);
+		ScenarioRequest.Arm arm = new ScenarioRequest.Arm();
+		arm.setName("sin cambio");
+		arm.setInterventions(List.of(new Intervention(50, "ppeFactor", base.getPpeFactor())));
+
+		ScenarioRequest request = new ScenarioRequest();
+		request.setRequest(base);
+		request.setArms(List.of(arm));
+		request.setMetrics(List.of("meanPctPatientsInfected", "meanPctWorkersInfected"));
+		request.setReplicates(4);
+		request.setCommonRandomNumbers(commonRandomNumbers);
+
+		SimulationExecutor executor = new SimulationExecutor(2);
+		ReplicateRunner runner = new ReplicateRunner();
+		ReflectionTestUtils.setField(runner, "admissionService", new AdmissionService());
+		ReflectionTestUtils.setField(runner, "executor", executor);
+		ScenarioService service = new ScenarioService();
+		ReflectionTestUtils.setField(service, "replicateRunner", runner);
+		ReflectionTestUtils.setField(service, "executor", executor);
+		ReflectionTestUtils.setField(service, "maxRuns", 100);
+		try {
+			return service.run(request);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.SchedulingMode;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SchedulingMode.PARALLEL: las intenciones se sortean con generadores derivados de la semilla, el paso y el
+ * agente, y se confirman en orden. El resultado no depende del número de hilos que calculan las intenciones.
+ */
+class ParallelAgentStepperTests {
+
+	private static final int STEPS = 1000;
+
+	@Test
+	void sameSeedGivesSameSeries() {
+		assertSameSeries(new IcuSimulationService().runSimulation(request()),
+				new IcuSimulationService().runSimulation(request()));
+	}
+
+	@Test
+	void resultDoesNotDependOnThreadCount() throws Exception {
+		// Los streams paralelos lanzados desde una tarea de un ForkJoinPool usan ese pool
+		SimulationResult single = runInPool(1);
+		SimulationResult several = runInPool(4);
+
+		assertSameSeries(single, several);
+	}
+
+	private static SimulationResult runInPool(int threads) throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.submit(() -> new IcuSimulationService().runSimulation(request())).get();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void assertSameSeries(SimulationResult expected, SimulationResult actual) {
+		assertEquals(STEPS, expected.getPctPatientsInfected().size());
+		assertEquals(expected.getPctPatientsInfected(), actual.getPctPatientsInfected());
+		assertEquals(expected.getPctWorkersInfected(), actual.getPctWorkersInfected());
+		assertEquals(expected.getNewPatientInfections(), actual.getNewPatientInfections());
+		assertEquals(expected.getTotalKnnQuantity(), actual.getTotalKnnQuantity());
+		assertEquals(expected.getTotalPatients(), actual.getTotalPatients());
+	}
+
+	private static IcuSimulationRequest request() {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSeed(17);
+		request.setNPatients(200);
+		request.setNWorkers(40);
+		request.setGridWidth(20);
+		request.setGridHeight(20);
+		request.setMaxSteps(STEPS);
+		request.setSaveGridSnapshots(false);
+		request.setSchedulingMode(SchedulingMode.PARALLEL);
+		return request;
+	}
+}
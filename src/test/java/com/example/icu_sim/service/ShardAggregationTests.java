@@ -0,0 +1,112 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.BatchRequest;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.MetricSummary;
+import com.example.icu_sim.model.ShardRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reparto de un lote en fragmentos y combinación de sus resúmenes: el resultado no depende de cómo se fragmente.
+ */
+class ShardAggregationTests {
+
+	@Test
+	void mergedSummariesMatchSummaryOverAllValues() {
+		Random random = new Random(7);
+		MetricSummary all = new MetricSummary();
+		MetricSummary merged = new MetricSummary();
+		// Partes de tamaños distintos, incluida una vacía
+		for (int size : new int[]{0, 1, 5, 17, 3}) {
+			MetricSummary part = new MetricSummary();
+			for (int i = 0; i < size; i++) {
+				double value = 10 + 3 * random.nextGaussian();
+				all.add(value);
+				part.add(value);
+			}
+			merged.merge(part);
+		}
+
+		assertEquals(all.getCount(), merged.getCount());
+		assertEquals(all.getMean(), merged.getMean(), 1e-12);
+		assertEquals(all.getVariance(), merged.getVariance(), 1e-9);
+		assertEquals(all.getMin(), merged.getMin());
+		assertEquals(all.getMax(), merged.getMax());
+	}
+
+	@Test
+	void mergeIntoEmptySummaryCopiesIt() {
+		MetricSummary part = new MetricSummary();
+		part.add(2);
+		part.add(4);
+		MetricSummary empty = new MetricSummary();
+
+		empty.merge(part);
+
+		assertEquals(2, empty.getCount());
+		assertEquals(3.0, empty.getMean());
+		assertEquals(2.0, empty.getVariance());
+		assertEquals(2.0, empty.getMin());
+		assertEquals(4.0, empty.getMax());
+	}
+
+	@Test
+	void shardsCoverConsecutiveSeedsWithShorterLastShard() {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		BatchRequest batch = batch(request, 10, 100, 4);
+
+		List<ShardRequest> shards = BatchCoordinatorService.splitIntoShards(batch);
+
+		assertEquals(3, shards.size());
+		assertEquals(List.of(4, 4, 2), shards.stream().map(s -> s.getSeeds().size()).toList());
+		List<Long> seeds = new ArrayList<>();
+		for (ShardRequest shard : shards) {
+			assertSame(request, shard.getRequest());
+			seeds.addAll(shard.getSeeds());
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals(100L + i, seeds.get(i));
+		}
+	}
+
+	@Test
+	void nonPositiveShardSizeMeansOneReplicatePerShard() {
+		List<ShardRequest> shards = BatchCoordinatorService.splitIntoShards(batch(new IcuSimulationRequest(), 3, 1, 0));
+
+		assertEquals(3, shards.size());
+		assertEquals(List.of(3L), shards.get(2).getSeeds());
+	}
+
+	@Test
+	void baseSeedMustKeepEverySeedPositive() {
+		assertThrows(AdmissionRejectedException.class, () -> ReplicateRunner.checkBaseSeed(0, 10));
+		assertThrows(AdmissionRejectedException.class, () -> ReplicateRunner.checkBaseSeed(-5, 10));
+		assertThrows(AdmissionRejectedException.class, () -> ReplicateRunner.checkBaseSeed(Long.MAX_VALUE - 5, 10));
+		assertDoesNotThrow(() -> ReplicateRunner.checkBaseSeed(1, 10));
+		assertDoesNotThrow(() -> ReplicateRunner.checkBaseSeed(Long.MAX_VALUE - 10, 10));
+
+		List<Long> withZero = new ArrayList<>(List.of(1L, 0L));
+		assertThrows(AdmissionRejectedException.class, () -> ReplicateRunner.checkSeeds(withZero));
+		List<Long> withNull = new ArrayList<>();
+		withNull.add(null);
+		assertThrows(AdmissionRejectedException.class, () -> ReplicateRunner.checkSeeds(withNull));
+	}
+
+	private static BatchRequest batch(IcuSimulationRequest request, int replicates, long baseSeed, int shardSize) {
+		BatchRequest batch = new BatchRequest();
+		batch.setRequest(request);
+		batch.setReplicates(replicates);
+		batch.setBaseSeed(baseSeed);
+		batch.setShardSize(shardSize);
+		return batch;
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.icu_sim.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Estimadores de SensitivityAnalysisService (Saltelli para S_i, Jansen para ST_i) sobre funciones con índices
+ * analíticos, evaluadas en el mismo esquema A, B, AB_i que el simulador.
+ */
+class SobolIndicesTests {
+
+	private static final int SAMPLES = 50000;
+	private static final double TOLERANCE = 0.02;
+
+	@Test
+	void linearFunctionIndicesAreSquaredWeights() {
+		// f = x1 + 2 x2 + 3 x3 con x_i uniformes: S_i = ST_i = c_i^2 / sum c^2
+		double[] c = {1, 2, 3};
+		SensitivityAnalysisService.Accumulator acc = estimate(3, x -> c[0] * x[0] + c[1] * x[1] + c[2] * x[2]);
+
+		for (int i = 0; i < 3; i++) {
+			double expected = c[i] * c[i] / 14.0;
+			assertEquals(expected, acc.firstOrder(i), TOLERANCE, "S_" + (i + 1));
+			assertEquals(expected, acc.totalOrder(i), TOLERANCE, "ST_" + (i + 1));
+		}
+		assertEquals(14.0 / 12.0, acc.getVariance(), 14.0 / 12.0 * TOLERANCE);
+	}
+
+	@Test
+	void ishigamiFunctionMatchesAnalyticIndices() {
+		// Ishigami (a = 7, b = 0.1) en [-pi, pi]^3; x3 solo actúa en interacción con x1
+		double a = 7;
+		double b = 0.1;
+		SensitivityAnalysisService.Accumulator acc = estimate(3, u -> {
+			double x1 = Math.PI * (2 * u[0] - 1);
+			double x2 = Math.PI * (2 * u[1] - 1);
+			double x3 = Math.PI * (2 * u[2] - 1);
+			return Math.sin(x1) + a * Math.sin(x2) * Math.sin(x2) + b * Math.pow(x3, 4) * Math.sin(x1);
+		});
+
+		double pi4 = Math.pow(Math.PI, 4);
+		double pi8 = pi4 * pi4;
+		double v1 = 0.5 * Math.pow(1 + b * pi4 / 5, 2);
+		double v2 = a * a / 8;
+		double v13 = b * b * pi8 * (1.0 / 18 - 1.0 / 50);
+		double v = v1 + v2 + v13;
+		assertEquals(v1 / v, acc.firstOrder(0), TOLERANCE, "S_1");
+		assertEquals(v2 / v, acc.firstOrder(1), TOLERANCE, "S_2");
+		assertEquals(0.0, acc.firstOrder(2), TOLERANCE, "S_3");
+		assertEquals((v1 + v13) / v, acc.totalOrder(0), TOLERANCE, "ST_1");
+		assertEquals(v2 / v, acc.totalOrder(1), TOLERANCE, "ST_2");
+		assertEquals(v13 / v, acc.totalOrder(2), TOLERANCE, "ST_3");
+	}
+
+	@Test
+	void constantFunctionHasZeroIndices() {
+		SensitivityAnalysisService.Accumulator acc = estimate(2, x -> 5.0);
+
+		assertEquals(0.0, acc.getVariance());
+		assertEquals(0.0, acc.firstOrder(0));
+		assertEquals(0.0, acc.totalOrder(1));
+	}
+
+	/**
+	 * Filas A_j, B_j, AB_j^(i) de un hipercubo latino de 2k columnas, como en SensitivityAnalysisService.run.
+	 */
+	private static SensitivityAnalysisService.Accumulator estimate(int k, ToDoubleFunction<double[]> f) {
+		double[][] design = SensitivityAnalysisService.latinHypercube(SAMPLES, 2 * k, new Random(1));
+		SensitivityAnalysisService.Accumulator acc = new SensitivityAnalysisService.Accumulator(k);
+		for (double[] unit : design) {
+			double[] a = new double[k];
+			double[] b = new double[k];
+			System.arraycopy(unit, 0, a, 0, k);
+			System.arraycopy(unit, k, b, 0, k);
+			double[][] row = new double[k + 2][];
+			row[0] = new double[]{f.applyAsDouble(a)};
+			row[1] = new double[]{f.applyAsDouble(b)};
+			for (int i = 0; i < k; i++) {
+				double[] ab = a.clone();
+				ab[i] = b[i];
+				row[2 + i] = new double[]{f.applyAsDouble(ab)};
+			}
+			acc.add(row, 0);
+		}
+		return acc;
+	}
+}
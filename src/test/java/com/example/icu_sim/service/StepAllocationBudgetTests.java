@@ -0,0 +1,129 @@
+package com.example.icu_sim.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.IcuSimulationRequest.AgentStorage;
+import com.example.icu_sim.model.SimulationResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Memoria reservada por paso del motor de agentes en régimen estacionario (ThreadMXBean, bytes reservados por
+ * el hilo de la simulación). Falla si un cambio vuelve a reservar en cada paso: copias de listas, streams,
+ * String.format de logEvent, iteradores, lambdas...
+ *
+ * Los agentes escriben su log a nivel INFO, que cuesta lo que cueste el backend de logging, así que se mide con
+ * el log del simulador en WARN. Salvo en la configuración por defecto, la mutación está desactivada; con ella, sin
+ * deriva, StrainTable no pasa de los seis perfiles de sensibilidad, así que mutar no debe reservar memoria.
+ */
+class StepAllocationBudgetTests {
+
+	// Presupuestos en bytes por paso. Medido con 50 pacientes: ~125 en modo normal, ~72 con lowAllocation (los
+	// Double y Long de las series por paso) y ~110 con mutaciones
+	private static final double STANDARD_BUDGET = 512;
+	private static final double LOW_ALLOCATION_BUDGET = 160;
+	private static final double DEFAULT_PARAMETERS_BUDGET = 256;
+
+	private static final int WARMUP_STEPS = 1000;
+	private static final int MEASURED_STEPS = 2000;
+
+	private static final Logger simulatorLogger = (Logger) LoggerFactory.getLogger("com.example.icu_sim");
+	private static Level previousLevel;
+
+	@BeforeAll
+	static void quietSimulatorLog() {
+		previousLevel = simulatorLogger.getLevel();
+		simulatorLogger.setLevel(Level.WARN);
+	}
+
+	@AfterAll
+	static void restoreSimulatorLog() {
+		simulatorLogger.setLevel(previousLevel);
+	}
+
+	@Test
+	void objectStorageStepStaysWithinBudget() {
+		assertWithinBudget(request(AgentStorage.OBJECTS, false, 0.0), STANDARD_BUDGET);
+	}
+
+	@Test
+	void objectStorageLowAllocationStepIsNearlyAllocationFree() {
+		assertWithinBudget(request(AgentStorage.OBJECTS, true, 0.0), LOW_ALLOCATION_BUDGET);
+	}
+
+	@Test
+	void compactStorageLowAllocationStepIsNearlyAllocationFree() {
+		assertWithinBudget(request(AgentStorage.COMPACT, true, 0.0), LOW_ALLOCATION_BUDGET);
+	}
+
+	@Test
+	void defaultParametersStepStaysWithinBudget() {
+		IcuSimulationRequest request = request(AgentStorage.OBJECTS, true, 0.0);
+		request.setMutationRate(new IcuSimulationRequest().getMutationRate());
+		assertWithinBudget(request, DEFAULT_PARAMETERS_BUDGET);
+	}
+
+	@Test
+	void lowAllocationModeDoesNotChangeResults() {
+		SimulationResult standard = new IcuSimulationService().runSimulation(request(AgentStorage.OBJECTS, false, 0.001));
+		SimulationResult low = new IcuSimulationService().runSimulation(request(AgentStorage.OBJECTS, true, 0.001));
+
+		assertEquals(standard.getPctPatientsInfected(), low.getPctPatientsInfected());
+		assertEquals(standard.getPctWorkersInfected(), low.getPctWorkersInfected());
+		assertEquals(standard.getTotalKnnQuantity(), low.getTotalKnnQuantity());
+	}
+
+	private static IcuSimulationRequest request(AgentStorage storage, boolean lowAllocation, double mutationRate) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSeed(11);
+		request.setNPatients(50);
+		request.setNWorkers(10);
+		request.setMaxSteps(WARMUP_STEPS + MEASURED_STEPS);
+		request.setSaveGridSnapshots(false);
+		request.setAgentStorage(storage);
+		request.setLowAllocation(lowAllocation);
+		request.setMutationRate(mutationRate);
+		return request;
+	}
+
+	private static void assertWithinBudget(IcuSimulationRequest request, double budget) {
+		com.sun.management.ThreadMXBean threads = threadMXBean();
+		// Una ejecución completa para que el JIT compile el bucle antes de medir
+		bytesPerStep(request, threads);
+		double perStep = bytesPerStep(request, threads);
+		assertTrue(perStep <= budget, String.format("%.1f bytes/paso, presupuesto %.0f (%s)", perStep, budget,
+				request.getAgentStorage() + (request.isLowAllocation() ? ", lowAllocation" : "")));
+	}
+
+	private static double bytesPerStep(IcuSimulationRequest request, com.sun.management.ThreadMXBean threads) {
+		long[] allocated = new long[2];
+		IcuSimulationService engine = new IcuSimulationService();
+		engine.setStepListener((step, e) -> {
+			if (step == WARMUP_STEPS) {
+				allocated[0] = threads.getCurrentThreadAllocatedBytes();
+			} else if (step == WARMUP_STEPS + MEASURED_STEPS) {
+				allocated[1] = threads.getCurrentThreadAllocatedBytes();
+			}
+		});
+		engine.runSimulation(request);
+		return (allocated[1] - allocated[0]) / (double) MEASURED_STEPS;
+	}
+
+	private static com.sun.management.ThreadMXBean threadMXBean() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+				"La JVM no mide la memoria reservada por hilo");
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported(), "La JVM no mide la memoria reservada por hilo");
+		threads.setThreadAllocatedMemoryEnabled(true);
+		return threads;
+	}
+}
@@ -0,0 +1,151 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.HospitalSimulationRequest;
+import com.example.icu_sim.model.HospitalSimulationResult;
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.SimulationResult.StopReason;
+import com.example.icu_sim.model.WardConfig;
+import com.example.icu_sim.model.WardConfig.WardType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ventana de STEADY_STATE de StopConditions: calentamiento, bordes de la ventana y colas monótonas frente al
+ * cálculo directo del máximo y el mínimo. También la parada de una simulación de hospital.
+ */
+class StopConditionsTests {
+
+	@Test
+	void constantSeriesStopsWhenWindowFills() {
+		StopConditions stop = steady(10, 0.5, 0);
+		for (int step = 1; step < 10; step++) {
+			assertNull(stop.check(0.0, () -> false), "paso " + step);
+		}
+		assertEquals(StopReason.STEADY_STATE, stop.check(0.0, () -> false));
+	}
+
+	@Test
+	void warmupStepsDoNotCount() {
+		StopConditions stop = steady(10, 0.5, 50);
+		for (int step = 1; step < 60; step++) {
+			assertNull(stop.check(0.0, () -> false), "paso " + step);
+		}
+		assertEquals(StopReason.STEADY_STATE, stop.check(0.0, () -> false));
+	}
+
+	@Test
+	void valueLeavingWindowNoLongerCounts() {
+		StopConditions stop = steady(5, 0.5, 0);
+		assertNull(stop.check(10.0, () -> false));
+		for (int step = 2; step <= 5; step++) {
+			assertNull(stop.check(0.0, () -> false), "paso " + step);
+		}
+		// El 10 del paso 1 sale de la ventana en el paso 6
+		assertEquals(StopReason.STEADY_STATE, stop.check(0.0, () -> false));
+	}
+
+	@Test
+	void toleranceIsInclusive() {
+		StopConditions stop = steady(2, 0.5, 0);
+		assertNull(stop.check(0.0, () -> false));
+		assertEquals(StopReason.STEADY_STATE, stop.check(0.5, () -> false));
+	}
+
+	@Test
+	void monotonicQueuesMatchBruteForce() {
+		Random random = new Random(7);
+		for (int window : new int[]{1, 2, 3, 7, 16}) {
+			for (int warmup : new int[]{0, 5}) {
+				double tolerance = 1.0;
+				StopConditions stop = steady(window, tolerance, warmup);
+				double[] series = new double[400];
+				double value = 5.0;
+				for (int t = 0; t < series.length; t++) {
+					// Paseo aleatorio con tramos planos, para que la ventana entre y salga de la tolerancia
+					value = Math.max(0, value + (random.nextInt(4) == 0 ? random.nextGaussian() : 0.0));
+					series[t] = value;
+					boolean expected = t + 1 >= warmup + window && range(series, t - window + 1, t) <= tolerance;
+					StopReason reason = stop.check(value, () -> false);
+					assertEquals(expected ? StopReason.STEADY_STATE : null, reason,
+							"ventana " + window + ", calentamiento " + warmup + ", paso " + (t + 1));
+				}
+			}
+		}
+	}
+
+	@Test
+	void hospitalStopsAtPrevalenceThreshold() {
+		HospitalSimulationResult result = hospital(r -> r.setStopPrevalenceThreshold(1.0));
+
+		assertEquals(StopReason.PREVALENCE_THRESHOLD, result.getStopReason());
+		assertTrue(result.getStopStep() < 2000, "paso de parada " + result.getStopStep());
+		assertEquals(result.getStopStep(), result.getPctPatientsInfected().size());
+		assertTrue(result.getPctPatientsInfected().get(result.getStopStep() - 1) >= 1.0);
+		for (SimulationResult ward : result.getWards().values()) {
+			assertEquals(StopReason.PREVALENCE_THRESHOLD, ward.getStopReason());
+			assertEquals(result.getStopStep(), ward.getStopStep());
+		}
+	}
+
+	@Test
+	void hospitalStopsWhenEveryWardIsExtinct() {
+		HospitalSimulationResult result = hospital(r -> {
+			r.setStopOnExtinction(true);
+			r.setInitialInfectedCells(0);
+		});
+
+		assertEquals(StopReason.EXTINCTION, result.getStopReason());
+		assertEquals(1, result.getStopStep());
+	}
+
+	@Test
+	void hospitalWithoutStopConditionsRunsAllSteps() {
+		HospitalSimulationResult result = hospital(r -> {});
+
+		assertEquals(StopReason.MAX_STEPS, result.getStopReason());
+		assertEquals(2000, result.getStopStep());
+	}
+
+	private static HospitalSimulationResult hospital(Consumer<IcuSimulationRequest> stop) {
+		IcuSimulationRequest parameters = new IcuSimulationRequest();
+		parameters.setNWorkers(8);
+		parameters.setMaxSteps(2000);
+		parameters.setSeed(5);
+		parameters.setSaveGridSnapshots(false);
+		stop.accept(parameters);
+		HospitalSimulationRequest request = new HospitalSimulationRequest();
+		request.setParameters(parameters);
+		request.setWards(List.of(new WardConfig("uci", WardType.ICU, 10, 10, 20),
+				new WardConfig("general", WardType.GENERAL, 10, 10, 20)));
+		HospitalSimulationService service = new HospitalSimulationService();
+		ReflectionTestUtils.setField(service, "admissionService", new AdmissionService());
+		return service.runSimulation(request);
+	}
+
+	private static double range(double[] series, int from, int to) {
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = from; i <= to; i++) {
+			max = Math.max(max, series[i]);
+			min = Math.min(min, series[i]);
+		}
+		return max - min;
+	}
+
+	private static StopConditions steady(int window, double tolerance, int warmup) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSteadyStateWindow(window);
+		request.setSteadyStateTolerance(tolerance);
+		request.setSteadyStateWarmup(warmup);
+		return new StopConditions(request);
+	}
+}
@@ -0,0 +1,56 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.SimulationResult;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.Sensitivity;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Con strainAwareTreatment, cada perfil de sensibilidad tiene un tratamiento: ningún paciente infectado se queda
+ * sin tratar por la cepa que lleva.
+ */
+class StrainAwareTreatmentTests {
+
+	private static final int STEPS = 23; // Antes de la primera evaluación de altas (paso 24)
+
+	@ParameterizedTest
+	@EnumSource(Sensitivity.class)
+	void everyStrainProfileIsTreated(Sensitivity sensitivity) {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setSeed(5);
+		request.setNPatients(20);
+		request.setNWorkers(0);
+		request.setArrivalRate(0.0);
+		request.setInitialInfectedCells(0);
+		request.setMutationRate(0.0);
+		request.setColonizationChance(0.0);
+		request.setInfectionFromColonizedChance(0.0); // Sin reinfección de los que quedan colonizados
+		request.setMaxSteps(STEPS);
+		request.setSaveGridSnapshots(false);
+		request.setStrainAwareTreatment(true);
+
+		IcuSimulationService engine = new IcuSimulationService();
+		// Al terminar el paso 1 todos los pacientes pasan a estar infectados con una cepa de ese perfil
+		engine.setStepListener((step, e) -> {
+			if (step == 1) {
+				for (Patient p : e.getPatients()) {
+					p.colonize();
+					p.becomeInfected();
+					p.getKnn().setSensitivity(sensitivity);
+					p.updateTriagePriority();
+				}
+			}
+		});
+		SimulationResult result = engine.runSimulation(request);
+
+		// Con la menor probabilidad de curación (40%), seguir infectado 22 pasos tiene probabilidad 0.6^22 ~ 1e-5
+		List<Double> infected = result.getPctPatientsInfected();
+		assertEquals(0.0, infected.get(infected.size() - 1), sensitivity + " sin tratar");
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.bacteria.KlebsiellaPneumoniae.Sensitivity;
+import com.example.icu_sim.model.bacteria.StrainTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StrainTable: un id por fenotipo, linaje de la primera aparición, tope de cepas e importación entre tablas.
+ */
+class StrainTableTests {
+
+	@Test
+	void wildTypeIsStrainZero() {
+		StrainTable table = new StrainTable();
+
+		assertEquals(1, table.size());
+		assertEquals(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_A, table.getSensitivity(StrainTable.WILD_TYPE));
+		assertEquals(StrainTable.WILD_TYPE_VIRULENCE, table.getVirulence(StrainTable.WILD_TYPE));
+		assertEquals(StrainTable.WILD_TYPE_REPRODUCTION_RATE, table.getReproductionRate(StrainTable.WILD_TYPE));
+		assertEquals(-1, table.getParent(StrainTable.WILD_TYPE));
+		assertArrayEquals(new int[]{StrainTable.WILD_TYPE}, table.getLineage(StrainTable.WILD_TYPE));
+	}
+
+	@Test
+	void samePhenotypeIsInternedOnce() {
+		StrainTable table = new StrainTable();
+		int b = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.6, 0.1, StrainTable.WILD_TYPE);
+		int c = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_C, 0.6, 0.1, b);
+
+		// La madre no forma parte de la clave: el linaje es el de la primera aparición
+		assertEquals(b, table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.6, 0.1, c));
+		assertEquals(3, table.size());
+		assertNotEquals(b, table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.61, 0.1, StrainTable.WILD_TYPE));
+	}
+
+	@Test
+	void lineageFollowsParents() {
+		StrainTable table = new StrainTable();
+		int b = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.5, 0.1, StrainTable.WILD_TYPE);
+		int c = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_C, 0.5, 0.1, b);
+		int r = table.intern(Sensitivity.RESISTANT_TO_TREATMENT_C, 0.7, 0.1, c);
+
+		assertEquals(3, table.getGeneration(r));
+		assertEquals(c, table.getParent(r));
+		assertArrayEquals(new int[]{StrainTable.WILD_TYPE, b, c, r}, table.getLineage(r));
+		assertEquals(StrainTable.RESISTANT_A | StrainTable.RESISTANT_B | StrainTable.RESISTANT_C, table.getResistanceMask(r));
+		assertEquals(StrainTable.RESISTANT_A | StrainTable.RESISTANT_B, table.getResistanceMask(c));
+	}
+
+	@Test
+	void withoutDriftMutationsStayWithinSensitivityProfiles() {
+		StrainTable table = new StrainTable(0.0);
+		Random random = new Random(9);
+		int strain = StrainTable.WILD_TYPE;
+		for (int i = 0; i < 10000; i++) {
+			strain = table.mutate(strain, random);
+		}
+
+		assertEquals(Sensitivity.values().length, table.size());
+	}
+
+	@Test
+	void fullTableReturnsNearestStrainOfSameProfile() {
+		StrainTable table = new StrainTable(0.1, Sensitivity.values().length);
+		int low = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.2, 0.1, StrainTable.WILD_TYPE);
+		int high = table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.8, 0.1, StrainTable.WILD_TYPE);
+		for (int i = 0; table.size() < table.getMaxStrains(); i++) {
+			table.intern(Sensitivity.RESISTANT_TO_TREATMENT_C, 0.1 * i, 0.1, StrainTable.WILD_TYPE);
+		}
+
+		assertEquals(high, table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.7, 0.1, low));
+		assertEquals(low, table.intern(Sensitivity.SUSCEPTIBLE_TO_TREATMENT_B, 0.3, 0.1, high));
+		// Sin cepas de ese perfil, la salvaje
+		assertEquals(StrainTable.WILD_TYPE, table.intern(Sensitivity.RESISTANT_TO_TREATMENT_A, 0.5, 0.1, StrainTable.WILD_TYPE));
+		assertEquals(table.getMaxStrains(), table.size());
+	}
+
+	@Test
+	void importedStrainKeepsPhenotypeAndLineage() {
+		StrainTable source = new StrainTable(0.05);
+		Random random = new Random(4);
+		int strain = StrainTable.WILD_TYPE;
+		for (int i = 0; i < 50; i++) {
+			strain = source.mutate(strain, random);
+		}
+		StrainTable target = new StrainTable(0.05);
+		target.intern(Sensitivity.RESISTANT_TO_TREATMENT_B, 0.9, 0.2, StrainTable.WILD_TYPE);
+
+		int imported = target.importStrain(source, strain);
+
+		assertEquals(imported, target.importStrain(source, strain));
+		int[] sourceLineage = source.getLineage(strain);
+		int[] targetLineage = target.getLineage(imported);
+		assertTrue(targetLineage.length <= sourceLineage.length);
+		assertEquals(source.getSensitivity(strain), target.getSensitivity(imported));
+		assertEquals(source.getVirulence(strain), target.getVirulence(imported));
+		assertEquals(source.getReproductionRate(strain), target.getReproductionRate(imported));
+		assertEquals(strain, source.importStrain(source, strain));
+	}
+}
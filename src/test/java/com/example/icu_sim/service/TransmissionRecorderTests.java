@@ -0,0 +1,161 @@
+package com.example.icu_sim.service;
+
+import com.example.icu_sim.model.IcuSimulationRequest;
+import com.example.icu_sim.model.TransmissionReport;
+import com.example.icu_sim.model.TransmissionReport.Spreader;
+import com.example.icu_sim.model.TransmissionReport.TreeNode;
+import com.example.icu_sim.model.agents.HealthcareWorker;
+import com.example.icu_sim.model.agents.Patient;
+import com.example.icu_sim.model.data.Grid;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TransmissionRecorder sobre una cadena construida a mano (R efectivo por día, supercontagiadores, árbol y cadena
+ * de un agente) y coherencia del informe de una ejecución real.
+ */
+class TransmissionRecorderTests {
+
+	private final Grid grid = new Grid(3, 3);
+	private final Patient patient = new Patient("P1", grid.getCell(1, 0), 0.0, 0.0);
+	private final HealthcareWorker worker = new HealthcareWorker("W1", grid.getCell(1, 0), 0.5, 0.5, 0.0);
+
+	/**
+	 * Día 0: siembra en (0,0), que contamina (1,0) y (2,0). Día 1: desde (1,0) se colonizan P1 y W1 y se vuelve a
+	 * contaminar (2,0), que contamina (0,1).
+	 */
+	private TransmissionRecorder chain() {
+		TransmissionRecorder recorder = new TransmissionRecorder(grid);
+		recorder.setStep(0);
+		recorder.recordSeed(grid.getCell(0, 0), 0);
+		recorder.setStep(5);
+		recorder.recordEnvironment(grid.getCell(0, 0), grid.getCell(1, 0), 0);
+		recorder.setStep(10);
+		recorder.recordEnvironment(grid.getCell(0, 0), grid.getCell(2, 0), 0);
+		recorder.setStep(Patient.STEPS_PER_DAY + 6);
+		recorder.recordColonization(patient);
+		recorder.setStep(Patient.STEPS_PER_DAY + 16);
+		recorder.recordWorkerInfection(worker);
+		recorder.setStep(Patient.STEPS_PER_DAY + 21);
+		recorder.recordEnvironment(grid.getCell(1, 0), grid.getCell(2, 0), 0);
+		recorder.setStep(Patient.STEPS_PER_DAY + 22);
+		recorder.recordEnvironment(grid.getCell(2, 0), grid.getCell(0, 1), 0);
+		return recorder;
+	}
+
+	@Test
+	void effectiveRCountsSecondaryCasesByDayOfTheSourceEpisode() {
+		TransmissionRecorder recorder = chain();
+
+		assertEquals(7, recorder.getTransmissionCount());
+		// Día 0: 3 episodios con 2 + 3 secundarios (los de (0,0) y los de (1,0)); día 1: 4 episodios, solo la
+		// segunda contaminación de (2,0) tiene un secundario
+		List<Double> r = recorder.getEffectiveRByDay();
+		assertEquals(2, r.size());
+		assertEquals(5.0 / 3, r.get(0), 1e-12);
+		assertEquals(1.0 / 4, r.get(1), 1e-12);
+	}
+
+	@Test
+	void superSpreadersAreRankedBySecondaryCases() {
+		List<Spreader> top = chain().getSuperSpreaders(2);
+
+		assertEquals(2, top.size());
+		assertEquals("C(1,0)", top.get(0).getNode());
+		assertEquals(3, top.get(0).getSecondaryCases());
+		assertEquals("C(0,0)", top.get(1).getNode());
+		assertEquals(2, top.get(1).getSecondaryCases());
+	}
+
+	@Test
+	void treeFollowsTheEpisodeThatInfectedEachSource() {
+		TransmissionReport report = chain().buildReport(3, 100);
+
+		assertFalse(report.isTreesTruncated());
+		assertEquals(1, report.getTrees().size());
+		TreeNode root = report.getTrees().get(0);
+		assertNode(root, "C(0,0)", null, "SEED", 0);
+		assertEquals(2, root.getChildren().size());
+
+		TreeNode first = root.getChildren().get(0);
+		assertNode(first, "C(1,0)", "C(0,0)", "ENVIRONMENT", 5);
+		assertNode(root.getChildren().get(1), "C(2,0)", "C(0,0)", "ENVIRONMENT", 10);
+		assertTrue(root.getChildren().get(1).getChildren().isEmpty(), "el primer episodio de (2,0) no contagió");
+
+		// Hijos en orden de contagio
+		List<TreeNode> children = first.getChildren();
+		assertEquals(3, children.size());
+		assertNode(children.get(0), "P1", "C(1,0)", "COLONIZATION", Patient.STEPS_PER_DAY + 6);
+		assertNode(children.get(1), "W1", "C(1,0)", "WORKER", Patient.STEPS_PER_DAY + 16);
+		assertNode(children.get(2), "C(2,0)", "C(1,0)", "ENVIRONMENT", Patient.STEPS_PER_DAY + 21);
+		assertNode(children.get(2).getChildren().get(0), "C(0,1)", "C(2,0)", "ENVIRONMENT", Patient.STEPS_PER_DAY + 22);
+	}
+
+	@Test
+	void treeIsTruncatedAtMaxNodes() {
+		TransmissionReport report = chain().buildReport(3, 3);
+
+		assertTrue(report.isTreesTruncated());
+		assertEquals(3, countNodes(report.getTrees()));
+	}
+
+	@Test
+	void chainOfAnAgentStartsAtTheSeed() {
+		TransmissionRecorder recorder = chain();
+
+		List<TreeNode> chain = recorder.getChain(worker);
+		assertEquals(List.of("C(0,0)", "C(1,0)", "W1"), chain.stream().map(TreeNode::getNode).toList());
+		assertTrue(recorder.getChain(new Patient("P2", grid.getCell(2, 2), 0.0, 0.0)).isEmpty());
+	}
+
+	@Test
+	void reportOfARunCoversEveryTransmission() {
+		IcuSimulationRequest request = new IcuSimulationRequest();
+		request.setNPatients(30);
+		request.setNWorkers(8);
+		request.setMaxSteps(300);
+		request.setSeed(3);
+		TransmissionReport report = new IcuSimulationService().runTransmissionAnalysis(request, 5, Integer.MAX_VALUE);
+
+		assertTrue(report.getTransmissions() > request.getInitialInfectedCells());
+		assertFalse(report.isTreesTruncated());
+		assertEquals(report.getTransmissions(), countNodes(report.getTrees()));
+		for (TreeNode root : report.getTrees()) {
+			assertEquals("SEED", root.getKind());
+			assertSourcesMatchParents(root);
+		}
+	}
+
+	private static void assertNode(TreeNode node, String name, String source, String kind, int step) {
+		assertEquals(name, node.getNode());
+		if (source == null) {
+			assertNull(node.getSource());
+		} else {
+			assertEquals(source, node.getSource());
+		}
+		assertEquals(kind, node.getKind());
+		assertEquals(step, node.getStep());
+	}
+
+	private static void assertSourcesMatchParents(TreeNode node) {
+		for (TreeNode child : node.getChildren()) {
+			assertEquals(node.getNode(), child.getSource());
+			assertTrue(child.getStep() >= node.getStep());
+			assertSourcesMatchParents(child);
+		}
+	}
+
+	private static int countNodes(List<TreeNode> nodes) {
+		int count = 0;
+		for (TreeNode node : nodes) {
+			count += 1 + countNodes(node.getChildren());
+		}
+		return count;
+	}
+}